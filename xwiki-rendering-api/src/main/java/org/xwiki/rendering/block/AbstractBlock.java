@@ -20,8 +20,10 @@
 package org.xwiki.rendering.block;
 
 import java.security.InvalidParameterException;
-import java.util.ArrayList;
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -39,6 +41,7 @@
 import org.xwiki.rendering.listener.Listener;
 import org.xwiki.rendering.listener.MetaData;
 import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.stability.Unstable;
 
 /**
  * Implementation for Block operations. All blocks should extend this class. Supports the notion of generic parameters
@@ -49,6 +52,26 @@
  */
 public abstract class AbstractBlock implements Block
 {
+    /**
+     * Indicate if a block class relies on the {@link #traverse(Listener)} implementation of {@link AbstractBlock}.
+     */
+    private static final ClassValue<Boolean> DEFAULT_TRAVERSE = new ClassValue<Boolean>()
+    {
+        @Override
+        protected Boolean computeValue(Class<?> type)
+        {
+            if (AbstractBlock.class.isAssignableFrom(type)) {
+                try {
+                    return type.getMethod("traverse", Listener.class).getDeclaringClass() == AbstractBlock.class;
+                } catch (NoSuchMethodException e) {
+                    // Cannot happen since the method is declared by AbstractBlock
+                }
+            }
+
+            return false;
+        }
+    };
+
     /**
      * Store parameters, see {@link #getParameter(String)} for more explanations on what parameters are.
      */
@@ -62,7 +85,7 @@ public abstract class AbstractBlock implements Block
     /**
      * The Blocks this Block contains.
      */
-    private List<Block> childrenBlocks;
+    private ChildrenBlockList childrenBlocks;
 
     /**
      * The Block containing this Block.
@@ -79,6 +102,11 @@ public abstract class AbstractBlock implements Block
      */
     private Block previousSiblingBlock;
 
+    /**
+     * The fingerprint of the block, null if it was not computed yet or if the block was modified since.
+     */
+    private BlockFingerprint fingerprint;
+
     /**
      * Empty constructor to construct an empty block.
      */
@@ -147,31 +175,6 @@ public AbstractBlock(List<? extends Block> childrenBlocks, Map<String, String> p
         addChildren(childrenBlocks);
     }
 
-    /**
-     * Get the position of the provided block in the provided list of blocks.
-     * <p>
-     * Can't use {@link List#indexOf(Object)} since it's using {@link Object#equals(Object)} internally which is not
-     * what we want since two WordBlock with the same text or two spaces are equals for example but we want to be able
-     * to target one specific Block.
-     *
-     * @param block the block for which to find the position
-     * @param blocks the list of blocks in which to look for the passed block
-     * @return the position of the block, -1 if the block can't be found
-     */
-    private static int indexOfBlock(Block block, List<Block> blocks)
-    {
-        int position = 0;
-
-        for (Block child : blocks) {
-            if (child == block) {
-                return position;
-            }
-            ++position;
-        }
-
-        return -1;
-    }
-
     @Override
     public void addChild(Block blockToAdd)
     {
@@ -184,7 +187,7 @@ public void addChildren(List<? extends Block> blocksToAdd)
         if (!blocksToAdd.isEmpty()) {
             if (this.childrenBlocks == null) {
                 // Create the list with just the exact required size
-                this.childrenBlocks = new ArrayList<>(blocksToAdd.size());
+                this.childrenBlocks = new ChildrenBlockList(this, blocksToAdd.size());
             }
 
             for (Block blockToAdd : blocksToAdd) {
@@ -236,7 +239,7 @@ public void insertChildBefore(Block blockToInsert, Block nextBlock)
                 blockToInsert.setPreviousSiblingBlock(null);
 
                 if (this.childrenBlocks == null) {
-                    this.childrenBlocks = new ArrayList<>(1);
+                    this.childrenBlocks = new ChildrenBlockList(this, 1);
                 }
             }
             blockToInsert.setNextSiblingBlock(null);
@@ -253,7 +256,7 @@ public void insertChildBefore(Block blockToInsert, Block nextBlock)
             blockToInsert.setNextSiblingBlock(nextBlock);
             nextBlock.setPreviousSiblingBlock(blockToInsert);
             if (this.childrenBlocks == null || this.childrenBlocks.isEmpty()) {
-                this.childrenBlocks = new ArrayList<>(1);
+                this.childrenBlocks = new ChildrenBlockList(this, 1);
                 this.childrenBlocks.add(blockToInsert);
             } else {
                 this.childrenBlocks.add(indexOfChild(nextBlock), blockToInsert);
@@ -278,7 +281,7 @@ public void insertChildAfter(Block blockToInsert, Block previousBlock)
             blockToInsert.setPreviousSiblingBlock(previousBlock);
             previousBlock.setNextSiblingBlock(blockToInsert);
             if (this.childrenBlocks == null) {
-                this.childrenBlocks = new ArrayList<>(1);
+                this.childrenBlocks = new ChildrenBlockList(this, 1);
             }
             this.childrenBlocks.add(indexOfChild(previousBlock) + 1, blockToInsert);
         }
@@ -346,7 +349,7 @@ public void replaceChild(List<Block> newBlocks, Block oldBlock)
      */
     private int indexOfChild(Block block)
     {
-        return indexOfBlock(block, getChildren());
+        return this.childrenBlocks != null ? this.childrenBlocks.indexOfBlock(block) : -1;
     }
 
     /**
@@ -393,6 +396,8 @@ public String getParameter(String name)
     @Override
     public void setParameter(String name, String value)
     {
+        invalidateFingerprint();
+
         if (this.parameters == null) {
             this.parameters = new LinkedHashMap<>(1);
         }
@@ -403,8 +408,13 @@ public void setParameter(String name, String value)
     @Override
     public void setParameters(Map<String, String> parameters)
     {
+        invalidateFingerprint();
+
         if (this.parameters == null) {
-            this.parameters = new LinkedHashMap<>(parameters);
+            // Don't allocate anything for the (very common) blocks without parameters
+            if (!parameters.isEmpty()) {
+                this.parameters = new LinkedHashMap<>(parameters);
+            }
         } else {
             this.parameters.clear();
             this.parameters.putAll(parameters);
@@ -427,6 +437,8 @@ public Object getAttribute(String name)
     @Override
     public void setAttribute(String name, Object value)
     {
+        invalidateFingerprint();
+
         if (this.attributes == null) {
             this.attributes = new LinkedHashMap<>(1);
         }
@@ -437,8 +449,13 @@ public void setAttribute(String name, Object value)
     @Override
     public void setAttributes(Map<String, Object> attributes)
     {
+        invalidateFingerprint();
+
         if (this.attributes == null) {
-            this.attributes = new LinkedHashMap<>(attributes);
+            // Don't allocate anything for the (very common) blocks without attributes
+            if (!attributes.isEmpty()) {
+                this.attributes = new LinkedHashMap<>(attributes);
+            }
         } else {
             this.attributes.clear();
             this.attributes.putAll(attributes);
@@ -479,12 +496,11 @@ public Block getPreviousSibling()
     public void removeBlock(Block childBlockToRemove)
     {
         // Remove block
-        List<Block> children = getChildren();
-        int position = indexOfBlock(childBlockToRemove, children);
+        int position = indexOfChild(childBlockToRemove);
         if (position == -1) {
             throw new InvalidParameterException("Provided Block to remove is not a child");
         }
-        getChildren().remove(position);
+        this.childrenBlocks.remove(position);
 
         // Re-calculate internal links between blocks
         if (childBlockToRemove != null) {
@@ -555,15 +571,22 @@ public Block clone(BlockFilter blockFilter)
             throw new RuntimeException("Failed to clone object", e);
         }
 
+        // The copy starts without a fingerprint. It still references the same parent at this point, so it's detached
+        // while it's modified below to not invalidate the fingerprints of the ancestors of this block.
+        ((AbstractBlock) block).fingerprint = null;
+        ((AbstractBlock) block).parentBlock = null;
+
         if (this.parameters != null) {
-            ((AbstractBlock) block).parameters = new LinkedHashMap<>(this.parameters);
+            ((AbstractBlock) block).parameters =
+                this.parameters.isEmpty() ? null : new LinkedHashMap<>(this.parameters);
         }
 
         // Clone attribute values if possible as documented in getAttribute().
         this.getAttributes().forEach((key, value) -> block.setAttribute(key, ObjectUtils.cloneIfPossible(value)));
 
         if (this.childrenBlocks != null) {
-            ((AbstractBlock) block).childrenBlocks = new ArrayList<>(this.childrenBlocks.size());
+            ((AbstractBlock) block).childrenBlocks =
+                new ChildrenBlockList((AbstractBlock) block, this.childrenBlocks.size());
             for (Block childBlock : this.childrenBlocks) {
                 if (blockFilter != null) {
                     Block clonedChildBlocks = childBlock.clone(blockFilter);
@@ -581,19 +604,85 @@ public Block clone(BlockFilter blockFilter)
             }
         }
 
+        ((AbstractBlock) block).parentBlock = this.parentBlock;
+
         return block;
     }
 
+    /**
+     * @param block the block
+     * @return true if the block is an {@link AbstractBlock} relying on the default implementation of
+     *         {@link #traverse(Listener)}
+     */
+    static boolean hasDefaultTraverse(Block block)
+    {
+        return DEFAULT_TRAVERSE.get(block.getClass());
+    }
+
+    /**
+     * @return the capacity of the children list, -1 if no list was allocated
+     */
+    int getChildrenCapacity()
+    {
+        return this.childrenBlocks != null ? this.childrenBlocks.capacity() : -1;
+    }
+
+    BlockFingerprint getCachedFingerprint()
+    {
+        return this.fingerprint;
+    }
+
+    void setCachedFingerprint(BlockFingerprint fingerprint)
+    {
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Indicate that the content of the block changed and that its fingerprint (and the one of its ancestors) needs to
+     * be computed again. Blocks holding their own modifiable state should call this method when it's modified.
+     *
+     * @since 17.9.0RC1
+     */
+    @Unstable
+    protected void invalidateFingerprint()
+    {
+        // Go up to the root since an ancestor can have a fingerprint even if this block does not have one (e.g. when
+        // the fingerprint of the ancestor was computed by traversing it)
+        for (Block block = this; block != null; block = block.getParent()) {
+            if (block instanceof AbstractBlock) {
+                ((AbstractBlock) block).fingerprint = null;
+            }
+        }
+    }
+
     @Override
     public void traverse(Listener listener)
     {
         before(listener);
 
-        for (Block block : getChildren()) {
-            block.traverse(listener);
+        // Iterate on the tree instead of calling #traverse recursively to support any depth of blocks. Children which
+        // customize #traverse are still asked to traverse themselves.
+        Deque<AbstractBlock> blocks = new ArrayDeque<>();
+        Deque<Iterator<Block>> iterators = new ArrayDeque<>();
+        blocks.push(this);
+        iterators.push(getChildren().iterator());
+        while (!iterators.isEmpty()) {
+            Iterator<Block> iterator = iterators.peek();
+            if (iterator.hasNext()) {
+                Block child = iterator.next();
+                if (hasDefaultTraverse(child)) {
+                    AbstractBlock childBlock = (AbstractBlock) child;
+                    childBlock.before(listener);
+                    blocks.push(childBlock);
+                    iterators.push(childBlock.getChildren().iterator());
+                } else {
+                    child.traverse(listener);
+                }
+            } else {
+                iterators.pop();
+                blocks.pop().after(listener);
+            }
         }
-
-        after(listener);
     }
 
     /**
@@ -23,12 +23,17 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Spliterator;
 import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.xwiki.component.util.DefaultParameterizedType;
+import org.xwiki.rendering.block.match.AxesSpliterator;
 import org.xwiki.rendering.block.match.BlockMatcher;
 import org.xwiki.rendering.listener.Listener;
 import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.stability.Unstable;
 
 /**
  * Represents an element of a XWiki Document's content. For example there are Blocks for Paragraphs, Bold parts,
@@ -373,4 +378,58 @@ default <T> Optional<T> get(Function<Block, Optional<T>> searcher, Axes axes)
     {
         return Optional.empty();
     }
+
+    /**
+     * Get a structural hash of the block and its descendants, to be used for example as a cache key.
+     * <p>
+     * Block values of attributes are hashed through their own fingerprint. Other values are hashed through their
+     * {@link Object#toString()} when it's overwritten, and only through their type otherwise (their identity is not
+     * taken into account).
+     * <p>
+     * The fingerprint of an {@link AbstractBlock} is remembered until the block or one of its descendants is modified
+     * through the methods of {@link AbstractBlock}. Modifying in place an object held by a block (a
+     * {@link org.xwiki.rendering.listener.reference.ResourceReference}, a
+     * {@link org.xwiki.rendering.listener.MetaData}, the value of a parameter or attribute, etc.) does not invalidate
+     * anything: the value has to be set again on the block. The fingerprint of a block holding blocks in its
+     * attributes, and of its ancestors, is not remembered since the blocks stored in attributes are not linked to
+     * their owner.
+     *
+     * @return the fingerprint of the block and its descendants
+     * @since 17.9.0RC1
+     */
+    @Unstable
+    default BlockFingerprint getFingerprint()
+    {
+        return BlockHasher.fingerprint(this);
+    }
+
+    /**
+     * Lazily navigate the blocks in the provided {@link Axes}, without recursion.
+     *
+     * @param axes indicate the navigation axes
+     * @return a {@link Spliterator} over the blocks in the provided axes, in the same order as
+     *         {@link #getBlocks(BlockMatcher, Axes)}
+     * @since 17.9.0RC1
+     */
+    @Unstable
+    default Spliterator<Block> spliterator(Axes axes)
+    {
+        return new AxesSpliterator(this, axes);
+    }
+
+    /**
+     * Lazily navigate the blocks in the provided {@link Axes}, without recursion. The blocks are only accessed when
+     * consumed so the navigation stops as soon as the stream is short-circuited (for example with
+     * {@link Stream#findFirst()}).
+     *
+     * @param axes indicate the navigation axes
+     * @return a sequential {@link Stream} of the blocks in the provided axes, in the same order as
+     *         {@link #getBlocks(BlockMatcher, Axes)}
+     * @since 17.9.0RC1
+     */
+    @Unstable
+    default Stream<Block> stream(Axes axes)
+    {
+        return StreamSupport.stream(spliterator(axes), false);
+    }
 }
@@ -0,0 +1,109 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.block;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * A 128-bit structural hash of a {@link Block} and its descendants, computed from the type of the blocks, their
+ * parameters, attributes and content (as sent to a {@link org.xwiki.rendering.listener.Listener}). Two equal trees of
+ * blocks have the same fingerprint, whatever their parents.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ * @see Block#getFingerprint()
+ */
+@Unstable
+public final class BlockFingerprint
+{
+    private static final int HEX_LENGTH = 16;
+
+    private final long high;
+
+    private final long low;
+
+    /**
+     * @param high the 64 most significant bits of the fingerprint
+     * @param low the 64 least significant bits of the fingerprint
+     */
+    public BlockFingerprint(long high, long low)
+    {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * @return the 64 most significant bits of the fingerprint
+     */
+    public long getHigh()
+    {
+        return this.high;
+    }
+
+    /**
+     * @return the 64 least significant bits of the fingerprint
+     */
+    public long getLow()
+    {
+        return this.low;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (obj == this) {
+            return true;
+        }
+
+        if (obj instanceof BlockFingerprint) {
+            BlockFingerprint other = (BlockFingerprint) obj;
+
+            return this.high == other.high && this.low == other.low;
+        }
+
+        return false;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Long.hashCode(this.high ^ this.low);
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder(HEX_LENGTH * 2);
+
+        appendHex(builder, this.high);
+        appendHex(builder, this.low);
+
+        return builder.toString();
+    }
+
+    private static void appendHex(StringBuilder builder, long value)
+    {
+        String hex = Long.toHexString(value);
+        for (int i = hex.length(); i < HEX_LENGTH; ++i) {
+            builder.append('0');
+        }
+        builder.append(hex);
+    }
+}
@@ -0,0 +1,762 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.block;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.xwiki.rendering.listener.Format;
+import org.xwiki.rendering.listener.HeaderLevel;
+import org.xwiki.rendering.listener.ListType;
+import org.xwiki.rendering.listener.Listener;
+import org.xwiki.rendering.listener.MetaData;
+import org.xwiki.rendering.listener.chaining.EventType;
+import org.xwiki.rendering.listener.reference.ResourceReference;
+import org.xwiki.rendering.syntax.Syntax;
+
+/**
+ * Compute the {@link BlockFingerprint} of blocks.
+ * <p>
+ * The content of a block is hashed through the events it sends to a {@link Listener}, so that any kind of block is
+ * supported. The hash function is a 128-bit variant of MurmurHash3 applied to a sequence of longs.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+final class BlockHasher implements Listener
+{
+    private static final long C1 = 0x87c37b91114253d5L;
+
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    // Tags used to distinguish the various kinds of values
+
+    private static final long NULL = 0;
+
+    private static final long STRING = 1;
+
+    private static final long NUMBER = 2;
+
+    private static final long MAP = 3;
+
+    private static final long COLLECTION = 4;
+
+    private static final long OBJECT = 5;
+
+    private static final long EVENT = 6;
+
+    private static final long CHILD = 7;
+
+    private static final long BLOCK_END = 8;
+
+    private static final long BLOCK = 9;
+
+    private static final long OPAQUE = 10;
+
+    /**
+     * Indicate if the {@link Object#toString()} of a type represents its value, i.e. if it's overwritten.
+     */
+    private static final ClassValue<Boolean> VALUE_TO_STRING = new ClassValue<>()
+    {
+        @Override
+        protected Boolean computeValue(Class<?> type)
+        {
+            try {
+                return type.getMethod("toString").getDeclaringClass() != Object.class;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
+
+    private long h1;
+
+    private long h2;
+
+    private long length;
+
+    /**
+     * The state of the computation of the fingerprint of a block with children.
+     *
+     * @version $Id$
+     */
+    private static final class Frame
+    {
+        private final AbstractBlock block;
+
+        private final Iterator<Block> children;
+
+        private final BlockHasher hasher = new BlockHasher();
+
+        /**
+         * Indicate if the fingerprint can be remembered, i.e. if any change impacting it would invalidate it.
+         */
+        private boolean cacheable;
+
+        Frame(AbstractBlock block)
+        {
+            this.block = block;
+            this.children = block.getChildren().iterator();
+            this.cacheable = !hasBlockAttributes(block);
+
+            this.hasher.updateHeader(block);
+            block.before(this.hasher);
+        }
+
+        BlockFingerprint finish()
+        {
+            this.block.after(this.hasher);
+            this.hasher.update(BLOCK_END);
+
+            return this.hasher.finish();
+        }
+    }
+
+    /**
+     * @param block the block
+     * @return the fingerprint of the block and its descendants
+     */
+    static BlockFingerprint fingerprint(Block block)
+    {
+        BlockFingerprint fingerprint = getCached(block);
+        if (fingerprint != null) {
+            return fingerprint;
+        }
+
+        if (!AbstractBlock.hasDefaultTraverse(block)) {
+            return fingerprintLeaf(block);
+        }
+
+        // Iterate on the tree instead of computing the fingerprint of the children recursively to support any depth
+        Deque<Frame> frames = new ArrayDeque<>();
+        frames.push(new Frame((AbstractBlock) block));
+        while (true) {
+            Frame frame = frames.peek();
+            if (frame.children.hasNext()) {
+                Block child = frame.children.next();
+                BlockFingerprint childFingerprint = getCached(child);
+                if (childFingerprint == null) {
+                    if (AbstractBlock.hasDefaultTraverse(child)) {
+                        frames.push(new Frame((AbstractBlock) child));
+                        continue;
+                    }
+                    childFingerprint = fingerprintLeaf(child);
+                    frame.cacheable &= getCached(child) != null;
+                }
+                frame.hasher.update(CHILD);
+                frame.hasher.update(childFingerprint);
+            } else {
+                frames.pop();
+                fingerprint = frame.finish();
+                if (frame.cacheable) {
+                    frame.block.setCachedFingerprint(fingerprint);
+                }
+
+                if (frames.isEmpty()) {
+                    return fingerprint;
+                }
+
+                Frame parentFrame = frames.peek();
+                parentFrame.cacheable &= frame.cacheable;
+                parentFrame.hasher.update(CHILD);
+                parentFrame.hasher.update(fingerprint);
+            }
+        }
+    }
+
+    /**
+     * Compute the fingerprint of a block which is in charge of sending the events of its descendants itself.
+     */
+    private static BlockFingerprint fingerprintLeaf(Block block)
+    {
+        BlockHasher hasher = new BlockHasher();
+        hasher.updateHeader(block);
+        block.traverse(hasher);
+        hasher.update(BLOCK_END);
+
+        BlockFingerprint fingerprint = hasher.finish();
+        // The descendants sending their events through this block are linked to it so their modifications still
+        // invalidate this fingerprint
+        if (block instanceof AbstractBlock && !hasBlockAttributes(block)) {
+            ((AbstractBlock) block).setCachedFingerprint(fingerprint);
+        }
+
+        return fingerprint;
+    }
+
+    /**
+     * @return true if the attributes of the block contain blocks, whose modifications don't invalidate the fingerprint
+     *         of the block since they are not linked to it
+     */
+    private static boolean hasBlockAttributes(Block block)
+    {
+        for (Object value : block.getAttributes().values()) {
+            if (containsBlock(value)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean containsBlock(Object value)
+    {
+        if (value instanceof Block) {
+            return true;
+        } else if (value instanceof Collection) {
+            for (Object element : (Collection<?>) value) {
+                if (containsBlock(element)) {
+                    return true;
+                }
+            }
+        } else if (value instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (containsBlock(entry.getKey()) || containsBlock(entry.getValue())) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private static BlockFingerprint getCached(Block block)
+    {
+        return block instanceof AbstractBlock ? ((AbstractBlock) block).getCachedFingerprint() : null;
+    }
+
+    private void updateHeader(Block block)
+    {
+        update(block.getClass().getName());
+        update(block.getParameters());
+        update(block.getAttributes());
+    }
+
+    private void update(long value)
+    {
+        long k1 = value * C1;
+        k1 = Long.rotateLeft(k1, 31);
+        k1 *= C2;
+        this.h1 ^= k1;
+        this.h1 = Long.rotateLeft(this.h1, 27);
+        this.h1 += this.h2;
+        this.h1 = this.h1 * 5 + 0x52dce729;
+
+        long k2 = value * C2;
+        k2 = Long.rotateLeft(k2, 33);
+        k2 *= C1;
+        this.h2 ^= k2;
+        this.h2 = Long.rotateLeft(this.h2, 31);
+        this.h2 += this.h1;
+        this.h2 = this.h2 * 5 + 0x38495ab5;
+
+        ++this.length;
+    }
+
+    private void update(BlockFingerprint fingerprint)
+    {
+        update(fingerprint.getHigh());
+        update(fingerprint.getLow());
+    }
+
+    private void update(String value)
+    {
+        update(STRING);
+        update(value.length());
+
+        // Pack 4 characters in each long
+        long packed = 0;
+        int i = 0;
+        for (; i < value.length(); ++i) {
+            packed = (packed << Character.SIZE) | value.charAt(i);
+            if (i % 4 == 3) {
+                update(packed);
+                packed = 0;
+            }
+        }
+        if (i % 4 != 0) {
+            update(packed);
+        }
+    }
+
+    private void update(Map<?, ?> map)
+    {
+        update(MAP);
+        update(map.size());
+
+        // Maps are equal whatever the order of their entries
+        long high = 0;
+        long low = 0;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            BlockHasher entryHasher = new BlockHasher();
+            entryHasher.update(entry.getKey());
+            entryHasher.update(entry.getValue());
+            BlockFingerprint entryFingerprint = entryHasher.finish();
+            high += entryFingerprint.getHigh();
+            low += entryFingerprint.getLow();
+        }
+        update(high);
+        update(low);
+    }
+
+    private void update(Object value)
+    {
+        if (value == null) {
+            update(NULL);
+        } else if (value instanceof String) {
+            update((String) value);
+        } else if (value instanceof Boolean) {
+            update(NUMBER);
+            update(Boolean.TRUE.equals(value) ? 1 : 0);
+        } else if (value instanceof Character) {
+            update(NUMBER);
+            update(((Character) value).charValue());
+        } else if (value instanceof Integer || value instanceof Long) {
+            update(NUMBER);
+            update(((Number) value).longValue());
+        } else if (value instanceof Enum) {
+            update(((Enum<?>) value).name());
+        } else if (value instanceof Map) {
+            update((Map<?, ?>) value);
+        } else if (value instanceof Collection) {
+            update(COLLECTION);
+            update(((Collection<?>) value).size());
+            for (Object element : (Collection<?>) value) {
+                update(element);
+            }
+        } else if (value instanceof Syntax) {
+            update(((Syntax) value).toIdString());
+        } else if (value instanceof MetaData) {
+            update(((MetaData) value).getMetaData());
+        } else if (value instanceof ResourceReference) {
+            ResourceReference reference = (ResourceReference) value;
+            update(reference.getClass().getName());
+            update(reference.getType().getScheme());
+            update(reference.getReference());
+            update(reference.isTyped());
+            update(reference.getBaseReferences());
+            update(reference.getParameters());
+        } else if (value instanceof Block) {
+            // Blocks stored in attributes (e.g. prepared macro contents) are compared through their own structure
+            update(BLOCK);
+            update(fingerprint((Block) value));
+        } else if (VALUE_TO_STRING.get(value.getClass())) {
+            update(OBJECT);
+            update(value.getClass().getName());
+            update(value.toString());
+        } else {
+            // The identity of an opaque object is not part of the structure of the block: only its type is
+            update(OPAQUE);
+            update(value.getClass().getName());
+        }
+    }
+
+    private void event(EventType type, Object... parameters)
+    {
+        update(EVENT);
+        update(type.ordinal());
+        for (Object parameter : parameters) {
+            update(parameter);
+        }
+    }
+
+    private BlockFingerprint finish()
+    {
+        this.h1 ^= this.length;
+        this.h2 ^= this.length;
+
+        this.h1 += this.h2;
+        this.h2 += this.h1;
+
+        this.h1 = mix(this.h1);
+        this.h2 = mix(this.h2);
+
+        this.h1 += this.h2;
+        this.h2 += this.h1;
+
+        return new BlockFingerprint(this.h1, this.h2);
+    }
+
+    private static long mix(long value)
+    {
+        long k = value;
+
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+
+        return k;
+    }
+
+    // Events
+
+    @Override
+    public void beginDefinitionDescription()
+    {
+        event(EventType.BEGIN_DEFINITION_DESCRIPTION);
+    }
+
+    @Override
+    public void beginDefinitionList(Map<String, String> parameters)
+    {
+        event(EventType.BEGIN_DEFINITION_LIST, parameters);
+    }
+
+    @Override
+    public void beginDefinitionTerm()
+    {
+        event(EventType.BEGIN_DEFINITION_TERM);
+    }
+
+    @Override
+    public void beginDocument(MetaData metadata)
+    {
+        event(EventType.BEGIN_DOCUMENT, metadata);
+    }
+
+    @Override
+    public void beginGroup(Map<String, String> parameters)
+    {
+        event(EventType.BEGIN_GROUP, parameters);
+    }
+
+    @Override
+    public void beginFormat(Format format, Map<String, String> parameters)
+    {
+        event(EventType.BEGIN_FORMAT, format, parameters);
+    }
+
+    @Override
+    public void beginHeader(HeaderLevel level, String id, Map<String, String> parameters)
+    {
+        event(EventType.BEGIN_HEADER, level, id, parameters);
+    }
+
+    @Override
+    public void beginLink(ResourceReference reference, boolean freestanding, Map<String, String> parameters)
+    {
+        event(EventType.BEGIN_LINK, reference, freestanding, parameters);
+    }
+
+    @Override
+    public void beginList(ListType type, Map<String, String> parameters)
+    {
+        event(EventType.BEGIN_LIST, type, parameters);
+    }
+
+    @Override
+    public void beginListItem()
+    {
+        event(EventType.BEGIN_LIST_ITEM);
+    }
+
+    @Override
+    public void beginListItem(Map<String, String> parameters)
+    {
+        event(EventType.BEGIN_LIST_ITEM, parameters);
+    }
+
+    @Override
+    public void beginMacroMarker(String name, Map<String, String> parameters, String content, boolean isInline)
+    {
+        event(EventType.BEGIN_MACRO_MARKER, name, parameters, content, isInline);
+    }
+
+    @Override
+    public void beginParagraph(Map<String, String> parameters)
+    {
+        event(EventType.BEGIN_PARAGRAPH, parameters);
+    }
+
+    @Override
+    public void beginQuotation(Map<String, String> parameters)
+    {
+        event(EventType.BEGIN_QUOTATION, parameters);
+    }
+
+    @Override
+    public void beginQuotationLine()
+    {
+        event(EventType.BEGIN_QUOTATION_LINE);
+    }
+
+    @Override
+    public void beginSection(Map<String, String> parameters)
+    {
+        event(EventType.BEGIN_SECTION, parameters);
+    }
+
+    @Override
+    public void beginTable(Map<String, String> parameters)
+    {
+        event(EventType.BEGIN_TABLE, parameters);
+    }
+
+    @Override
+    public void beginTableCell(Map<String, String> parameters)
+    {
+        event(EventType.BEGIN_TABLE_CELL, parameters);
+    }
+
+    @Override
+    public void beginTableHeadCell(Map<String, String> parameters)
+    {
+        event(EventType.BEGIN_TABLE_HEAD_CELL, parameters);
+    }
+
+    @Override
+    public void beginTableRow(Map<String, String> parameters)
+    {
+        event(EventType.BEGIN_TABLE_ROW, parameters);
+    }
+
+    @Override
+    public void beginMetaData(MetaData metadata)
+    {
+        event(EventType.BEGIN_METADATA, metadata);
+    }
+
+    @Override
+    public void endDefinitionDescription()
+    {
+        event(EventType.END_DEFINITION_DESCRIPTION);
+    }
+
+    @Override
+    public void endDefinitionList(Map<String, String> parameters)
+    {
+        event(EventType.END_DEFINITION_LIST, parameters);
+    }
+
+    @Override
+    public void endDefinitionTerm()
+    {
+        event(EventType.END_DEFINITION_TERM);
+    }
+
+    @Override
+    public void endDocument(MetaData metadata)
+    {
+        event(EventType.END_DOCUMENT, metadata);
+    }
+
+    @Override
+    public void endGroup(Map<String, String> parameters)
+    {
+        event(EventType.END_GROUP, parameters);
+    }
+
+    @Override
+    public void endFormat(Format format, Map<String, String> parameters)
+    {
+        event(EventType.END_FORMAT, format, parameters);
+    }
+
+    @Override
+    public void endHeader(HeaderLevel level, String id, Map<String, String> parameters)
+    {
+        event(EventType.END_HEADER, level, id, parameters);
+    }
+
+    @Override
+    public void endLink(ResourceReference reference, boolean freestanding, Map<String, String> parameters)
+    {
+        event(EventType.END_LINK, reference, freestanding, parameters);
+    }
+
+    @Override
+    public void endList(ListType type, Map<String, String> parameters)
+    {
+        event(EventType.END_LIST, type, parameters);
+    }
+
+    @Override
+    public void endListItem()
+    {
+        event(EventType.END_LIST_ITEM);
+    }
+
+    @Override
+    public void endListItem(Map<String, String> parameters)
+    {
+        event(EventType.END_LIST_ITEM, parameters);
+    }
+
+    @Override
+    public void endMacroMarker(String name, Map<String, String> parameters, String content, boolean isInline)
+    {
+        event(EventType.END_MACRO_MARKER, name, parameters, content, isInline);
+    }
+
+    @Override
+    public void endParagraph(Map<String, String> parameters)
+    {
+        event(EventType.END_PARAGRAPH, parameters);
+    }
+
+    @Override
+    public void endQuotation(Map<String, String> parameters)
+    {
+        event(EventType.END_QUOTATION, parameters);
+    }
+
+    @Override
+    public void endQuotationLine()
+    {
+        event(EventType.END_QUOTATION_LINE);
+    }
+
+    @Override
+    public void beginFigure(Map<String, String> parameters)
+    {
+        event(EventType.BEGIN_FIGURE, parameters);
+    }
+
+    @Override
+    public void endFigure(Map<String, String> parameters)
+    {
+        event(EventType.END_FIGURE, parameters);
+    }
+
+    @Override
+    public void beginFigureCaption(Map<String, String> parameters)
+    {
+        event(EventType.BEGIN_FIGURE_CAPTION, parameters);
+    }
+
+    @Override
+    public void endFigureCaption(Map<String, String> parameters)
+    {
+        event(EventType.END_FIGURE_CAPTION, parameters);
+    }
+
+    @Override
+    public void endSection(Map<String, String> parameters)
+    {
+        event(EventType.END_SECTION, parameters);
+    }
+
+    @Override
+    public void endTable(Map<String, String> parameters)
+    {
+        event(EventType.END_TABLE, parameters);
+    }
+
+    @Override
+    public void endTableCell(Map<String, String> parameters)
+    {
+        event(EventType.END_TABLE_CELL, parameters);
+    }
+
+    @Override
+    public void endTableHeadCell(Map<String, String> parameters)
+    {
+        event(EventType.END_TABLE_HEAD_CELL, parameters);
+    }
+
+    @Override
+    public void endTableRow(Map<String, String> parameters)
+    {
+        event(EventType.END_TABLE_ROW, parameters);
+    }
+
+    @Override
+    public void endMetaData(MetaData metadata)
+    {
+        event(EventType.END_METADATA, metadata);
+    }
+
+    @Override
+    public void onRawText(String text, Syntax syntax)
+    {
+        event(EventType.ON_RAW_TEXT, text, syntax);
+    }
+
+    @Override
+    public void onEmptyLines(int count)
+    {
+        event(EventType.ON_EMPTY_LINES, count);
+    }
+
+    @Override
+    public void onHorizontalLine(Map<String, String> parameters)
+    {
+        event(EventType.ON_HORIZONTAL_LINE, parameters);
+    }
+
+    @Override
+    public void onId(String name)
+    {
+        event(EventType.ON_ID, name);
+    }
+
+    @Override
+    public void onImage(ResourceReference reference, boolean freestanding, Map<String, String> parameters)
+    {
+        event(EventType.ON_IMAGE, reference, freestanding, parameters);
+    }
+
+    @Override
+    public void onImage(ResourceReference reference, boolean freestanding, String id, Map<String, String> parameters)
+    {
+        event(EventType.ON_IMAGE, reference, freestanding, id, parameters);
+    }
+
+    @Override
+    public void onMacro(String id, Map<String, String> parameters, String content, boolean inline)
+    {
+        event(EventType.ON_MACRO, id, parameters, content, inline);
+    }
+
+    @Override
+    public void onNewLine()
+    {
+        event(EventType.ON_NEW_LINE);
+    }
+
+    @Override
+    public void onSpace()
+    {
+        event(EventType.ON_SPACE);
+    }
+
+    @Override
+    public void onSpecialSymbol(char symbol)
+    {
+        event(EventType.ON_SPECIAL_SYMBOL, symbol);
+    }
+
+    @Override
+    public void onVerbatim(String content, boolean inline, Map<String, String> parameters)
+    {
+        event(EventType.ON_VERBATIM, content, inline, parameters);
+    }
+
+    @Override
+    public void onWord(String word)
+    {
+        event(EventType.ON_WORD, word);
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.block;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.xwiki.rendering.listener.reference.ResourceType;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.rendering.syntax.SyntaxType;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Estimate the heap retained by a tree of blocks, for example to weight the entries of a cache of {@link XDOM}s.
+ * <p>
+ * The estimation assumes a 64-bit JVM with compressed references (12 bytes object headers, 4 bytes references, 8 bytes
+ * alignment) and Latin-1 compact strings. It covers the blocks, their children lists, parameters and attributes and
+ * what the blocks reference (strings, maps, lists, resource references, metadata, etc.), objects expected to be shared
+ * (enums, syntaxes, resource types, boxed values) being ignored. A {@link String} instance referenced several times
+ * is (mostly) counted only once. The blocks stored in the attributes of a block (directly or in a collection) are
+ * owned by it and estimated as trees, while the blocks referenced by other fields are expected to be part of the
+ * same tree.
+ * <p>
+ * The tree is navigated through the parent and sibling links of the blocks (no stack is needed whatever the depth of
+ * the tree) and the layout of each class is analyzed only once. The table used to recognize the strings already
+ * counted is allocated with the estimator and reused by each estimation, so an estimation only allocates the iterators
+ * of the maps and collections it walks through. An instance is not thread safe but can be reused.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+@Unstable
+public class BlockSizeEstimator
+{
+    private static final int HEADER = 12;
+
+    private static final int ARRAY_HEADER = 16;
+
+    private static final int REFERENCE = 4;
+
+    private static final int STRING = 24;
+
+    private static final int HASH_MAP = 56;
+
+    private static final int MAP_ENTRY = 40;
+
+    private static final int ARRAY_LIST = 24;
+
+    private static final int FINGERPRINT = 32;
+
+    private static final int CHILDREN_LIST = 32;
+
+    /**
+     * How deep to go in the objects referenced by a block, and in the trees of blocks stored in attributes.
+     */
+    private static final int MAX_DEPTH = 4;
+
+    private static final int SEEN_STRINGS = 4096;
+
+    private static final Field[] NO_FIELDS = new Field[0];
+
+    /**
+     * The size of the instances of each class, excluding what they reference.
+     */
+    private static final ClassValue<Long> SHALLOW_SIZES = new ClassValue<Long>()
+    {
+        @Override
+        protected Long computeValue(Class<?> type)
+        {
+            long size = HEADER;
+            for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        size += getFieldSize(field.getType());
+                    }
+                }
+            }
+
+            return align(size);
+        }
+    };
+
+    /**
+     * The reference fields to follow for each class (the fields of {@link AbstractBlock} are handled separately).
+     */
+    private static final ClassValue<Field[]> FIELDS = new ClassValue<Field[]>()
+    {
+        @Override
+        protected Field[] computeValue(Class<?> type)
+        {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> current = type; current != null && current != AbstractBlock.class
+                && current != Object.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive()
+                        && field.trySetAccessible()) {
+                        fields.add(field);
+                    }
+                }
+            }
+
+            return fields.isEmpty() ? NO_FIELDS : fields.toArray(NO_FIELDS);
+        }
+    };
+
+    private final Object[] seenStrings = new Object[SEEN_STRINGS];
+
+    /**
+     * The number of trees of blocks stored in attributes being currently estimated inside each other.
+     */
+    private int attributeTrees;
+
+    private static long align(long size)
+    {
+        return (size + 7) & ~7L;
+    }
+
+    private static int getFieldSize(Class<?> type)
+    {
+        if (type == long.class || type == double.class) {
+            return 8;
+        } else if (type == int.class || type == float.class) {
+            return 4;
+        } else if (type == short.class || type == char.class) {
+            return 2;
+        } else if (type == byte.class || type == boolean.class) {
+            return 1;
+        }
+
+        return REFERENCE;
+    }
+
+    /**
+     * @param block the root of the tree of blocks
+     * @return the estimated number of bytes retained by the block and its descendants
+     */
+    public long estimate(Block block)
+    {
+        Arrays.fill(this.seenStrings, null);
+        this.attributeTrees = 0;
+
+        return estimateTree(block);
+    }
+
+    private long estimateTree(Block block)
+    {
+        long size = 0;
+
+        // Navigate the tree in document order through the parent and sibling links
+        Block current = block;
+        while (current != null) {
+            size += estimateBlock(current);
+
+            List<Block> children = current.getChildren();
+            if (!children.isEmpty()) {
+                current = children.get(0);
+            } else {
+                while (current != block && current != null && current.getNextSibling() == null) {
+                    current = current.getParent();
+                }
+                current = current == block || current == null ? null : current.getNextSibling();
+            }
+        }
+
+        return size;
+    }
+
+    private long estimateBlock(Block block)
+    {
+        long size = SHALLOW_SIZES.get(block.getClass());
+
+        if (block instanceof AbstractBlock) {
+            AbstractBlock abstractBlock = (AbstractBlock) block;
+
+            size += estimateObject(abstractBlock.getParameters(), MAX_DEPTH);
+            size += estimateAttributes(abstractBlock.getAttributes());
+
+            int capacity = abstractBlock.getChildrenCapacity();
+            if (capacity >= 0) {
+                size += CHILDREN_LIST + align(ARRAY_HEADER + (long) capacity * REFERENCE);
+            }
+
+            if (abstractBlock.getCachedFingerprint() != null) {
+                size += FINGERPRINT;
+            }
+        }
+
+        return size + estimateFields(block, MAX_DEPTH);
+    }
+
+    private long estimateAttributes(Map<String, Object> attributes)
+    {
+        // The blocks found in the attributes are skipped here
+        long size = estimateObject(attributes, MAX_DEPTH);
+
+        for (Object value : attributes.values()) {
+            if (value instanceof Block) {
+                size += estimateAttributeTree((Block) value);
+            } else if (value instanceof Collection) {
+                for (Object element : (Collection<?>) value) {
+                    if (element instanceof Block) {
+                        size += estimateAttributeTree((Block) element);
+                    }
+                }
+            }
+        }
+
+        return size;
+    }
+
+    private long estimateAttributeTree(Block block)
+    {
+        // Limit the nesting, in case some blocks are (wrongly) stored in the attributes of their own descendants
+        if (this.attributeTrees >= MAX_DEPTH) {
+            return 0;
+        }
+
+        ++this.attributeTrees;
+        try {
+            return estimateTree(block);
+        } finally {
+            --this.attributeTrees;
+        }
+    }
+
+    private long estimateFields(Object object, int depth)
+    {
+        long size = 0;
+
+        for (Field field : FIELDS.get(object.getClass())) {
+            try {
+                size += estimateObject(field.get(object), depth);
+            } catch (IllegalAccessException e) {
+                // Should not happen since the field was made accessible, just ignore it
+            }
+        }
+
+        return size;
+    }
+
+    private long estimateObject(Object value, int depth)
+    {
+        if (value == null || isShared(value)) {
+            return 0;
+        }
+
+        if (value instanceof String) {
+            return estimateString((String) value);
+        }
+
+        if (depth == 0) {
+            return 0;
+        }
+
+        if (value instanceof Map) {
+            return estimateMap((Map<?, ?>) value, depth);
+        }
+
+        if (value instanceof Collection) {
+            return estimateCollection((Collection<?>) value, depth);
+        }
+
+        if (value.getClass().isArray()) {
+            // Not worth following the content of arrays, which are not really used in blocks
+            return SHALLOW_SIZES.get(value.getClass());
+        }
+
+        return SHALLOW_SIZES.get(value.getClass()) + estimateFields(value, depth - 1);
+    }
+
+    private boolean isShared(Object value)
+    {
+        return value instanceof Block || value instanceof Enum || value instanceof Boolean || value instanceof Number
+            || value instanceof Character || value instanceof Class || value instanceof Syntax
+            || value instanceof SyntaxType || value instanceof ResourceType;
+    }
+
+    private long estimateString(String value)
+    {
+        int index = System.identityHashCode(value) & (SEEN_STRINGS - 1);
+        if (this.seenStrings[index] == value) {
+            return 0;
+        }
+        this.seenStrings[index] = value;
+
+        return STRING + align(ARRAY_HEADER + (long) value.length());
+    }
+
+    private long estimateMap(Map<?, ?> map, int depth)
+    {
+        if (map.isEmpty()) {
+            // Empty maps are generally shared immutable instances
+            return map instanceof HashMap ? HASH_MAP : 0;
+        }
+
+        long tableLength = Long.highestOneBit(Math.max(1, map.size() * 4L / 3) * 2 - 1);
+        long size = HASH_MAP + align(ARRAY_HEADER + tableLength * REFERENCE) + (long) map.size() * MAP_ENTRY;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            size += estimateObject(entry.getKey(), depth - 1);
+            size += estimateObject(entry.getValue(), depth - 1);
+        }
+
+        return size;
+    }
+
+    private long estimateCollection(Collection<?> collection, int depth)
+    {
+        if (collection.isEmpty()) {
+            return 0;
+        }
+
+        long size = ARRAY_LIST + align(ARRAY_HEADER + (long) collection.size() * REFERENCE);
+        for (Object element : collection) {
+            size += estimateObject(element, depth - 1);
+        }
+
+        return size;
+    }
+}
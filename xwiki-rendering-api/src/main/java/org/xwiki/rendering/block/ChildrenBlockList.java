@@ -0,0 +1,254 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.block;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * The list of children of an {@link AbstractBlock}.
+ * <p>
+ * The blocks are stored in a gap buffer: the free space of the array is kept where the list was last modified so that
+ * successive modifications around the same position (like the insertion of the blocks produced by a macro in place of
+ * the macro block, or the replacement of each child of a block one after the other) don't shift the rest of the list
+ * every time. For the same reason the position of a child is searched starting from the last modified position.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+final class ChildrenBlockList extends AbstractList<Block> implements RandomAccess
+{
+    private static final Block[] EMPTY = new Block[0];
+
+    private final AbstractBlock owner;
+
+    private Block[] elements;
+
+    private int gapStart;
+
+    private int gapEnd;
+
+    /**
+     * @param owner the block owning the children
+     * @param capacity the initial capacity of the list
+     */
+    ChildrenBlockList(AbstractBlock owner, int capacity)
+    {
+        this.owner = owner;
+        this.elements = capacity > 0 ? new Block[capacity] : EMPTY;
+        this.gapEnd = this.elements.length;
+    }
+
+    private void modified()
+    {
+        ++this.modCount;
+        this.owner.invalidateFingerprint();
+    }
+
+    private int gapLength()
+    {
+        return this.gapEnd - this.gapStart;
+    }
+
+    private int toArrayIndex(int index)
+    {
+        return index < this.gapStart ? index : index + gapLength();
+    }
+
+    private void checkIndex(int index, int limit)
+    {
+        if (index < 0 || index >= limit) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+    }
+
+    /**
+     * Move the gap so that it starts at the provided index.
+     */
+    private void moveGap(int index)
+    {
+        if (index < this.gapStart) {
+            int count = this.gapStart - index;
+            int newGapEnd = this.gapEnd - count;
+            System.arraycopy(this.elements, index, this.elements, newGapEnd, count);
+            // Release the references now located in the gap
+            Arrays.fill(this.elements, index, Math.min(this.gapStart, newGapEnd), null);
+            this.gapStart = index;
+            this.gapEnd = newGapEnd;
+        } else if (index > this.gapStart) {
+            int count = index - this.gapStart;
+            int newGapEnd = this.gapEnd + count;
+            System.arraycopy(this.elements, this.gapEnd, this.elements, this.gapStart, count);
+            // Release the references now located in the gap
+            Arrays.fill(this.elements, Math.max(this.gapEnd, index), newGapEnd, null);
+            this.gapStart = index;
+            this.gapEnd = newGapEnd;
+        }
+    }
+
+    /**
+     * Make sure the gap can contain the provided number of elements.
+     */
+    private void ensureGap(int length)
+    {
+        if (gapLength() < length) {
+            int size = size();
+            int capacity = Math.max(size + length, this.elements.length + (this.elements.length >> 1) + 1);
+            Block[] newElements = new Block[capacity];
+            int tailLength = this.elements.length - this.gapEnd;
+            System.arraycopy(this.elements, 0, newElements, 0, this.gapStart);
+            System.arraycopy(this.elements, this.gapEnd, newElements, capacity - tailLength, tailLength);
+            this.elements = newElements;
+            this.gapEnd = capacity - tailLength;
+        }
+    }
+
+    /**
+     * @return the number of blocks the list can contain without having to allocate a new array
+     */
+    int capacity()
+    {
+        return this.elements.length;
+    }
+
+    /**
+     * Get the position of the provided block (the same instance, not an equal one) in the list. The search starts from
+     * the last modified position of the list and expands in both directions.
+     *
+     * @param block the block to search
+     * @return the position of the block, -1 if the block can't be found
+     */
+    int indexOfBlock(Block block)
+    {
+        int before = this.gapStart - 1;
+        int after = this.gapEnd;
+        while (before >= 0 || after < this.elements.length) {
+            if (after < this.elements.length) {
+                if (this.elements[after] == block) {
+                    return after - gapLength();
+                }
+                ++after;
+            }
+            if (before >= 0) {
+                if (this.elements[before] == block) {
+                    return before;
+                }
+                --before;
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    public Block get(int index)
+    {
+        checkIndex(index, size());
+
+        return this.elements[toArrayIndex(index)];
+    }
+
+    @Override
+    public Block set(int index, Block element)
+    {
+        checkIndex(index, size());
+
+        int arrayIndex = toArrayIndex(index);
+        Block previous = this.elements[arrayIndex];
+        this.elements[arrayIndex] = element;
+        this.owner.invalidateFingerprint();
+
+        return previous;
+    }
+
+    @Override
+    public int size()
+    {
+        return this.elements.length - gapLength();
+    }
+
+    @Override
+    public boolean add(Block element)
+    {
+        add(size(), element);
+
+        return true;
+    }
+
+    @Override
+    public void add(int index, Block element)
+    {
+        checkIndex(index, size() + 1);
+
+        moveGap(index);
+        ensureGap(1);
+        this.elements[this.gapStart++] = element;
+        modified();
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Block> collection)
+    {
+        return addAll(size(), collection);
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends Block> collection)
+    {
+        checkIndex(index, size() + 1);
+
+        Object[] blocks = collection.toArray();
+        if (blocks.length == 0) {
+            return false;
+        }
+
+        moveGap(index);
+        ensureGap(blocks.length);
+        System.arraycopy(blocks, 0, this.elements, this.gapStart, blocks.length);
+        this.gapStart += blocks.length;
+        modified();
+
+        return true;
+    }
+
+    @Override
+    public Block remove(int index)
+    {
+        checkIndex(index, size());
+
+        moveGap(index);
+        Block previous = this.elements[this.gapEnd];
+        this.elements[this.gapEnd++] = null;
+        modified();
+
+        return previous;
+    }
+
+    @Override
+    public void clear()
+    {
+        Arrays.fill(this.elements, null);
+        this.gapStart = 0;
+        this.gapEnd = this.elements.length;
+        modified();
+    }
+}
@@ -59,6 +59,8 @@ public int getEmptyLinesCount()
     public void setEmptyLinesCount(int count)
     {
         this.count = count;
+
+        invalidateFingerprint();
     }
 
     @Override
@@ -114,6 +114,8 @@ public String getId()
     public void setId(String id)
     {
         this.id = id;
+
+        invalidateFingerprint();
     }
 
     /**
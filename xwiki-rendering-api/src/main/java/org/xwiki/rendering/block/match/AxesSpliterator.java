@@ -0,0 +1,367 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.block.match;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.Block.Axes;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Lazy and iterative (no recursion, whatever the depth of the tree) navigation of the blocks located in some
+ * {@link Axes} of a context block.
+ * <p>
+ * The blocks are returned in the same order as {@link BlockNavigator#getBlocks(Block, Axes)}. The children of a block
+ * and its siblings are only accessed when the next block is requested, so it's fine to stop the navigation at any
+ * point. Navigations which go through descendants can be split to be executed in parallel.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+@Unstable
+public class AxesSpliterator implements Spliterator<Block>
+{
+    private static final int INITIAL_DEPTH = 16;
+
+    private static final int NO_END = -1;
+
+    /**
+     * How to find a block from another block.
+     *
+     * @version $Id$
+     */
+    private enum Step
+    {
+        NONE
+        {
+            @Override
+            Block apply(Block block)
+            {
+                return null;
+            }
+        },
+
+        SELF
+        {
+            @Override
+            Block apply(Block block)
+            {
+                return block;
+            }
+        },
+
+        PARENT
+        {
+            @Override
+            Block apply(Block block)
+            {
+                return block.getParent();
+            }
+        },
+
+        FIRST_CHILD
+        {
+            @Override
+            Block apply(Block block)
+            {
+                List<Block> children = block.getChildren();
+
+                return children.isEmpty() ? null : children.get(0);
+            }
+        },
+
+        NEXT_SIBLING
+        {
+            @Override
+            Block apply(Block block)
+            {
+                return block.getNextSibling();
+            }
+        },
+
+        PREVIOUS_SIBLING
+        {
+            @Override
+            Block apply(Block block)
+            {
+                return block.getPreviousSibling();
+            }
+        };
+
+        abstract Block apply(Block block);
+    }
+
+    /**
+     * The navigation associated with each {@link Axes} (with the same name): the step to find the first block, the
+     * step to find the following ones and if the descendants of each of those blocks should be included.
+     *
+     * @version $Id$
+     */
+    private enum Navigation
+    {
+        SELF(Step.SELF, Step.NONE, false),
+        PARENT(Step.PARENT, Step.NONE, false),
+        ANCESTOR(Step.PARENT, Step.PARENT, false),
+        ANCESTOR_OR_SELF(Step.SELF, Step.PARENT, false),
+        CHILD(Step.FIRST_CHILD, Step.NEXT_SIBLING, false),
+        DESCENDANT(Step.NONE, Step.NONE, true),
+        DESCENDANT_OR_SELF(Step.SELF, Step.NONE, true),
+        FOLLOWING(Step.NEXT_SIBLING, Step.NEXT_SIBLING, true),
+        FOLLOWING_SIBLING(Step.NEXT_SIBLING, Step.NEXT_SIBLING, false),
+        PRECEDING(Step.PREVIOUS_SIBLING, Step.PREVIOUS_SIBLING, true),
+        PRECEDING_SIBLING(Step.PREVIOUS_SIBLING, Step.PREVIOUS_SIBLING, false);
+
+        private final Step first;
+
+        private final Step next;
+
+        private final boolean deep;
+
+        Navigation(Step first, Step next, boolean deep)
+        {
+            this.first = first;
+            this.next = next;
+            this.deep = deep;
+        }
+    }
+
+    private final Step next;
+
+    private final boolean deep;
+
+    /**
+     * The first block of the axes, not yet returned.
+     */
+    private Block firstBlock;
+
+    /**
+     * The last block found using the steps (and not when going through descendants).
+     */
+    private Block lastBlock;
+
+    /**
+     * The block for which children should be visited before anything else.
+     */
+    private Block expandedBlock;
+
+    // The stack of lists of children being visited
+
+    private List<Block>[] lists;
+
+    private int[] indexes;
+
+    private int[] ends;
+
+    private int depth;
+
+    /**
+     * @param block the context block
+     * @param axes the axes to navigate
+     */
+    public AxesSpliterator(Block block, Axes axes)
+    {
+        Navigation navigation = Navigation.valueOf(axes.name());
+
+        this.next = navigation.next;
+        this.deep = navigation.deep;
+
+        if (block != null) {
+            this.firstBlock = navigation.first.apply(block);
+
+            if (navigation == Navigation.DESCENDANT) {
+                this.expandedBlock = block;
+            }
+        }
+
+        initStack();
+    }
+
+    /**
+     * Create a spliterator only navigating the descendants stored in its stack.
+     */
+    private AxesSpliterator()
+    {
+        this.next = Step.NONE;
+        this.deep = true;
+
+        initStack();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void initStack()
+    {
+        this.lists = new List[INITIAL_DEPTH];
+        this.indexes = new int[INITIAL_DEPTH];
+        this.ends = new int[INITIAL_DEPTH];
+    }
+
+    private void push(List<Block> list, int index, int end)
+    {
+        if (this.depth == this.lists.length) {
+            int newLength = this.depth * 2;
+            this.lists = Arrays.copyOf(this.lists, newLength);
+            this.indexes = Arrays.copyOf(this.indexes, newLength);
+            this.ends = Arrays.copyOf(this.ends, newLength);
+        }
+
+        this.lists[this.depth] = list;
+        this.indexes[this.depth] = index;
+        this.ends[this.depth] = end;
+        ++this.depth;
+    }
+
+    private int getEnd(int level)
+    {
+        // When no explicit end is set, the size of the list is used so that a list modified since it was pushed is
+        // navigated like it would be with a recursive navigation
+        return this.ends[level] == NO_END ? this.lists[level].size() : this.ends[level];
+    }
+
+    private void expand()
+    {
+        if (this.expandedBlock != null) {
+            List<Block> children = this.expandedBlock.getChildren();
+            this.expandedBlock = null;
+
+            if (!children.isEmpty()) {
+                push(children, 0, NO_END);
+            }
+        }
+    }
+
+    private Block nextStepBlock()
+    {
+        Block block;
+        if (this.firstBlock != null) {
+            block = this.firstBlock;
+            this.firstBlock = null;
+        } else if (this.lastBlock != null) {
+            block = this.next.apply(this.lastBlock);
+        } else {
+            block = null;
+        }
+
+        this.lastBlock = block;
+
+        return block;
+    }
+
+    /**
+     * @return the next block in the axes or null if there is no more
+     */
+    public Block next()
+    {
+        expand();
+
+        Block block = null;
+        while (block == null && this.depth > 0) {
+            int level = this.depth - 1;
+            if (this.indexes[level] < getEnd(level)) {
+                block = this.lists[level].get(this.indexes[level]++);
+            } else {
+                // Release the list
+                this.lists[level] = null;
+                --this.depth;
+            }
+        }
+
+        if (block == null) {
+            block = nextStepBlock();
+        }
+
+        if (this.deep) {
+            this.expandedBlock = block;
+        }
+
+        return block;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Block> action)
+    {
+        Block block = next();
+
+        if (block != null) {
+            action.accept(block);
+
+            return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    public Spliterator<Block> trySplit()
+    {
+        if (this.deep && this.firstBlock != null) {
+            // Give away the first block so that its descendants can be split
+            AxesSpliterator prefix = new AxesSpliterator(this.firstBlock, Axes.SELF);
+            this.lastBlock = this.firstBlock;
+            this.expandedBlock = this.firstBlock;
+            this.firstBlock = null;
+
+            return prefix;
+        }
+
+        expand();
+
+        // Split the shallowest list which still contains at least two blocks to visit
+        for (int level = 0; level < this.depth; ++level) {
+            int end = getEnd(level);
+            int remaining = end - this.indexes[level];
+            if (remaining >= 2) {
+                int middle = this.indexes[level] + remaining / 2;
+
+                // The prefix is the part currently being visited, up to the middle of the split list
+                AxesSpliterator prefix = new AxesSpliterator();
+                prefix.push(this.lists[level], this.indexes[level], middle);
+                for (int i = level + 1; i < this.depth; ++i) {
+                    prefix.push(this.lists[i], this.indexes[i], this.ends[i]);
+                    this.lists[i] = null;
+                }
+
+                // This spliterator continue from the middle of the split list
+                this.indexes[level] = middle;
+                this.ends[level] = end;
+                this.depth = level + 1;
+
+                return prefix;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public long estimateSize()
+    {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics()
+    {
+        return ORDERED | NONNULL;
+    }
+}
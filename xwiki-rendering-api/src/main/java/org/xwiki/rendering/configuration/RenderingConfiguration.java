@@ -19,10 +19,12 @@
  */
 package org.xwiki.rendering.configuration;
 
+import java.io.File;
 import java.util.List;
 import java.util.Properties;
 
 import org.xwiki.component.annotation.Role;
+import org.xwiki.stability.Unstable;
 
 /**
  * Configuration properties for the Rendering module.
@@ -70,4 +72,15 @@
      * @since 3.3M1
      */
     List<String> getTransformationNames();
+
+    /**
+     * @return the directory in which prepared documents are stored to be reused after a restart (see
+     *         {@link org.xwiki.rendering.transformation.PreparedXDOMStore}), or {@code null} to not store them
+     * @since 17.9.0RC1
+     */
+    @Unstable
+    default File getPreparedXDOMStoreDirectory()
+    {
+        return null;
+    }
 }
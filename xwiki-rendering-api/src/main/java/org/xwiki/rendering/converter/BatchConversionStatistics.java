@@ -0,0 +1,91 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.converter;
+
+import java.util.concurrent.TimeUnit;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * Statistics about a batch conversion (see {@link BatchConverter}).
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+@Unstable
+public class BatchConversionStatistics
+{
+    private final long convertedCount;
+
+    private final long failedCount;
+
+    private final long duration;
+
+    /**
+     * @param convertedCount the number of contents converted successfully
+     * @param failedCount the number of contents which failed to be converted
+     * @param duration the duration of the whole batch, in nanoseconds
+     */
+    public BatchConversionStatistics(long convertedCount, long failedCount, long duration)
+    {
+        this.convertedCount = convertedCount;
+        this.failedCount = failedCount;
+        this.duration = duration;
+    }
+
+    /**
+     * @return the number of contents converted successfully
+     */
+    public long getConvertedCount()
+    {
+        return this.convertedCount;
+    }
+
+    /**
+     * @return the number of contents which failed to be converted
+     */
+    public long getFailedCount()
+    {
+        return this.failedCount;
+    }
+
+    /**
+     * @return the duration of the whole batch, in milliseconds
+     */
+    public long getDuration()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(this.duration);
+    }
+
+    /**
+     * @return the number of contents (converted or failed) processed per second
+     */
+    public double getThroughput()
+    {
+        return this.duration > 0 ? (this.convertedCount + this.failedCount) * 1e9 / this.duration : 0;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%d converted, %d failed in %d ms (%.1f/s)", this.convertedCount, this.failedCount,
+            getDuration(), getThroughput());
+    }
+}
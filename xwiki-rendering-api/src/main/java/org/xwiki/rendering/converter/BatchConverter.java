@@ -0,0 +1,68 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.converter;
+
+import java.util.Iterator;
+
+import org.xwiki.component.annotation.Role;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Convert many contents, for example during a migration. Compared to calling {@link Converter} for each content, the
+ * parsers, renderers and transformations are only looked up once per batch, the contents are converted in parallel
+ * and the failure of a content doesn't stop the conversion of the others.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+@Role
+@Unstable
+public interface BatchConverter
+{
+    /**
+     * Converts all the passed contents with as many threads as available processors, passing the results to the sink
+     * in the order of the sources.
+     *
+     * @param sources the contents to be converted, only read when there is a thread available to convert them
+     * @param sink receive the result of each conversion
+     * @return statistics about the batch
+     * @throws ConversionException if the batch was interrupted
+     */
+    default BatchConversionStatistics convert(Iterator<ConversionSource> sources, ConversionSink sink)
+        throws ConversionException
+    {
+        return convert(sources, sink, Runtime.getRuntime().availableProcessors(), true);
+    }
+
+    /**
+     * Converts all the passed contents from their Syntax to their target Syntax, executing all registered
+     * transformations on the parsed contents.
+     *
+     * @param sources the contents to be converted, only read when there is a thread available to convert them
+     * @param sink receive the result of each conversion
+     * @param concurrency the maximum number of contents converted at the same time
+     * @param ordered {@code true} if the results should be passed to the sink in the order of the sources,
+     *            {@code false} to pass them as soon as they are available
+     * @return statistics about the batch
+     * @throws ConversionException if the batch was interrupted
+     */
+    BatchConversionStatistics convert(Iterator<ConversionSource> sources, ConversionSink sink, int concurrency,
+        boolean ordered) throws ConversionException;
+}
@@ -0,0 +1,45 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.converter;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * Receive the results of a batch conversion (see {@link BatchConverter}). The methods are always called from the
+ * thread which started the batch, so implementations don't need to be thread safe.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+@Unstable
+public interface ConversionSink
+{
+    /**
+     * @param source the converted content
+     * @param result the result of the conversion
+     */
+    void onConverted(ConversionSource source, String result);
+
+    /**
+     * @param source the content which failed to be converted
+     * @param exception the reason of the failure
+     */
+    void onFailed(ConversionSource source, ConversionException exception);
+}
@@ -0,0 +1,89 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.converter;
+
+import java.io.Reader;
+
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.stability.Unstable;
+
+/**
+ * A content to convert as part of a batch (see {@link BatchConverter}).
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+@Unstable
+public class ConversionSource
+{
+    private final String id;
+
+    private final Reader source;
+
+    private final Syntax sourceSyntax;
+
+    private final Syntax targetSyntax;
+
+    /**
+     * @param id an identifier of the content, for example to report which content failed to be converted
+     * @param source the content to be converted
+     * @param sourceSyntax the Syntax in which the content is represented
+     * @param targetSyntax the Syntax to which to convert to
+     */
+    public ConversionSource(String id, Reader source, Syntax sourceSyntax, Syntax targetSyntax)
+    {
+        this.id = id;
+        this.source = source;
+        this.sourceSyntax = sourceSyntax;
+        this.targetSyntax = targetSyntax;
+    }
+
+    /**
+     * @return the identifier of the content
+     */
+    public String getId()
+    {
+        return this.id;
+    }
+
+    /**
+     * @return the content to be converted
+     */
+    public Reader getSource()
+    {
+        return this.source;
+    }
+
+    /**
+     * @return the Syntax in which the content is represented
+     */
+    public Syntax getSourceSyntax()
+    {
+        return this.sourceSyntax;
+    }
+
+    /**
+     * @return the Syntax to which to convert to
+     */
+    public Syntax getTargetSyntax()
+    {
+        return this.targetSyntax;
+    }
+}
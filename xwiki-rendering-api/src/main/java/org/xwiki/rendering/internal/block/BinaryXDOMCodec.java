@@ -0,0 +1,764 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.block;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.xwiki.rendering.block.AbstractBlock;
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.block.match.AxesSpliterator;
+import org.xwiki.rendering.internal.parser.XDOMGeneratorListener;
+import org.xwiki.rendering.listener.Format;
+import org.xwiki.rendering.listener.HeaderLevel;
+import org.xwiki.rendering.listener.ListType;
+import org.xwiki.rendering.listener.Listener;
+import org.xwiki.rendering.listener.MetaData;
+import org.xwiki.rendering.listener.QueueListener;
+import org.xwiki.rendering.listener.chaining.EventType;
+import org.xwiki.rendering.listener.reference.AttachmentResourceReference;
+import org.xwiki.rendering.listener.reference.DocumentResourceReference;
+import org.xwiki.rendering.listener.reference.InterWikiResourceReference;
+import org.xwiki.rendering.listener.reference.PageAttachmentResourceReference;
+import org.xwiki.rendering.listener.reference.PageResourceReference;
+import org.xwiki.rendering.listener.reference.ResourceReference;
+import org.xwiki.rendering.listener.reference.ResourceType;
+import org.xwiki.rendering.listener.reference.SpaceResourceReference;
+import org.xwiki.rendering.listener.reference.UserResourceReference;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.rendering.syntax.SyntaxType;
+import org.xwiki.rendering.util.IdGenerator;
+
+/**
+ * Compact binary encoding of a {@link XDOM}, used to store documents (for example once prepared) outside of the
+ * memory.
+ * <p>
+ * The blocks are encoded as the events they produce, each string being written only once, followed by the ids already
+ * generated for the document. The attributes of the blocks are kept as long as their values are strings, numbers,
+ * booleans or {@link XDOM}s (like the prepared content of macros), which are encoded the same way.
+ * <p>
+ * The encoding relies on the order of the values of the enums of the rendering API so it's only meant to be decoded by
+ * the same version of the rendering module.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+public final class BinaryXDOMCodec
+{
+    private static final EventType[] TYPES = EventType.values();
+
+    private static final boolean[] BEGIN_TYPES = new boolean[TYPES.length];
+
+    private static final boolean[] END_TYPES = new boolean[TYPES.length];
+
+    /**
+     * Tag of the record holding the attributes of the last block.
+     */
+    private static final int ATTRIBUTES = TYPES.length;
+
+    private static final Format[] FORMATS = Format.values();
+
+    private static final HeaderLevel[] HEADER_LEVELS = HeaderLevel.values();
+
+    private static final ListType[] LIST_TYPES = ListType.values();
+
+    /**
+     * The supported types of resource references, which are rebuilt from their reference, type and parameters.
+     */
+    private static final List<Class<? extends ResourceReference>> REFERENCE_CLASSES = List.of(
+        ResourceReference.class, DocumentResourceReference.class, SpaceResourceReference.class,
+        PageResourceReference.class, AttachmentResourceReference.class, PageAttachmentResourceReference.class,
+        UserResourceReference.class, InterWikiResourceReference.class);
+
+    // Value tags
+
+    private static final byte NULL = 0;
+
+    private static final byte STRING = 1;
+
+    private static final byte TRUE = 2;
+
+    private static final byte FALSE = 3;
+
+    private static final byte INTEGER = 4;
+
+    private static final byte LONG = 5;
+
+    private static final byte CHARACTER = 6;
+
+    private static final byte PARAMETERS = 7;
+
+    private static final byte METADATA = 8;
+
+    private static final byte REFERENCE = 9;
+
+    private static final byte FORMAT = 10;
+
+    private static final byte HEADER_LEVEL = 11;
+
+    private static final byte LIST_TYPE = 12;
+
+    private static final byte SYNTAX = 13;
+
+    private static final byte DOCUMENT = 14;
+
+    // String references
+
+    private static final int NULL_STRING = 0;
+
+    private static final int NEW_STRING = 1;
+
+    private static final int FIRST_STRING = 2;
+
+    /**
+     * Indicate for each class of blocks if it relies on the default implementation of
+     * {@link AbstractBlock#traverse(Listener)}, in which case its events can be produced without its children.
+     */
+    private static final ClassValue<Boolean> DEFAULT_TRAVERSE = new ClassValue<Boolean>()
+    {
+        @Override
+        protected Boolean computeValue(Class<?> type)
+        {
+            if (AbstractBlock.class.isAssignableFrom(type)) {
+                try {
+                    return type.getMethod("traverse", Listener.class).getDeclaringClass() == AbstractBlock.class;
+                } catch (NoSuchMethodException e) {
+                    // Cannot happen since the method is declared by AbstractBlock
+                }
+            }
+
+            return false;
+        }
+    };
+
+    static {
+        for (EventType type : TYPES) {
+            BEGIN_TYPES[type.ordinal()] = type.name().startsWith("BEGIN_");
+            END_TYPES[type.ordinal()] = type.name().startsWith("END_");
+        }
+    }
+
+    private BinaryXDOMCodec()
+    {
+        // Utility class
+    }
+
+    /**
+     * @param xdom the document to encode
+     * @return the encoded document
+     * @throws IllegalArgumentException when the document contains a value which cannot be encoded (an attribute value
+     *             of an unsupported type for example)
+     */
+    public static byte[] encode(XDOM xdom)
+    {
+        Encoder encoder = new Encoder();
+        encoder.writeXDOM(xdom);
+
+        return encoder.toByteArray();
+    }
+
+    /**
+     * @param buffer the buffer containing the encoded document, starting at its current position
+     * @return the decoded document
+     * @throws IOException when the buffer does not contain a valid encoded document (truncated or corrupted content
+     *             for example)
+     */
+    public static XDOM decode(ByteBuffer buffer) throws IOException
+    {
+        try {
+            return new Decoder(buffer).readXDOM();
+        } catch (RuntimeException | StackOverflowError e) {
+            // Corrupted content can fail anywhere, including in the listener generating the blocks
+            throw new IOException("Invalid encoded XDOM", e);
+        }
+    }
+
+    private static final class Encoder
+    {
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private byte[] bytes = new byte[INITIAL_CAPACITY];
+
+        private int size;
+
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        private final QueueListener queue = new QueueListener();
+
+        byte[] toByteArray()
+        {
+            return Arrays.copyOf(this.bytes, this.size);
+        }
+
+        private void ensureCapacity(int length)
+        {
+            if (this.size + length > this.bytes.length) {
+                this.bytes = Arrays.copyOf(this.bytes, Math.max(this.size + length, this.bytes.length * 2));
+            }
+        }
+
+        private void writeByte(int value)
+        {
+            ensureCapacity(1);
+            this.bytes[this.size++] = (byte) value;
+        }
+
+        private void writeVarInt(int value)
+        {
+            int remaining = value;
+            while ((remaining & ~0x7F) != 0) {
+                writeByte((remaining & 0x7F) | 0x80);
+                remaining >>>= 7;
+            }
+            writeByte(remaining);
+        }
+
+        private void writeVarLong(long value)
+        {
+            long remaining = value;
+            while ((remaining & ~0x7FL) != 0) {
+                writeByte((int) (remaining & 0x7F) | 0x80);
+                remaining >>>= 7;
+            }
+            writeByte((int) remaining);
+        }
+
+        private void writeString(String value)
+        {
+            if (value == null) {
+                writeVarInt(NULL_STRING);
+            } else {
+                Integer index = this.strings.get(value);
+                if (index != null) {
+                    writeVarInt(index + FIRST_STRING);
+                } else {
+                    this.strings.put(value, this.strings.size());
+
+                    byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                    writeVarInt(NEW_STRING);
+                    writeVarInt(utf8.length);
+                    ensureCapacity(utf8.length);
+                    System.arraycopy(utf8, 0, this.bytes, this.size, utf8.length);
+                    this.size += utf8.length;
+                }
+            }
+        }
+
+        void writeXDOM(XDOM xdom)
+        {
+            writeBlocks(xdom);
+
+            // The ids which have already been generated, for the ids generated after the decoding to stay unique
+            List<String> ids = new ArrayList<>(xdom.getIdGenerator().getGeneratedIds());
+            writeVarInt(ids.size());
+            for (String id : ids) {
+                writeString(id);
+            }
+        }
+
+        private void writeBlocks(Block root)
+        {
+            // Navigate the tree like AbstractBlock#traverse does, to know which block produced which events
+            Deque<AbstractBlock> blocks = new ArrayDeque<>();
+            Deque<Iterator<Block>> iterators = new ArrayDeque<>();
+            if (open(root)) {
+                blocks.push((AbstractBlock) root);
+                iterators.push(root.getChildren().iterator());
+            }
+            while (!iterators.isEmpty()) {
+                Iterator<Block> iterator = iterators.peek();
+                if (iterator.hasNext()) {
+                    Block child = iterator.next();
+                    if (open(child)) {
+                        blocks.push((AbstractBlock) child);
+                        iterators.push(child.getChildren().iterator());
+                    }
+                } else {
+                    iterators.pop();
+                    blocks.pop().after(this.queue);
+                    writeEvents(null);
+                }
+            }
+        }
+
+        /**
+         * @return {@code true} if the children of the block still need to be written
+         */
+        private boolean open(Block block)
+        {
+            if (!block.getChildren().isEmpty() && DEFAULT_TRAVERSE.get(block.getClass())) {
+                ((AbstractBlock) block).before(this.queue);
+                writeEvents(block);
+
+                return true;
+            }
+
+            if (!block.getChildren().isEmpty()
+                && block.getFirstBlock(b -> !b.getAttributes().isEmpty(), Block.Axes.DESCENDANT) != null) {
+                throw new IllegalArgumentException(String.format(
+                    "The attributes of the descendants of [%s] cannot be encoded", block.getClass().getName()));
+            }
+
+            block.traverse(this.queue);
+            writeEvents(block);
+
+            return false;
+        }
+
+        private void writeEvents(Block block)
+        {
+            Map<String, Object> attributes = block != null ? block.getAttributes() : Map.of();
+
+            for (QueueListener.Event event = this.queue.poll(); event != null; event = this.queue.poll()) {
+                int type = event.eventType.ordinal();
+                writeVarInt(type);
+                writeVarInt(event.eventParameters.length);
+                for (Object parameter : event.eventParameters) {
+                    writeValue(parameter);
+                }
+
+                // The attributes follow the first event of the block (the one creating the block when decoding)
+                if (!attributes.isEmpty() && !END_TYPES[type]) {
+                    writeAttributes(attributes);
+                    attributes = Map.of();
+                }
+            }
+
+            if (!attributes.isEmpty()) {
+                throw new IllegalArgumentException(String.format(
+                    "The attributes of [%s] cannot be encoded since it doesn't produce any event",
+                    block.getClass().getName()));
+            }
+        }
+
+        private void writeAttributes(Map<String, Object> attributes)
+        {
+            writeVarInt(ATTRIBUTES);
+            writeVarInt(attributes.size());
+            for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+                writeString(entry.getKey());
+                writeValue(entry.getValue());
+            }
+        }
+
+        private void writeValue(Object value)
+        {
+            if (value == null) {
+                writeByte(NULL);
+            } else if (value instanceof String) {
+                writeByte(STRING);
+                writeString((String) value);
+            } else if (value instanceof Boolean) {
+                writeByte(((Boolean) value).booleanValue() ? TRUE : FALSE);
+            } else if (value instanceof Integer) {
+                writeByte(INTEGER);
+                writeVarInt((Integer) value);
+            } else if (value instanceof Long) {
+                writeByte(LONG);
+                writeVarLong((Long) value);
+            } else if (value instanceof Character) {
+                writeByte(CHARACTER);
+                writeVarInt((Character) value);
+            } else if (value instanceof Map) {
+                writeByte(PARAMETERS);
+                writeParameters((Map<?, ?>) value);
+            } else if (value instanceof XDOM) {
+                writeByte(DOCUMENT);
+                writeXDOM((XDOM) value);
+            } else {
+                writeObject(value);
+            }
+        }
+
+        private void writeObject(Object value)
+        {
+            if (value instanceof MetaData) {
+                writeByte(METADATA);
+                Map<String, Object> metaData = ((MetaData) value).getMetaData();
+                writeVarInt(metaData.size());
+                for (Map.Entry<String, Object> entry : metaData.entrySet()) {
+                    writeString(entry.getKey());
+                    writeValue(entry.getValue());
+                }
+            } else if (value instanceof ResourceReference) {
+                writeByte(REFERENCE);
+                writeReference((ResourceReference) value);
+            } else if (value instanceof Format) {
+                writeByte(FORMAT);
+                writeVarInt(((Format) value).ordinal());
+            } else if (value instanceof HeaderLevel) {
+                writeByte(HEADER_LEVEL);
+                writeVarInt(((HeaderLevel) value).ordinal());
+            } else if (value instanceof ListType) {
+                writeByte(LIST_TYPE);
+                writeVarInt(((ListType) value).ordinal());
+            } else if (value instanceof Syntax) {
+                writeByte(SYNTAX);
+                Syntax syntax = (Syntax) value;
+                writeString(syntax.getType().getId());
+                writeString(syntax.getType().getName());
+                List<String> variants = syntax.getType().getVariants();
+                writeVarInt(variants.size());
+                for (String variant : variants) {
+                    writeString(variant);
+                }
+                writeString(syntax.getVersion());
+                writeString(syntax.getQualifier());
+            } else {
+                throw new IllegalArgumentException(
+                    String.format("Values of type [%s] cannot be encoded", value.getClass().getName()));
+            }
+        }
+
+        private void writeParameters(Map<?, ?> parameters)
+        {
+            writeVarInt(parameters.size());
+            for (Map.Entry<?, ?> entry : parameters.entrySet()) {
+                if (!(entry.getKey() instanceof String)
+                    || (entry.getValue() != null && !(entry.getValue() instanceof String))) {
+                    throw new IllegalArgumentException("Only maps of strings can be encoded");
+                }
+                writeString((String) entry.getKey());
+                writeString((String) entry.getValue());
+            }
+        }
+
+        private void writeReference(ResourceReference reference)
+        {
+            int kind = REFERENCE_CLASSES.indexOf(reference.getClass());
+            if (kind < 0) {
+                throw new IllegalArgumentException(String.format("Resource references of type [%s] cannot be encoded",
+                    reference.getClass().getName()));
+            }
+
+            writeVarInt(kind);
+            writeString(reference.getReference());
+            writeString(reference.getType() != null ? reference.getType().getScheme() : null);
+            writeByte(reference.isTyped() ? TRUE : FALSE);
+            List<String> baseReferences = reference.getBaseReferences();
+            writeVarInt(baseReferences.size());
+            for (String baseReference : baseReferences) {
+                writeString(baseReference);
+            }
+            writeParameters(reference.getParameters());
+        }
+    }
+
+    private static final class Decoder
+    {
+        private final ByteBuffer buffer;
+
+        private final List<String> strings = new ArrayList<>();
+
+        private byte[] scratch = new byte[64];
+
+        Decoder(ByteBuffer buffer)
+        {
+            this.buffer = buffer;
+        }
+
+        private int readVarInt()
+        {
+            int value = 0;
+            for (int shift = 0;; shift += 7) {
+                byte b = this.buffer.get();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        private long readVarLong()
+        {
+            long value = 0;
+            for (int shift = 0;; shift += 7) {
+                byte b = this.buffer.get();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        /**
+         * Read a number of elements, each element using at least one byte, so that a corrupted count doesn't lead to
+         * a huge allocation.
+         */
+        private int readCount()
+        {
+            int count = readVarInt();
+            if (count < 0 || count > this.buffer.remaining()) {
+                throw new IllegalStateException("Invalid count [" + count + "]");
+            }
+
+            return count;
+        }
+
+        private String readString()
+        {
+            int reference = readVarInt();
+            if (reference == NULL_STRING) {
+                return null;
+            } else if (reference == NEW_STRING) {
+                int length = readVarInt();
+                if (length < 0 || length > this.buffer.remaining()) {
+                    throw new BufferUnderflowException();
+                }
+
+                String value;
+                if (this.buffer.hasArray()) {
+                    value = new String(this.buffer.array(), this.buffer.arrayOffset() + this.buffer.position(),
+                        length, StandardCharsets.UTF_8);
+                    this.buffer.position(this.buffer.position() + length);
+                } else {
+                    // Direct (e.g. memory mapped) buffers need to be copied first
+                    if (length > this.scratch.length) {
+                        this.scratch = new byte[Math.max(length, this.scratch.length * 2)];
+                    }
+                    this.buffer.get(this.scratch, 0, length);
+                    value = new String(this.scratch, 0, length, StandardCharsets.UTF_8);
+                }
+                this.strings.add(value);
+
+                return value;
+            } else {
+                return this.strings.get(reference - FIRST_STRING);
+            }
+        }
+
+        XDOM readXDOM()
+        {
+            XDOMGeneratorListener generator = new XDOMGeneratorListener();
+            Map<Integer, Map<String, Object>> attributes = new HashMap<>();
+
+            // The generator creates one block for each begin or on event, in document order
+            int blockCount = 0;
+            int depth = 0;
+            do {
+                int tag = readVarInt();
+                if (tag == ATTRIBUTES) {
+                    attributes.put(blockCount - 1, readAttributes());
+                } else if (tag < 0 || tag >= TYPES.length) {
+                    throw new IllegalStateException("Unknown block tag [" + tag + "]");
+                } else {
+                    EventType type = TYPES[tag];
+                    Object[] parameters = new Object[readCount()];
+                    for (int i = 0; i < parameters.length; ++i) {
+                        parameters[i] = readValue();
+                    }
+                    type.fireEvent(generator, parameters);
+
+                    if (END_TYPES[tag]) {
+                        --depth;
+                    } else {
+                        ++blockCount;
+                        if (BEGIN_TYPES[tag]) {
+                            ++depth;
+                        }
+                    }
+                }
+            } while (depth > 0);
+
+            XDOM xdom = generator.getXDOM();
+
+            int idCount = readCount();
+            List<String> ids = new ArrayList<>(idCount);
+            for (int i = 0; i < idCount; ++i) {
+                ids.add(readString());
+            }
+            xdom.setIdGenerator(new IdGenerator(ids));
+
+            if (!attributes.isEmpty()) {
+                setAttributes(xdom, attributes);
+            }
+
+            return xdom;
+        }
+
+        private void setAttributes(XDOM xdom, Map<Integer, Map<String, Object>> attributes)
+        {
+            AxesSpliterator blocks = new AxesSpliterator(xdom, Block.Axes.DESCENDANT_OR_SELF);
+            int remaining = attributes.size();
+            for (int index = 0; remaining > 0; ++index) {
+                Block block = blocks.next();
+                if (block == null) {
+                    throw new IllegalStateException("Attributes found for a missing block");
+                }
+
+                Map<String, Object> blockAttributes = attributes.get(index);
+                if (blockAttributes != null) {
+                    block.setAttributes(blockAttributes);
+                    --remaining;
+                }
+            }
+        }
+
+        private Map<String, Object> readAttributes()
+        {
+            int count = readCount();
+            Map<String, Object> attributes = new LinkedHashMap<>(count * 2);
+            for (int i = 0; i < count; ++i) {
+                attributes.put(readString(), readValue());
+            }
+
+            return attributes;
+        }
+
+        private Object readValue()
+        {
+            byte tag = this.buffer.get();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case STRING:
+                    return readString();
+                case TRUE:
+                    return Boolean.TRUE;
+                case FALSE:
+                    return Boolean.FALSE;
+                case INTEGER:
+                    return readVarInt();
+                case LONG:
+                    return readVarLong();
+                case CHARACTER:
+                    return (char) readVarInt();
+                case PARAMETERS:
+                    return readParameters();
+                case DOCUMENT:
+                    return readXDOM();
+                default:
+                    return readObject(tag);
+            }
+        }
+
+        private Object readObject(byte tag)
+        {
+            switch (tag) {
+                case METADATA:
+                    int count = readCount();
+                    MetaData metaData = new MetaData();
+                    for (int i = 0; i < count; ++i) {
+                        metaData.addMetaData(readString(), readValue());
+                    }
+                    return metaData;
+                case REFERENCE:
+                    return readReference();
+                case FORMAT:
+                    return FORMATS[readVarInt()];
+                case HEADER_LEVEL:
+                    return HEADER_LEVELS[readVarInt()];
+                case LIST_TYPE:
+                    return LIST_TYPES[readVarInt()];
+                case SYNTAX:
+                    return readSyntax();
+                default:
+                    throw new IllegalStateException("Unknown value tag [" + tag + "]");
+            }
+        }
+
+        private Syntax readSyntax()
+        {
+            String id = readString();
+            String name = readString();
+            int variantCount = readCount();
+            List<String> variants = new ArrayList<>(variantCount);
+            for (int i = 0; i < variantCount; ++i) {
+                variants.add(readString());
+            }
+
+            return new Syntax(new SyntaxType(id, variants, name), readString(), readString());
+        }
+
+        private Map<String, String> readParameters()
+        {
+            int count = readCount();
+            if (count == 0) {
+                return Listener.EMPTY_PARAMETERS;
+            }
+
+            Map<String, String> parameters = new LinkedHashMap<>(count * 2);
+            for (int i = 0; i < count; ++i) {
+                parameters.put(readString(), readString());
+            }
+
+            return parameters;
+        }
+
+        private ResourceReference readReference()
+        {
+            int kind = readVarInt();
+            String value = readString();
+            String scheme = readString();
+
+            ResourceReference reference;
+            switch (kind) {
+                case 0:
+                    reference = new ResourceReference(value, null);
+                    break;
+                case 1:
+                    reference = new DocumentResourceReference(value);
+                    break;
+                case 2:
+                    reference = new SpaceResourceReference(value);
+                    break;
+                case 3:
+                    reference = new PageResourceReference(value);
+                    break;
+                case 4:
+                    reference = new AttachmentResourceReference(value);
+                    break;
+                case 5:
+                    reference = new PageAttachmentResourceReference(value);
+                    break;
+                case 6:
+                    reference = new UserResourceReference(value);
+                    break;
+                case 7:
+                    reference = new InterWikiResourceReference(value);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown resource reference type [" + kind + "]");
+            }
+
+            reference.setType(scheme != null ? new ResourceType(scheme) : null);
+            reference.setTyped(this.buffer.get() == TRUE);
+            int baseReferenceCount = readCount();
+            for (int i = 0; i < baseReferenceCount; ++i) {
+                reference.addBaseReference(readString());
+            }
+            reference.setParameters(readParameters());
+
+            return reference;
+        }
+    }
+}
@@ -19,6 +19,7 @@
  */
 package org.xwiki.rendering.internal.configuration;
 
+import java.io.File;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.List;
@@ -74,6 +75,11 @@ public class DefaultRenderingConfiguration implements RenderingConfiguration, In
      */
     private Properties interWikiDefinitions = new Properties();
 
+    /**
+     * @see #getPreparedXDOMStoreDirectory()
+     */
+    private File preparedXDOMStoreDirectory;
+
     @Override
     public void initialize() throws InitializationException
     {
@@ -131,4 +137,20 @@ public List<String> getTransformationNames()
     {
         return this.transformationNames;
     }
+
+    @Override
+    public File getPreparedXDOMStoreDirectory()
+    {
+        return this.preparedXDOMStoreDirectory;
+    }
+
+    /**
+     * @param preparedXDOMStoreDirectory the directory in which prepared documents are stored, {@code null} to not
+     *            store them
+     * @since 17.9.0RC1
+     */
+    public void setPreparedXDOMStoreDirectory(File preparedXDOMStoreDirectory)
+    {
+        this.preparedXDOMStoreDirectory = preparedXDOMStoreDirectory;
+    }
 }
@@ -0,0 +1,129 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.converter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.converter.ConversionException;
+import org.xwiki.rendering.converter.ConversionSource;
+import org.xwiki.rendering.internal.transformation.DefaultTransformationManager;
+import org.xwiki.rendering.metrics.RenderingMetrics;
+import org.xwiki.rendering.parser.Parser;
+import org.xwiki.rendering.renderer.BlockRenderer;
+import org.xwiki.rendering.renderer.printer.DefaultWikiPrinter;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.rendering.transformation.RenderingBudget;
+import org.xwiki.rendering.transformation.Transformation;
+import org.xwiki.rendering.transformation.TransformationManager;
+
+/**
+ * Convert the contents of a batch, sharing the lookup of the parsers, renderers and transformations between all the
+ * conversions. Can be used by several threads at the same time.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+class ConversionBatch
+{
+    private final ComponentManager componentManager;
+
+    private final TransformationManager transformationManager;
+
+    private final RenderingMetrics metrics;
+
+    /**
+     * The budget shared by all the conversions of the batch, or {@code null}.
+     */
+    private final RenderingBudget budget;
+
+    /**
+     * The transformations to execute, or {@code null} if the transformation manager needs to look them up itself.
+     */
+    private final List<Transformation> transformations;
+
+    private final Map<Syntax, Parser> parsers = new ConcurrentHashMap<>();
+
+    private final Map<Syntax, BlockRenderer> renderers = new ConcurrentHashMap<>();
+
+    ConversionBatch(ComponentManager componentManager, TransformationManager transformationManager,
+        RenderingMetrics metrics, RenderingBudget budget)
+    {
+        this.componentManager = componentManager;
+        this.transformationManager = transformationManager;
+        this.metrics = metrics;
+        this.budget = budget;
+
+        if (transformationManager instanceof DefaultTransformationManager) {
+            this.transformations = ((DefaultTransformationManager) transformationManager).getTransformations();
+        } else {
+            this.transformations = null;
+        }
+    }
+
+    /**
+     * @param source the content to convert
+     * @return the result of the conversion
+     * @throws ConversionException in case of a conversion error (invalid Syntax, etc)
+     */
+    String convert(ConversionSource source) throws ConversionException
+    {
+        Syntax sourceSyntax = source.getSourceSyntax();
+        Syntax targetSyntax = source.getTargetSyntax();
+
+        // Step 1: Find the parser and generate a XDOM
+        XDOM xdom = DefaultConverter.parse(getParser(sourceSyntax), source.getSource(), sourceSyntax, this.metrics);
+
+        // Step 2: Run transformations
+        DefaultConverter.transform(xdom, sourceSyntax, targetSyntax, this.budget, this.transformationManager,
+            this.transformations);
+
+        // Step 3: Locate the Renderer and render the content
+        DefaultWikiPrinter printer = new DefaultWikiPrinter();
+        DefaultConverter.render(getRenderer(targetSyntax), xdom, printer, this.budget);
+
+        return printer.toString();
+    }
+
+    private Parser getParser(Syntax syntax) throws ConversionException
+    {
+        Parser parser = this.parsers.get(syntax);
+        if (parser == null) {
+            parser = DefaultConverter.getParser(this.componentManager, syntax);
+            this.parsers.put(syntax, parser);
+        }
+
+        return parser;
+    }
+
+    private BlockRenderer getRenderer(Syntax syntax) throws ConversionException
+    {
+        BlockRenderer renderer = this.renderers.get(syntax);
+        if (renderer == null) {
+            renderer = DefaultConverter.getRenderer(this.componentManager, syntax);
+            this.renderers.put(syntax, renderer);
+        }
+
+        return renderer;
+    }
+}
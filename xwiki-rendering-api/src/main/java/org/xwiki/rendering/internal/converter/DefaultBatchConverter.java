@@ -0,0 +1,206 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.converter;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.context.ExecutionContextException;
+import org.xwiki.context.ExecutionContextManager;
+import org.xwiki.rendering.converter.BatchConversionStatistics;
+import org.xwiki.rendering.converter.BatchConverter;
+import org.xwiki.rendering.converter.ConversionException;
+import org.xwiki.rendering.converter.ConversionSink;
+import org.xwiki.rendering.converter.ConversionSource;
+import org.xwiki.rendering.metrics.RenderingMetrics;
+import org.xwiki.rendering.transformation.RenderingContext;
+import org.xwiki.rendering.transformation.TransformationManager;
+
+/**
+ * Default implementation for {@link BatchConverter}.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+@Component
+@Singleton
+public class DefaultBatchConverter implements BatchConverter
+{
+    private record ConversionResult(ConversionSource source, String result, ConversionException exception)
+    {
+    }
+
+    /**
+     * Used to lookup parsers and renderers.
+     */
+    @Inject
+    @Named("context")
+    private Provider<ComponentManager> componentManagerProvider;
+
+    /**
+     * Used to execute transformations.
+     */
+    @Inject
+    private TransformationManager transformationManager;
+
+    /**
+     * Used to give each conversion its own execution context.
+     */
+    @Inject
+    private Execution execution;
+
+    /**
+     * Used to create the execution context of each conversion.
+     */
+    @Inject
+    private ExecutionContextManager executionContextManager;
+
+    /**
+     * Used to time the parsing.
+     */
+    @Inject
+    private RenderingMetrics metrics;
+
+    /**
+     * Used to share the budget of the current transformation with the conversions.
+     */
+    @Inject
+    private RenderingContext renderingContext;
+
+    @Override
+    public BatchConversionStatistics convert(Iterator<ConversionSource> sources, ConversionSink sink,
+        int concurrency, boolean ordered) throws ConversionException
+    {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("The concurrency must be at least 1 but was " + concurrency);
+        }
+
+        long begin = System.nanoTime();
+        long convertedCount = 0;
+        long failedCount = 0;
+
+        ConversionBatch batch = new ConversionBatch(this.componentManagerProvider.get(), this.transformationManager,
+            this.metrics, this.renderingContext.getRenderingBudget());
+        ExecutionContext callerContext = this.execution.getContext();
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        // When the order doesn't matter, the results are taken as soon as they are available
+        CompletionService<ConversionResult> completionService =
+            ordered ? null : new ExecutorCompletionService<>(executor);
+        // Don't read too many sources in advance
+        int maxPending = concurrency * 2;
+        Deque<Future<ConversionResult>> pending = new ArrayDeque<>(maxPending);
+        try {
+            while (sources.hasNext() || !pending.isEmpty()) {
+                if (sources.hasNext() && pending.size() < maxPending) {
+                    Callable<ConversionResult> task = createTask(sources.next(), batch, callerContext);
+                    if (completionService != null) {
+                        pending.add(completionService.submit(task));
+                    } else {
+                        pending.add(executor.submit(task));
+                    }
+                } else {
+                    Future<ConversionResult> future;
+                    if (completionService != null) {
+                        future = completionService.take();
+                        pending.remove(future);
+                    } else {
+                        future = pending.poll();
+                    }
+
+                    ConversionResult result = future.get();
+                    if (result.exception() == null) {
+                        sink.onConverted(result.source(), result.result());
+                        ++convertedCount;
+                    } else {
+                        sink.onFailed(result.source(), result.exception());
+                        ++failedCount;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new ConversionException("The batch conversion was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new ConversionException("Unexpected error during the batch conversion", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return new BatchConversionStatistics(convertedCount, failedCount, System.nanoTime() - begin);
+    }
+
+    private Callable<ConversionResult> createTask(ConversionSource source, ConversionBatch batch,
+        ExecutionContext callerContext)
+    {
+        // Each conversion gets its own execution context, to not share the rendering context with other conversions.
+        // It's created by the calling thread, which is the only one using the caller context.
+        ExecutionContext context;
+        try {
+            if (callerContext != null) {
+                context = this.executionContextManager.clone(callerContext);
+            } else {
+                context = new ExecutionContext();
+                this.executionContextManager.initialize(context);
+            }
+        } catch (ExecutionContextException e) {
+            ConversionResult result = new ConversionResult(source, null, new ConversionException(
+                "Failed to create the execution context of the conversion of [" + source.getId() + "]", e));
+
+            return () -> result;
+        }
+
+        return () -> convert(source, batch, context);
+    }
+
+    private ConversionResult convert(ConversionSource source, ConversionBatch batch, ExecutionContext context)
+    {
+        this.execution.setContext(context);
+        try {
+            return new ConversionResult(source, batch.convert(source), null);
+        } catch (ConversionException e) {
+            return new ConversionResult(source, null, e);
+        } catch (Exception | StackOverflowError e) {
+            // A StackOverflowError caused by a very deep document only fails the current conversion
+            return new ConversionResult(source, null,
+                new ConversionException("Failed to convert [" + source.getId() + "]", e));
+        } finally {
+            this.execution.removeContext();
+        }
+    }
+}
@@ -20,6 +20,7 @@
 package org.xwiki.rendering.internal.converter;
 
 import java.io.Reader;
+import java.util.List;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -32,11 +33,18 @@
 import org.xwiki.rendering.block.XDOM;
 import org.xwiki.rendering.converter.ConversionException;
 import org.xwiki.rendering.converter.Converter;
+import org.xwiki.rendering.internal.transformation.DefaultTransformationManager;
+import org.xwiki.rendering.metrics.RenderingMetrics;
+import org.xwiki.rendering.metrics.RenderingStage;
 import org.xwiki.rendering.parser.ParseException;
 import org.xwiki.rendering.parser.Parser;
 import org.xwiki.rendering.renderer.BlockRenderer;
 import org.xwiki.rendering.renderer.printer.WikiPrinter;
 import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.rendering.transformation.RenderingBudget;
+import org.xwiki.rendering.transformation.RenderingBudgetExceededException;
+import org.xwiki.rendering.transformation.RenderingContext;
+import org.xwiki.rendering.transformation.Transformation;
 import org.xwiki.rendering.transformation.TransformationContext;
 import org.xwiki.rendering.transformation.TransformationException;
 import org.xwiki.rendering.transformation.TransformationManager;
@@ -63,37 +71,94 @@ public class DefaultConverter implements Converter
     @Inject
     private TransformationManager transformationManager;
 
+    /**
+     * Used to time the parsing.
+     */
+    @Inject
+    private RenderingMetrics metrics;
+
+    /**
+     * Used to share the budget of the current transformation with the conversion.
+     */
+    @Inject
+    private RenderingContext renderingContext;
+
     @Override
     public void convert(Reader source, Syntax sourceSyntax, Syntax targetSyntax, WikiPrinter printer)
         throws ConversionException
     {
+        ComponentManager componentManager = this.componentManagerProvider.get();
+
         // Step 1: Find the parser and generate a XDOM
-        XDOM xdom;
+        XDOM xdom = parse(getParser(componentManager, sourceSyntax), source, sourceSyntax, this.metrics);
+
+        // The conversion uses the budget of the transformation executing it, if any
+        RenderingBudget budget = this.renderingContext.getRenderingBudget();
+
+        // Step 2: Run transformations
+        transform(xdom, sourceSyntax, targetSyntax, budget, this.transformationManager, null);
+
+        // Step 3: Locate the Renderer and render the content in the passed printer
+        render(getRenderer(componentManager, targetSyntax), xdom, printer, budget);
+    }
+
+    static Parser getParser(ComponentManager componentManager, Syntax syntax) throws ConversionException
+    {
         try {
-            Parser parser = this.componentManagerProvider.get().getInstance(Parser.class, sourceSyntax.toIdString());
-            xdom = parser.parse(source);
+            return componentManager.getInstance(Parser.class, syntax.toIdString());
         } catch (ComponentLookupException e) {
-            throw new ConversionException("Failed to locate Parser for syntax [" + sourceSyntax + "]", e);
+            throw new ConversionException("Failed to locate Parser for syntax [" + syntax + "]", e);
+        }
+    }
+
+    static BlockRenderer getRenderer(ComponentManager componentManager, Syntax syntax) throws ConversionException
+    {
+        try {
+            return componentManager.getInstance(BlockRenderer.class, syntax.toIdString());
+        } catch (ComponentLookupException e) {
+            throw new ConversionException("Failed to locate Renderer for syntax [" + syntax + "]", e);
+        }
+    }
+
+    static XDOM parse(Parser parser, Reader source, Syntax sourceSyntax, RenderingMetrics metrics)
+        throws ConversionException
+    {
+        long begin = metrics.begin();
+        try {
+            return parser.parse(source);
         } catch (ParseException e) {
             throw new ConversionException("Failed to parse input source", e);
+        } finally {
+            metrics.end(RenderingStage.PARSE, sourceSyntax.toIdString(), begin);
         }
+    }
 
-        // Step 2: Run transformations
+    static void transform(XDOM xdom, Syntax sourceSyntax, Syntax targetSyntax, RenderingBudget budget,
+        TransformationManager transformationManager, List<Transformation> transformations) throws ConversionException
+    {
         try {
             TransformationContext context = new TransformationContext(xdom, sourceSyntax);
             context.setTargetSyntax(targetSyntax);
-            this.transformationManager.performTransformations(xdom, context);
+            context.setRenderingBudget(budget);
+            if (transformations != null) {
+                ((DefaultTransformationManager) transformationManager).performTransformations(xdom, context,
+                    transformations);
+            } else {
+                // Let the transformation manager look up the transformations itself
+                transformationManager.performTransformations(xdom, context);
+            }
         } catch (TransformationException e) {
             throw new ConversionException("Failed to execute some transformations", e);
         }
+    }
 
-        // Step 3: Locate the Renderer and render the content in the passed printer
-        BlockRenderer renderer;
+    static void render(BlockRenderer renderer, XDOM xdom, WikiPrinter printer, RenderingBudget budget)
+        throws ConversionException
+    {
         try {
-            renderer = this.componentManagerProvider.get().getInstance(BlockRenderer.class, targetSyntax.toIdString());
-        } catch (ComponentLookupException e) {
-            throw new ConversionException("Failed to locate Renderer for syntax [" + targetSyntax + "]", e);
+            renderer.render(xdom, budget != null ? budget.limitOutput(printer) : printer);
+        } catch (RenderingBudgetExceededException e) {
+            throw new ConversionException("The rendering used too many resources", e);
         }
-        renderer.render(xdom, printer);
     }
 }
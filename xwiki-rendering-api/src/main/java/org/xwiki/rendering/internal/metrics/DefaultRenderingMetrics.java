@@ -0,0 +1,115 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.metrics;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.rendering.metrics.RenderingMetrics;
+import org.xwiki.rendering.metrics.RenderingStage;
+import org.xwiki.rendering.metrics.RenderingTimerSnapshot;
+
+/**
+ * Default implementation of {@link RenderingMetrics} based on lock free {@link RenderingTimer}s.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+@Component
+@Singleton
+public class DefaultRenderingMetrics implements RenderingMetrics
+{
+    private final Map<RenderingStage, Map<String, RenderingTimer>> timers = new EnumMap<>(RenderingStage.class);
+
+    private volatile boolean enabled;
+
+    /**
+     * Default constructor.
+     */
+    public DefaultRenderingMetrics()
+    {
+        for (RenderingStage stage : RenderingStage.values()) {
+            this.timers.put(stage, new ConcurrentHashMap<>());
+        }
+    }
+
+    @Override
+    public boolean isEnabled()
+    {
+        return this.enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public long begin()
+    {
+        return this.enabled ? System.nanoTime() : NOT_STARTED;
+    }
+
+    @Override
+    public void end(RenderingStage stage, String name, long begin)
+    {
+        // Also ignore timings started before the metrics were enabled
+        if (begin != NOT_STARTED) {
+            record(stage, name, System.nanoTime() - begin);
+        }
+    }
+
+    @Override
+    public void record(RenderingStage stage, String name, long duration)
+    {
+        if (this.enabled) {
+            this.timers.get(stage).computeIfAbsent(String.valueOf(name), key -> new RenderingTimer(stage, key))
+                .record(duration);
+        }
+    }
+
+    @Override
+    public List<RenderingTimerSnapshot> getSnapshot()
+    {
+        List<RenderingTimerSnapshot> snapshot = new ArrayList<>();
+        for (Map<String, RenderingTimer> stageTimers : this.timers.values()) {
+            for (RenderingTimer timer : stageTimers.values()) {
+                snapshot.add(timer.getSnapshot());
+            }
+        }
+
+        return snapshot;
+    }
+
+    @Override
+    public void reset()
+    {
+        for (Map<String, RenderingTimer> stageTimers : this.timers.values()) {
+            stageTimers.clear();
+        }
+    }
+}
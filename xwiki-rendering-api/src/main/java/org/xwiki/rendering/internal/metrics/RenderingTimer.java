@@ -0,0 +1,102 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.xwiki.rendering.metrics.RenderingStage;
+import org.xwiki.rendering.metrics.RenderingTimerSnapshot;
+
+/**
+ * A lock free timer accumulating durations in striped counters and a power of two histogram.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+public class RenderingTimer
+{
+    /**
+     * The number of buckets of the histogram: the last one starts at 2^39 nanoseconds (around 9 minutes).
+     */
+    public static final int BUCKETS = 40;
+
+    private final RenderingStage stage;
+
+    private final String name;
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder totalTime = new LongAdder();
+
+    private final LongAccumulator maxTime = new LongAccumulator(Math::max, 0);
+
+    private final LongAdder[] histogram = new LongAdder[BUCKETS];
+
+    /**
+     * @param stage the stage of the rendering which is timed
+     * @param name the name of the timed element in the stage
+     */
+    public RenderingTimer(RenderingStage stage, String name)
+    {
+        this.stage = stage;
+        this.name = name;
+
+        for (int i = 0; i < BUCKETS; ++i) {
+            this.histogram[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param duration the duration to record, in nanoseconds
+     */
+    public void record(long duration)
+    {
+        long positiveDuration = Math.max(duration, 0);
+
+        this.count.increment();
+        this.totalTime.add(positiveDuration);
+        this.maxTime.accumulate(positiveDuration);
+        this.histogram[getBucket(positiveDuration)].increment();
+    }
+
+    private static int getBucket(long duration)
+    {
+        if (duration == 0) {
+            return 0;
+        }
+
+        return Math.min(63 - Long.numberOfLeadingZeros(duration), BUCKETS - 1);
+    }
+
+    /**
+     * @return a copy of the current state of the timer
+     */
+    public RenderingTimerSnapshot getSnapshot()
+    {
+        long[] buckets = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; ++i) {
+            buckets[i] = this.histogram[i].sum();
+        }
+
+        return new RenderingTimerSnapshot(this.stage, this.name, this.count.sum(), this.totalTime.sum(),
+            this.maxTime.get(), buckets);
+    }
+}
@@ -19,6 +19,7 @@
  */
 package org.xwiki.rendering.internal.parser;
 
+import java.util.HashMap;
 import java.util.Map;
 
 import org.xwiki.rendering.block.BulletedListBlock;
@@ -71,8 +72,24 @@
  */
 public class XDOMGeneratorListener implements Listener
 {
+    /**
+     * Words longer than that are rarely repeated so it's not worth keeping them in the words table.
+     */
+    private static final int MAX_SHARED_WORD_LENGTH = 32;
+
+    /**
+     * Maximum number of distinct words kept in the table.
+     */
+    private static final int MAX_SHARED_WORDS = 4096;
+
     private XDOMBuilder builder = new XDOMBuilder();
 
+    /**
+     * Table used to share the same {@link String} instance between all the {@link WordBlock}s of the generated
+     * {@link XDOM} containing the same word (parsers usually produce a new instance for each occurrence).
+     */
+    private final Map<String, String> words = new HashMap<>();
+
     /**
      * @return the generated {@link XDOM}.
      */
@@ -81,6 +98,23 @@ public XDOM getXDOM()
         return this.builder.getXDOM();
     }
 
+    private String shareWord(String word)
+    {
+        if (word == null || word.length() > MAX_SHARED_WORD_LENGTH) {
+            return word;
+        }
+
+        String sharedWord = this.words.get(word);
+        if (sharedWord == null) {
+            sharedWord = word;
+            if (this.words.size() < MAX_SHARED_WORDS) {
+                this.words.put(word, word);
+            }
+        }
+
+        return sharedWord;
+    }
+
     @Override
     public void beginDefinitionDescription()
     {
@@ -456,7 +490,7 @@ public void onVerbatim(String content, boolean inline, Map<String, String> param
     @Override
     public void onWord(String word)
     {
-        this.builder.addBlock(new WordBlock(word));
+        this.builder.addBlock(new WordBlock(shareWord(word)));
     }
 
     @Override
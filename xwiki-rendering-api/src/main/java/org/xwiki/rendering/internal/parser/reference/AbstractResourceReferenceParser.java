@@ -19,11 +19,14 @@
  */
 package org.xwiki.rendering.internal.parser.reference;
 
+import java.util.function.Function;
+
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Provider;
 
 import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.rendering.listener.reference.ResourceReference;
 import org.xwiki.rendering.parser.ResourceReferenceParser;
 import org.xwiki.rendering.wiki.WikiModel;
 
@@ -46,6 +49,14 @@ public abstract class AbstractResourceReferenceParser implements ResourceReferen
     @Inject
     protected Provider<WikiModel> wikiModelProvider;
 
+    /**
+     * Used to remember the parsed references and the resource type parsers.
+     *
+     * @since 17.9.0RC1
+     */
+    @Inject
+    protected ResourceReferenceParserCache cache;
+
     /**
      * @return true if we're in wiki mode (i.e. an implementing class for {@link org.xwiki.rendering.wiki.WikiModel}
      *         exists)
@@ -54,4 +65,27 @@ protected boolean isInWikiMode()
     {
         return this.wikiModelProvider.get() != null;
     }
+
+    /**
+     * Reuse the result of a previous parsing of the same reference, in the same mode (wiki or not) and context
+     * component manager, or parse it and remember the result.
+     *
+     * @param rawReference the reference to parse
+     * @param parser the actual parsing, called when the reference is not cached
+     * @return the parsed resource reference, which can be freely modified
+     * @since 17.9.0RC1
+     */
+    protected ResourceReference parseCached(String rawReference, Function<String, ResourceReference> parser)
+    {
+        ComponentManager componentManager = this.componentManagerProvider.get();
+        boolean wikiMode = isInWikiMode();
+
+        ResourceReference reference = this.cache.getReference(componentManager, this, wikiMode, rawReference);
+        if (reference == null) {
+            reference = parser.apply(rawReference);
+            this.cache.setReference(componentManager, this, wikiMode, rawReference, reference);
+        }
+
+        return reference;
+    }
 }
@@ -45,6 +45,11 @@ public abstract class AbstractUntypedReferenceParser extends AbstractResourceRef
 
     @Override
     public ResourceReference parse(String rawReference)
+    {
+        return parseCached(rawReference, this::parseReference);
+    }
+
+    private ResourceReference parseReference(String rawReference)
     {
         ResourceReference reference;
 
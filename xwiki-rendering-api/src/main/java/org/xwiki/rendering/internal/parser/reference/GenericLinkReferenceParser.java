@@ -131,6 +131,11 @@ protected List<String> getAllowedURIPrefixes()
 
     @Override
     public ResourceReference parse(String rawReference)
+    {
+        return parseCached(rawReference, this::parseReference);
+    }
+
+    private ResourceReference parseReference(String rawReference)
     {
         // Step 1: Check if it's a known URI by looking for one of the known URI schemes. If not, check if it's a URL.
         ResourceReference resourceReference = parseURILinks(rawReference);
@@ -212,10 +217,9 @@ private ResourceReference parseURILinks(String rawLink)
             if (getAllowedURIPrefixes().contains(scheme)) {
                 try {
                     ResourceReferenceTypeParser parser =
-                        this.componentManagerProvider.get().getInstance(ResourceReferenceTypeParser.class, scheme);
-                    ResourceReference resourceReference = parser.parse(reference);
-                    if (resourceReference != null) {
-                        result = resourceReference;
+                        this.cache.getTypeParser(this.componentManagerProvider.get(), scheme);
+                    if (parser != null) {
+                        result = parser.parse(reference);
                     }
                 } catch (ComponentLookupException e) {
                     // Failed to lookup component, this shouldn't happen but ignore it.
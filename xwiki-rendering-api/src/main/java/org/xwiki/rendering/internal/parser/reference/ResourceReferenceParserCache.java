@@ -0,0 +1,340 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.parser.reference;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLookupException;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.rendering.listener.reference.ResourceReference;
+import org.xwiki.rendering.parser.ResourceReferenceParser;
+import org.xwiki.rendering.parser.ResourceReferenceTypeParser;
+
+/**
+ * Remember the result of parsing resource references and the {@link ResourceReferenceTypeParser} associated with each
+ * resource type, since the same references are parsed again and again (for example each time a document containing
+ * them is rendered).
+ * <p>
+ * The cached resource references are never exposed: a copy is returned each time since resource references are
+ * mutable. Everything is remembered per context component manager, the least recently used entries being evicted
+ * first. Since the context component manager can itself depend on the context (the current wiki or user for example),
+ * the resource types whose parsers were registered or unregistered in a component manager other than the root one
+ * are also part of the key: their parser is resolved each time and the references parsed with another parser are not
+ * reused. The entries are invalidated when a {@link ResourceReferenceTypeParser} is registered or unregistered (see
+ * {@link ResourceReferenceParserCacheListener}): everything for a change in the root component manager, everything but
+ * the entries of the root component manager otherwise.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+@Component(roles = ResourceReferenceParserCache.class)
+@Singleton
+public class ResourceReferenceParserCache
+{
+    /**
+     * The maximum number of parsed references to remember.
+     */
+    private static final int MAX_REFERENCES = 10000;
+
+    /**
+     * The longest raw reference to cache, longer ones (data URIs for example) are less likely to be repeated and would
+     * use too much memory.
+     */
+    private static final int MAX_REFERENCE_LENGTH = 1024;
+
+    /**
+     * The maximum number of resource types to remember (unknown types are remembered too and they come from the
+     * content).
+     */
+    private static final int MAX_TYPES = 256;
+
+    private static final Object[] NO_TYPE_PARSERS = new Object[0];
+
+    /**
+     * A map evicting its least recently used entry when it's full.
+     *
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     * @version $Id$
+     */
+    private static final class LRUMap<K, V> extends LinkedHashMap<K, V>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        LRUMap(int maxSize)
+        {
+            super(16, 0.75F, true);
+
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest)
+        {
+            return size() > this.maxSize;
+        }
+    }
+
+    /**
+     * The key of a cached value.
+     *
+     * @version $Id$
+     */
+    private static final class Key
+    {
+        private final ComponentManager componentManager;
+
+        /**
+         * The resource types which depend on the context, if any, each followed by the descriptor of its parser in the
+         * context, compared by identity.
+         */
+        private final Object[] typeParsers;
+
+        private final Object parser;
+
+        private final boolean wikiMode;
+
+        private final String value;
+
+        private final int hash;
+
+        Key(ComponentManager componentManager, Object[] typeParsers, Object parser, boolean wikiMode, String value)
+        {
+            this.componentManager = componentManager;
+            this.typeParsers = typeParsers;
+            this.parser = parser;
+            this.wikiMode = wikiMode;
+            this.value = value;
+            int typeParsersHash = 0;
+            for (Object typeParser : typeParsers) {
+                typeParsersHash = 31 * typeParsersHash + System.identityHashCode(typeParser);
+            }
+            this.hash = Objects.hash(System.identityHashCode(componentManager), typeParsersHash,
+                System.identityHashCode(parser), wikiMode, value);
+        }
+
+        @Override
+        public boolean equals(Object object)
+        {
+            if (this == object) {
+                return true;
+            }
+
+            if (object instanceof Key) {
+                Key other = (Key) object;
+
+                return this.componentManager == other.componentManager && this.parser == other.parser
+                    && this.wikiMode == other.wikiMode && this.value.equals(other.value)
+                    && sameTypeParsers(other.typeParsers);
+            }
+
+            return false;
+        }
+
+        private boolean sameTypeParsers(Object[] otherTypeParsers)
+        {
+            if (this.typeParsers.length != otherTypeParsers.length) {
+                return false;
+            }
+
+            for (int i = 0; i < this.typeParsers.length; ++i) {
+                // The types are interned by the set holding them
+                if (this.typeParsers[i] != otherTypeParsers[i]) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return this.hash;
+        }
+    }
+
+    /**
+     * The root component manager, in which the standard resource type parsers are registered.
+     */
+    @Inject
+    private ComponentManager componentManager;
+
+    private final Map<Key, ResourceReference> references = new LRUMap<>(MAX_REFERENCES);
+
+    private final Map<Key, Optional<ResourceReferenceTypeParser>> typeParsers = new LRUMap<>(MAX_TYPES);
+
+    /**
+     * The resource types whose parsers were registered or unregistered in a component manager other than the root
+     * one.
+     */
+    private final Set<String> contextualTypes = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param contextComponentManager the component manager in which the reference is parsed
+     * @param parser the parser of the reference
+     * @param wikiMode true if the reference was parsed in wiki mode
+     * @param rawReference the reference to parse
+     * @return a copy of the cached resulting resource reference, or {@code null} if it's not cached
+     */
+    public ResourceReference getReference(ComponentManager contextComponentManager, ResourceReferenceParser parser,
+        boolean wikiMode, String rawReference)
+    {
+        Key key = new Key(contextComponentManager, getContextualTypeParsers(contextComponentManager), parser,
+            wikiMode, rawReference);
+
+        ResourceReference reference;
+        synchronized (this.references) {
+            reference = this.references.get(key);
+        }
+
+        return reference != null ? reference.clone() : null;
+    }
+
+    /**
+     * @param contextComponentManager the component manager in which the reference was parsed
+     * @param parser the parser of the reference
+     * @param wikiMode true if the reference was parsed in wiki mode
+     * @param rawReference the parsed reference
+     * @param reference the resulting resource reference (a copy is cached, so it's fine to modify it after this call)
+     */
+    public void setReference(ComponentManager contextComponentManager, ResourceReferenceParser parser,
+        boolean wikiMode, String rawReference, ResourceReference reference)
+    {
+        if (reference != null && rawReference.length() <= MAX_REFERENCE_LENGTH) {
+            Key key = new Key(contextComponentManager, getContextualTypeParsers(contextComponentManager), parser,
+                wikiMode, rawReference);
+            ResourceReference cachedReference = reference.clone();
+
+            synchronized (this.references) {
+                this.references.put(key, cachedReference);
+            }
+        }
+    }
+
+    /**
+     * @param contextComponentManager the component manager in which to look for the parser
+     * @param type the resource type
+     * @return the parser associated with the passed resource type, or {@code null} if there is none
+     * @throws ComponentLookupException when the parser failed to be initialized
+     */
+    public ResourceReferenceTypeParser getTypeParser(ComponentManager contextComponentManager, String type)
+        throws ComponentLookupException
+    {
+        if (contextComponentManager != this.componentManager && this.contextualTypes.contains(type)) {
+            // The parser depends on the context
+            return lookupTypeParser(contextComponentManager, type);
+        }
+
+        Key key = new Key(contextComponentManager, NO_TYPE_PARSERS, null, false, type);
+
+        Optional<ResourceReferenceTypeParser> parser;
+        synchronized (this.typeParsers) {
+            parser = this.typeParsers.get(key);
+        }
+        if (parser == null) {
+            parser = Optional.ofNullable(lookupTypeParser(contextComponentManager, type));
+
+            synchronized (this.typeParsers) {
+                this.typeParsers.put(key, parser);
+            }
+        }
+
+        return parser.orElse(null);
+    }
+
+    private ResourceReferenceTypeParser lookupTypeParser(ComponentManager contextComponentManager, String type)
+        throws ComponentLookupException
+    {
+        if (contextComponentManager.hasComponent(ResourceReferenceTypeParser.class, type)) {
+            return contextComponentManager.getInstance(ResourceReferenceTypeParser.class, type);
+        }
+
+        return null;
+    }
+
+    private Object[] getContextualTypeParsers(ComponentManager contextComponentManager)
+    {
+        if (this.contextualTypes.isEmpty() || contextComponentManager == this.componentManager) {
+            return NO_TYPE_PARSERS;
+        }
+
+        List<Object> descriptors = new ArrayList<>(this.contextualTypes.size() * 2);
+        for (String type : this.contextualTypes) {
+            descriptors.add(type);
+            descriptors.add(contextComponentManager.getComponentDescriptor(ResourceReferenceTypeParser.class, type));
+        }
+
+        return descriptors.toArray();
+    }
+
+    /**
+     * Forget what depends on the resource type parsers which have changed.
+     *
+     * @param source the component manager in which the resource type parsers have changed
+     * @param type the resource type whose parser has changed
+     */
+    public void invalidate(Object source, String type)
+    {
+        if (source == this.componentManager) {
+            synchronized (this.typeParsers) {
+                this.typeParsers.clear();
+            }
+            synchronized (this.references) {
+                this.references.clear();
+            }
+        } else {
+            // The parser of this type now depends on the context
+            this.contextualTypes.add(type);
+
+            // The component managers inheriting from the source are unknown, only the entries of the root component
+            // manager are not impacted
+            synchronized (this.typeParsers) {
+                removeContextual(this.typeParsers.keySet().iterator());
+            }
+            synchronized (this.references) {
+                removeContextual(this.references.keySet().iterator());
+            }
+        }
+    }
+
+    private void removeContextual(Iterator<Key> keys)
+    {
+        while (keys.hasNext()) {
+            if (keys.next().componentManager != this.componentManager) {
+                keys.remove();
+            }
+        }
+    }
+}
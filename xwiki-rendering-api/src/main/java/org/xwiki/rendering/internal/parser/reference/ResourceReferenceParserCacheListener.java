@@ -0,0 +1,76 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.parser.reference;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.event.ComponentDescriptorAddedEvent;
+import org.xwiki.component.event.ComponentDescriptorEvent;
+import org.xwiki.component.event.ComponentDescriptorRemovedEvent;
+import org.xwiki.observation.EventListener;
+import org.xwiki.observation.event.Event;
+import org.xwiki.rendering.parser.ResourceReferenceTypeParser;
+
+/**
+ * Invalidate the {@link ResourceReferenceParserCache} when a {@link ResourceReferenceTypeParser} is registered or
+ * unregistered.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+@Component
+@Singleton
+@Named(ResourceReferenceParserCacheListener.NAME)
+public class ResourceReferenceParserCacheListener implements EventListener
+{
+    /**
+     * The name of the listener.
+     */
+    public static final String NAME = "resourcereferenceparsercache";
+
+    @Inject
+    private ResourceReferenceParserCache cache;
+
+    @Override
+    public String getName()
+    {
+        return NAME;
+    }
+
+    @Override
+    public List<Event> getEvents()
+    {
+        return Arrays.asList(
+            new ComponentDescriptorAddedEvent(ResourceReferenceTypeParser.class),
+            new ComponentDescriptorRemovedEvent(ResourceReferenceTypeParser.class));
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        this.cache.invalidate(source, ((ComponentDescriptorEvent) event).getRoleHint());
+    }
+}
@@ -28,10 +28,14 @@
 
 import org.slf4j.Logger;
 import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.metrics.RenderingMetrics;
+import org.xwiki.rendering.metrics.RenderingStage;
 import org.xwiki.rendering.renderer.BlockRenderer;
 import org.xwiki.rendering.renderer.PrintRenderer;
 import org.xwiki.rendering.renderer.PrintRendererFactory;
 import org.xwiki.rendering.renderer.printer.WikiPrinter;
+import org.xwiki.rendering.transformation.RenderingBudget;
+import org.xwiki.rendering.transformation.RenderingContext;
 
 /**
  * Common code for BlockRender implementation that uses Print Renderer Factory.
@@ -44,11 +48,37 @@ public abstract class AbstractBlockRenderer implements BlockRenderer
     @Inject
     protected Logger logger;
 
+    /**
+     * Used to time the rendering.
+     */
+    @Inject
+    protected RenderingMetrics metrics;
+
+    /**
+     * Used to limit the output of the renderings performed during a transformation.
+     *
+     * @since 17.9.0RC1
+     */
+    @Inject
+    protected RenderingContext renderingContext;
+
     /**
      * @return provide the factory to use to create a new {@link PrintRenderer}.
      */
     protected abstract PrintRendererFactory getPrintRendererFactory();
 
+    /**
+     * Prepare the renderer for the rendering of the passed blocks. Does nothing by default.
+     *
+     * @param renderer the renderer which is going to be used
+     * @param blocks the blocks which are going to be rendered
+     * @since 17.9.0RC1
+     */
+    protected void prepareRenderer(PrintRenderer renderer, Collection<Block> blocks)
+    {
+        // Nothing to prepare by default
+    }
+
     @Override
     public void render(Block block, WikiPrinter printer)
     {
@@ -58,19 +88,40 @@ public void render(Block block, WikiPrinter printer)
     @Override
     public void render(Collection<Block> blocks, WikiPrinter printer)
     {
-        PrintRenderer renderer = getPrintRendererFactory().createRenderer(printer);
-        for (Block block : blocks) {
-            block.traverse(renderer);
-        }
+        long begin = this.metrics.begin();
+
+        RenderingBudget budget = this.renderingContext != null ? this.renderingContext.getRenderingBudget() : null;
+        WikiPrinter limitedPrinter = budget != null ? budget.limitOutput(printer) : printer;
 
-        if (renderer instanceof Flushable) {
-            try {
-                ((Flushable) renderer).flush();
-            } catch (IOException e) {
-                if (this.logger != null) {
-                    this.logger.error("Failed to flush renderer [{}]", renderer, e);
+        PrintRendererFactory factory = getPrintRendererFactory();
+        PrintRenderer renderer = null;
+        try {
+            // Reuse a renderer when possible since the renderer does not escape this method
+            renderer = factory instanceof AbstractPrintRendererFactory
+                ? ((AbstractPrintRendererFactory) factory).borrowRenderer(limitedPrinter)
+                : factory.createRenderer(limitedPrinter);
+
+            prepareRenderer(renderer, blocks);
+            for (Block block : blocks) {
+                block.traverse(renderer);
+            }
+
+            if (renderer instanceof Flushable) {
+                try {
+                    ((Flushable) renderer).flush();
+                } catch (IOException e) {
+                    if (this.logger != null) {
+                        this.logger.error("Failed to flush renderer [{}]", renderer, e);
+                    }
                 }
             }
+        } finally {
+            // Give back the renderer even if the rendering failed since it's cleared and reset before being reused
+            if (renderer != null && factory instanceof AbstractPrintRendererFactory) {
+                ((AbstractPrintRendererFactory) factory).releaseRenderer(renderer);
+            }
+
+            this.metrics.end(RenderingStage.RENDER, factory.getSyntax().toIdString(), begin);
         }
     }
 }
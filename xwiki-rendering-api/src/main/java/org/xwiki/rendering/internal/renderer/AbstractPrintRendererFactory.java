@@ -19,12 +19,18 @@
  */
 package org.xwiki.rendering.internal.renderer;
 
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
 import javax.inject.Inject;
 
+import org.xwiki.component.descriptor.ComponentDescriptor;
 import org.xwiki.component.manager.ComponentLookupException;
 import org.xwiki.component.manager.ComponentManager;
 import org.xwiki.rendering.renderer.PrintRenderer;
 import org.xwiki.rendering.renderer.PrintRendererFactory;
+import org.xwiki.rendering.renderer.ResettablePrintRenderer;
 import org.xwiki.rendering.renderer.printer.WikiPrinter;
 
 /**
@@ -36,12 +42,27 @@
  */
 public abstract class AbstractPrintRendererFactory implements PrintRendererFactory
 {
+    /**
+     * The maximum number of renderers kept to be reused.
+     */
+    private static final int POOL_SIZE = 16;
+
     /**
      * Used to lookup the {@link PrintRenderer}.
      */
     @Inject
     private ComponentManager componentManager;
 
+    /**
+     * The renderers which can be reused.
+     */
+    private final BlockingQueue<ResettablePrintRenderer> pool = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    /**
+     * The descriptor of the component which created the renderers in the pool.
+     */
+    private volatile ComponentDescriptor<PrintRenderer> poolDescriptor;
+
     @Override
     public PrintRenderer createRenderer(WikiPrinter printer)
     {
@@ -56,4 +77,52 @@ public PrintRenderer createRenderer(WikiPrinter printer)
 
         return renderer;
     }
+
+    /**
+     * Get a renderer which is not going to be used anymore once the rendering is finished. If the renderer supports it
+     * a renderer used for a previous rendering is reused, to avoid the lookup and initialization of a new one.
+     *
+     * @param printer the object where the XWiki Syntax output will be printed to
+     * @return the renderer, to be given back using {@link #releaseRenderer(PrintRenderer)} once the rendering is
+     *         finished
+     * @since 17.9.0RC1
+     */
+    public PrintRenderer borrowRenderer(WikiPrinter printer)
+    {
+        // Forget the pooled renderers if the renderer component changed
+        ComponentDescriptor<PrintRenderer> descriptor =
+            this.componentManager.getComponentDescriptor(PrintRenderer.class, getSyntax().toIdString());
+        if (!Objects.equals(descriptor, this.poolDescriptor)) {
+            this.pool.clear();
+            this.poolDescriptor = descriptor;
+        }
+
+        ResettablePrintRenderer renderer = this.pool.poll();
+        if (renderer != null) {
+            renderer.reset(printer);
+
+            return renderer;
+        }
+
+        return createRenderer(printer);
+    }
+
+    /**
+     * Give back a renderer obtained with {@link #borrowRenderer(WikiPrinter)} which finished its rendering, successfully
+     * or not. A pooled renderer is cleared so that it doesn't retain the output of its last rendering.
+     *
+     * @param renderer the renderer
+     * @since 17.9.0RC1
+     */
+    public void releaseRenderer(PrintRenderer renderer)
+    {
+        ComponentDescriptor<PrintRenderer> descriptor = this.poolDescriptor;
+        if (renderer instanceof ResettablePrintRenderer
+            && (descriptor == null || descriptor.getImplementation() == renderer.getClass())) {
+            ResettablePrintRenderer resettableRenderer = (ResettablePrintRenderer) renderer;
+            resettableRenderer.clear();
+            // Just forget the renderer if the pool is full
+            this.pool.offer(resettableRenderer);
+        }
+    }
 }
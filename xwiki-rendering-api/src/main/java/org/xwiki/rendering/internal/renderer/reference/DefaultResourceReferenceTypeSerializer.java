@@ -21,6 +21,7 @@
 
 import javax.inject.Singleton;
 
+import org.apache.commons.lang3.StringUtils;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.rendering.internal.parser.reference.DefaultResourceReferenceParser;
 import org.xwiki.rendering.listener.reference.ResourceReference;
@@ -41,7 +42,8 @@ public class DefaultResourceReferenceTypeSerializer implements ResourceReference
     @Override
     public String serialize(ResourceReference reference)
     {
-        StringBuilder result = new StringBuilder();
+        // Make room for the reference right away since it can be very large (e.g. Data URI images)
+        StringBuilder result = new StringBuilder(StringUtils.length(reference.getReference()) + 16);
         if (reference.isTyped() && isSupportedType(reference.getType())) {
             result.append(reference.getType().getScheme());
             result.append(DefaultResourceReferenceParser.TYPE_SEPARATOR);
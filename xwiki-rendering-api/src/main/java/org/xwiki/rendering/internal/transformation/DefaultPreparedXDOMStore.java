@@ -0,0 +1,365 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.transformation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLookupException;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.configuration.RenderingConfiguration;
+import org.xwiki.rendering.internal.block.BinaryXDOMCodec;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.rendering.transformation.PreparedXDOMStore;
+
+/**
+ * Default {@link PreparedXDOMStore}, storing each prepared document in its own file, in the directory indicated by
+ * {@link RenderingConfiguration#getPreparedXDOMStoreDirectory()}.
+ * <p>
+ * The files are located in a sub directory specific to the version of the rendering module (and of the encoding), the
+ * sub directories created by this store for other versions (identified by their name and a marker file) being deleted
+ * the first time the store is used, anything else located in the configured directory being left untouched. The name
+ * of each file is the SHA-256 digest of the syntax, the content and the {@link PreparedXDOMDependency}s available in
+ * the context component manager (like the registered macros, which change without changing the version of the
+ * rendering module). Large files are memory mapped when read, and files which cannot be decoded are removed.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+@Component
+@Singleton
+public class DefaultPreparedXDOMStore implements PreparedXDOMStore
+{
+    /**
+     * Identify the files written by this store.
+     */
+    private static final int MAGIC = 0x58444F4D;
+
+    /**
+     * The version of the encoding, to increase when {@link BinaryXDOMCodec} changes in an incompatible way without a
+     * change of the version of the rendering module (during development for example).
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * The size from which files are memory mapped instead of read, for smaller files the cost of the mapping is
+     * higher than the cost of the copy.
+     */
+    private static final long MAPPING_THRESHOLD = 64 * 1024L;
+
+    private static final String EXTENSION = ".xdom";
+
+    /**
+     * The name of the file identifying the version directories created by this store.
+     */
+    private static final String MARKER = ".prepared-xdom-store";
+
+    /**
+     * The name of the version directories: the first 8 bytes of the digest of the version, in hexadecimal.
+     */
+    private static final int VERSION_NAME_BYTES = 8;
+
+    private static final Pattern VERSION_NAME = Pattern.compile("[0-9a-f]{" + VERSION_NAME_BYTES * 2 + "}");
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    @Inject
+    private RenderingConfiguration configuration;
+
+    @Inject
+    @Named("context")
+    private Provider<ComponentManager> componentManagerProvider;
+
+    @Inject
+    private Logger logger;
+
+    private final String version = getVersion();
+
+    /**
+     * The directory of the current version, once obsolete versions have been removed.
+     */
+    private volatile Path versionDirectory;
+
+    private static String getVersion()
+    {
+        String moduleVersion = XDOM.class.getPackage().getImplementationVersion();
+
+        return FORMAT_VERSION + "-" + (moduleVersion != null ? moduleVersion : "unknown");
+    }
+
+    private static byte[] digest(String value)
+    {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM).digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Path getVersionDirectory()
+    {
+        File rootDirectory = this.configuration.getPreparedXDOMStoreDirectory();
+        if (rootDirectory == null) {
+            return null;
+        }
+
+        Path directory = rootDirectory.toPath().resolve(HEX.formatHex(digest(this.version), 0, VERSION_NAME_BYTES));
+
+        Path currentDirectory = this.versionDirectory;
+        if (!directory.equals(currentDirectory)) {
+            synchronized (this) {
+                if (!directory.equals(this.versionDirectory)) {
+                    deleteObsoleteVersions(rootDirectory.toPath(), directory);
+                    this.versionDirectory = directory;
+                }
+            }
+        }
+
+        return directory;
+    }
+
+    private void deleteObsoleteVersions(Path rootDirectory, Path directory)
+    {
+        if (Files.isDirectory(rootDirectory)) {
+            try (DirectoryStream<Path> versions = Files.newDirectoryStream(rootDirectory)) {
+                for (Path versionPath : versions) {
+                    if (!versionPath.equals(directory) && isVersionDirectory(versionPath)) {
+                        delete(versionPath);
+                    }
+                }
+            } catch (IOException e) {
+                this.logger.warn("Failed to remove the obsolete prepared documents from [{}]. Root cause: [{}]",
+                    rootDirectory, ExceptionUtils.getRootCauseMessage(e));
+            }
+        }
+    }
+
+    private boolean isVersionDirectory(Path path)
+    {
+        return VERSION_NAME.matcher(path.getFileName().toString()).matches() && Files.isDirectory(path)
+            && Files.isRegularFile(path.resolve(MARKER));
+    }
+
+    private void markVersionDirectory(Path directory) throws IOException
+    {
+        Path marker = directory.resolve(MARKER);
+        if (!Files.exists(marker)) {
+            try {
+                Files.createFile(marker);
+            } catch (FileAlreadyExistsException e) {
+                // Created by another thread in the meantime
+            }
+        }
+    }
+
+    private void delete(Path path) throws IOException
+    {
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> paths = Files.walk(path)) {
+                // Delete the children before their parent
+                for (Path child : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(child);
+                }
+            }
+        } else {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private String getDependenciesDigest() throws ComponentLookupException
+    {
+        List<PreparedXDOMDependency> dependencies =
+            this.componentManagerProvider.get().getInstanceList(PreparedXDOMDependency.class);
+
+        return dependencies.stream().map(PreparedXDOMDependency::getDigest).sorted()
+            .collect(Collectors.joining(","));
+    }
+
+    private Path getPath(Path directory, String content, Syntax syntax)
+    {
+        String dependenciesDigest;
+        try {
+            dependenciesDigest = getDependenciesDigest();
+        } catch (ComponentLookupException e) {
+            this.logger.warn("Failed to get the dependencies of the prepared documents. Root cause: [{}]",
+                ExceptionUtils.getRootCauseMessage(e));
+
+            return null;
+        }
+
+        String key = HEX.formatHex(digest(syntax.toIdString() + '\n' + dependenciesDigest + '\n' + content));
+
+        // Spread the files in sub directories to avoid huge directories
+        return directory.resolve(key.substring(0, 2)).resolve(key + EXTENSION);
+    }
+
+    @Override
+    public XDOM get(String content, Syntax syntax)
+    {
+        Path directory = getVersionDirectory();
+        if (directory == null) {
+            return null;
+        }
+
+        Path path = getPath(directory, content, syntax);
+        if (path == null || !Files.exists(path)) {
+            return null;
+        }
+
+        try {
+            return read(path);
+        } catch (IOException e) {
+            this.logger.warn("Failed to read the prepared document stored in [{}], removing it. Root cause: [{}]",
+                path, ExceptionUtils.getRootCauseMessage(e));
+
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException deleteException) {
+                this.logger.debug("Failed to remove [{}]", path, deleteException);
+            }
+        }
+
+        return null;
+    }
+
+    private XDOM read(Path path) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer buffer;
+            if (size >= MAPPING_THRESHOLD) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                buffer = ByteBuffer.allocate((int) size);
+                int read = 0;
+                while (buffer.hasRemaining() && read >= 0) {
+                    read = channel.read(buffer);
+                }
+                buffer.flip();
+            }
+
+            if (buffer.remaining() < Integer.BYTES || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a stored prepared document");
+            }
+
+            return BinaryXDOMCodec.decode(buffer);
+        }
+    }
+
+    @Override
+    public void put(String content, Syntax syntax, XDOM xdom)
+    {
+        Path directory = getVersionDirectory();
+        if (directory == null) {
+            return;
+        }
+
+        Path path = getPath(directory, content, syntax);
+        if (path == null) {
+            return;
+        }
+
+        byte[] bytes;
+        try {
+            bytes = BinaryXDOMCodec.encode(xdom);
+        } catch (IllegalArgumentException e) {
+            this.logger.debug("The prepared document cannot be stored: {}", e.getMessage());
+
+            return;
+        }
+
+        try {
+            Files.createDirectories(path.getParent());
+            markVersionDirectory(directory);
+
+            // Write a temporary file first so that a partially written file is never read
+            Path temporaryPath = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.WRITE)) {
+                    ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + bytes.length);
+                    buffer.putInt(MAGIC).put(bytes).flip();
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                }
+
+                move(temporaryPath, path);
+            } finally {
+                Files.deleteIfExists(temporaryPath);
+            }
+        } catch (IOException e) {
+            this.logger.warn("Failed to store the prepared document in [{}]. Root cause: [{}]", path,
+                ExceptionUtils.getRootCauseMessage(e));
+        }
+    }
+
+    private void move(Path source, Path target) throws IOException
+    {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public void clear()
+    {
+        Path directory = getVersionDirectory();
+        if (directory != null) {
+            try {
+                delete(directory);
+            } catch (IOException e) {
+                this.logger.warn("Failed to remove the prepared documents stored in [{}]. Root cause: [{}]",
+                    directory, ExceptionUtils.getRootCauseMessage(e));
+            }
+        }
+    }
+}
@@ -32,6 +32,7 @@
 import org.xwiki.rendering.block.Block;
 import org.xwiki.rendering.block.XDOM;
 import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.rendering.transformation.RenderingBudget;
 import org.xwiki.rendering.transformation.Transformation;
 import org.xwiki.rendering.transformation.TransformationContext;
 import org.xwiki.rendering.transformation.TransformationException;
@@ -100,12 +101,17 @@ protected static final class Context implements Cloneable
          */
         private Syntax targetSyntax;
 
+        /**
+         * The resources the transformation is allowed to use.
+         */
+        private final RenderingBudget renderingBudget;
+
         /**
          * Create a null context.
          */
         private Context()
         {
-            this(null, null, null, null, false, null);
+            this(null, null, null, null, false, null, null);
         }
 
         /**
@@ -116,9 +122,11 @@ private Context()
          * @param syntax the current syntax.
          * @param transformationId the id of the transformation.
          * @param restricted true if the transformation is restricted.
+         * @param targetSyntax the syntax of the renderer.
+         * @param renderingBudget the resources the transformation is allowed to use.
          */
         private Context(Transformation transformation, XDOM xdom, Syntax syntax, String transformationId,
-            boolean restricted, Syntax targetSyntax)
+            boolean restricted, Syntax targetSyntax, RenderingBudget renderingBudget)
         {
             this.transformationId = transformationId;
             this.xdom = xdom;
@@ -126,6 +134,7 @@ private Context(Transformation transformation, XDOM xdom, Syntax syntax, String
             this.restricted = restricted;
             this.transformation = transformation;
             this.targetSyntax = targetSyntax;
+            this.renderingBudget = renderingBudget;
         }
 
         public String getTransformationId()
@@ -152,16 +161,23 @@ public Context clone()
     public void push(Transformation transformation, TransformationContext context)
     {
         push(transformation, context.getXDOM(), context.getSyntax(), context.getId(), context.isRestricted(),
-            context.getTargetSyntax());
+            context.getTargetSyntax(), context.getRenderingBudget());
     }
 
     @Override
     public void push(Transformation transformation, XDOM xdom, Syntax syntax, String id, boolean restricted,
         Syntax targetSyntax)
+    {
+        // Keep the budget of the enclosing transformation
+        push(transformation, xdom, syntax, id, restricted, targetSyntax, getRenderingBudget());
+    }
+
+    private void push(Transformation transformation, XDOM xdom, Syntax syntax, String id, boolean restricted,
+        Syntax targetSyntax, RenderingBudget renderingBudget)
     {
         Deque<Context> stack = getContextStack(true);
         if (stack != null) {
-            stack.push(new Context(transformation, xdom, syntax, id, restricted, targetSyntax));
+            stack.push(new Context(transformation, xdom, syntax, id, restricted, targetSyntax, renderingBudget));
         }
     }
 
@@ -262,6 +278,12 @@ public Syntax getTargetSyntax()
         return peek().targetSyntax;
     }
 
+    @Override
+    public RenderingBudget getRenderingBudget()
+    {
+        return peek().renderingBudget;
+    }
+
     @Override
     public void setTargetSyntax(Syntax targetSyntax)
     {
@@ -37,11 +37,16 @@
 import org.xwiki.component.manager.ComponentManager;
 import org.xwiki.rendering.block.Block;
 import org.xwiki.rendering.configuration.RenderingConfiguration;
+import org.xwiki.rendering.metrics.RenderingMetrics;
+import org.xwiki.rendering.metrics.RenderingStage;
+import org.xwiki.rendering.transformation.RenderingBudget;
+import org.xwiki.rendering.transformation.RenderingBudgetExceededException;
 import org.xwiki.rendering.transformation.RenderingContext;
 import org.xwiki.rendering.transformation.Transformation;
 import org.xwiki.rendering.transformation.TransformationContext;
 import org.xwiki.rendering.transformation.TransformationException;
 import org.xwiki.rendering.transformation.TransformationManager;
+import org.xwiki.rendering.transformation.TransformedBlockListener;
 
 /**
  * Calls all existing transformations (executed by priority) on an existing XDOM object to generate a new transformed
@@ -79,20 +84,87 @@ public class DefaultTransformationManager implements TransformationManager
     @Named("context")
     private Provider<ComponentManager> componentManagerProvider;
 
+    /**
+     * Used to time each transformation.
+     */
+    @Inject
+    private RenderingMetrics metrics;
+
+    /**
+     * Apply the transformations which follow the first one on each top level block passed by the first transformation,
+     * before passing it to the listener set in the transformation context.
+     *
+     * @version $Id$
+     */
+    private final class ProgressiveTransformationListener implements TransformedBlockListener
+    {
+        private final List<Transformation> transformations;
+
+        private final TransformationContext context;
+
+        private final TransformedBlockListener listener;
+
+        private Map<String, String> transformationsInError;
+
+        private Block lastBlock;
+
+        ProgressiveTransformationListener(List<Transformation> transformations, TransformationContext context,
+            TransformedBlockListener listener)
+        {
+            this.transformations = transformations;
+            this.context = context;
+            this.listener = listener;
+        }
+
+        @Override
+        public void onTransformedBlock(Block block)
+        {
+            for (Transformation transformation : this.transformations) {
+                this.transformationsInError =
+                    performTransformation(transformation, block, this.context, this.transformationsInError);
+            }
+
+            this.listener.onTransformedBlock(block);
+            this.lastBlock = block;
+        }
+    }
+
     @Override
     public void performTransformations(Block block, TransformationContext context) throws TransformationException
     {
-        Map<String, String> transformationsInError = null;
-        for (Transformation transformation : getTransformations()) {
+        performTransformations(block, context, getTransformations());
+    }
+
+    /**
+     * Apply the passed transformations, for example to look them up only once when transforming many blocks.
+     *
+     * @param block the block to transform
+     * @param context the context of the transformation
+     * @param transformations the ordered list of transformations to execute (see {@link #getTransformations()})
+     * @throws TransformationException if one or several transformations failed to execute properly
+     * @since 17.9.0RC1
+     */
+    public void performTransformations(Block block, TransformationContext context,
+        List<Transformation> transformations) throws TransformationException
+    {
+        RenderingBudget budget = context.getRenderingBudget();
+        if (budget != null && block == context.getXDOM()) {
+            // Count the blocks of the document before transforming it
             try {
-                ((MutableRenderingContext) this.renderingContext).transformInContext(transformation, context, block);
-            } catch (Exception e) {
-                // Continue running the other transformations
-                if (transformationsInError == null) {
-                    transformationsInError = new HashMap<>();
-                }
-                transformationsInError.put(transformation.getClass().getName(),
-                    ExceptionUtils.getStackTrace(e));
+                budget.addBlocks(block.getChildren());
+            } catch (RenderingBudgetExceededException e) {
+                throw new TransformationException("The document is too big to be transformed", e);
+            }
+        }
+
+        TransformedBlockListener listener = context.getTransformedBlockListener();
+
+        Map<String, String> transformationsInError = null;
+        if (listener != null && block == context.getXDOM()) {
+            transformationsInError = performProgressiveTransformations(transformations, block, context, listener);
+        } else {
+            for (Transformation transformation : transformations) {
+                transformationsInError = performTransformation(transformation, block, context, transformationsInError);
             }
         }
         if (transformationsInError != null) {
@@ -106,6 +178,91 @@ public void performTransformations(Block block, TransformationContext context) t
         }
     }
 
+    private Map<String, String> performProgressiveTransformations(List<Transformation> transformations, Block block,
+        TransformationContext context, TransformedBlockListener listener)
+    {
+        Map<String, String> transformationsInError = null;
+
+        // Only the first transformation is asked to pass the top level blocks progressively, the following ones are
+        // then applied on each of those blocks
+        ProgressiveTransformationListener progressiveListener = null;
+        if (!transformations.isEmpty()) {
+            progressiveListener = new ProgressiveTransformationListener(
+                transformations.subList(1, transformations.size()), context, listener);
+            context.setTransformedBlockListener(progressiveListener);
+            try {
+                transformationsInError = performTransformation(transformations.get(0), block, context, null);
+            } finally {
+                context.setTransformedBlockListener(listener);
+            }
+        }
+
+        List<Block> children = block.getChildren();
+        if (progressiveListener == null || progressiveListener.lastBlock == null) {
+            // The transformations don't support a progressive transformation so the whole block is transformed before
+            // passing its children to the listener
+            for (int i = 1; i < transformations.size(); ++i) {
+                transformationsInError =
+                    performTransformation(transformations.get(i), block, context, transformationsInError);
+            }
+            children.forEach(listener::onTransformedBlock);
+        } else {
+            // Make sure the top level blocks left by a failed transformation are also passed to the listener
+            progressiveListener.transformationsInError =
+                mergeErrors(transformationsInError, progressiveListener.transformationsInError);
+            int index = indexOf(children, progressiveListener.lastBlock);
+            for (int i = index + 1; i < children.size(); ++i) {
+                progressiveListener.onTransformedBlock(children.get(i));
+            }
+            transformationsInError = progressiveListener.transformationsInError;
+        }
+
+        return transformationsInError;
+    }
+
+    private Map<String, String> performTransformation(Transformation transformation, Block block,
+        TransformationContext context, Map<String, String> transformationsInError)
+    {
+        Map<String, String> errors = transformationsInError;
+
+        long begin = this.metrics.begin();
+        try {
+            ((MutableRenderingContext) this.renderingContext).transformInContext(transformation, context, block);
+        } catch (Exception e) {
+            // Continue running the other transformations
+            if (errors == null) {
+                errors = new HashMap<>();
+            }
+            errors.put(transformation.getClass().getName(), ExceptionUtils.getStackTrace(e));
+        } finally {
+            this.metrics.end(RenderingStage.TRANSFORMATION, transformation.getClass().getName(), begin);
+        }
+
+        return errors;
+    }
+
+    private Map<String, String> mergeErrors(Map<String, String> errors, Map<String, String> otherErrors)
+    {
+        if (errors == null) {
+            return otherErrors;
+        } else if (otherErrors != null) {
+            errors.putAll(otherErrors);
+        }
+
+        return errors;
+    }
+
+    private int indexOf(List<Block> blocks, Block block)
+    {
+        for (int i = blocks.size() - 1; i >= 0; --i) {
+            if (blocks.get(i) == block) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
     /**
      * @return the ordered list of Transformations to execute
      */
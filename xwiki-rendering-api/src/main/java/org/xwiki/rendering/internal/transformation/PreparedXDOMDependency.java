@@ -0,0 +1,41 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.transformation;
+
+import org.xwiki.component.annotation.Role;
+
+/**
+ * Something the preparation of the documents depends on, besides their content and syntax, and which can change
+ * without a change of the version of the rendering module (like the registered macros). Its digest is part of the key
+ * of the documents stored by {@link DefaultPreparedXDOMStore}, so that the documents prepared with a different state
+ * are not used.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+@Role
+public interface PreparedXDOMDependency
+{
+    /**
+     * @return a digest of the current state of the dependency, in the context component manager, which stays the same
+     *     between restarts as long as the state doesn't change
+     */
+    String getDigest();
+}
@@ -42,6 +42,8 @@
  */
 public abstract class AbstractChainingListener implements ChainingListener
 {
+    private static final int NO_SLOT = -1;
+
     /**
      * The chain to use to know the next listener to call on events.
      */
@@ -73,6 +75,16 @@ public abstract class AbstractChainingListener implements ChainingListener
      */
     private final boolean imageRetroCompatibility;
 
+    /**
+     * The chain in which {@link #slot} was resolved.
+     */
+    private ListenerChain slotChain;
+
+    /**
+     * The slot of this listener in {@link #slotChain}.
+     */
+    private int slot = NO_SLOT;
+
     /**
      * The default constructor.
      * <p>
@@ -132,10 +144,26 @@ public ListenerChain getListenerChain()
         return this.listenerChain;
     }
 
+    /**
+     * @return the next listener in the chain
+     */
+    private ChainingListener getNextListener()
+    {
+        ListenerChain chain = getListenerChain();
+
+        // Remember the slot of this listener in the chain to not have to look for it on each event
+        if (chain != this.slotChain || this.slot == NO_SLOT) {
+            this.slot = chain.getListenerSlot(getClass());
+            this.slotChain = chain;
+        }
+
+        return this.slot != NO_SLOT ? chain.getNextListener(this.slot) : null;
+    }
+
     @Override
     public void beginDefinitionDescription()
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.beginDefinitionDescription();
         }
@@ -144,7 +172,7 @@ public void beginDefinitionDescription()
     @Override
     public void beginDefinitionList(Map<String, String> parameters)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.beginDefinitionList(parameters);
         }
@@ -153,7 +181,7 @@ public void beginDefinitionList(Map<String, String> parameters)
     @Override
     public void beginDefinitionTerm()
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.beginDefinitionTerm();
         }
@@ -162,7 +190,7 @@ public void beginDefinitionTerm()
     @Override
     public void beginDocument(MetaData metadata)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.beginDocument(metadata);
         }
@@ -171,7 +199,7 @@ public void beginDocument(MetaData metadata)
     @Override
     public void beginGroup(Map<String, String> parameters)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.beginGroup(parameters);
         }
@@ -180,7 +208,7 @@ public void beginGroup(Map<String, String> parameters)
     @Override
     public void beginFormat(Format format, Map<String, String> parameters)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.beginFormat(format, parameters);
         }
@@ -189,7 +217,7 @@ public void beginFormat(Format format, Map<String, String> parameters)
     @Override
     public void beginHeader(HeaderLevel level, String id, Map<String, String> parameters)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.beginHeader(level, id, parameters);
         }
@@ -198,7 +226,7 @@ public void beginHeader(HeaderLevel level, String id, Map<String, String> parame
     @Override
     public void beginLink(ResourceReference reference, boolean freestanding, Map<String, String> parameters)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.beginLink(reference, freestanding, parameters);
         }
@@ -207,7 +235,7 @@ public void beginLink(ResourceReference reference, boolean freestanding, Map<Str
     @Override
     public void beginList(ListType type, Map<String, String> parameters)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.beginList(type, parameters);
         }
@@ -216,7 +244,7 @@ public void beginList(ListType type, Map<String, String> parameters)
     @Override
     public void beginListItem()
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.beginListItem();
         }
@@ -230,7 +258,7 @@ public void beginListItem(Map<String, String> parameters)
         if (this.listItemRetroCompatibility) {
             beginListItem();
         } else {
-            ChainingListener next = getListenerChain().getNextListener(getClass());
+            ChainingListener next = getNextListener();
             if (next != null) {
                 next.beginListItem(parameters);
             }
@@ -240,7 +268,7 @@ public void beginListItem(Map<String, String> parameters)
     @Override
     public void beginMacroMarker(String name, Map<String, String> parameters, String content, boolean isInline)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.beginMacroMarker(name, parameters, content, isInline);
         }
@@ -249,7 +277,7 @@ public void beginMacroMarker(String name, Map<String, String> parameters, String
     @Override
     public void beginParagraph(Map<String, String> parameters)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.beginParagraph(parameters);
         }
@@ -258,7 +286,7 @@ public void beginParagraph(Map<String, String> parameters)
     @Override
     public void beginQuotation(Map<String, String> parameters)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.beginQuotation(parameters);
         }
@@ -267,7 +295,7 @@ public void beginQuotation(Map<String, String> parameters)
     @Override
     public void beginQuotationLine()
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.beginQuotationLine();
         }
@@ -276,7 +304,7 @@ public void beginQuotationLine()
     @Override
     public void beginSection(Map<String, String> parameters)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.beginSection(parameters);
         }
@@ -285,7 +313,7 @@ public void beginSection(Map<String, String> parameters)
     @Override
     public void beginTable(Map<String, String> parameters)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.beginTable(parameters);
         }
@@ -294,7 +322,7 @@ public void beginTable(Map<String, String> parameters)
     @Override
     public void beginTableCell(Map<String, String> parameters)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.beginTableCell(parameters);
         }
@@ -303,7 +331,7 @@ public void beginTableCell(Map<String, String> parameters)
     @Override
     public void beginTableHeadCell(Map<String, String> parameters)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.beginTableHeadCell(parameters);
         }
@@ -312,7 +340,7 @@ public void beginTableHeadCell(Map<String, String> parameters)
     @Override
     public void beginTableRow(Map<String, String> parameters)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.beginTableRow(parameters);
         }
@@ -321,7 +349,7 @@ public void beginTableRow(Map<String, String> parameters)
     @Override
     public void beginMetaData(MetaData metadata)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.beginMetaData(metadata);
         }
@@ -330,7 +358,7 @@ public void beginMetaData(MetaData metadata)
     @Override
     public void beginFigure(Map<String, String> parameters)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.beginFigure(parameters);
         }
@@ -339,7 +367,7 @@ public void beginFigure(Map<String, String> parameters)
     @Override
     public void beginFigureCaption(Map<String, String> parameters)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.beginFigureCaption(parameters);
         }
@@ -348,7 +376,7 @@ public void beginFigureCaption(Map<String, String> parameters)
     @Override
     public void endDefinitionDescription()
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.endDefinitionDescription();
         }
@@ -357,7 +385,7 @@ public void endDefinitionDescription()
     @Override
     public void endDefinitionList(Map<String, String> parameters)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.endDefinitionList(parameters);
         }
@@ -366,7 +394,7 @@ public void endDefinitionList(Map<String, String> parameters)
     @Override
     public void endDefinitionTerm()
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.endDefinitionTerm();
         }
@@ -375,7 +403,7 @@ public void endDefinitionTerm()
     @Override
     public void endDocument(MetaData metadata)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.endDocument(metadata);
         }
@@ -384,7 +412,7 @@ public void endDocument(MetaData metadata)
     @Override
     public void endGroup(Map<String, String> parameters)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.endGroup(parameters);
         }
@@ -393,7 +421,7 @@ public void endGroup(Map<String, String> parameters)
     @Override
     public void endFormat(Format format, Map<String, String> parameters)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.endFormat(format, parameters);
         }
@@ -402,7 +430,7 @@ public void endFormat(Format format, Map<String, String> parameters)
     @Override
     public void endHeader(HeaderLevel level, String id, Map<String, String> parameters)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.endHeader(level, id, parameters);
         }
@@ -411,7 +439,7 @@ public void endHeader(HeaderLevel level, String id, Map<String, String> paramete
     @Override
     public void endLink(ResourceReference reference, boolean freestanding, Map<String, String> parameters)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.endLink(reference, freestanding, parameters);
         }
@@ -420,7 +448,7 @@ public void endLink(ResourceReference reference, boolean freestanding, Map<Strin
     @Override
     public void endList(ListType type, Map<String, String> parameters)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.endList(type, parameters);
         }
@@ -429,7 +457,7 @@ public void endList(ListType type, Map<String, String> parameters)
     @Override
     public void endListItem()
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.endListItem();
         }
@@ -443,7 +471,7 @@ public void endListItem(Map<String, String> parameters)
         if (this.listItemRetroCompatibility) {
             endListItem();
         } else {
-            ChainingListener next = getListenerChain().getNextListener(getClass());
+            ChainingListener next = getNextListener();
             if (next != null) {
                 next.endListItem(parameters);
             }
@@ -453,7 +481,7 @@ public void endListItem(Map<String, String> parameters)
     @Override
     public void endMacroMarker(String name, Map<String, String> parameters, String content, boolean isInline)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.endMacroMarker(name, parameters, content, isInline);
         }
@@ -462,7 +490,7 @@ public void endMacroMarker(String name, Map<String, String> parameters, String c
     @Override
     public void endParagraph(Map<String, String> parameters)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.endParagraph(parameters);
         }
@@ -471,7 +499,7 @@ public void endParagraph(Map<String, String> parameters)
     @Override
     public void endQuotation(Map<String, String> parameters)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.endQuotation(parameters);
         }
@@ -480,7 +508,7 @@ public void endQuotation(Map<String, String> parameters)
     @Override
     public void endQuotationLine()
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.endQuotationLine();
         }
@@ -489,7 +517,7 @@ public void endQuotationLine()
     @Override
     public void endSection(Map<String, String> parameters)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.endSection(parameters);
         }
@@ -498,7 +526,7 @@ public void endSection(Map<String, String> parameters)
     @Override
     public void endTable(Map<String, String> parameters)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.endTable(parameters);
         }
@@ -507,7 +535,7 @@ public void endTable(Map<String, String> parameters)
     @Override
     public void endTableCell(Map<String, String> parameters)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.endTableCell(parameters);
         }
@@ -516,7 +544,7 @@ public void endTableCell(Map<String, String> parameters)
     @Override
     public void endTableHeadCell(Map<String, String> parameters)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.endTableHeadCell(parameters);
         }
@@ -525,7 +553,7 @@ public void endTableHeadCell(Map<String, String> parameters)
     @Override
     public void endTableRow(Map<String, String> parameters)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.endTableRow(parameters);
         }
@@ -534,7 +562,7 @@ public void endTableRow(Map<String, String> parameters)
     @Override
     public void endMetaData(MetaData metadata)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.endMetaData(metadata);
         }
@@ -543,7 +571,7 @@ public void endMetaData(MetaData metadata)
     @Override
     public void endFigure(Map<String, String> parameters)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.endFigure(parameters);
         }
@@ -552,7 +580,7 @@ public void endFigure(Map<String, String> parameters)
     @Override
     public void endFigureCaption(Map<String, String> parameters)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.endFigureCaption(parameters);
         }
@@ -561,7 +589,7 @@ public void endFigureCaption(Map<String, String> parameters)
     @Override
     public void onEmptyLines(int count)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.onEmptyLines(count);
         }
@@ -570,7 +598,7 @@ public void onEmptyLines(int count)
     @Override
     public void onHorizontalLine(Map<String, String> parameters)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.onHorizontalLine(parameters);
         }
@@ -579,7 +607,7 @@ public void onHorizontalLine(Map<String, String> parameters)
     @Override
     public void onId(String name)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.onId(name);
         }
@@ -588,7 +616,7 @@ public void onId(String name)
     @Override
     public void onImage(ResourceReference reference, boolean freestanding, Map<String, String> parameters)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.onImage(reference, freestanding, parameters);
         }
@@ -602,7 +630,7 @@ public void onImage(ResourceReference reference, boolean freestanding, String id
         if (this.imageRetroCompatibility) {
             onImage(reference, freestanding, parameters);
         } else {
-            ChainingListener next = getListenerChain().getNextListener(getClass());
+            ChainingListener next = getNextListener();
             if (next != null) {
                 next.onImage(reference, freestanding, id, parameters);
             }
@@ -612,7 +640,7 @@ public void onImage(ResourceReference reference, boolean freestanding, String id
     @Override
     public void onMacro(String id, Map<String, String> parameters, String content, boolean inline)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.onMacro(id, parameters, content, inline);
         }
@@ -621,7 +649,7 @@ public void onMacro(String id, Map<String, String> parameters, String content, b
     @Override
     public void onNewLine()
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.onNewLine();
         }
@@ -630,7 +658,7 @@ public void onNewLine()
     @Override
     public void onSpace()
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.onSpace();
         }
@@ -639,7 +667,7 @@ public void onSpace()
     @Override
     public void onSpecialSymbol(char symbol)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.onSpecialSymbol(symbol);
         }
@@ -648,7 +676,7 @@ public void onSpecialSymbol(char symbol)
     @Override
     public void onVerbatim(String content, boolean inline, Map<String, String> parameters)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.onVerbatim(content, inline, parameters);
         }
@@ -657,7 +685,7 @@ public void onVerbatim(String content, boolean inline, Map<String, String> param
     @Override
     public void onWord(String word)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.onWord(word);
         }
@@ -666,7 +694,7 @@ public void onWord(String word)
     @Override
     public void onRawText(String text, Syntax syntax)
     {
-        ChainingListener next = getListenerChain().getNextListener(getClass());
+        ChainingListener next = getNextListener();
         if (next != null) {
             next.onRawText(text, syntax);
         }
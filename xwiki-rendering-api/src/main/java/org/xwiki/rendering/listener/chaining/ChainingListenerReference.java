@@ -0,0 +1,73 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.listener.chaining;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * A cached access to a listener of a {@link ListenerChain}, to be used instead of
+ * {@link ListenerChain#getListener(Class)} in code called for each event. The slot of the listener in the chain is
+ * resolved only once (and again if listeners are added to or removed from the chain), and always gives access to the
+ * current instance of the listener (the one on top of the stack when stackable listeners are pushed or popped).
+ * <p>
+ * Instances are not thread safe, which is fine since a chain is not either.
+ *
+ * @param <T> the type of the listener
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+@Unstable
+public class ChainingListenerReference<T extends ChainingListener>
+{
+    private static final int NO_SLOT = -1;
+
+    private final Class<T> listenerClass;
+
+    private ListenerChain chain;
+
+    private int version;
+
+    private int slot = NO_SLOT;
+
+    /**
+     * @param listenerClass the class of the listener, or one of its super types
+     */
+    public ChainingListenerReference(Class<T> listenerClass)
+    {
+        this.listenerClass = listenerClass;
+    }
+
+    /**
+     * @param listenerChain the chain in which to find the listener
+     * @return the listener instance corresponding to the class of this reference (the same as
+     *         {@link ListenerChain#getListener(Class)}), or {@code null} if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public T get(ListenerChain listenerChain)
+    {
+        if (listenerChain != this.chain || listenerChain.getVersion() != this.version) {
+            this.slot = listenerChain.findListenerSlot(this.listenerClass);
+            this.chain = listenerChain;
+            this.version = listenerChain.getVersion();
+        }
+
+        return this.slot != NO_SLOT ? (T) listenerChain.getListener(this.slot) : null;
+    }
+}
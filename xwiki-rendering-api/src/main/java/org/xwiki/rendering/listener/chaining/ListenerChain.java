@@ -21,6 +21,7 @@
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
@@ -34,26 +35,67 @@
  * stateful information and sometimes you may need to push new versions of them to start with new state information. For
  * example this is used in the XWiki Syntax Renderer when group event is found to start the rendering for that group
  * using reset state information.
+ * <p>
+ * Each listener class gets a stable slot (an index) the first time it's added to the chain. Listeners which forward
+ * events or access other listeners on each event should use those slots (see {@link #getListenerSlot(Class)} and
+ * {@link ChainingListenerReference}) which don't involve any hashing.
  *
  * @version $Id$
  * @since 1.8RC1
  */
 public class ListenerChain
 {
+    private static final int INITIAL_SLOTS = 8;
+
+    private static final int NO_SLOT = -1;
+
+    /**
+     * The slot of each listener class ever added to the chain. A slot is never reassigned, even if the listener is
+     * removed from the chain.
+     */
+    private Map<Class<? extends ChainingListener>, Integer> slots = new HashMap<>();
+
+    /**
+     * The listener class associated with each slot.
+     */
+    private Class<?>[] slotClasses = new Class<?>[INITIAL_SLOTS];
+
+    /**
+     * The full list of chaining listeners, indexed by slot. For each of them we have a stack since the ones that
+     * implement the {@link StackableChainingListener} interface can be stacked.
+     */
+    private Deque<?>[] stacks = new Deque<?>[INITIAL_SLOTS];
+
     /**
-     * The full list of chaining listeners. For each of them we have a stack since the ones that implement the
-     * {@link StackableChainingListener} interface can be stacked.
+     * Indicate, for each slot, if the listener is currently part of the chain.
      */
-    private Map<Class<? extends ChainingListener>, Deque<ChainingListener>> listeners = new HashMap<>();
+    private boolean[] chained = new boolean[INITIAL_SLOTS];
+
+    /**
+     * The top of each stack, indexed by slot.
+     */
+    private ChainingListener[] tops = new ChainingListener[INITIAL_SLOTS];
+
+    /**
+     * The slot of the next listener in the chain, indexed by slot.
+     */
+    private int[] nextSlots = new int[INITIAL_SLOTS];
+
+    private int slotCount;
 
     /**
      * The ordered list of listeners. We only allow one instance per listener class name so we just need to store the
-     * class object and then the instance can be found in {@link #listeners}.
+     * class object and then the instance can be found in {@link #stacks}.
      */
     private List<Class<? extends ChainingListener>> nextListeners = new ArrayList<>();
 
     private int stackingDepth;
 
+    /**
+     * Incremented each time a listener class is added to or removed from the chain.
+     */
+    private int version;
+
     /**
      * @param listener the chaining listener to add to the chain. If an instance of that listener is already present
      *            then we stack the new instance instead.
@@ -69,13 +111,18 @@ public void addListener(ChainingListener listener)
      */
     public void removeListener(Class<? extends ChainingListener> listenerClass)
     {
-        Deque<ChainingListener> stack = this.listeners.get(listenerClass);
-        if (stack.size() > 0) {
-            stack.pop();
-        }
-        if (stack.isEmpty()) {
-            this.listeners.remove(listenerClass);
-            this.nextListeners.remove(listenerClass);
+        int slot = getListenerSlot(listenerClass);
+        if (slot != NO_SLOT) {
+            Deque<ChainingListener> stack = getStack(slot);
+            if (!stack.isEmpty()) {
+                stack.pop();
+                this.tops[slot] = stack.peek();
+                if (stack.isEmpty()) {
+                    this.chained[slot] = false;
+                    this.nextListeners.remove(listenerClass);
+                    updateNextSlots();
+                }
+            }
         }
     }
 
@@ -91,17 +138,59 @@ public void addListener(ChainingListener listener, int index)
         // and don't add the listener as an additional listener in the list (since it's already
         // in there). We need to take these steps since the push() methods below will create
         // new instances of listeners which will add themselves in the chain automatically.
-        Deque<ChainingListener> stack = this.listeners.get(listener.getClass());
-        if (stack == null) {
-            stack = new ArrayDeque<>();
-            this.listeners.put(listener.getClass(), stack);
+        int slot = getOrCreateListenerSlot(listener.getClass());
+        Deque<ChainingListener> stack = getStack(slot);
+        stack.push(listener);
+        this.tops[slot] = listener;
+        if (!this.chained[slot]) {
+            this.chained[slot] = true;
             if (index > -1 && index < this.nextListeners.size()) {
                 this.nextListeners.add(index, listener.getClass());
             } else {
                 this.nextListeners.add(listener.getClass());
             }
+            updateNextSlots();
         }
-        stack.push(listener);
+    }
+
+    private int getOrCreateListenerSlot(Class<? extends ChainingListener> listenerClass)
+    {
+        Integer slot = this.slots.get(listenerClass);
+        if (slot != null) {
+            return slot;
+        }
+
+        int newSlot = this.slotCount++;
+        if (newSlot == this.stacks.length) {
+            int newLength = newSlot * 2;
+            this.slotClasses = Arrays.copyOf(this.slotClasses, newLength);
+            this.stacks = Arrays.copyOf(this.stacks, newLength);
+            this.chained = Arrays.copyOf(this.chained, newLength);
+            this.tops = Arrays.copyOf(this.tops, newLength);
+            this.nextSlots = Arrays.copyOf(this.nextSlots, newLength);
+        }
+        this.slotClasses[newSlot] = listenerClass;
+        this.stacks[newSlot] = new ArrayDeque<ChainingListener>();
+        this.nextSlots[newSlot] = NO_SLOT;
+        this.slots.put(listenerClass, newSlot);
+
+        return newSlot;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Deque<ChainingListener> getStack(int slot)
+    {
+        return (Deque<ChainingListener>) this.stacks[slot];
+    }
+
+    private void updateNextSlots()
+    {
+        Arrays.fill(this.nextSlots, 0, this.slotCount, NO_SLOT);
+        for (int i = 0; i < this.nextListeners.size() - 1; ++i) {
+            this.nextSlots[this.slots.get(this.nextListeners.get(i))] = this.slots.get(this.nextListeners.get(i + 1));
+        }
+
+        ++this.version;
     }
 
     /**
@@ -110,12 +199,23 @@ public void addListener(ChainingListener listener, int index)
      */
     public ChainingListener getNextListener(Class<? extends ChainingListener> listenerClass)
     {
-        ChainingListener next = null;
-        int pos = indexOf(listenerClass);
-        if (pos > -1 && this.nextListeners.size() > pos + 1) {
-            next = this.listeners.get(this.nextListeners.get(pos + 1)).peek();
-        }
-        return next;
+        int slot = getListenerSlot(listenerClass);
+
+        return slot != NO_SLOT ? getNextListener(slot) : null;
+    }
+
+    /**
+     * @param slot the slot of the listener for which we need to find the next listener in the chain (see
+     *            {@link #getListenerSlot(Class)})
+     * @return the next listener in the chain
+     * @since 17.9.0RC1
+     */
+    @Unstable
+    public ChainingListener getNextListener(int slot)
+    {
+        int nextSlot = this.nextSlots[slot];
+
+        return nextSlot != NO_SLOT ? this.tops[nextSlot] : null;
     }
 
     /**
@@ -125,17 +225,64 @@ public ChainingListener getNextListener(Class<? extends ChainingListener> listen
      */
     public ChainingListener getListener(Class<? extends ChainingListener> listenerClass)
     {
-        Deque<ChainingListener> result = this.listeners.get(listenerClass);
-        if (result == null) {
-            for (Class<? extends ChainingListener> listenerKey : this.listeners.keySet()) {
-                if (listenerClass.isAssignableFrom(listenerKey)) {
-                    result = this.listeners.get(listenerKey);
+        int slot = findListenerSlot(listenerClass);
+
+        return slot != NO_SLOT ? this.tops[slot] : null;
+    }
+
+    /**
+     * @param slot the slot of the listener (see {@link #getListenerSlot(Class)})
+     * @return the listener instance corresponding to the passed slot, or {@code null} if that listener is not part of
+     *         the chain anymore. Note that the last instance of the stack is returned
+     * @since 17.9.0RC1
+     */
+    @Unstable
+    public ChainingListener getListener(int slot)
+    {
+        return this.tops[slot];
+    }
+
+    /**
+     * @param listenerClass the exact class of a listener added to the chain
+     * @return the slot associated with the passed listener class, which won't change for the whole life of the chain,
+     *         or -1 if no listener of that class was ever added to the chain
+     * @since 17.9.0RC1
+     */
+    @Unstable
+    public int getListenerSlot(Class<? extends ChainingListener> listenerClass)
+    {
+        Integer slot = this.slots.get(listenerClass);
+
+        return slot != null ? slot : NO_SLOT;
+    }
+
+    /**
+     * @param listenerClass the listener class or one of its super types
+     * @return the slot of the listener in the chain with the passed class, or of a listener in the chain extending the
+     *         passed class, or -1 if none is found
+     */
+    int findListenerSlot(Class<? extends ChainingListener> listenerClass)
+    {
+        int slot = getListenerSlot(listenerClass);
+        if (slot == NO_SLOT || !this.chained[slot]) {
+            slot = NO_SLOT;
+            for (int i = 0; i < this.slotCount; ++i) {
+                if (this.chained[i] && listenerClass.isAssignableFrom(this.slotClasses[i])) {
+                    slot = i;
                     break;
                 }
             }
         }
 
-        return result != null ? result.peek() : null;
+        return slot;
+    }
+
+    /**
+     * @return a number which changes each time a listener class is added to or removed from the chain
+     */
+    int getVersion()
+    {
+        return this.version;
     }
 
     /**
@@ -157,11 +304,18 @@ public int indexOf(Class<? extends ChainingListener> listenerClass)
     public void pushListener(Class<? extends ChainingListener> listenerClass)
     {
         if (StackableChainingListener.class.isAssignableFrom(listenerClass)) {
-            Deque<ChainingListener> stack = this.listeners.get(listenerClass);
-            stack.push(((StackableChainingListener) stack.peek()).createChainingListenerInstance());
+            pushListener(getListenerSlot(listenerClass));
         }
     }
 
+    private void pushListener(int slot)
+    {
+        ChainingListener listener =
+            ((StackableChainingListener) this.tops[slot]).createChainingListenerInstance();
+        getStack(slot).push(listener);
+        this.tops[slot] = listener;
+    }
+
     /**
      * Create new instances of all chaining listeners that are stackable (ie that implement the
      * {@link org.xwiki.rendering.listener.chaining.StackableChainingListener} interface. This allows creating a clean
@@ -169,8 +323,10 @@ public void pushListener(Class<? extends ChainingListener> listenerClass)
      */
     public void pushAllStackableListeners()
     {
-        for (Class<? extends ChainingListener> listenerClass : this.listeners.keySet()) {
-            pushListener(listenerClass);
+        for (int slot = 0; slot < this.slotCount; ++slot) {
+            if (this.chained[slot] && StackableChainingListener.class.isAssignableFrom(this.slotClasses[slot])) {
+                pushListener(slot);
+            }
         }
 
         ++this.stackingDepth;
@@ -181,8 +337,10 @@ public void pushAllStackableListeners()
      */
     public void popAllStackableListeners()
     {
-        for (Class<? extends ChainingListener> listenerClass : this.listeners.keySet()) {
-            popListener(listenerClass);
+        for (int slot = 0; slot < this.slotCount; ++slot) {
+            if (this.chained[slot] && StackableChainingListener.class.isAssignableFrom(this.slotClasses[slot])) {
+                popListener(slot);
+            }
         }
 
         --this.stackingDepth;
@@ -211,7 +369,14 @@ public int getStackingDepth()
     public void popListener(Class<? extends ChainingListener> listenerClass)
     {
         if (StackableChainingListener.class.isAssignableFrom(listenerClass)) {
-            this.listeners.get(listenerClass).pop();
+            popListener(getListenerSlot(listenerClass));
         }
     }
+
+    private void popListener(int slot)
+    {
+        Deque<ChainingListener> stack = getStack(slot);
+        stack.pop();
+        this.tops[slot] = stack.peek();
+    }
 }
@@ -268,9 +268,9 @@ public ResourceReference clone()
 
         // Really clone the mutable fields
         if (this.baseReferences != null) {
-            this.baseReferences = new ArrayList<>(this.baseReferences);
+            clone.baseReferences = new ArrayList<>(this.baseReferences);
         }
-        this.parameters = new LinkedHashMap<>(this.parameters);
+        clone.parameters = new LinkedHashMap<>(this.parameters);
 
         return clone;
     }
@@ -0,0 +1,99 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.metrics;
+
+import java.util.List;
+
+import org.xwiki.component.annotation.Role;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Collect timings of the various stages of the rendering process (parsing, transformations, macros, rendering).
+ * <p>
+ * The metrics are disabled by default and recording them costs a single volatile read in that case. The expected usage
+ * is:
+ *
+ * <pre>
+ * <code>
+ * long begin = metrics.begin();
+ * try {
+ *     ...
+ * } finally {
+ *     metrics.end(RenderingStage.PARSE, syntax.toIdString(), begin);
+ * }
+ * </code>
+ * </pre>
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+@Role
+@Unstable
+public interface RenderingMetrics
+{
+    /**
+     * The value returned by {@link #begin()} when the metrics are disabled.
+     */
+    long NOT_STARTED = Long.MIN_VALUE;
+
+    /**
+     * @return true if the metrics are currently recorded
+     */
+    boolean isEnabled();
+
+    /**
+     * @param enabled true if the metrics should be recorded
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * @return the current time in nanoseconds to pass to {@link #end(RenderingStage, String, long)}, or
+     *         {@link #NOT_STARTED} if the metrics are disabled
+     */
+    long begin();
+
+    /**
+     * Record the time spent since the passed begin time.
+     *
+     * @param stage the stage of the rendering which was timed
+     * @param name the name of the timed element in the stage (syntax, transformation, macro id, etc.)
+     * @param begin the value returned by {@link #begin()}
+     */
+    void end(RenderingStage stage, String name, long begin);
+
+    /**
+     * Record a duration.
+     *
+     * @param stage the stage of the rendering which was timed
+     * @param name the name of the timed element in the stage (syntax, transformation, macro id, etc.)
+     * @param duration the duration in nanoseconds
+     */
+    void record(RenderingStage stage, String name, long duration);
+
+    /**
+     * @return a copy of the current state of all the timers
+     */
+    List<RenderingTimerSnapshot> getSnapshot();
+
+    /**
+     * Forget all the recorded timings.
+     */
+    void reset();
+}
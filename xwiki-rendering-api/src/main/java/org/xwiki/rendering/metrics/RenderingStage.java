@@ -0,0 +1,58 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.metrics;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * The stages of the rendering process for which {@link RenderingMetrics} records timings.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+@Unstable
+public enum RenderingStage
+{
+    /**
+     * The parsing of some content into an XDOM, timed per source syntax.
+     */
+    PARSE,
+
+    /**
+     * The execution of a transformation on an XDOM, timed per transformation.
+     */
+    TRANSFORMATION,
+
+    /**
+     * The execution of a macro, timed per macro id.
+     */
+    MACRO,
+
+    /**
+     * The rendering of blocks into a printer, timed per target syntax.
+     */
+    RENDER,
+
+    /**
+     * The cleaning of HTML raw content (for example the content of the HTML macro), timed per cache outcome
+     * ({@code hit} or {@code miss}).
+     */
+    HTML_CLEANING
+}
@@ -0,0 +1,138 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.metrics;
+
+import java.util.Arrays;
+
+import org.xwiki.stability.Unstable;
+import org.xwiki.text.XWikiToStringBuilder;
+
+/**
+ * The state of a {@link RenderingMetrics} timer at a given time.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+@Unstable
+public class RenderingTimerSnapshot
+{
+    private final RenderingStage stage;
+
+    private final String name;
+
+    private final long count;
+
+    private final long totalTime;
+
+    private final long maxTime;
+
+    private final long[] histogram;
+
+    /**
+     * @param stage the stage of the rendering which was timed
+     * @param name the name of the timed element in the stage
+     * @param count the number of recorded durations
+     * @param totalTime the sum of the recorded durations, in nanoseconds
+     * @param maxTime the longest recorded duration, in nanoseconds
+     * @param histogram the number of recorded durations in each bucket, see {@link #getHistogram()}
+     */
+    public RenderingTimerSnapshot(RenderingStage stage, String name, long count, long totalTime, long maxTime,
+        long[] histogram)
+    {
+        this.stage = stage;
+        this.name = name;
+        this.count = count;
+        this.totalTime = totalTime;
+        this.maxTime = maxTime;
+        this.histogram = histogram.clone();
+    }
+
+    /**
+     * @return the stage of the rendering which was timed
+     */
+    public RenderingStage getStage()
+    {
+        return this.stage;
+    }
+
+    /**
+     * @return the name of the timed element in the stage (syntax, transformation, macro id, etc.)
+     */
+    public String getName()
+    {
+        return this.name;
+    }
+
+    /**
+     * @return the number of recorded durations
+     */
+    public long getCount()
+    {
+        return this.count;
+    }
+
+    /**
+     * @return the sum of the recorded durations, in nanoseconds
+     */
+    public long getTotalTime()
+    {
+        return this.totalTime;
+    }
+
+    /**
+     * @return the longest recorded duration, in nanoseconds
+     */
+    public long getMaxTime()
+    {
+        return this.maxTime;
+    }
+
+    /**
+     * @return the average recorded duration, in nanoseconds
+     */
+    public long getMeanTime()
+    {
+        return this.count > 0 ? this.totalTime / this.count : 0;
+    }
+
+    /**
+     * @return the number of recorded durations in each bucket: bucket {@code i} contains the durations between
+     *         {@code 2^i} (included) and {@code 2^(i+1)} (excluded) nanoseconds, the first bucket also contains the
+     *         durations smaller than 1 nanosecond and the last one all the durations which don't fit in the previous
+     *         ones
+     */
+    public long[] getHistogram()
+    {
+        return this.histogram.clone();
+    }
+
+    @Override
+    public String toString()
+    {
+        return new XWikiToStringBuilder(this)
+            .append("stage", getStage())
+            .append("name", getName())
+            .append("count", getCount())
+            .append("totalTime", getTotalTime())
+            .append("maxTime", getMaxTime())
+            .append("histogram", Arrays.toString(this.histogram))
+            .toString();
+    }
+}
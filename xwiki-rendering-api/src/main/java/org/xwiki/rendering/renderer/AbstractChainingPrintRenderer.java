@@ -25,6 +25,7 @@
 import org.xwiki.rendering.listener.chaining.AbstractChainingListener;
 import org.xwiki.rendering.listener.chaining.ChainingListener;
 import org.xwiki.rendering.renderer.printer.WikiPrinter;
+import org.xwiki.stability.Unstable;
 
 /**
  * @version $Id$
@@ -83,6 +84,31 @@ protected void pushPrinter(WikiPrinter wikiPrinter)
         }
     }
 
+    /**
+     * Forget all the printers and set the provided one, for example to reuse the renderer for a new rendering.
+     *
+     * @param printer the new main {@link WikiPrinter} to use
+     * @since 17.9.0RC1
+     */
+    @Unstable
+    protected void resetPrinter(WikiPrinter printer)
+    {
+        clearPrinters();
+
+        setPrinter(printer);
+    }
+
+    /**
+     * Forget all the printers, for example to not retain the output of a finished rendering.
+     *
+     * @since 17.9.0RC1
+     */
+    @Unstable
+    protected void clearPrinters()
+    {
+        this.printers.clear();
+    }
+
     /**
      * Removes the current {@link WikiPrinter} and instead sets the previous printer as active.
      */
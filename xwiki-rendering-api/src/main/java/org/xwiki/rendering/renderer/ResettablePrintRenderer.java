@@ -0,0 +1,47 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.renderer;
+
+import org.xwiki.rendering.renderer.printer.WikiPrinter;
+import org.xwiki.stability.Unstable;
+
+/**
+ * A {@link PrintRenderer} which can be reused for several renderings.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+@Unstable
+public interface ResettablePrintRenderer extends PrintRenderer
+{
+    /**
+     * Forget everything about the previous rendering (state of the listeners, printers) and prepare a new rendering.
+     *
+     * @param printer the object where the output of the new rendering will be printed to
+     */
+    void reset(WikiPrinter printer);
+
+    /**
+     * Forget everything about the previous rendering (state of the listeners, printers) without preparing a new one,
+     * so that a renderer kept for a later reuse doesn't retain the output of the previous rendering. The renderer
+     * can't be used anymore until {@link #reset(WikiPrinter)} is called.
+     */
+    void clear();
+}
@@ -0,0 +1,112 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.renderer;
+
+import java.io.Flushable;
+import java.io.IOException;
+
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.listener.MetaData;
+import org.xwiki.rendering.renderer.printer.WikiPrinter;
+import org.xwiki.rendering.renderer.printer.WriterWikiPrinter;
+import org.xwiki.rendering.transformation.TransformationContext;
+import org.xwiki.rendering.transformation.TransformedBlockListener;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Render the top level blocks of a document as soon as they are transformed, so that the beginning of a long document
+ * can be sent while the rest of it is still being transformed. The result is the same as rendering the whole
+ * transformed {@link XDOM} with the same {@link PrintRenderer}.
+ * <p>
+ * Set it as the listener of the transformation context (see
+ * {@link TransformationContext#setTransformedBlockListener(TransformedBlockListener)}) and call {@link #end()} once
+ * the transformations are done. When the printer writes to a {@link java.io.Writer} (see {@link WriterWikiPrinter}),
+ * the writer is flushed after each block.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+@Unstable
+public class StreamingBlockRenderer implements TransformedBlockListener
+{
+    private final PrintRenderer renderer;
+
+    private MetaData metaData;
+
+    /**
+     * @param renderer the renderer to use to render the blocks
+     */
+    public StreamingBlockRenderer(PrintRenderer renderer)
+    {
+        this.renderer = renderer;
+    }
+
+    @Override
+    public void onTransformedBlock(Block block)
+    {
+        if (this.metaData == null) {
+            Block parent = block.getParent();
+            this.metaData = parent instanceof XDOM ? ((XDOM) parent).getMetaData() : MetaData.EMPTY;
+            this.renderer.beginDocument(this.metaData);
+        }
+
+        block.traverse(this.renderer);
+
+        flushWriter();
+    }
+
+    /**
+     * End the rendering of the document, once all its top level blocks have been received.
+     */
+    public void end()
+    {
+        if (this.metaData == null) {
+            this.metaData = MetaData.EMPTY;
+            this.renderer.beginDocument(this.metaData);
+        }
+
+        this.renderer.endDocument(this.metaData);
+
+        if (this.renderer instanceof Flushable) {
+            try {
+                ((Flushable) this.renderer).flush();
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to flush the renderer", e);
+            }
+        }
+
+        flushWriter();
+    }
+
+    private void flushWriter()
+    {
+        // The renderer itself is not flushed since it might need to look at the next events before printing the
+        // current ones
+        WikiPrinter printer = this.renderer.getPrinter();
+        if (printer instanceof WriterWikiPrinter) {
+            try {
+                ((WriterWikiPrinter) printer).getWriter().flush();
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to flush the writer", e);
+            }
+        }
+    }
+}
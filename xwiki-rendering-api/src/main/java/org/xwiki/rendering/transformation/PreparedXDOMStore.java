@@ -0,0 +1,63 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.transformation;
+
+import org.xwiki.component.annotation.Role;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Persistent store of prepared documents (see {@link Transformation#prepare(org.xwiki.rendering.block.Block)}),
+ * including the prepared content attached to their blocks, so that the first rendering of a content after a restart
+ * does not need to parse and prepare it again.
+ * <p>
+ * The documents are identified by the digest of the content they were parsed from, its syntax and the macros available
+ * to prepare it. The stored documents are automatically forgotten when the version of the rendering module changes.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+@Role
+@Unstable
+public interface PreparedXDOMStore
+{
+    /**
+     * @param content the content from which the document was parsed
+     * @param syntax the syntax of the content
+     * @return a new copy of the stored prepared document, or {@code null} if none is stored (or it cannot be read)
+     */
+    XDOM get(String content, Syntax syntax);
+
+    /**
+     * Store a prepared document. Documents containing values which cannot be stored (custom block attributes for
+     * example) are ignored.
+     *
+     * @param content the content from which the document was parsed
+     * @param syntax the syntax of the content
+     * @param xdom the prepared document
+     */
+    void put(String content, Syntax syntax, XDOM xdom);
+
+    /**
+     * Forget all the stored documents.
+     */
+    void clear();
+}
@@ -0,0 +1,376 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.transformation;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.renderer.printer.WikiPrinter;
+import org.xwiki.rendering.renderer.printer.WrappingWikiPrinter;
+import org.xwiki.stability.Unstable;
+
+/**
+ * The resources a rendering is allowed to use: time, number of macro executions, number of blocks, nesting of macro
+ * executions and size of the output. The limits are checked cooperatively by the transformations (see
+ * {@link TransformationContext#setRenderingBudget(RenderingBudget)}) and by the printer returned by
+ * {@link #limitOutput(WikiPrinter)}, which throw a {@link RenderingBudgetExceededException} when one of them is
+ * exceeded. All the limits are disabled by default.
+ * <p>
+ * The same budget is meant to be shared by all the steps of a rendering, the time limit starting with the creation of
+ * the budget: the budget of the current transformation (see {@link RenderingContext#getRenderingBudget()}) also limits
+ * the conversions and the renderings performed during the transformation. A scope of the budget (see
+ * {@link #createScope()}) shares its limits and counters, and additionally remembers the blocks counted through it.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+@Unstable
+public class RenderingBudget
+{
+    /**
+     * The value of a disabled limit.
+     */
+    public static final long UNLIMITED = -1;
+
+    /**
+     * The limits and counters shared by a budget and its scopes.
+     *
+     * @version $Id$
+     */
+    private static final class Counters
+    {
+        private final long startTime = System.nanoTime();
+
+        private long maxDuration = UNLIMITED;
+
+        private long maxMacroExecutions = UNLIMITED;
+
+        private long maxBlocks = UNLIMITED;
+
+        private long maxNestingDepth = UNLIMITED;
+
+        private long maxOutputLength = UNLIMITED;
+
+        private final AtomicLong macroExecutions = new AtomicLong();
+
+        private final AtomicLong blocks = new AtomicLong();
+
+        private final AtomicInteger nestingDepth = new AtomicInteger();
+
+        private final AtomicLong outputLength = new AtomicLong();
+    }
+
+    private final Counters counters;
+
+    /**
+     * The budget this budget is a scope of, or {@code null}.
+     */
+    private final RenderingBudget parent;
+
+    private final AtomicLong scopeBlocks = new AtomicLong();
+
+    /**
+     * The roots of the blocks counted through this scope (and its own scopes), not used for a budget which isn't a
+     * scope.
+     */
+    private final Set<Block> countedBlocks = Collections.synchronizedSet(Collections.newSetFromMap(
+        new IdentityHashMap<>()));
+
+    /**
+     * Create a new budget, without any limit.
+     */
+    public RenderingBudget()
+    {
+        this(new Counters(), null);
+    }
+
+    private RenderingBudget(Counters counters, RenderingBudget parent)
+    {
+        this.counters = counters;
+        this.parent = parent;
+    }
+
+    /**
+     * @param maxDuration the maximum number of milliseconds the rendering can take, counted from the creation of the
+     *            budget, or {@link #UNLIMITED}
+     */
+    public void setMaxDuration(long maxDuration)
+    {
+        this.counters.maxDuration = maxDuration;
+    }
+
+    /**
+     * @param maxMacroExecutions the maximum number of macro executions, or {@link #UNLIMITED}
+     */
+    public void setMaxMacroExecutions(long maxMacroExecutions)
+    {
+        this.counters.maxMacroExecutions = maxMacroExecutions;
+    }
+
+    /**
+     * @param maxBlocks the maximum number of blocks of the transformed document and generated by the macros, or
+     *            {@link #UNLIMITED}
+     */
+    public void setMaxBlocks(long maxBlocks)
+    {
+        this.counters.maxBlocks = maxBlocks;
+    }
+
+    /**
+     * @param maxNestingDepth the maximum number of macro executions running inside each other (for example a macro
+     *            including content which contains the same macro), or {@link #UNLIMITED}
+     */
+    public void setMaxNestingDepth(long maxNestingDepth)
+    {
+        this.counters.maxNestingDepth = maxNestingDepth;
+    }
+
+    /**
+     * @param maxOutputLength the maximum number of characters printed by the printers returned by
+     *            {@link #limitOutput(WikiPrinter)}, or {@link #UNLIMITED}
+     */
+    public void setMaxOutputLength(long maxOutputLength)
+    {
+        this.counters.maxOutputLength = maxOutputLength;
+    }
+
+    /**
+     * @return the number of macro executions so far
+     */
+    public long getMacroExecutions()
+    {
+        return this.counters.macroExecutions.get();
+    }
+
+    /**
+     * @return the number of blocks counted so far (blocks are only counted when their number is limited)
+     */
+    public long getBlocks()
+    {
+        return this.counters.blocks.get();
+    }
+
+    /**
+     * @return the number of blocks counted through this budget and its scopes so far (blocks are only counted when
+     *         their number is limited)
+     */
+    public long getScopeBlocks()
+    {
+        return this.scopeBlocks.get();
+    }
+
+    /**
+     * @return the number of characters printed so far
+     */
+    public long getOutputLength()
+    {
+        return this.counters.outputLength.get();
+    }
+
+    /**
+     * Create a budget sharing the limits and the counters of this budget, which remembers the blocks counted through
+     * it (see {@link #getScopeBlocks()}). For example the blocks generated by the macros executed while a macro
+     * transforms its content are counted through a scope, so that they're not counted again as part of the result of
+     * the macro (see {@link #addBlocks(Iterable, RenderingBudget)}).
+     *
+     * @return the new scope
+     */
+    public RenderingBudget createScope()
+    {
+        return new RenderingBudget(this.counters, this);
+    }
+
+    /**
+     * @throws RenderingBudgetExceededException if the rendering took too long
+     */
+    public void checkTime()
+    {
+        checkTime(this.counters);
+    }
+
+    private static void checkTime(Counters counters)
+    {
+        if (counters.maxDuration != UNLIMITED) {
+            long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - counters.startTime);
+            if (duration > counters.maxDuration) {
+                throw new RenderingBudgetExceededException(
+                    String.format("The rendering took more than %d ms", counters.maxDuration));
+            }
+        }
+    }
+
+    /**
+     * Count a new macro execution, which must be followed by a call to {@link #endMacroExecution()} once the macro is
+     * executed (even if this method fails).
+     *
+     * @throws RenderingBudgetExceededException if the rendering took too long, or if there are too many macro
+     *             executions in total or running inside each other
+     */
+    public void beginMacroExecution()
+    {
+        int depth = this.counters.nestingDepth.incrementAndGet();
+
+        checkTime();
+
+        long executions = this.counters.macroExecutions.incrementAndGet();
+        if (this.counters.maxMacroExecutions != UNLIMITED && executions > this.counters.maxMacroExecutions) {
+            throw new RenderingBudgetExceededException(
+                String.format("The rendering executed more than %d macros", this.counters.maxMacroExecutions));
+        }
+
+        if (this.counters.maxNestingDepth != UNLIMITED && depth > this.counters.maxNestingDepth) {
+            throw new RenderingBudgetExceededException(
+                String.format("The rendering nested more than %d macro executions", this.counters.maxNestingDepth));
+        }
+    }
+
+    /**
+     * Indicate that a macro execution started with {@link #beginMacroExecution()} is finished.
+     */
+    public void endMacroExecution()
+    {
+        this.counters.nestingDepth.decrementAndGet();
+    }
+
+    /**
+     * Count the passed blocks and all their descendants.
+     *
+     * @param blocks the new blocks
+     * @throws RenderingBudgetExceededException if there are too many blocks in total
+     */
+    public void addBlocks(Iterable<? extends Block> blocks)
+    {
+        addBlocks(blocks, null);
+    }
+
+    /**
+     * Count the passed blocks and all their descendants, except the blocks already counted through the passed scope
+     * (which are not traversed again). For example the result of a macro contains the blocks generated by the macros
+     * executed while transforming its content, which were counted when these macros were executed.
+     *
+     * @param blocks the new blocks
+     * @param scope the scope through which some of the passed blocks were already counted, or {@code null}
+     * @throws RenderingBudgetExceededException if there are too many blocks in total
+     */
+    public void addBlocks(Iterable<? extends Block> blocks, RenderingBudget scope)
+    {
+        if (this.counters.maxBlocks != UNLIMITED) {
+            long count = count(blocks, scope);
+
+            for (RenderingBudget budget = this; budget != null; budget = budget.parent) {
+                budget.scopeBlocks.addAndGet(count);
+                if (budget.parent != null) {
+                    blocks.forEach(budget.countedBlocks::add);
+                }
+            }
+
+            if (this.counters.blocks.addAndGet(count) > this.counters.maxBlocks) {
+                throw new RenderingBudgetExceededException(
+                    String.format("The rendering produced more than %d blocks", this.counters.maxBlocks));
+            }
+        }
+    }
+
+    private static long count(Iterable<? extends Block> blocks, RenderingBudget scope)
+    {
+        Set<Block> skippedBlocks = scope != null ? scope.countedBlocks : Collections.emptySet();
+
+        long count = 0;
+        Deque<Block> remaining = new ArrayDeque<>();
+        blocks.forEach(remaining::push);
+        while (!remaining.isEmpty()) {
+            Block block = remaining.pop();
+            // Skip the results of the macros executed while transforming the content of the macro
+            if (!skippedBlocks.contains(block)) {
+                ++count;
+                block.getChildren().forEach(remaining::push);
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * @param printer the printer to wrap
+     * @return a printer which fails with a {@link RenderingBudgetExceededException} when the rendering took too long
+     *         or when the total number of characters printed is too big (the passed printer itself if it's already
+     *         limited by this budget or one of its scopes, so that the characters are not counted twice)
+     */
+    public WikiPrinter limitOutput(WikiPrinter printer)
+    {
+        if (printer instanceof LimitedWikiPrinter && ((LimitedWikiPrinter) printer).counters == this.counters) {
+            return printer;
+        }
+
+        return new LimitedWikiPrinter(printer, this.counters);
+    }
+
+    /**
+     * A printer counting the characters printed through it.
+     *
+     * @version $Id$
+     */
+    private static final class LimitedWikiPrinter extends WrappingWikiPrinter
+    {
+        private final Counters counters;
+
+        LimitedWikiPrinter(WikiPrinter printer, Counters counters)
+        {
+            super(printer);
+
+            this.counters = counters;
+        }
+
+        @Override
+        public void print(String text)
+        {
+            count(this.counters, text.length());
+
+            super.print(text);
+        }
+
+        @Override
+        public void println(String text)
+        {
+            // Count the new line too
+            count(this.counters, text.length() + 1);
+
+            super.println(text);
+        }
+    }
+
+    private static void count(Counters counters, int length)
+    {
+        checkTime(counters);
+
+        long total = counters.outputLength.addAndGet(length);
+        if (counters.maxOutputLength != UNLIMITED && total > counters.maxOutputLength) {
+            throw new RenderingBudgetExceededException(
+                String.format("The rendering printed more than %d characters", counters.maxOutputLength));
+        }
+    }
+}
@@ -24,6 +24,7 @@
 import org.xwiki.rendering.block.Block;
 import org.xwiki.rendering.block.XDOM;
 import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.stability.Unstable;
 
 /**
  * The context of the rendering engine during transformation.
@@ -76,4 +77,16 @@ public interface RenderingContext extends Cloneable
      * @since 6.2M1
      */
     Syntax getTargetSyntax();
+
+    /**
+     * @return the resources the current transformation is allowed to use (see
+     *         {@link TransformationContext#getRenderingBudget()}), which also limit the conversions and renderings it
+     *         performs, or {@code null} if they are not limited
+     * @since 17.9.0RC1
+     */
+    @Unstable
+    default RenderingBudget getRenderingBudget()
+    {
+        return null;
+    }
 }
@@ -21,6 +21,7 @@
 
 import org.xwiki.rendering.block.XDOM;
 import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.stability.Unstable;
 
 /**
  * The context of the transformation process. Contains information such as the current XWiki DOM for the parsed content.
@@ -55,6 +56,16 @@ public class TransformationContext implements Cloneable
      */
     private Syntax targetSyntax;
 
+    /**
+     * @see #getTransformedBlockListener()
+     */
+    private TransformedBlockListener transformedBlockListener;
+
+    /**
+     * @see #getRenderingBudget()
+     */
+    private RenderingBudget renderingBudget;
+
     /**
      * Default constructor that doesn't set the XDOM or the Syntax. This is because setting the XDOM and the Syntax is
      * optional and only required by some Macros to behave as expected.
@@ -174,6 +185,56 @@ public void setTargetSyntax(Syntax targetSyntax)
         this.targetSyntax = targetSyntax;
     }
 
+    /**
+     * @return the listener to notify of each top level block of the {@link XDOM} as soon as it's transformed, or
+     *         {@code null} if the {@link XDOM} is transformed as a whole
+     * @since 17.9.0RC1
+     */
+    @Unstable
+    public TransformedBlockListener getTransformedBlockListener()
+    {
+        return this.transformedBlockListener;
+    }
+
+    /**
+     * Ask the transformations to transform the top level blocks of the {@link XDOM} progressively, in document order,
+     * and to notify the passed listener as soon as each of them won't be modified anymore. Every top level block is
+     * passed to the listener, even when the transformations don't support a progressive transformation (they are
+     * then all passed at the end).
+     *
+     * <p>
+     * The listener is not copied by {@link #clone()}.
+     *
+     * @param transformedBlockListener the listener to notify of each top level block as soon as it's transformed,
+     *            {@code null} to transform the {@link XDOM} as a whole
+     * @since 17.9.0RC1
+     */
+    @Unstable
+    public void setTransformedBlockListener(TransformedBlockListener transformedBlockListener)
+    {
+        this.transformedBlockListener = transformedBlockListener;
+    }
+
+    /**
+     * @return the resources the transformations are allowed to use, or {@code null} if they are not limited
+     * @since 17.9.0RC1
+     */
+    @Unstable
+    public RenderingBudget getRenderingBudget()
+    {
+        return this.renderingBudget;
+    }
+
+    /**
+     * @param renderingBudget the resources the transformations are allowed to use, {@code null} to not limit them
+     * @since 17.9.0RC1
+     */
+    @Unstable
+    public void setRenderingBudget(RenderingBudget renderingBudget)
+    {
+        this.renderingBudget = renderingBudget;
+    }
+
     @Override
     public TransformationContext clone()
     {
@@ -185,6 +246,10 @@ public TransformationContext clone()
             throw new RuntimeException("Failed to clone object", e);
         }
 
+        // The listener is only interested in the top level blocks of the XDOM it was registered for, and not in the
+        // ones of the XDOM a copy of this context will be used to transform (e.g. the content of a macro)
+        newContext.transformedBlockListener = null;
+
         return newContext;
     }
 }
@@ -0,0 +1,44 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.transformation;
+
+import org.xwiki.rendering.block.Block;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Receive the top level blocks of a document as soon as they are transformed, in document order. This allows, for
+ * example, to start rendering the beginning of a long document while the rest of it is still being transformed (see
+ * {@link org.xwiki.rendering.renderer.StreamingBlockRenderer}).
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ * @see TransformationContext#setTransformedBlockListener(TransformedBlockListener)
+ */
+@Unstable
+public interface TransformedBlockListener
+{
+    /**
+     * Called once for each top level block of the transformed document, in document order, when the transformations
+     * won't modify it anymore.
+     *
+     * @param block the transformed top level block
+     */
+    void onTransformedBlock(Block block);
+}
@@ -20,10 +20,13 @@
 package org.xwiki.rendering.util;
 
 import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
+import org.xwiki.stability.Unstable;
 
 /**
  * Stateful generator of id attributes. It's stateful since it remembers the generated ids. Thus a new instance of it
@@ -91,6 +94,29 @@ public IdGenerator(IdGenerator idGenerator)
         this.generatedIds.addAll(idGenerator.generatedIds);
     }
 
+    /**
+     * Create an id generator which remembers the provided ids as already generated.
+     *
+     * @param generatedIds the already generated ids
+     * @since 17.9.0RC1
+     */
+    @Unstable
+    public IdGenerator(Collection<String> generatedIds)
+    {
+        this.generatedIds = ConcurrentHashMap.newKeySet();
+        this.generatedIds.addAll(generatedIds);
+    }
+
+    /**
+     * @return the already generated ids
+     * @since 17.9.0RC1
+     */
+    @Unstable
+    public Set<String> getGeneratedIds()
+    {
+        return Collections.unmodifiableSet(this.generatedIds);
+    }
+
     /**
      * Same as {@link #generateUniqueId(String, String)} but with a fixed prefix of "I".
      *
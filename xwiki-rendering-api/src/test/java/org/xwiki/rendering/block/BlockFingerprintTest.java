@@ -0,0 +1,224 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.block;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.rendering.listener.Format;
+import org.xwiki.rendering.listener.Listener;
+import org.xwiki.rendering.listener.reference.ResourceReference;
+import org.xwiki.rendering.listener.reference.ResourceType;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Unit tests for {@link BlockFingerprint} and {@link Block#getFingerprint()}.
+ *
+ * @version $Id$
+ */
+class BlockFingerprintTest
+{
+    /**
+     * A block sending the events of its children itself.
+     *
+     * @version $Id$
+     */
+    private static class TraversingBlock extends AbstractBlock
+    {
+        TraversingBlock(List<Block> childrenBlocks)
+        {
+            super(childrenBlocks);
+        }
+
+        @Override
+        public void traverse(Listener listener)
+        {
+            super.traverse(listener);
+        }
+    }
+
+    private static Block createBlock(String word)
+    {
+        return new ParagraphBlock(List.of(new WordBlock("hello"), new SpaceBlock(),
+            new FormatBlock(List.of(new WordBlock(word)), Format.BOLD), new SpecialSymbolBlock('!')));
+    }
+
+    @Test
+    void equalBlocks()
+    {
+        Block block = createBlock("world");
+
+        assertEquals(createBlock("world").getFingerprint(), block.getFingerprint());
+        assertEquals(block.clone().getFingerprint(), block.getFingerprint());
+        assertNotEquals(createBlock("other").getFingerprint(), block.getFingerprint());
+        assertNotEquals(new WordBlock("world").getFingerprint(), new WordBlock("World").getFingerprint());
+        assertNotEquals(new ParagraphBlock(List.of()).getFingerprint(), new GroupBlock().getFingerprint());
+        assertEquals(32, block.getFingerprint().toString().length());
+    }
+
+    @Test
+    void parameters()
+    {
+        Map<String, String> parameters1 = new LinkedHashMap<>();
+        parameters1.put("a", "1");
+        parameters1.put("b", "2");
+        Map<String, String> parameters2 = new LinkedHashMap<>();
+        parameters2.put("b", "2");
+        parameters2.put("a", "1");
+
+        assertEquals(new GroupBlock(parameters1).getFingerprint(), new GroupBlock(parameters2).getFingerprint());
+        assertNotEquals(new GroupBlock(parameters1).getFingerprint(), new GroupBlock().getFingerprint());
+    }
+
+    @Test
+    void invalidation()
+    {
+        Block block = createBlock("world");
+        BlockFingerprint fingerprint = block.getFingerprint();
+
+        assertSame(fingerprint, block.getFingerprint());
+
+        Block format = block.getChildren().get(2);
+        format.replaceChild(new WordBlock("other"), format.getChildren().get(0));
+
+        assertEquals(createBlock("other").getFingerprint(), block.getFingerprint());
+
+        format.setParameter("class", "value");
+
+        assertNotEquals(createBlock("other").getFingerprint(), block.getFingerprint());
+
+        format.setParameters(Map.of());
+        block.getChildren().get(0).setAttribute("attribute", "value");
+
+        assertNotEquals(createBlock("other").getFingerprint(), block.getFingerprint());
+    }
+
+    @Test
+    void cloneDoesNotInvalidateOriginalAncestors()
+    {
+        AbstractBlock block = (AbstractBlock) createBlock("world");
+        Block format = block.getChildren().get(2);
+        format.setAttribute("attribute", "value");
+        BlockFingerprint fingerprint = block.getFingerprint();
+
+        Block formatClone = format.clone();
+
+        assertSame(fingerprint, block.getCachedFingerprint());
+        assertNull(((AbstractBlock) formatClone).getCachedFingerprint());
+        assertEquals(format.getFingerprint(), formatClone.getFingerprint());
+    }
+
+    @Test
+    void blockAttributes()
+    {
+        Block block1 = new MacroBlock("macro", Map.of(), "content", false);
+        block1.setAttribute("prepare.content.xdom", new XDOM(List.of(createBlock("world"))));
+        Block block2 = new MacroBlock("macro", Map.of(), "content", false);
+        block2.setAttribute("prepare.content.xdom", new XDOM(List.of(createBlock("world"))));
+        Block block3 = new MacroBlock("macro", Map.of(), "content", false);
+        block3.setAttribute("prepare.content.xdom", new XDOM(List.of(createBlock("other"))));
+
+        assertEquals(block1.getFingerprint(), block2.getFingerprint());
+        assertNotEquals(block1.getFingerprint(), block3.getFingerprint());
+    }
+
+    @Test
+    void opaqueAttributes()
+    {
+        Block block1 = new WordBlock("word");
+        block1.setAttribute("attribute", new Object());
+        Block block2 = new WordBlock("word");
+        block2.setAttribute("attribute", new Object());
+
+        assertEquals(block1.getFingerprint(), block2.getFingerprint());
+        assertNotEquals(new WordBlock("word").getFingerprint(), block1.getFingerprint());
+    }
+
+    @Test
+    void invalidationThroughTraversingBlock()
+    {
+        Block group = new GroupBlock(List.of(new WordBlock("word")));
+        Block block = new ParagraphBlock(List.of(new TraversingBlock(List.of(group))));
+        BlockFingerprint fingerprint = block.getFingerprint();
+
+        // The group was hashed through the traversal of its parent so it doesn't have a fingerprint of its own
+        assertNull(((AbstractBlock) group).getCachedFingerprint());
+
+        group.replaceChild(new WordBlock("other"), group.getChildren().get(0));
+
+        assertNotEquals(fingerprint, block.getFingerprint());
+        assertEquals(new ParagraphBlock(List.of(new TraversingBlock(List.of(new GroupBlock(List.of(
+            new WordBlock("other"))))))).getFingerprint(), block.getFingerprint());
+    }
+
+    @Test
+    void blockAttributesModification()
+    {
+        XDOM content = new XDOM(List.of(createBlock("world")));
+        Block macro = new MacroBlock("macro", Map.of(), "content", false);
+        macro.setAttribute("prepare.content.xdom", content);
+        AbstractBlock block = new ParagraphBlock(List.of(macro));
+        BlockFingerprint fingerprint = block.getFingerprint();
+
+        // Modifying the content stored in the attribute cannot invalidate the macro block
+        assertNull(block.getCachedFingerprint());
+        assertNull(((AbstractBlock) macro).getCachedFingerprint());
+
+        content.setChildren(List.of(createBlock("other")));
+
+        assertNotEquals(fingerprint, block.getFingerprint());
+    }
+
+    @Test
+    void inPlaceModificationDoesNotInvalidate()
+    {
+        ResourceReference reference = new ResourceReference("Page", ResourceType.DOCUMENT);
+        Block link = new LinkBlock(List.of(), reference, false);
+        BlockFingerprint fingerprint = link.getFingerprint();
+
+        reference.setReference("Other");
+
+        assertSame(fingerprint, link.getFingerprint());
+
+        // Setting a value on the block invalidates the fingerprint
+        link.setParameter("class", "value");
+        link.setParameters(Map.of());
+
+        assertEquals(new LinkBlock(List.of(), new ResourceReference("Other", ResourceType.DOCUMENT), false)
+            .getFingerprint(), link.getFingerprint());
+    }
+
+    @Test
+    void deepTree()
+    {
+        Block block = new WordBlock("leaf");
+        for (int i = 0; i < 100000; ++i) {
+            block = new GroupBlock(List.of(block));
+        }
+
+        assertEquals(block.getFingerprint(), block.getFingerprint());
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.block;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.rendering.listener.reference.ResourceReference;
+import org.xwiki.rendering.listener.reference.ResourceType;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link BlockSizeEstimator}.
+ *
+ * @version $Id$
+ */
+class BlockSizeEstimatorTest
+{
+    private final BlockSizeEstimator estimator = new BlockSizeEstimator();
+
+    private static ParagraphBlock createParagraph(int count, boolean distinctWords)
+    {
+        String word = "word";
+        List<Block> children = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            children.add(new WordBlock(distinctWords ? "word" + i : word));
+            children.add(new SpaceBlock());
+        }
+
+        return new ParagraphBlock(children);
+    }
+
+    @Test
+    void word()
+    {
+        // Block: header + 7 references of AbstractBlock + the word reference, String: header and array of 5 bytes
+        assertEquals(48 + 24 + 24, this.estimator.estimate(new WordBlock("hello")));
+    }
+
+    @Test
+    void paragraph()
+    {
+        long size = this.estimator.estimate(createParagraph(1000, true));
+
+        // Each word costs a WordBlock, a String and a SpaceBlock
+        assertTrue(size > 1000 * (48 + 48 + 40), String.valueOf(size));
+        assertTrue(size < 1000 * 200, String.valueOf(size));
+
+        // The same word instance is only counted once
+        assertTrue(this.estimator.estimate(createParagraph(1000, false)) < size - 1000 * 40);
+    }
+
+    @Test
+    void referencedObjects()
+    {
+        ResourceReference reference = new ResourceReference("https://www.xwiki.org", ResourceType.URL);
+        reference.setParameter("key", "value");
+
+        long linkSize = this.estimator.estimate(new LinkBlock(List.of(), reference, false));
+        long linkWithParametersSize =
+            this.estimator.estimate(new LinkBlock(List.of(), reference, false, Map.of("class", "link")));
+
+        assertTrue(linkSize > 48 + 100, String.valueOf(linkSize));
+        assertTrue(linkWithParametersSize > linkSize);
+    }
+
+    @Test
+    void subtree()
+    {
+        ParagraphBlock paragraph = createParagraph(10, true);
+        XDOM xdom = new XDOM(List.of(paragraph, createParagraph(10, true)));
+
+        // Siblings of the root are not included
+        assertEquals(this.estimator.estimate(createParagraph(10, true)), this.estimator.estimate(paragraph));
+        assertTrue(this.estimator.estimate(xdom) > 2 * this.estimator.estimate(paragraph));
+    }
+
+    @Test
+    void deepTree()
+    {
+        Block block = new WordBlock("leaf");
+        for (int i = 0; i < 100000; ++i) {
+            block = new GroupBlock(List.of(block));
+        }
+
+        assertTrue(this.estimator.estimate(block) > 100000 * 48);
+    }
+
+    @Test
+    void blocksInAttributes()
+    {
+        WordBlock word = new WordBlock("word");
+        long wordSize = this.estimator.estimate(word);
+        long paragraphSize = this.estimator.estimate(createParagraph(10, true));
+
+        word.setAttribute("block", createParagraph(10, true));
+        word.setAttribute("blocks", List.of(createParagraph(10, true), createParagraph(10, true)));
+
+        // The blocks stored in the attributes are owned by the block
+        assertTrue(this.estimator.estimate(word) > wordSize + 3 * paragraphSize);
+    }
+
+    @Test
+    void blocksInAttributesCycle()
+    {
+        WordBlock word = new WordBlock("word");
+        GroupBlock group = new GroupBlock(List.of(word));
+        word.setAttribute("block", group);
+
+        // Doesn't fail, the nesting of the trees of blocks stored in attributes is limited
+        assertTrue(this.estimator.estimate(group) > 0);
+    }
+
+    @Test
+    void layout()
+    {
+        List<Block> children = new ArrayList<>();
+        for (int i = 0; i < 100; ++i) {
+            children.add(new WordBlock("word" + i));
+            children.add(new SpaceBlock());
+        }
+        ParagraphBlock paragraph = new ParagraphBlock(children);
+
+        // Paragraph: header + 7 references of AbstractBlock, children list with its array
+        long expected = 40 + 32 + align(16 + paragraph.getChildrenCapacity() * 4L);
+        for (int i = 0; i < 100; ++i) {
+            // Word: header + 7 references of AbstractBlock + the word reference, String: header and array of bytes
+            expected += 48 + 24 + align(16 + ("word" + i).length());
+            // Space: header + 7 references of AbstractBlock
+            expected += 40;
+        }
+
+        assertEquals(expected, this.estimator.estimate(paragraph));
+    }
+
+    private static long align(long size)
+    {
+        return (size + 7) & ~7L;
+    }
+}
@@ -432,4 +432,37 @@ void getSyntaxMetadata()
         assertEquals(Syntax.XWIKI_2_1, metadata1.getSyntaxMetadata().get());
         assertEquals(Syntax.PLAIN_1_0, metadata2.getSyntaxMetadata().get());
     }
+
+    @Test
+    void replaceAndRemoveChildrenOfWideBlock()
+    {
+        ParagraphBlock pb = new ParagraphBlock(Collections.emptyList());
+        for (int i = 0; i < 10000; ++i) {
+            pb.addChild(new WordBlock(String.valueOf(i)));
+        }
+
+        // Replace each word by a word and a space, then remove the words
+        for (Block child : new ArrayList<>(pb.getChildren())) {
+            pb.replaceChild(Arrays.asList(new WordBlock("new"), new SpaceBlock()), child);
+        }
+        for (Block child : new ArrayList<>(pb.getChildren())) {
+            if (child instanceof WordBlock) {
+                pb.removeBlock(child);
+            }
+        }
+
+        List<Block> children = pb.getChildren();
+        assertEquals(10000, children.size());
+        Block previous = null;
+        for (Block child : children) {
+            assertTrue(child instanceof SpaceBlock);
+            assertSame(pb, child.getParent());
+            assertSame(previous, child.getPreviousSibling());
+            if (previous != null) {
+                assertSame(child, previous.getNextSibling());
+            }
+            previous = child;
+        }
+        assertNull(previous.getNextSibling());
+    }
 }
@@ -0,0 +1,151 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.block.match;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.Block.Axes;
+import org.xwiki.rendering.block.BlockTestHelper;
+import org.xwiki.rendering.block.GroupBlock;
+import org.xwiki.rendering.block.WordBlock;
+import org.xwiki.rendering.listener.VoidListener;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Unit tests for {@link AxesSpliterator}.
+ *
+ * @version $Id$
+ */
+class AxesSpliteratorTest
+{
+    private static final int DEPTH = 100000;
+
+    private static List<Block> list(Block block, Axes axes)
+    {
+        return block.stream(axes).collect(Collectors.toList());
+    }
+
+    private static Block createDeepTree()
+    {
+        Block block = new WordBlock("leaf");
+        for (int i = 0; i < DEPTH; ++i) {
+            block = new GroupBlock(List.of(block));
+        }
+
+        return block;
+    }
+
+    @Test
+    void stream()
+    {
+        assertEquals(Arrays.asList(BlockTestHelper.parentBlock, BlockTestHelper.rootBlock),
+            list(BlockTestHelper.contextBlock, Axes.ANCESTOR));
+        assertEquals(Arrays.asList(BlockTestHelper.contextBlockChild1, BlockTestHelper.contextBlockChild2),
+            list(BlockTestHelper.contextBlock, Axes.CHILD));
+        assertEquals(Arrays.asList(BlockTestHelper.contextBlockChild1, BlockTestHelper.contextBlockChild11,
+            BlockTestHelper.contextBlockChild12, BlockTestHelper.contextBlockChild2,
+            BlockTestHelper.contextBlockChild21, BlockTestHelper.contextBlockChild22),
+            list(BlockTestHelper.contextBlock, Axes.DESCENDANT));
+        assertEquals(Arrays.asList(BlockTestHelper.followingBlock, BlockTestHelper.followingBlockChild1,
+            BlockTestHelper.followingBlockChild2), list(BlockTestHelper.contextBlock, Axes.FOLLOWING));
+        assertEquals(Arrays.asList(BlockTestHelper.precedingBlock, BlockTestHelper.precedingBlockChild1,
+            BlockTestHelper.precedingBlockChild2), list(BlockTestHelper.contextBlock, Axes.PRECEDING));
+        assertEquals(List.of(BlockTestHelper.contextBlock), list(BlockTestHelper.contextBlock, Axes.SELF));
+    }
+
+    @Test
+    void streamIsLazy()
+    {
+        List<Block> visited = new ArrayList<>();
+
+        Block first = BlockTestHelper.rootBlock.stream(Axes.DESCENDANT_OR_SELF).peek(visited::add)
+            .filter(WordBlock.class::isInstance).findFirst().get();
+
+        assertSame(visited.get(visited.size() - 1), first);
+        assertFalse(visited.contains(BlockTestHelper.followingBlock));
+    }
+
+    @Test
+    void nullBlock()
+    {
+        assertNull(new AxesSpliterator(null, Axes.DESCENDANT_OR_SELF).next());
+    }
+
+    @Test
+    void parallelStream()
+    {
+        GroupBlock root = new GroupBlock();
+        for (int i = 0; i < 100; ++i) {
+            GroupBlock group = new GroupBlock();
+            for (int j = 0; j < 100; ++j) {
+                group.addChild(new WordBlock(i + "-" + j));
+            }
+            root.addChild(group);
+        }
+
+        List<Block> expected = list(root, Axes.DESCENDANT_OR_SELF);
+
+        assertEquals(10101, expected.size());
+        assertEquals(expected, StreamSupport.stream(root.spliterator(Axes.DESCENDANT_OR_SELF), true)
+            .collect(Collectors.toList()));
+        assertEquals(expected.subList(1, expected.size()),
+            StreamSupport.stream(root.spliterator(Axes.DESCENDANT), true).collect(Collectors.toList()));
+    }
+
+    @Test
+    void deepTree()
+    {
+        Block root = createDeepTree();
+
+        assertEquals(DEPTH + 1, new BlockNavigator().getBlocks(root, Axes.DESCENDANT).size());
+        assertEquals("leaf",
+            root.<WordBlock>getFirstBlock(WordBlock.class::isInstance, Axes.DESCENDANT).getWord());
+
+        int[] counters = new int[2];
+        root.traverse(new VoidListener()
+        {
+            @Override
+            public void beginGroup(Map<String, String> parameters)
+            {
+                ++counters[0];
+            }
+
+            @Override
+            public void onWord(String word)
+            {
+                ++counters[1];
+            }
+        });
+
+        assertEquals(DEPTH, counters[0]);
+        assertEquals(1, counters[1]);
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.block;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.EmptyLinesBlock;
+import org.xwiki.rendering.block.FormatBlock;
+import org.xwiki.rendering.block.HeaderBlock;
+import org.xwiki.rendering.block.ImageBlock;
+import org.xwiki.rendering.block.LinkBlock;
+import org.xwiki.rendering.block.MacroBlock;
+import org.xwiki.rendering.block.ParagraphBlock;
+import org.xwiki.rendering.block.RawBlock;
+import org.xwiki.rendering.block.SpaceBlock;
+import org.xwiki.rendering.block.SpecialSymbolBlock;
+import org.xwiki.rendering.block.WordBlock;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.listener.Format;
+import org.xwiki.rendering.listener.HeaderLevel;
+import org.xwiki.rendering.listener.MetaData;
+import org.xwiki.rendering.listener.reference.DocumentResourceReference;
+import org.xwiki.rendering.listener.reference.ResourceReference;
+import org.xwiki.rendering.listener.reference.ResourceType;
+import org.xwiki.rendering.syntax.Syntax;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link BinaryXDOMCodec}.
+ *
+ * @version $Id$
+ */
+class BinaryXDOMCodecTest
+{
+    private static XDOM roundTrip(XDOM xdom) throws IOException
+    {
+        return BinaryXDOMCodec.decode(ByteBuffer.wrap(BinaryXDOMCodec.encode(xdom)));
+    }
+
+    @Test
+    void encodeAndDecode() throws IOException
+    {
+        DocumentResourceReference reference = new DocumentResourceReference("Space.Page");
+        reference.setAnchor("anchor");
+        reference.addBaseReference("Other.Page");
+
+        MetaData metaData = new MetaData();
+        metaData.addMetaData(MetaData.SYNTAX, Syntax.XWIKI_2_1);
+        metaData.addMetaData(MetaData.SOURCE, "Space.Page");
+
+        XDOM xdom = new XDOM(List.of(
+            new HeaderBlock(List.of(new WordBlock("title")), HeaderLevel.LEVEL2, Map.of(), "Htitle"),
+            new ParagraphBlock(List.of(new WordBlock("hello"), new SpaceBlock(),
+                new FormatBlock(List.of(new WordBlock("hello")), Format.BOLD), new SpecialSymbolBlock('!'),
+                new LinkBlock(List.of(), reference, false),
+                new ImageBlock(new ResourceReference("image.png", ResourceType.URL), true, Map.of("alt", "\u00e9")))),
+            new RawBlock("<br/>", Syntax.HTML_5_0),
+            new EmptyLinesBlock(2)), metaData);
+        xdom.getIdGenerator().generateUniqueId("H", "title");
+
+        XDOM decoded = roundTrip(xdom);
+
+        assertEquals(xdom, decoded);
+        assertEquals(metaData, decoded.getMetaData());
+        assertInstanceOf(DocumentResourceReference.class,
+            ((LinkBlock) decoded.getChildren().get(1).getChildren().get(4)).getReference());
+        assertEquals(xdom.getIdGenerator().getGeneratedIds(), decoded.getIdGenerator().getGeneratedIds());
+    }
+
+    @Test
+    void encodeAndDecodeAttributes() throws IOException
+    {
+        XDOM content = new XDOM(List.of(new ParagraphBlock(List.of(new WordBlock("content")))));
+        MacroBlock nestedMacro = new MacroBlock("nested", Map.of(), "nested content", true);
+        nestedMacro.setAttribute("prepared", Boolean.TRUE);
+        content.getChildren().get(0).addChild(nestedMacro);
+
+        MacroBlock macro = new MacroBlock("macro", Map.of("param", "value"), "content", false);
+        macro.setAttribute("prepare.content.xdom", content);
+        ParagraphBlock paragraph = new ParagraphBlock(List.of(new WordBlock("word")));
+        paragraph.setAttribute("count", 42);
+        XDOM xdom = new XDOM(List.of(macro, paragraph));
+
+        XDOM decoded = roundTrip(xdom);
+
+        assertEquals(xdom, decoded);
+        Block decodedContent = (Block) decoded.getChildren().get(0).getAttribute("prepare.content.xdom");
+        assertInstanceOf(XDOM.class, decodedContent);
+        assertEquals(Boolean.TRUE,
+            decodedContent.getChildren().get(0).getChildren().get(1).getAttribute("prepared"));
+        assertEquals(42, decoded.getChildren().get(1).getAttribute("count"));
+    }
+
+    @Test
+    void encodeUnsupportedAttribute()
+    {
+        WordBlock word = new WordBlock("word");
+        word.setAttribute("object", new Object());
+
+        XDOM xdom = new XDOM(List.of(new ParagraphBlock(List.of(word))));
+
+        assertThrows(IllegalArgumentException.class, () -> BinaryXDOMCodec.encode(xdom));
+    }
+
+    @Test
+    void decodeInvalid()
+    {
+        byte[] bytes = BinaryXDOMCodec.encode(new XDOM(List.of(new WordBlock("word"))));
+
+        IOException exception = assertThrows(IOException.class,
+            () -> BinaryXDOMCodec.decode(ByteBuffer.wrap(bytes, 0, bytes.length / 2)));
+        assertTrue(exception.getMessage().startsWith("Invalid"));
+    }
+
+    @Test
+    void decodeUnknownBlockTag()
+    {
+        byte[] bytes = BinaryXDOMCodec.encode(new XDOM(List.of(new WordBlock("word"))));
+        bytes[0] = 0x7F;
+
+        IOException exception =
+            assertThrows(IOException.class, () -> BinaryXDOMCodec.decode(ByteBuffer.wrap(bytes)));
+        assertEquals("Unknown block tag [127]", exception.getCause().getMessage());
+    }
+
+    @Test
+    void decodeCorruptedCount()
+    {
+        byte[] bytes = BinaryXDOMCodec.encode(new XDOM(List.of(new WordBlock("word"))));
+        // The number of parameters of the first event, way larger than the remaining content
+        byte[] corrupted = new byte[bytes.length + 4];
+        corrupted[0] = bytes[0];
+        corrupted[1] = (byte) 0xFF;
+        corrupted[2] = (byte) 0xFF;
+        corrupted[3] = (byte) 0xFF;
+        corrupted[4] = (byte) 0xFF;
+        corrupted[5] = 0x07;
+
+        assertThrows(IOException.class, () -> BinaryXDOMCodec.decode(ByteBuffer.wrap(corrupted)));
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.converter;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.context.ExecutionContextManager;
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.WordBlock;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.converter.BatchConversionStatistics;
+import org.xwiki.rendering.converter.ConversionException;
+import org.xwiki.rendering.converter.ConversionSink;
+import org.xwiki.rendering.converter.ConversionSource;
+import org.xwiki.rendering.parser.ParseException;
+import org.xwiki.rendering.parser.Parser;
+import org.xwiki.rendering.renderer.BlockRenderer;
+import org.xwiki.rendering.renderer.printer.WikiPrinter;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.rendering.transformation.RenderingBudget;
+import org.xwiki.rendering.transformation.RenderingBudgetExceededException;
+import org.xwiki.rendering.transformation.RenderingContext;
+import org.xwiki.rendering.transformation.TransformationContext;
+import org.xwiki.rendering.transformation.TransformationManager;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectComponentManager;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.test.mockito.MockitoComponentManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link DefaultBatchConverter}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class DefaultBatchConverterTest
+{
+    @InjectMockComponents
+    private DefaultBatchConverter converter;
+
+    @InjectComponentManager
+    private MockitoComponentManager componentManager;
+
+    @MockComponent
+    @Named("context")
+    private Provider<ComponentManager> componentManagerProvider;
+
+    @MockComponent
+    private TransformationManager transformationManager;
+
+    @MockComponent
+    private Execution execution;
+
+    @MockComponent
+    private ExecutionContextManager executionContextManager;
+
+    @MockComponent
+    private RenderingContext renderingContext;
+
+    @BeforeEach
+    void setUp() throws Exception
+    {
+        when(this.componentManagerProvider.get()).thenReturn(this.componentManager);
+
+        Parser parser = this.componentManager.registerMockComponent(Parser.class, Syntax.XWIKI_2_1.toIdString());
+        when(parser.parse(any(Reader.class))).thenAnswer(invocation -> {
+            String content = IOUtils.toString(invocation.<Reader>getArgument(0));
+            if (content.equals("invalid")) {
+                throw new ParseException("invalid content");
+            } else if (content.equals("deep")) {
+                throw new StackOverflowError();
+            }
+
+            return new XDOM(List.of(new WordBlock(content)));
+        });
+
+        BlockRenderer renderer =
+            this.componentManager.registerMockComponent(BlockRenderer.class, Syntax.PLAIN_1_0.toIdString());
+        doAnswer(invocation -> {
+            XDOM xdom = invocation.getArgument(0);
+            String word = ((WordBlock) xdom.getChildren().get(0)).getWord();
+            invocation.<WikiPrinter>getArgument(1).print(word.toUpperCase());
+
+            return null;
+        }).when(renderer).render(any(Block.class), any(WikiPrinter.class));
+    }
+
+    private List<ConversionSource> createSources(String... contents)
+    {
+        List<ConversionSource> sources = new ArrayList<>();
+        for (int i = 0; i < contents.length; ++i) {
+            sources.add(new ConversionSource("source" + i, new StringReader(contents[i]), Syntax.XWIKI_2_1,
+                Syntax.PLAIN_1_0));
+        }
+
+        return sources;
+    }
+
+    @Test
+    void convertOrdered() throws Exception
+    {
+        List<String> results = new ArrayList<>();
+        ConversionSink sink = new ConversionSink()
+        {
+            @Override
+            public void onConverted(ConversionSource source, String result)
+            {
+                results.add(source.getId() + ":" + result);
+            }
+
+            @Override
+            public void onFailed(ConversionSource source, ConversionException exception)
+            {
+                results.add(source.getId() + ":" + exception.getMessage());
+            }
+        };
+
+        List<String> contents = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 50; ++i) {
+            String content = i == 10 ? "invalid" : "content" + i;
+            contents.add(content);
+            expected.add("source" + i + ":" + (i == 10 ? "Failed to parse input source" : content.toUpperCase()));
+        }
+
+        BatchConversionStatistics statistics =
+            this.converter.convert(createSources(contents.toArray(new String[0])).iterator(), sink, 4, true);
+
+        assertEquals(expected, results);
+        assertEquals(49, statistics.getConvertedCount());
+        assertEquals(1, statistics.getFailedCount());
+
+        // The components are looked up only once for the whole batch
+        verify(this.componentManagerProvider).get();
+        verify(this.transformationManager, times(50)).performTransformations(any(), any());
+
+        // Each conversion gets its own initialized execution context
+        verify(this.executionContextManager, times(50)).initialize(any(ExecutionContext.class));
+        verify(this.execution, times(50)).setContext(any(ExecutionContext.class));
+    }
+
+    @Test
+    void convertUnordered() throws Exception
+    {
+        List<String> results = new ArrayList<>();
+        ConversionSink sink = new ConversionSink()
+        {
+            @Override
+            public void onConverted(ConversionSource source, String result)
+            {
+                results.add(result);
+            }
+
+            @Override
+            public void onFailed(ConversionSource source, ConversionException exception)
+            {
+                results.add(exception.getMessage());
+            }
+        };
+
+        BatchConversionStatistics statistics =
+            this.converter.convert(createSources("first", "second", "third").iterator(), sink, 2, false);
+
+        results.sort(null);
+        assertEquals(List.of("FIRST", "SECOND", "THIRD"), results);
+        assertEquals(3, statistics.getConvertedCount());
+        assertEquals(0, statistics.getFailedCount());
+    }
+
+    @Test
+    void convertWithCallerContextAndError() throws Exception
+    {
+        ExecutionContext callerContext = new ExecutionContext();
+        when(this.execution.getContext()).thenReturn(callerContext);
+        ExecutionContext clonedContext = new ExecutionContext();
+        when(this.executionContextManager.clone(callerContext)).thenReturn(clonedContext);
+
+        List<String> results = new ArrayList<>();
+        List<ConversionException> exceptions = new ArrayList<>();
+        ConversionSink sink = new ConversionSink()
+        {
+            @Override
+            public void onConverted(ConversionSource source, String result)
+            {
+                results.add(result);
+            }
+
+            @Override
+            public void onFailed(ConversionSource source, ConversionException exception)
+            {
+                results.add(exception.getMessage());
+                exceptions.add(exception);
+            }
+        };
+
+        BatchConversionStatistics statistics =
+            this.converter.convert(createSources("first", "deep", "third").iterator(), sink, 1, true);
+
+        // The error only fails the conversion of the document which caused it
+        assertEquals(List.of("FIRST", "Failed to convert [source1]", "THIRD"), results);
+        assertInstanceOf(StackOverflowError.class, exceptions.get(0).getCause());
+        assertEquals(2, statistics.getConvertedCount());
+        assertEquals(1, statistics.getFailedCount());
+
+        // The execution context of each conversion is a clone of the caller context
+        verify(this.executionContextManager, times(3)).clone(callerContext);
+        verify(this.executionContextManager, never()).initialize(any());
+        verify(this.execution, times(3)).setContext(clonedContext);
+    }
+
+    @Test
+    void convertWithBudget() throws Exception
+    {
+        RenderingBudget budget = new RenderingBudget();
+        budget.setMaxOutputLength(10);
+        when(this.renderingContext.getRenderingBudget()).thenReturn(budget);
+
+        List<String> results = new ArrayList<>();
+        List<ConversionException> exceptions = new ArrayList<>();
+        ConversionSink sink = new ConversionSink()
+        {
+            @Override
+            public void onConverted(ConversionSource source, String result)
+            {
+                results.add(result);
+            }
+
+            @Override
+            public void onFailed(ConversionSource source, ConversionException exception)
+            {
+                results.add(exception.getMessage());
+                exceptions.add(exception);
+            }
+        };
+
+        this.converter.convert(createSources("first", "second").iterator(), sink, 1, true);
+
+        // The budget of the current transformation is shared by all the conversions
+        assertEquals(List.of("FIRST", "The rendering used too many resources"), results);
+        assertInstanceOf(RenderingBudgetExceededException.class, exceptions.get(0).getCause());
+        verify(this.transformationManager, times(2)).performTransformations(any(),
+            argThat((TransformationContext context) -> context.getRenderingBudget() == budget));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.metrics;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.rendering.metrics.RenderingMetrics;
+import org.xwiki.rendering.metrics.RenderingStage;
+import org.xwiki.rendering.metrics.RenderingTimerSnapshot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link DefaultRenderingMetrics}.
+ *
+ * @version $Id$
+ */
+class DefaultRenderingMetricsTest
+{
+    private final DefaultRenderingMetrics metrics = new DefaultRenderingMetrics();
+
+    @Test
+    void disabledByDefault()
+    {
+        assertFalse(this.metrics.isEnabled());
+        assertEquals(RenderingMetrics.NOT_STARTED, this.metrics.begin());
+
+        this.metrics.record(RenderingStage.PARSE, "xwiki/2.1", 10);
+        this.metrics.end(RenderingStage.PARSE, "xwiki/2.1", RenderingMetrics.NOT_STARTED);
+
+        assertTrue(this.metrics.getSnapshot().isEmpty());
+    }
+
+    @Test
+    void record()
+    {
+        this.metrics.setEnabled(true);
+
+        this.metrics.record(RenderingStage.MACRO, "toc", 0);
+        this.metrics.record(RenderingStage.MACRO, "toc", 5);
+        this.metrics.record(RenderingStage.MACRO, "toc", 1000);
+        this.metrics.record(RenderingStage.RENDER, "xhtml/1.0", Long.MAX_VALUE);
+
+        List<RenderingTimerSnapshot> snapshot = this.metrics.getSnapshot();
+        assertEquals(2, snapshot.size());
+
+        RenderingTimerSnapshot macro = snapshot.get(0);
+        assertEquals(RenderingStage.MACRO, macro.getStage());
+        assertEquals("toc", macro.getName());
+        assertEquals(3, macro.getCount());
+        assertEquals(1005, macro.getTotalTime());
+        assertEquals(1000, macro.getMaxTime());
+        assertEquals(335, macro.getMeanTime());
+        long[] histogram = macro.getHistogram();
+        assertEquals(RenderingTimer.BUCKETS, histogram.length);
+        assertEquals(1, histogram[0]);
+        assertEquals(1, histogram[2]);
+        assertEquals(1, histogram[9]);
+
+        RenderingTimerSnapshot render = snapshot.get(1);
+        assertEquals(RenderingStage.RENDER, render.getStage());
+        assertEquals(1, render.getHistogram()[RenderingTimer.BUCKETS - 1]);
+
+        this.metrics.reset();
+
+        assertTrue(this.metrics.getSnapshot().isEmpty());
+    }
+
+    @Test
+    void beginAndEnd()
+    {
+        this.metrics.setEnabled(true);
+
+        long begin = this.metrics.begin();
+        this.metrics.end(RenderingStage.PARSE, "xwiki/2.1", begin);
+
+        List<RenderingTimerSnapshot> snapshot = this.metrics.getSnapshot();
+        assertEquals(1, snapshot.size());
+        assertEquals(1, snapshot.get(0).getCount());
+    }
+}
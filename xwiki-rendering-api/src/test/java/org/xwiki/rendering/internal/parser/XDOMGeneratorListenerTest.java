@@ -0,0 +1,68 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.parser;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.WordBlock;
+import org.xwiki.rendering.listener.Listener;
+import org.xwiki.rendering.listener.MetaData;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link XDOMGeneratorListener}.
+ *
+ * @version $Id$
+ */
+class XDOMGeneratorListenerTest
+{
+    @Test
+    void sharedWords()
+    {
+        String longWord = "a".repeat(100);
+
+        XDOMGeneratorListener listener = new XDOMGeneratorListener();
+        listener.beginDocument(MetaData.EMPTY);
+        listener.beginParagraph(Listener.EMPTY_PARAMETERS);
+        listener.onWord(new String("word"));
+        listener.onSpace();
+        listener.onWord(new String("word"));
+        listener.onSpace();
+        listener.onWord(new String(longWord));
+        listener.onWord(new String(longWord));
+        listener.endParagraph(Listener.EMPTY_PARAMETERS);
+        listener.endDocument(MetaData.EMPTY);
+
+        Block paragraph = listener.getXDOM().getChildren().get(0);
+        assertTrue(paragraph.getParameters().isEmpty());
+
+        List<Block> children = paragraph.getChildren();
+        assertEquals(6, children.size());
+        assertSame(((WordBlock) children.get(0)).getWord(), ((WordBlock) children.get(2)).getWord());
+        assertNotSame(((WordBlock) children.get(4)).getWord(), ((WordBlock) children.get(5)).getWord());
+        assertEquals(longWord, ((WordBlock) children.get(5)).getWord());
+    }
+}
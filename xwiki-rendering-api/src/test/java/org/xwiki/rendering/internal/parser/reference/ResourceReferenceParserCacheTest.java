@@ -0,0 +1,178 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.parser.reference;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.component.descriptor.ComponentDescriptor;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.rendering.listener.reference.DocumentResourceReference;
+import org.xwiki.rendering.listener.reference.ResourceReference;
+import org.xwiki.rendering.listener.reference.ResourceType;
+import org.xwiki.rendering.parser.ResourceReferenceParser;
+import org.xwiki.rendering.parser.ResourceReferenceTypeParser;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectComponentManager;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.mockito.MockitoComponentManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link ResourceReferenceParserCache}.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+@ComponentTest
+class ResourceReferenceParserCacheTest
+{
+    @InjectMockComponents
+    private ResourceReferenceParserCache cache;
+
+    @InjectComponentManager
+    private MockitoComponentManager componentManager;
+
+    private final ResourceReferenceParser parser = mock(ResourceReferenceParser.class);
+
+    @Test
+    void getReference()
+    {
+        assertNull(this.cache.getReference(this.componentManager, this.parser, true, "Space.Page"));
+
+        ResourceReference reference = new DocumentResourceReference("Space.Page");
+        reference.setTyped(false);
+        this.cache.setReference(this.componentManager, this.parser, true, "Space.Page", reference);
+        reference.setParameter(DocumentResourceReference.ANCHOR, "anchor");
+
+        ResourceReference cachedReference =
+            this.cache.getReference(this.componentManager, this.parser, true, "Space.Page");
+        assertEquals(ResourceType.DOCUMENT, cachedReference.getType());
+        assertNull(cachedReference.getParameter(DocumentResourceReference.ANCHOR));
+        cachedReference.setParameter(DocumentResourceReference.QUERY_STRING, "param=value");
+
+        ResourceReference otherCachedReference =
+            this.cache.getReference(this.componentManager, this.parser, true, "Space.Page");
+        assertNotSame(cachedReference, otherCachedReference);
+        assertNull(otherCachedReference.getParameter(DocumentResourceReference.QUERY_STRING));
+
+        // The mode, the parser and the component manager are part of the key
+        assertNull(this.cache.getReference(this.componentManager, this.parser, false, "Space.Page"));
+        assertNull(this.cache.getReference(this.componentManager, mock(ResourceReferenceParser.class), true,
+            "Space.Page"));
+        assertNull(this.cache.getReference(mock(ComponentManager.class), this.parser, true, "Space.Page"));
+    }
+
+    @Test
+    void getReferenceEvictsLeastRecentlyUsed()
+    {
+        ResourceReference reference = new DocumentResourceReference("Space.Page");
+        this.cache.setReference(this.componentManager, this.parser, true, "first", reference);
+        this.cache.setReference(this.componentManager, this.parser, true, "second", reference);
+
+        for (int i = 0; i < 10000; ++i) {
+            // Keep using the first reference
+            assertNotNull(this.cache.getReference(this.componentManager, this.parser, true, "first"));
+            this.cache.setReference(this.componentManager, this.parser, true, "reference" + i, reference);
+        }
+
+        assertNotNull(this.cache.getReference(this.componentManager, this.parser, true, "first"));
+        assertNull(this.cache.getReference(this.componentManager, this.parser, true, "second"));
+        assertNotNull(this.cache.getReference(this.componentManager, this.parser, true, "reference9999"));
+    }
+
+    @Test
+    void getTypeParser() throws Exception
+    {
+        ComponentManager contextComponentManager = mock(ComponentManager.class);
+        ResourceReferenceTypeParser typeParser = mock(ResourceReferenceTypeParser.class);
+        when(contextComponentManager.hasComponent(ResourceReferenceTypeParser.class, "type")).thenReturn(true);
+        when(contextComponentManager.getInstance(ResourceReferenceTypeParser.class, "type")).thenReturn(typeParser);
+
+        assertSame(typeParser, this.cache.getTypeParser(contextComponentManager, "type"));
+        assertSame(typeParser, this.cache.getTypeParser(contextComponentManager, "type"));
+        assertNull(this.cache.getTypeParser(contextComponentManager, "unknown"));
+        assertNull(this.cache.getTypeParser(contextComponentManager, "unknown"));
+
+        verify(contextComponentManager).getInstance(ResourceReferenceTypeParser.class, "type");
+        verify(contextComponentManager).hasComponent(ResourceReferenceTypeParser.class, "unknown");
+
+        // Each component manager has its own parsers
+        assertNull(this.cache.getTypeParser(this.componentManager, "type"));
+    }
+
+    @Test
+    void invalidate() throws Exception
+    {
+        ComponentManager contextComponentManager = mock(ComponentManager.class);
+        when(contextComponentManager.hasComponent(ResourceReferenceTypeParser.class, "type")).thenReturn(true);
+        when(contextComponentManager.getInstance(ResourceReferenceTypeParser.class, "type"))
+            .thenReturn(mock(ResourceReferenceTypeParser.class));
+        ResourceReference reference = new DocumentResourceReference("Space.Page");
+
+        this.cache.getTypeParser(contextComponentManager, "type");
+        this.cache.setReference(contextComponentManager, this.parser, true, "Space.Page", reference);
+        this.cache.setReference(this.componentManager, this.parser, true, "Space.Page", reference);
+
+        // Changes in the root component manager clear the cache
+        this.cache.invalidate(this.componentManager, "type");
+
+        assertNull(this.cache.getReference(contextComponentManager, this.parser, true, "Space.Page"));
+        assertNull(this.cache.getReference(this.componentManager, this.parser, true, "Space.Page"));
+        this.cache.getTypeParser(contextComponentManager, "type");
+        this.cache.getTypeParser(contextComponentManager, "type");
+        verify(contextComponentManager, times(2)).getInstance(ResourceReferenceTypeParser.class, "type");
+
+        this.cache.setReference(contextComponentManager, this.parser, true, "Space.Page", reference);
+        this.cache.setReference(this.componentManager, this.parser, true, "Space.Page", reference);
+
+        // Changes in other component managers keep the entries of the root component manager
+        this.cache.invalidate(contextComponentManager, "type");
+
+        assertNull(this.cache.getReference(contextComponentManager, this.parser, true, "Space.Page"));
+        assertEquals(reference, this.cache.getReference(this.componentManager, this.parser, true, "Space.Page"));
+
+        // The cache is still used, the parser of the changed type being part of the key
+        ComponentDescriptor<ResourceReferenceTypeParser> descriptor = mock(ComponentDescriptor.class);
+        when(contextComponentManager.<ResourceReferenceTypeParser>getComponentDescriptor(
+            ResourceReferenceTypeParser.class, "type")).thenReturn(descriptor);
+        this.cache.setReference(contextComponentManager, this.parser, true, "Space.Page", reference);
+        assertEquals(reference, this.cache.getReference(contextComponentManager, this.parser, true, "Space.Page"));
+
+        when(contextComponentManager.<ResourceReferenceTypeParser>getComponentDescriptor(
+            ResourceReferenceTypeParser.class, "type")).thenReturn(mock(ComponentDescriptor.class));
+        assertNull(this.cache.getReference(contextComponentManager, this.parser, true, "Space.Page"));
+
+        // The parser of the changed type is resolved each time, the other ones are still cached
+        this.cache.getTypeParser(contextComponentManager, "type");
+        this.cache.getTypeParser(contextComponentManager, "type");
+        verify(contextComponentManager, times(4)).getInstance(ResourceReferenceTypeParser.class, "type");
+        this.cache.getTypeParser(contextComponentManager, "other");
+        this.cache.getTypeParser(contextComponentManager, "other");
+        verify(contextComponentManager).hasComponent(ResourceReferenceTypeParser.class, "other");
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.renderer;
+
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.xwiki.rendering.block.Block;
+import org.xwiki.component.descriptor.ComponentDescriptor;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.rendering.metrics.RenderingMetrics;
+import org.xwiki.rendering.metrics.RenderingStage;
+import org.xwiki.rendering.renderer.PrintRenderer;
+import org.xwiki.rendering.renderer.PrintRendererFactory;
+import org.xwiki.rendering.renderer.ResettablePrintRenderer;
+import org.xwiki.rendering.renderer.printer.DefaultWikiPrinter;
+import org.xwiki.rendering.renderer.printer.WikiPrinter;
+import org.xwiki.rendering.syntax.Syntax;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the renderers pool of {@link AbstractPrintRendererFactory}.
+ *
+ * @version $Id$
+ */
+class AbstractPrintRendererFactoryTest
+{
+    private ComponentManager componentManager;
+
+    private AbstractPrintRendererFactory factory;
+
+    @BeforeEach
+    void beforeEach() throws Exception
+    {
+        this.componentManager = mock(ComponentManager.class);
+        when(this.componentManager.getInstance(PrintRenderer.class, Syntax.PLAIN_1_0.toIdString()))
+            .thenAnswer(invocation -> mock(ResettablePrintRenderer.class));
+
+        this.factory = new AbstractPrintRendererFactory()
+        {
+            @Override
+            public Syntax getSyntax()
+            {
+                return Syntax.PLAIN_1_0;
+            }
+        };
+        FieldUtils.writeField(this.factory, "componentManager", this.componentManager, true);
+    }
+
+    @Test
+    void borrowAndRelease()
+    {
+        WikiPrinter printer1 = new DefaultWikiPrinter();
+        PrintRenderer renderer = this.factory.borrowRenderer(printer1);
+
+        verify(renderer).setPrinter(printer1);
+        verify((ResettablePrintRenderer) renderer, never()).reset(any());
+
+        // A renderer which was not released is not reused
+        assertNotSame(renderer, this.factory.borrowRenderer(printer1));
+
+        this.factory.releaseRenderer(renderer);
+
+        // The released renderer doesn't retain the output of its last rendering
+        verify((ResettablePrintRenderer) renderer).clear();
+
+        WikiPrinter printer2 = new DefaultWikiPrinter();
+        assertSame(renderer, this.factory.borrowRenderer(printer2));
+        verify((ResettablePrintRenderer) renderer).reset(printer2);
+    }
+
+    @Test
+    void componentChange()
+    {
+        PrintRenderer renderer = this.factory.borrowRenderer(new DefaultWikiPrinter());
+        this.factory.releaseRenderer(renderer);
+
+        ComponentDescriptor<PrintRenderer> descriptor = mock(ComponentDescriptor.class);
+        when(this.componentManager.<PrintRenderer>getComponentDescriptor(PrintRenderer.class,
+            Syntax.PLAIN_1_0.toIdString())).thenReturn(descriptor);
+
+        // The pool is emptied when the renderer component changes
+        assertNotSame(renderer, this.factory.borrowRenderer(new DefaultWikiPrinter()));
+
+        // Renderers which don't match the current component are not pooled anymore
+        this.factory.releaseRenderer(renderer);
+        assertNotSame(renderer, this.factory.borrowRenderer(new DefaultWikiPrinter()));
+    }
+
+    @Test
+    void renderWhenRenderingFails() throws Exception
+    {
+        AbstractBlockRenderer blockRenderer = new AbstractBlockRenderer()
+        {
+            @Override
+            protected PrintRendererFactory getPrintRendererFactory()
+            {
+                return AbstractPrintRendererFactoryTest.this.factory;
+            }
+        };
+        RenderingMetrics metrics = mock(RenderingMetrics.class);
+        when(metrics.begin()).thenReturn(42L);
+        FieldUtils.writeField(blockRenderer, "metrics", metrics, true);
+
+        Block block = mock(Block.class);
+        doThrow(new RuntimeException("failure")).when(block).traverse(any());
+        WikiPrinter printer = new DefaultWikiPrinter();
+
+        assertThrows(RuntimeException.class, () -> blockRenderer.render(block, printer));
+
+        ArgumentCaptor<PrintRenderer> rendererCaptor = ArgumentCaptor.forClass(PrintRenderer.class);
+        verify(block).traverse(rendererCaptor.capture());
+        PrintRenderer renderer = rendererCaptor.getValue();
+        verify((ResettablePrintRenderer) renderer).clear();
+        assertSame(renderer, this.factory.borrowRenderer(printer));
+
+        // The rendering is timed even when it fails
+        verify(metrics).end(RenderingStage.RENDER, Syntax.PLAIN_1_0.toIdString(), 42L);
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.transformation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import javax.inject.Named;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.rendering.block.MacroBlock;
+import org.xwiki.rendering.block.ParagraphBlock;
+import org.xwiki.rendering.block.WordBlock;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.configuration.RenderingConfiguration;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.test.junit5.XWikiTempDir;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link DefaultPreparedXDOMStore}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class DefaultPreparedXDOMStoreTest
+{
+    @InjectMockComponents
+    private DefaultPreparedXDOMStore store;
+
+    @MockComponent
+    private RenderingConfiguration configuration;
+
+    @MockComponent
+    @Named("context")
+    private ComponentManager contextComponentManager;
+
+    @XWikiTempDir
+    private File directory;
+
+    @BeforeEach
+    void beforeEach()
+    {
+        when(this.configuration.getPreparedXDOMStoreDirectory()).thenReturn(this.directory);
+    }
+
+    private XDOM createXDOM()
+    {
+        MacroBlock macro = new MacroBlock("macro", Map.of(), "content", false);
+        macro.setAttribute("prepare.content.xdom",
+            new XDOM(List.of(new ParagraphBlock(List.of(new WordBlock("content"))))));
+
+        return new XDOM(List.of(macro));
+    }
+
+    private List<Path> getStoredFiles() throws IOException
+    {
+        try (Stream<Path> files = Files.walk(this.directory.toPath())) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".xdom")).filter(Files::isRegularFile)
+                .toList();
+        }
+    }
+
+    @Test
+    void putAndGet()
+    {
+        assertNull(this.store.get("{{macro}}content{{/macro}}", Syntax.XWIKI_2_1));
+
+        XDOM xdom = createXDOM();
+        this.store.put("{{macro}}content{{/macro}}", Syntax.XWIKI_2_1, xdom);
+
+        XDOM storedXDOM = this.store.get("{{macro}}content{{/macro}}", Syntax.XWIKI_2_1);
+        assertEquals(xdom, storedXDOM);
+        assertNotSame(storedXDOM, this.store.get("{{macro}}content{{/macro}}", Syntax.XWIKI_2_1));
+
+        assertNull(this.store.get("{{macro}}content{{/macro}}", Syntax.XWIKI_2_0));
+        assertNull(this.store.get("other", Syntax.XWIKI_2_1));
+
+        this.store.clear();
+
+        assertNull(this.store.get("{{macro}}content{{/macro}}", Syntax.XWIKI_2_1));
+    }
+
+    @Test
+    void getWithObsoleteVersionsAndInvalidFiles() throws IOException
+    {
+        File obsoleteVersion = new File(this.directory, "0123456789abcdef");
+        obsoleteVersion.mkdirs();
+        Files.writeString(new File(obsoleteVersion, "file.xdom").toPath(), "content");
+        Files.writeString(new File(obsoleteVersion, ".prepared-xdom-store").toPath(), "");
+        // Unrelated data stored in the same directory
+        File unrelatedDirectory = new File(this.directory, "other");
+        unrelatedDirectory.mkdirs();
+        Files.writeString(new File(unrelatedDirectory, "file.xdom").toPath(), "content");
+        File unmarkedDirectory = new File(this.directory, "fedcba9876543210");
+        unmarkedDirectory.mkdirs();
+        Files.writeString(new File(unmarkedDirectory, "file.xdom").toPath(), "content");
+        File unrelatedFile = new File(this.directory, "file.txt");
+        Files.writeString(unrelatedFile.toPath(), "content");
+
+        this.store.put("content", Syntax.XWIKI_2_1, createXDOM());
+
+        assertFalse(obsoleteVersion.exists());
+        assertTrue(new File(unrelatedDirectory, "file.xdom").exists());
+        assertTrue(new File(unmarkedDirectory, "file.xdom").exists());
+        assertTrue(unrelatedFile.exists());
+        assertNotNull(this.store.get("content", Syntax.XWIKI_2_1));
+
+        // Corrupt the stored document
+        for (Path file : getStoredFiles()) {
+            Files.writeString(file, "invalid");
+        }
+
+        assertNull(this.store.get("content", Syntax.XWIKI_2_1));
+    }
+
+    @Test
+    void getTruncated() throws IOException
+    {
+        this.store.put("content", Syntax.XWIKI_2_1, createXDOM());
+
+        List<Path> files = getStoredFiles();
+        assertEquals(1, files.size());
+        Path file = files.get(0);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() / 2);
+        }
+
+        assertNull(this.store.get("content", Syntax.XWIKI_2_1));
+        assertFalse(Files.exists(file));
+
+        // The document can be stored again
+        this.store.put("content", Syntax.XWIKI_2_1, createXDOM());
+        assertEquals(createXDOM(), this.store.get("content", Syntax.XWIKI_2_1));
+    }
+
+    @Test
+    void getWithUnknownBlockTag() throws IOException
+    {
+        this.store.put("content", Syntax.XWIKI_2_1, createXDOM());
+
+        Path file = getStoredFiles().get(0);
+        byte[] bytes = Files.readAllBytes(file);
+        // The first block tag, right after the magic number
+        bytes[Integer.BYTES] = 0x7F;
+        Files.write(file, bytes);
+
+        assertNull(this.store.get("content", Syntax.XWIKI_2_1));
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void getAfterDependencyChange() throws Exception
+    {
+        PreparedXDOMDependency dependency = mock(PreparedXDOMDependency.class);
+        when(dependency.getDigest()).thenReturn("1");
+        when(this.contextComponentManager.getInstanceList(PreparedXDOMDependency.class))
+            .thenReturn(List.of(dependency));
+
+        this.store.put("content", Syntax.XWIKI_2_1, createXDOM());
+        assertNotNull(this.store.get("content", Syntax.XWIKI_2_1));
+
+        when(dependency.getDigest()).thenReturn("2");
+
+        assertNull(this.store.get("content", Syntax.XWIKI_2_1));
+
+        this.store.put("content", Syntax.XWIKI_2_1, createXDOM());
+        assertNotNull(this.store.get("content", Syntax.XWIKI_2_1));
+    }
+
+    @Test
+    void disabled()
+    {
+        when(this.configuration.getPreparedXDOMStoreDirectory()).thenReturn(null);
+
+        this.store.put("content", Syntax.XWIKI_2_1, createXDOM());
+
+        assertNull(this.store.get("content", Syntax.XWIKI_2_1));
+        assertEquals(0, this.directory.list().length);
+    }
+}
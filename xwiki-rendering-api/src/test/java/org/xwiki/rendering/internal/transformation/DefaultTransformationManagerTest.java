@@ -19,7 +19,9 @@
  */
 package org.xwiki.rendering.internal.transformation;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import javax.inject.Named;
 import javax.inject.Provider;
@@ -27,6 +29,7 @@
 import org.junit.jupiter.api.Test;
 import org.xwiki.component.manager.ComponentManager;
 import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.WordBlock;
 import org.xwiki.rendering.block.XDOM;
 import org.xwiki.rendering.configuration.RenderingConfiguration;
 import org.xwiki.rendering.syntax.Syntax;
@@ -44,8 +47,10 @@
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.matchesPattern;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -133,4 +138,55 @@ void performTransformationsWhenErrorsInTransformations() throws Exception
             """;
         assertThat(exception.getMessage(), matchesPattern(expected));
     }
+
+    @BeforeComponent("performTransformationsProgressively")
+    void beforePerformTransformationsProgressively() throws Exception
+    {
+        MutableRenderingContext mrc = mock(MutableRenderingContext.class);
+        this.componentManager.registerComponent(RenderingContext.class, mrc);
+        doAnswer(invocation -> {
+            invocation.<Transformation>getArgument(0).transform(invocation.getArgument(2), invocation.getArgument(1));
+            return null;
+        }).when(mrc).transformInContext(any(Transformation.class), any(TransformationContext.class), any(Block.class));
+    }
+
+    @Test
+    void performTransformationsProgressively() throws Exception
+    {
+        List<String> events = new ArrayList<>();
+
+        when(this.renderingConfiguration.getTransformationNames()).thenReturn(Arrays.asList("tx1", "tx2"));
+        Transformation tx1 = new AbstractTransformation()
+        {
+            @Override
+            public void transform(Block block, TransformationContext context)
+            {
+                for (Block child : block.getChildren()) {
+                    events.add("tx1 " + ((WordBlock) child).getWord());
+                    context.getTransformedBlockListener().onTransformedBlock(child);
+                }
+            }
+        };
+        this.componentManager.registerComponent(Transformation.class, "tx1", tx1);
+        Transformation tx2 = new AbstractTransformation()
+        {
+            @Override
+            public void transform(Block block, TransformationContext context)
+            {
+                events.add("tx2 " + ((WordBlock) block).getWord());
+            }
+        };
+        this.componentManager.registerComponent(Transformation.class, "tx2", tx2);
+        when(this.componentManagerProvider.get()).thenReturn(this.componentManager);
+
+        XDOM xdom = new XDOM(List.of(new WordBlock("first"), new WordBlock("second")));
+        TransformationContext context = new TransformationContext(xdom, Syntax.XWIKI_2_0);
+        context.setTransformedBlockListener(block -> events.add("listener " + ((WordBlock) block).getWord()));
+
+        this.transformationManager.performTransformations(xdom, context);
+
+        // The following transformations are applied on each block as soon as the first transformation is done with it
+        assertEquals(List.of("tx1 first", "tx2 first", "listener first", "tx1 second", "tx2 second",
+            "listener second"), events);
+    }
 }
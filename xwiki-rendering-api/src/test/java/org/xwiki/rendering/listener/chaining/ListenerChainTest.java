@@ -0,0 +1,129 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.listener.chaining;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Unit tests for {@link ListenerChain} and {@link ChainingListenerReference}.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+class ListenerChainTest
+{
+    private ListenerChain chain;
+
+    private BlockStateChainingListener blockState;
+
+    private GroupStateChainingListener groupState;
+
+    private EmptyBlockChainingListener emptyBlock;
+
+    @BeforeEach
+    void setUp()
+    {
+        this.chain = new ListenerChain();
+        this.blockState = new BlockStateChainingListener(this.chain);
+        this.groupState = new GroupStateChainingListener(this.chain);
+        this.emptyBlock = new EmptyBlockChainingListener(this.chain);
+        this.chain.addListener(this.blockState);
+        this.chain.addListener(this.groupState);
+        this.chain.addListener(this.emptyBlock, 1);
+    }
+
+    @Test
+    void slots()
+    {
+        int blockStateSlot = this.chain.getListenerSlot(BlockStateChainingListener.class);
+        int emptyBlockSlot = this.chain.getListenerSlot(EmptyBlockChainingListener.class);
+        int groupStateSlot = this.chain.getListenerSlot(GroupStateChainingListener.class);
+
+        assertEquals(-1, this.chain.getListenerSlot(LookaheadChainingListener.class));
+
+        assertSame(this.emptyBlock, this.chain.getNextListener(blockStateSlot));
+        assertSame(this.groupState, this.chain.getNextListener(emptyBlockSlot));
+        assertNull(this.chain.getNextListener(groupStateSlot));
+        assertSame(this.emptyBlock, this.chain.getNextListener(BlockStateChainingListener.class));
+
+        this.chain.removeListener(EmptyBlockChainingListener.class);
+
+        assertNull(this.chain.getListener(emptyBlockSlot));
+        assertSame(this.groupState, this.chain.getNextListener(blockStateSlot));
+        assertEquals(emptyBlockSlot, this.chain.getListenerSlot(EmptyBlockChainingListener.class));
+    }
+
+    @Test
+    void pushAndPopStackableListeners()
+    {
+        int blockStateSlot = this.chain.getListenerSlot(BlockStateChainingListener.class);
+
+        this.chain.pushAllStackableListeners();
+
+        ChainingListener pushedBlockState = this.chain.getListener(blockStateSlot);
+        assertNotSame(this.blockState, pushedBlockState);
+        assertSame(pushedBlockState, this.chain.getListener(BlockStateChainingListener.class));
+        assertSame(this.emptyBlock, this.chain.getNextListener(blockStateSlot));
+
+        this.chain.popAllStackableListeners();
+
+        assertSame(this.blockState, this.chain.getListener(blockStateSlot));
+    }
+
+    @Test
+    void reference()
+    {
+        ChainingListenerReference<BlockStateChainingListener> reference =
+            new ChainingListenerReference<>(BlockStateChainingListener.class);
+        ChainingListenerReference<AbstractChainingListener> superTypeReference =
+            new ChainingListenerReference<>(AbstractChainingListener.class);
+        ChainingListenerReference<LookaheadChainingListener> missingReference =
+            new ChainingListenerReference<>(LookaheadChainingListener.class);
+
+        assertSame(this.blockState, reference.get(this.chain));
+        assertSame(this.chain.getListener(AbstractChainingListener.class), superTypeReference.get(this.chain));
+        assertNull(missingReference.get(this.chain));
+
+        // The reference follows the stack
+        this.chain.pushAllStackableListeners();
+        assertSame(this.chain.getListener(BlockStateChainingListener.class), reference.get(this.chain));
+        this.chain.popAllStackableListeners();
+        assertSame(this.blockState, reference.get(this.chain));
+
+        // The reference follows the changes in the chain
+        LookaheadChainingListener lookahead = new LookaheadChainingListener(this.chain, 1);
+        this.chain.addListener(lookahead);
+        assertSame(lookahead, missingReference.get(this.chain));
+        this.chain.removeListener(BlockStateChainingListener.class);
+        assertNull(reference.get(this.chain));
+
+        // The reference can be used with another chain
+        ListenerChain otherChain = new ListenerChain();
+        BlockStateChainingListener otherBlockState = new BlockStateChainingListener(otherChain);
+        otherChain.addListener(otherBlockState);
+        assertSame(otherBlockState, reference.get(otherChain));
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.transformation;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.ParagraphBlock;
+import org.xwiki.rendering.block.WordBlock;
+import org.xwiki.rendering.renderer.printer.DefaultWikiPrinter;
+import org.xwiki.rendering.renderer.printer.WikiPrinter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link RenderingBudget}.
+ *
+ * @version $Id$
+ */
+class RenderingBudgetTest
+{
+    @Test
+    void unlimited()
+    {
+        RenderingBudget budget = new RenderingBudget();
+
+        for (int i = 0; i < 100; ++i) {
+            budget.beginMacroExecution();
+        }
+        budget.addBlocks(List.of(new WordBlock("word")));
+        budget.limitOutput(new DefaultWikiPrinter()).print("output");
+        budget.checkTime();
+
+        assertEquals(100, budget.getMacroExecutions());
+        assertEquals(6, budget.getOutputLength());
+    }
+
+    @Test
+    void maxMacroExecutions()
+    {
+        RenderingBudget budget = new RenderingBudget();
+        budget.setMaxMacroExecutions(1);
+
+        budget.beginMacroExecution();
+        budget.endMacroExecution();
+
+        RenderingBudgetExceededException exception =
+            assertThrows(RenderingBudgetExceededException.class, budget::beginMacroExecution);
+        assertEquals("The rendering executed more than 1 macros", exception.getMessage());
+    }
+
+    @Test
+    void maxNestingDepth()
+    {
+        RenderingBudget budget = new RenderingBudget();
+        budget.setMaxNestingDepth(2);
+
+        budget.beginMacroExecution();
+        budget.endMacroExecution();
+        budget.beginMacroExecution();
+        budget.beginMacroExecution();
+
+        RenderingBudgetExceededException exception =
+            assertThrows(RenderingBudgetExceededException.class, budget::beginMacroExecution);
+        assertEquals("The rendering nested more than 2 macro executions", exception.getMessage());
+    }
+
+    @Test
+    void maxBlocks()
+    {
+        RenderingBudget budget = new RenderingBudget();
+        budget.setMaxBlocks(3);
+
+        budget.addBlocks(List.of(new ParagraphBlock(List.of(new WordBlock("first"), new WordBlock("second")))));
+        assertEquals(3, budget.getBlocks());
+
+        RenderingBudgetExceededException exception = assertThrows(RenderingBudgetExceededException.class,
+            () -> budget.addBlocks(List.of(new WordBlock("third"))));
+        assertEquals("The rendering produced more than 3 blocks", exception.getMessage());
+    }
+
+    @Test
+    void scope()
+    {
+        RenderingBudget budget = new RenderingBudget();
+        budget.setMaxBlocks(10);
+
+        RenderingBudget scope = budget.createScope();
+        RenderingBudget nestedScope = scope.createScope();
+        WordBlock word = new WordBlock("word");
+        nestedScope.addBlocks(List.of(word));
+        scope.beginMacroExecution();
+
+        // The limits and counters are shared
+        assertEquals(1, budget.getBlocks());
+        assertEquals(1, budget.getMacroExecutions());
+        assertEquals(1, scope.getScopeBlocks());
+        assertEquals(1, nestedScope.getScopeBlocks());
+
+        // The blocks counted through the scope are not counted again
+        budget.addBlocks(List.of(new ParagraphBlock(List.of(word))), scope);
+        assertEquals(2, budget.getBlocks());
+        assertEquals(2, budget.getScopeBlocks());
+        assertEquals(1, scope.getScopeBlocks());
+
+        // The limit applies to the blocks counted through the scopes too
+        scope.addBlocks(List.of(new ParagraphBlock(List.of(new WordBlock("first"), new WordBlock("second")))));
+        assertEquals(4, scope.getScopeBlocks());
+        RenderingBudgetExceededException exception = assertThrows(RenderingBudgetExceededException.class,
+            () -> nestedScope.addBlocks(List.of(new ParagraphBlock(List.of(new WordBlock("third"),
+                new WordBlock("fourth"), new WordBlock("fifth"), new WordBlock("sixth"), new WordBlock("seventh"))))));
+        assertEquals("The rendering produced more than 10 blocks", exception.getMessage());
+    }
+
+    @Test
+    void scopeDoesNotTraverseCountedBlocks()
+    {
+        RenderingBudget budget = new RenderingBudget();
+        budget.setMaxBlocks(10);
+        RenderingBudget scope = budget.createScope();
+
+        boolean[] counted = new boolean[1];
+        ParagraphBlock macroResult = new ParagraphBlock(List.of(new WordBlock("first"), new WordBlock("second")))
+        {
+            @Override
+            public List<Block> getChildren()
+            {
+                assertFalse(counted[0], "The blocks counted through the scope should not be traversed again");
+
+                return super.getChildren();
+            }
+        };
+        scope.addBlocks(List.of(macroResult));
+        counted[0] = true;
+        assertEquals(3, budget.getBlocks());
+
+        budget.addBlocks(List.of(new ParagraphBlock(List.of(macroResult))), scope);
+        assertEquals(4, budget.getBlocks());
+    }
+
+    @Test
+    void limitOutputOnce()
+    {
+        RenderingBudget budget = new RenderingBudget();
+        WikiPrinter printer = budget.limitOutput(new DefaultWikiPrinter());
+
+        // The characters are counted only once when the printer is limited again by the same budget
+        assertSame(printer, budget.limitOutput(printer));
+        assertSame(printer, budget.createScope().limitOutput(printer));
+        printer.print("12345");
+        assertEquals(5, budget.getOutputLength());
+    }
+
+    @Test
+    void maxOutputLength()
+    {
+        RenderingBudget budget = new RenderingBudget();
+        budget.setMaxOutputLength(10);
+
+        WikiPrinter printer = budget.limitOutput(new DefaultWikiPrinter());
+        printer.println("12345");
+        printer.print("1234");
+        assertEquals("12345\n1234", printer.toString());
+
+        RenderingBudgetExceededException exception =
+            assertThrows(RenderingBudgetExceededException.class, () -> printer.print("5"));
+        assertEquals("The rendering printed more than 10 characters", exception.getMessage());
+    }
+
+    @Test
+    void maxDuration() throws InterruptedException
+    {
+        RenderingBudget budget = new RenderingBudget();
+        budget.setMaxDuration(1);
+
+        Thread.sleep(10);
+
+        RenderingBudgetExceededException exception =
+            assertThrows(RenderingBudgetExceededException.class, budget::checkTime);
+        assertEquals("The rendering took more than 1 ms", exception.getMessage());
+    }
+}
@@ -29,6 +29,8 @@
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 /**
  * Unit tests for {@link TransformationContext}.
@@ -46,11 +48,16 @@ public void testClone()
         context.setSyntax(Syntax.XWIKI_2_0);
         XDOM xdom = new XDOM(Arrays.<Block>asList(new WordBlock("test")));
         context.setXDOM(xdom);
+        context.setTransformedBlockListener(block -> { });
+        RenderingBudget budget = new RenderingBudget();
+        context.setRenderingBudget(budget);
 
         TransformationContext newContext = context.clone();
         assertNotSame(context, newContext);
         assertEquals("id", newContext.getId());
         assertEquals(Syntax.XWIKI_2_0, newContext.getSyntax());
         assertEquals(xdom, newContext.getXDOM());
+        assertNull(newContext.getTransformedBlockListener());
+        assertSame(budget, newContext.getRenderingBudget());
     }
 }
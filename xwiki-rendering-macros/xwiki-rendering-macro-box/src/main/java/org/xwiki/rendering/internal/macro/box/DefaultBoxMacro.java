@@ -85,6 +85,13 @@ public void prepare(MacroBlock macroBlock) throws MacroPreparationException
         this.contentParser.prepareContentWiki(macroBlock);
     }
 
+    @Override
+    public boolean isPreparationThreadSafe()
+    {
+        // Only parses the content of the box
+        return true;
+    }
+
     @Override
     public boolean isExecutionIsolated(P parameters, String content)
     {
@@ -143,6 +143,13 @@ public void prepare(MacroBlock macroBlock) throws MacroPreparationException
         this.macroContentParser.prepareContentWiki(macroBlock, syntax);
     }
 
+    @Override
+    public boolean isPreparationThreadSafe()
+    {
+        // Only parses the content in the requested syntax
+        return true;
+    }
+
     @Override
     public boolean isExecutionIsolated(ContentMacroParameters parameters, String content)
     {
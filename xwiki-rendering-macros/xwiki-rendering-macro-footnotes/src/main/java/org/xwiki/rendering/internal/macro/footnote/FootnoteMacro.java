@@ -111,6 +111,13 @@ public boolean supportsInlineMode()
         return true;
     }
 
+    @Override
+    public boolean hasGlobalDependencies()
+    {
+        // The footnote adds a putFootnotes macro at the end of the document.
+        return true;
+    }
+
     @Override
     public List<Block> execute(FootnoteMacroParameters parameters, String content, MacroTransformationContext context)
         throws MacroExecutionException
@@ -141,4 +148,11 @@ public void prepare(MacroBlock macroBlock) throws MacroPreparationException
     {
         this.contentParser.prepareContentWiki(macroBlock);
     }
+
+    @Override
+    public boolean isPreparationThreadSafe()
+    {
+        // Only parses the content of the footnote
+        return true;
+    }
 }
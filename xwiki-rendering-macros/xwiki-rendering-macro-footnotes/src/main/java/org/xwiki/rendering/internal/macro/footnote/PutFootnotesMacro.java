@@ -177,6 +177,13 @@ public boolean supportsInlineMode()
         return false;
     }
 
+    @Override
+    public boolean hasGlobalDependencies()
+    {
+        // The footnotes list is built from all the footnotes of the document, whose content is then modified.
+        return true;
+    }
+
     @Override
     public List<Block> execute(FootnoteMacroParameters parameters, String content, MacroTransformationContext context)
     {
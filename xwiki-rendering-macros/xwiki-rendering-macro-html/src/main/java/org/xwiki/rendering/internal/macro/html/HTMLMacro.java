@@ -139,7 +139,9 @@ public List<Block> execute(HTMLMacroParameters parameters, String content, Macro
         List<Block> blocks;
 
         if (!StringUtils.isEmpty(content)) {
-            Syntax targetSyntax = getHTMLTargetSyntax();
+            // Lookup the renderer factory only once since it's used to find both the target syntax and the renderer
+            PrintRendererFactory rendererFactory = getRendererFactory(this.renderingContext.getTargetSyntax());
+            Syntax targetSyntax = getHTMLTargetSyntax(rendererFactory);
 
             String normalizedContent = content;
 
@@ -147,7 +149,8 @@ public List<Block> execute(HTMLMacroParameters parameters, String content, Macro
             // a wiki syntax parser and render it back using a special renderer to print the XDOM blocks into
             // a text representing the resulting XHTML content.
             if (parameters.getWiki()) {
-                normalizedContent = renderWikiSyntax(normalizedContent, context.getTransformation(), context);
+                normalizedContent =
+                    renderWikiSyntax(normalizedContent, context.getTransformation(), context, rendererFactory);
             }
 
             RawBlock contentBlock = new RawBlock(normalizedContent, targetSyntax);
@@ -177,11 +180,12 @@ public List<Block> execute(HTMLMacroParameters parameters, String content, Macro
      * @param content the content to parse
      * @param transformation the macro transformation to execute macros when wiki is set to true
      * @param context the context of the macros transformation process
+     * @param rendererFactory the factory of the renderer to use to produce the XHTML
      * @return the output XHTML as a string containing the XWiki Syntax resolved as XHTML
      * @throws MacroExecutionException in case there's a parsing problem
      */
-    private String renderWikiSyntax(String content, Transformation transformation, MacroTransformationContext context)
-        throws MacroExecutionException
+    private String renderWikiSyntax(String content, Transformation transformation, MacroTransformationContext context,
+        PrintRendererFactory rendererFactory) throws MacroExecutionException
     {
         String xhtml;
 
@@ -219,10 +223,10 @@ private String renderWikiSyntax(String content, Transformation transformation, M
                 htmlMacroMarker.getParent().replaceChild(htmlMacroBlock, htmlMacroMarker);
             }
 
-            // Render the whole parsed content as a XHTML string
-            WikiPrinter printer = new DefaultWikiPrinter();
-            PrintRenderer renderer =
-                this.getRendererFactory(this.renderingContext.getTargetSyntax()).createRenderer(printer);
+            // Render the whole parsed content as a XHTML string. The XHTML is generally longer than the wiki content
+            // so start with a buffer big enough to avoid copying it several times while it grows.
+            WikiPrinter printer = new DefaultWikiPrinter(new StringBuffer(content.length() * 2));
+            PrintRenderer renderer = rendererFactory.createRenderer(printer);
             for (Block block : htmlMacroMarker.getChildren()) {
                 block.traverse(renderer);
             }
@@ -262,13 +266,14 @@ private PrintRendererFactory getRendererFactory(Syntax targetSyntax)
     }
 
     /**
+     * @param rendererFactory the renderer factory associated with the target syntax
      * @return The target syntax if it is a supported HTML syntax or {@link Syntax#HTML_5_0} otherwise.
      * @since 14.1RC1
      */
-    private Syntax getHTMLTargetSyntax()
+    private Syntax getHTMLTargetSyntax(PrintRendererFactory rendererFactory)
     {
         Syntax targetSyntax = this.renderingContext.getTargetSyntax();
-        if (getRendererFactory(targetSyntax) == this.defaultHTMLRendererFactory) {
+        if (rendererFactory == this.defaultHTMLRendererFactory) {
             // If the renderer is the default renderer, it is either indeed HTML 5.0 or an unsupported syntax - in
             // both cases returning HTML 5.0 is the right consequence.
             return Syntax.HTML_5_0;
@@ -284,6 +289,13 @@ public void prepare(MacroBlock macroBlock) throws MacroPreparationException
         }
     }
 
+    @Override
+    public boolean isPreparationThreadSafe()
+    {
+        // Only parses the content, when it contains wiki syntax
+        return true;
+    }
+
     @Override
     public boolean isExecutionIsolated(HTMLMacroParameters parameters, String content)
     {
@@ -24,6 +24,7 @@
 import org.xwiki.rendering.listener.WrappingListener;
 import org.xwiki.rendering.listener.chaining.BlockStateChainingListener;
 import org.xwiki.rendering.listener.chaining.ChainingListener;
+import org.xwiki.rendering.listener.chaining.ChainingListenerReference;
 import org.xwiki.rendering.listener.chaining.ListenerChain;
 import org.xwiki.rendering.renderer.AbstractChainingPrintRenderer;
 import org.xwiki.rendering.renderer.PrintRenderer;
@@ -40,6 +41,9 @@ public class HTMLMacroChainingRenderer extends WrappingListener implements Chain
 {
     private AbstractChainingPrintRenderer printRenderer;
 
+    private final ChainingListenerReference<HTMLMacroBlockStateChainingListener> htmlMacroBlockState =
+        new ChainingListenerReference<>(HTMLMacroBlockStateChainingListener.class);
+
     /**
      * @param printRenderer the right syntax renderer to be called.
      */
@@ -148,8 +152,7 @@ public void endMacroMarker(String name, Map<String, String> parameters, String c
 
     protected BlockStateChainingListener getBlockState()
     {
-        return (BlockStateChainingListener) getListenerChain()
-            .getListener(HTMLMacroBlockStateChainingListener.class);
+        return this.htmlMacroBlockState.get(getListenerChain());
     }
 
     @Override
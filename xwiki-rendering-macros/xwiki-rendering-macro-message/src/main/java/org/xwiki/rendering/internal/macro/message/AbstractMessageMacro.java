@@ -116,6 +116,13 @@ public void prepare(MacroBlock macroBlock) throws MacroPreparationException
         this.contentParser.prepareContentWiki(macroBlock);
     }
 
+    @Override
+    public boolean isPreparationThreadSafe()
+    {
+        // Only parses the content of the message
+        return true;
+    }
+
     @Override
     public List<Block> execute(MessageMacroParameters parameters, String content, MacroTransformationContext context) 
         throws MacroExecutionException 
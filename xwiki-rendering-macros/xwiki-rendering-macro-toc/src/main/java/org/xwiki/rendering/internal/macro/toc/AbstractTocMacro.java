@@ -131,4 +131,11 @@ public boolean isExecutionIsolated(T parameters, String content)
         // While the TOC macro accesses the XDOM, it doesn't modify it.
         return true;
     }
+
+    @Override
+    public boolean hasGlobalDependencies()
+    {
+        // The TOC lists the headings located after the macro.
+        return true;
+    }
 }
@@ -0,0 +1,247 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.standalone;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.xwiki.component.embed.EmbeddableComponentManager;
+import org.xwiki.rendering.converter.BatchConversionStatistics;
+import org.xwiki.rendering.converter.BatchConverter;
+import org.xwiki.rendering.converter.ConversionSource;
+import org.xwiki.rendering.standalone.internal.ContentHashes;
+import org.xwiki.rendering.standalone.internal.ConverterInput;
+import org.xwiki.rendering.standalone.internal.ConverterOptions;
+import org.xwiki.rendering.standalone.internal.ConverterOutput;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.rendering.syntax.SyntaxRegistry;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Command line tool converting all the files of a directory tree or a zip archive from one syntax to another, using
+ * parallel conversions and skipping the files which didn't change since the previous run.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+@Unstable
+public final class ConverterCommandLine
+{
+    /**
+     * The exit code when all files were converted.
+     */
+    public static final int SUCCESS = 0;
+
+    /**
+     * The exit code when some files, or the whole conversion, failed.
+     */
+    public static final int FAILURE = 1;
+
+    /**
+     * The exit code when the arguments are invalid.
+     */
+    public static final int INVALID_ARGUMENTS = 2;
+
+    /**
+     * Iterate over the files to convert, only reading them when the batch converter asks for them.
+     *
+     * @version $Id$
+     */
+    private static final class SourceIterator implements Iterator<ConversionSource>
+    {
+        private final ConverterInput input;
+
+        private final Iterator<String> paths;
+
+        private final ContentHashes hashes;
+
+        private final ConverterOutput output;
+
+        private final Syntax from;
+
+        private final Syntax to;
+
+        private final boolean force;
+
+        private ConversionSource next;
+
+        SourceIterator(ConverterInput input, ContentHashes hashes, ConverterOutput output, Syntax from, Syntax to,
+            boolean force)
+        {
+            this.input = input;
+            this.paths = input.getPaths().iterator();
+            this.hashes = hashes;
+            this.output = output;
+            this.from = from;
+            this.to = to;
+            this.force = force;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            while (this.next == null && this.paths.hasNext()) {
+                this.next = read(this.paths.next());
+            }
+
+            return this.next != null;
+        }
+
+        @Override
+        public ConversionSource next()
+        {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            ConversionSource source = this.next;
+            this.next = null;
+
+            return source;
+        }
+
+        private ConversionSource read(String path)
+        {
+            Path outputFile;
+            ByteBuffer content;
+            try {
+                // Make sure the file can be written before reading it
+                outputFile = this.output.getOutputFile(path);
+                content = this.input.read(path);
+            } catch (IOException e) {
+                this.output.onReadFailed(path, e);
+
+                return null;
+            }
+
+            String hash = this.hashes.hash(content);
+            if (!this.force && this.hashes.isUnchanged(path, hash) && Files.exists(outputFile)) {
+                this.output.onSkipped(path, hash);
+
+                return null;
+            }
+
+            this.output.onSubmitted(path, hash);
+
+            // Decoding copies the (memory mapped) content into a new buffer, but the reader then uses that buffer's
+            // array directly instead of copying it again into a String
+            CharBuffer characters = StandardCharsets.UTF_8.decode(content);
+            CharArrayReader reader = new CharArrayReader(characters.array(),
+                characters.arrayOffset() + characters.position(), characters.remaining());
+
+            return new ConversionSource(path, reader, this.from, this.to);
+        }
+    }
+
+    private ConverterCommandLine()
+    {
+        // Utility class
+    }
+
+    /**
+     * @param args the command line arguments, see {@link ConverterOptions#USAGE}
+     */
+    public static void main(String[] args)
+    {
+        System.exit(run(System.out, args));
+    }
+
+    /**
+     * @param report where to report the progress and the failures
+     * @param args the command line arguments, see {@link ConverterOptions#USAGE}
+     * @return the exit code
+     */
+    public static int run(PrintStream report, String... args)
+    {
+        ConverterOptions options;
+        try {
+            options = ConverterOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            report.println(e.getMessage());
+            report.println(ConverterOptions.USAGE);
+
+            return INVALID_ARGUMENTS;
+        }
+
+        // Initialize Rendering components and allow getting instances
+        EmbeddableComponentManager componentManager = new EmbeddableComponentManager();
+        componentManager.initialize(ConverterCommandLine.class.getClassLoader());
+        try {
+            return convert(options, componentManager, report);
+        } catch (Exception e) {
+            report.printf("Failed to convert [%s]: %s%n", options.getInput(), e.getMessage());
+
+            return FAILURE;
+        } finally {
+            componentManager.dispose();
+        }
+    }
+
+    private static int convert(ConverterOptions options, EmbeddableComponentManager componentManager,
+        PrintStream report) throws Exception
+    {
+        SyntaxRegistry syntaxRegistry = componentManager.getInstance(SyntaxRegistry.class);
+        Syntax from = syntaxRegistry.resolveSyntax(options.getFrom());
+        Syntax to = syntaxRegistry.resolveSyntax(options.getTo());
+
+        Path outputDirectory = Path.of(options.getOutput());
+        Files.createDirectories(outputDirectory);
+        ContentHashes hashes = new ContentHashes(outputDirectory, from.toIdString(), to.toIdString());
+
+        String extension =
+            options.getOutputExtension() != null ? options.getOutputExtension() : getDefaultExtension(to);
+
+        try (ConverterInput input = ConverterInput.open(Path.of(options.getInput()), options.getInputExtension())) {
+            List<String> paths = input.getPaths();
+            ConverterOutput output = new ConverterOutput(outputDirectory, extension, hashes, report, paths.size());
+
+            BatchConverter converter = componentManager.getInstance(BatchConverter.class);
+            BatchConversionStatistics statistics =
+                converter.convert(new SourceIterator(input, hashes, output, from, to, options.isForce()), output,
+                    options.getThreads(), options.isOrdered());
+
+            hashes.save();
+
+            report.printf("%s, %d unchanged, %d characters written%n", statistics, output.getSkipped(),
+                output.getWrittenCharacters());
+
+            return output.getFailed() > 0 ? FAILURE : SUCCESS;
+        }
+    }
+
+    private static String getDefaultExtension(Syntax syntax)
+    {
+        return switch (syntax.getType().getId()) {
+            case "xhtml", "annotatedxhtml", "html", "annotatedhtml" -> "html";
+            case "markdown" -> "md";
+            case "plain" -> "txt";
+            default -> syntax.getType().getId();
+        };
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.standalone.internal;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The hashes of the contents converted during the previous runs, stored in the output directory, used to skip the
+ * files which didn't change.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+public class ContentHashes
+{
+    /**
+     * The name of the file storing the hashes in the output directory.
+     */
+    public static final String FILE_NAME = ".xwiki-rendering-hashes";
+
+    private static final String ALGORITHM = "SHA-256";
+
+    private static final char SEPARATOR = ' ';
+
+    private final Path file;
+
+    private final byte[] salt;
+
+    private final Map<String, String> previousHashes = new TreeMap<>();
+
+    private final Map<String, String> hashes = new TreeMap<>();
+
+    /**
+     * @param outputDirectory the directory containing the hashes of the previous runs
+     * @param from the syntax of the input files
+     * @param to the syntax of the output files
+     * @throws IOException when failing to read the previous hashes
+     */
+    public ContentHashes(Path outputDirectory, String from, String to) throws IOException
+    {
+        this.file = outputDirectory.resolve(FILE_NAME);
+        // A conversion to another syntax must not be considered up to date
+        this.salt = (from + SEPARATOR + to + SEPARATOR).getBytes(StandardCharsets.UTF_8);
+
+        if (Files.isRegularFile(this.file)) {
+            for (String line : Files.readAllLines(this.file, StandardCharsets.UTF_8)) {
+                int index = line.indexOf(SEPARATOR);
+                if (index > 0) {
+                    this.previousHashes.put(line.substring(index + 1), line.substring(0, index));
+                }
+            }
+        }
+    }
+
+    /**
+     * @param content the content of a file, left untouched
+     * @return the hash of the content
+     */
+    public String hash(ByteBuffer content)
+    {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+
+        digest.update(this.salt);
+        digest.update(content.duplicate());
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * @param path the path of the file
+     * @param hash the hash of its current content
+     * @return {@code true} if the file had the same content when it was converted during the previous run
+     */
+    public boolean isUnchanged(String path, String hash)
+    {
+        return hash.equals(this.previousHashes.get(path));
+    }
+
+    /**
+     * Remember the hash of a file which has been converted or which was already up to date.
+     *
+     * @param path the path of the file
+     * @param hash the hash of its content
+     */
+    public void put(String path, String hash)
+    {
+        this.hashes.put(path, hash);
+    }
+
+    /**
+     * Replace the stored hashes with the ones remembered during this run.
+     *
+     * @throws IOException when failing to write the hashes
+     */
+    public void save() throws IOException
+    {
+        // Write to a temporary file first so that an interrupted run doesn't leave corrupted hashes
+        Path temporary = this.file.resolveSibling(FILE_NAME + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, String> entry : this.hashes.entrySet()) {
+                writer.write(entry.getValue());
+                writer.write(SEPARATOR);
+                writer.write(entry.getKey());
+                writer.newLine();
+            }
+        }
+
+        Files.move(temporary, this.file, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
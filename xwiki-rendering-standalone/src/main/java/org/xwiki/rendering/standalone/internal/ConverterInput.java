@@ -0,0 +1,173 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.standalone.internal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The files to convert, located in a directory tree or a zip archive.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+public abstract class ConverterInput implements Closeable
+{
+    private static final String ZIP_EXTENSION = ".zip";
+
+    private static final char SEPARATOR = '/';
+
+    /**
+     * Files located in a directory tree, read through memory mapping so that they are hashed without being copied to
+     * the heap (decoding them still copies their content).
+     *
+     * @version $Id$
+     */
+    private static final class DirectoryInput extends ConverterInput
+    {
+        private final Path root;
+
+        private final List<String> paths;
+
+        DirectoryInput(Path root, String extension) throws IOException
+        {
+            this.root = root;
+
+            try (Stream<Path> files = Files.walk(root)) {
+                this.paths = files.filter(Files::isRegularFile).map(this::toPath)
+                    .filter(path -> matches(path, extension)).sorted().toList();
+            }
+        }
+
+        private String toPath(Path file)
+        {
+            return this.root.relativize(file).toString().replace(file.getFileSystem().getSeparator().charAt(0),
+                SEPARATOR);
+        }
+
+        @Override
+        public List<String> getPaths()
+        {
+            return this.paths;
+        }
+
+        @Override
+        public ByteBuffer read(String path) throws IOException
+        {
+            try (FileChannel channel = FileChannel.open(this.root.resolve(path), StandardOpenOption.READ)) {
+                // The mapping stays valid after the channel is closed
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+    }
+
+    /**
+     * Files located in a zip archive. Entries are generally compressed so they cannot be memory mapped and are
+     * inflated in memory instead.
+     *
+     * @version $Id$
+     */
+    private static final class ZipInput extends ConverterInput
+    {
+        private final ZipFile zip;
+
+        private final List<String> paths;
+
+        ZipInput(Path file, String extension) throws IOException
+        {
+            this.zip = new ZipFile(file.toFile());
+            this.paths = Collections.list(this.zip.entries()).stream().filter(entry -> !entry.isDirectory())
+                .map(ZipEntry::getName).filter(path -> matches(path, extension)).sorted().toList();
+        }
+
+        @Override
+        public List<String> getPaths()
+        {
+            return this.paths;
+        }
+
+        @Override
+        public ByteBuffer read(String path) throws IOException
+        {
+            try (InputStream stream = this.zip.getInputStream(this.zip.getEntry(path))) {
+                return ByteBuffer.wrap(stream.readAllBytes());
+            }
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            this.zip.close();
+        }
+    }
+
+    /**
+     * @param path a directory or a zip archive
+     * @param extension the extension of the files to convert or {@code null} to convert all files
+     * @return the input
+     * @throws IOException when failing to list the files
+     */
+    public static ConverterInput open(Path path, String extension) throws IOException
+    {
+        if (Files.isDirectory(path)) {
+            return new DirectoryInput(path, extension);
+        } else if (Files.isRegularFile(path)
+            && path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(ZIP_EXTENSION)) {
+            return new ZipInput(path, extension);
+        }
+
+        throw new IOException("The input [" + path + "] is neither a directory nor a zip archive");
+    }
+
+    private static boolean matches(String path, String extension)
+    {
+        return extension == null || path.endsWith('.' + extension);
+    }
+
+    /**
+     * @return the paths of the files to convert, relative to the input and using {@code /} as separator, sorted
+     */
+    public abstract List<String> getPaths();
+
+    /**
+     * @param path the path of a file, as returned by {@link #getPaths()}
+     * @return the content of the file
+     * @throws IOException when failing to read the file
+     */
+    public abstract ByteBuffer read(String path) throws IOException;
+
+    @Override
+    public void close() throws IOException
+    {
+        // Nothing to release by default
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.standalone.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The options of the command line converter.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+public class ConverterOptions
+{
+    /**
+     * The description of the supported arguments.
+     */
+    public static final String USAGE = String.join(System.lineSeparator(),
+        "Usage: <input directory or zip> <output directory> --from <syntax> --to <syntax> [options]",
+        "  --from <syntax>            the syntax of the input files (e.g. xwiki/2.1)",
+        "  --to <syntax>              the syntax to convert to (e.g. xhtml/1.0)",
+        "  --threads <count>          the number of parallel conversions (default: number of processors)",
+        "  --input-extension <ext>    only convert the input files with this extension",
+        "  --output-extension <ext>   the extension of the output files (default: derived from the target syntax)",
+        "  --unordered                write the results as soon as they are available",
+        "  --force                    convert all files, even the ones which didn't change since the last run");
+
+    private String input;
+
+    private String output;
+
+    private String from;
+
+    private String to;
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    private String inputExtension;
+
+    private String outputExtension;
+
+    private boolean ordered = true;
+
+    private boolean force;
+
+    /**
+     * @param args the command line arguments
+     * @return the parsed options
+     * @throws IllegalArgumentException when the arguments are invalid
+     */
+    public static ConverterOptions parse(String... args)
+    {
+        ConverterOptions options = new ConverterOptions();
+
+        List<String> positional = new ArrayList<>(2);
+        for (int i = 0; i < args.length; ++i) {
+            switch (args[i]) {
+                case "--from" -> options.from = value(args, ++i);
+                case "--to" -> options.to = value(args, ++i);
+                case "--threads" -> options.threads = parseThreads(value(args, ++i));
+                case "--input-extension" -> options.inputExtension = value(args, ++i);
+                case "--output-extension" -> options.outputExtension = value(args, ++i);
+                case "--unordered" -> options.ordered = false;
+                case "--force" -> options.force = true;
+                default -> {
+                    if (args[i].startsWith("--")) {
+                        throw new IllegalArgumentException("Unknown option [" + args[i] + "]");
+                    }
+                    positional.add(args[i]);
+                }
+            }
+        }
+
+        if (positional.size() != 2) {
+            throw new IllegalArgumentException("Expected an input and an output but got " + positional);
+        }
+        if (options.from == null || options.to == null) {
+            throw new IllegalArgumentException("Both the --from and --to syntaxes are required");
+        }
+
+        options.input = positional.get(0);
+        options.output = positional.get(1);
+
+        return options;
+    }
+
+    private static String value(String[] args, int index)
+    {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for option [" + args[index - 1] + "]");
+        }
+
+        return args[index];
+    }
+
+    private static int parseThreads(String value)
+    {
+        try {
+            int threads = Integer.parseInt(value);
+            if (threads >= 1) {
+                return threads;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+
+        throw new IllegalArgumentException("Invalid number of threads [" + value + "]");
+    }
+
+    /**
+     * @return the path of the input directory or zip archive
+     */
+    public String getInput()
+    {
+        return this.input;
+    }
+
+    /**
+     * @return the path of the output directory
+     */
+    public String getOutput()
+    {
+        return this.output;
+    }
+
+    /**
+     * @return the identifier of the syntax of the input files
+     */
+    public String getFrom()
+    {
+        return this.from;
+    }
+
+    /**
+     * @return the identifier of the syntax to convert to
+     */
+    public String getTo()
+    {
+        return this.to;
+    }
+
+    /**
+     * @return the maximum number of files converted at the same time
+     */
+    public int getThreads()
+    {
+        return this.threads;
+    }
+
+    /**
+     * @return the extension of the input files to convert or {@code null} to convert all files
+     */
+    public String getInputExtension()
+    {
+        return this.inputExtension;
+    }
+
+    /**
+     * @return the extension of the output files or {@code null} to derive it from the target syntax
+     */
+    public String getOutputExtension()
+    {
+        return this.outputExtension;
+    }
+
+    /**
+     * @return {@code true} if the results should be written in the order of the input files
+     */
+    public boolean isOrdered()
+    {
+        return this.ordered;
+    }
+
+    /**
+     * @return {@code true} if the files which didn't change since the last run should be converted anyway
+     */
+    public boolean isForce()
+    {
+        return this.force;
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.standalone.internal;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.xwiki.rendering.converter.ConversionException;
+import org.xwiki.rendering.converter.ConversionSink;
+import org.xwiki.rendering.converter.ConversionSource;
+
+/**
+ * Write the results of the conversions in the output directory, remember the hashes of the converted files and report
+ * the progress.
+ * <p>
+ * The batch converter reads the sources and passes the results from the calling thread, so this class doesn't need to
+ * be thread safe.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+public class ConverterOutput implements ConversionSink
+{
+    private static final long REPORT_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    private static final char EXTENSION_SEPARATOR = '.';
+
+    private final Path directory;
+
+    private final String extension;
+
+    private final ContentHashes hashes;
+
+    private final PrintStream report;
+
+    private final int total;
+
+    private final Map<String, String> pendingHashes = new HashMap<>();
+
+    private final long begin = System.nanoTime();
+
+    private long lastReport = this.begin;
+
+    private int processed;
+
+    private int skipped;
+
+    private int failed;
+
+    private long writtenCharacters;
+
+    /**
+     * @param directory the directory where to write the results
+     * @param extension the extension of the written files
+     * @param hashes the hashes of the converted files
+     * @param report where to report the progress and the failures
+     * @param total the total number of files to process
+     */
+    public ConverterOutput(Path directory, String extension, ContentHashes hashes, PrintStream report, int total)
+    {
+        this.directory = directory.toAbsolutePath().normalize();
+        this.extension = extension;
+        this.hashes = hashes;
+        this.report = report;
+        this.total = total;
+    }
+
+    /**
+     * @param path the path of the input file
+     * @return the output file corresponding to the input file
+     * @throws IOException when the output file would be located outside of the output directory (e.g. for a zip
+     *             entry named {@code ../file.txt})
+     */
+    public Path getOutputFile(String path) throws IOException
+    {
+        int slash = path.lastIndexOf('/');
+        int dot = path.lastIndexOf(EXTENSION_SEPARATOR);
+        String base = dot > slash + 1 ? path.substring(0, dot) : path;
+
+        Path file = this.directory.resolve(base + EXTENSION_SEPARATOR + this.extension).normalize();
+        if (!file.startsWith(this.directory) || file.equals(this.directory)) {
+            throw new IOException("The output file [" + file + "] is located outside of the output directory");
+        }
+
+        return file;
+    }
+
+    /**
+     * Remember the hash of a file about to be converted, to store it only if the conversion succeeds.
+     *
+     * @param path the path of the file
+     * @param hash the hash of its content
+     */
+    public void onSubmitted(String path, String hash)
+    {
+        this.pendingHashes.put(path, hash);
+    }
+
+    /**
+     * @param path the path of the file which didn't change since the previous run
+     * @param hash the hash of its content
+     */
+    public void onSkipped(String path, String hash)
+    {
+        this.hashes.put(path, hash);
+        ++this.skipped;
+        onProcessed();
+    }
+
+    /**
+     * @param path the path of the file which could not be read
+     * @param exception the reason of the failure
+     */
+    public void onReadFailed(String path, IOException exception)
+    {
+        this.report.printf("Failed to read [%s]: %s%n", path, exception.getMessage());
+        ++this.failed;
+        onProcessed();
+    }
+
+    @Override
+    public void onConverted(ConversionSource source, String result)
+    {
+        String hash = this.pendingHashes.remove(source.getId());
+
+        try {
+            Path file = getOutputFile(source.getId());
+            Files.createDirectories(file.getParent());
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writer.write(result);
+            }
+            this.writtenCharacters += result.length();
+            this.hashes.put(source.getId(), hash);
+        } catch (IOException e) {
+            this.report.printf("Failed to write [%s]: %s%n", source.getId(), e.getMessage());
+            ++this.failed;
+        }
+
+        onProcessed();
+    }
+
+    @Override
+    public void onFailed(ConversionSource source, ConversionException exception)
+    {
+        this.pendingHashes.remove(source.getId());
+
+        Throwable cause = exception.getCause() != null ? exception.getCause() : exception;
+        this.report.printf("Failed to convert [%s]: %s%n", source.getId(), cause.getMessage());
+        ++this.failed;
+
+        onProcessed();
+    }
+
+    private void onProcessed()
+    {
+        ++this.processed;
+
+        long now = System.nanoTime();
+        if (now - this.lastReport >= REPORT_INTERVAL || this.processed == this.total) {
+            this.lastReport = now;
+            this.report.printf("[%d/%d] %.1f files/s%n", this.processed, this.total, getThroughput(now));
+        }
+    }
+
+    private double getThroughput(long now)
+    {
+        long duration = now - this.begin;
+
+        return duration > 0 ? this.processed * 1e9 / duration : 0;
+    }
+
+    /**
+     * @return the number of files which didn't change since the previous run
+     */
+    public int getSkipped()
+    {
+        return this.skipped;
+    }
+
+    /**
+     * @return the number of files which failed to be read, converted or written
+     */
+    public int getFailed()
+    {
+        return this.failed;
+    }
+
+    /**
+     * @return the number of characters written in the output files
+     */
+    public long getWrittenCharacters()
+    {
+        return this.writtenCharacters;
+    }
+}
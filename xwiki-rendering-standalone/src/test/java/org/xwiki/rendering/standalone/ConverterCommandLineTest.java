@@ -0,0 +1,121 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.standalone;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link ConverterCommandLine}.
+ *
+ * @version $Id$
+ */
+class ConverterCommandLineTest
+{
+    @TempDir
+    private Path directory;
+
+    private final ByteArrayOutputStream report = new ByteArrayOutputStream();
+
+    private int run(String... args)
+    {
+        this.report.reset();
+
+        return ConverterCommandLine.run(new PrintStream(this.report, true, StandardCharsets.UTF_8), args);
+    }
+
+    private String getReport()
+    {
+        return this.report.toString(StandardCharsets.UTF_8);
+    }
+
+    private static void write(Path file, String content) throws IOException
+    {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+
+    @Test
+    void convertDirectory() throws IOException
+    {
+        Path input = this.directory.resolve("input");
+        Path output = this.directory.resolve("output");
+        write(input.resolve("page.txt"), "This is **bold**");
+        write(input.resolve("space/child.txt"), "//italic//");
+
+        String[] args = { input.toString(), output.toString(), "--from", "xwiki/2.1", "--to", "xhtml/1.0" };
+
+        assertEquals(ConverterCommandLine.SUCCESS, run(args));
+        assertEquals("<p>This is <strong>bold</strong></p>", Files.readString(output.resolve("page.html")));
+        assertEquals("<p><em>italic</em></p>", Files.readString(output.resolve("space/child.html")));
+        assertTrue(getReport().contains("2 converted, 0 failed"), getReport());
+
+        // Only the modified file is converted again
+        write(input.resolve("page.txt"), "This is __underlined__");
+
+        assertEquals(ConverterCommandLine.SUCCESS, run(args));
+        assertEquals("<p>This is <ins>underlined</ins></p>", Files.readString(output.resolve("page.html")));
+        assertTrue(getReport().contains("1 converted, 0 failed"), getReport());
+        assertTrue(getReport().contains("1 unchanged"), getReport());
+    }
+
+    @Test
+    void convertZipWithEntriesOutsideOfTheOutputDirectory() throws IOException
+    {
+        Path input = this.directory.resolve("input.zip");
+        Path output = this.directory.resolve("nested/output");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(input))) {
+            for (String name : new String[] { "page.txt", "../../evil.txt", "/tmp/evil.txt" }) {
+                zip.putNextEntry(new ZipEntry(name));
+                zip.write("**bold**".getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+
+        assertEquals(ConverterCommandLine.FAILURE,
+            run(input.toString(), output.toString(), "--from", "xwiki/2.1", "--to", "xhtml/1.0"));
+        assertEquals("<p><strong>bold</strong></p>", Files.readString(output.resolve("page.html")));
+        assertFalse(Files.exists(this.directory.resolve("evil.html")));
+        assertFalse(Files.exists(Path.of("/tmp/evil.html")));
+        assertTrue(getReport().contains("Failed to read [../../evil.txt]"), getReport());
+        assertTrue(getReport().contains("Failed to read [/tmp/evil.txt]"), getReport());
+        assertTrue(getReport().contains("1 converted, 0 failed"), getReport());
+    }
+
+    @Test
+    void invalidArguments()
+    {
+        assertEquals(ConverterCommandLine.INVALID_ARGUMENTS, run("input", "--from", "xwiki/2.1"));
+        assertTrue(getReport().startsWith("Expected an input and an output"), getReport());
+    }
+}
@@ -25,6 +25,7 @@
 import org.xwiki.rendering.listener.HeaderLevel;
 import org.xwiki.rendering.listener.ListType;
 import org.xwiki.rendering.listener.chaining.BlockStateChainingListener;
+import org.xwiki.rendering.listener.chaining.ChainingListenerReference;
 import org.xwiki.rendering.listener.chaining.EmptyBlockChainingListener;
 import org.xwiki.rendering.listener.chaining.ListenerChain;
 import org.xwiki.rendering.listener.reference.ResourceReference;
@@ -58,6 +59,12 @@ public class PlainTextChainingRenderer extends AbstractChainingPrintRenderer
      */
     private LinkLabelGenerator linkLabelGenerator;
 
+    private final ChainingListenerReference<BlockStateChainingListener> blockState =
+        new ChainingListenerReference<>(BlockStateChainingListener.class);
+
+    private final ChainingListenerReference<EmptyBlockChainingListener> emptyBlockState =
+        new ChainingListenerReference<>(EmptyBlockChainingListener.class);
+
     /**
      * The plain text renderer supports when no link label generator is set.
      *
@@ -86,7 +93,7 @@ public PlainTextChainingRenderer(LinkLabelGenerator linkLabelGenerator, Listener
      */
     private BlockStateChainingListener getBlockState()
     {
-        return (BlockStateChainingListener) getListenerChain().getListener(BlockStateChainingListener.class);
+        return this.blockState.get(getListenerChain());
     }
 
     /**
@@ -94,7 +101,7 @@ private BlockStateChainingListener getBlockState()
      */
     protected EmptyBlockChainingListener getEmptyBlockState()
     {
-        return (EmptyBlockChainingListener) getListenerChain().getListener(EmptyBlockChainingListener.class);
+        return this.emptyBlockState.get(getListenerChain());
     }
 
     // Events
@@ -31,6 +31,8 @@
 import org.xwiki.rendering.listener.chaining.EmptyBlockChainingListener;
 import org.xwiki.rendering.listener.chaining.ListenerChain;
 import org.xwiki.rendering.renderer.AbstractChainingPrintRenderer;
+import org.xwiki.rendering.renderer.ResettablePrintRenderer;
+import org.xwiki.rendering.renderer.printer.WikiPrinter;
 import org.xwiki.rendering.renderer.reference.link.LinkLabelGenerator;
 
 /**
@@ -44,7 +46,7 @@
 @Component
 @Named("plain/1.0")
 @InstantiationStrategy(ComponentInstantiationStrategy.PER_LOOKUP)
-public class PlainTextRenderer extends AbstractChainingPrintRenderer implements Initializable
+public class PlainTextRenderer extends AbstractChainingPrintRenderer implements Initializable, ResettablePrintRenderer
 {
     /**
      * Used to generate link label when not explicitely provided.
@@ -54,6 +56,27 @@ public class PlainTextRenderer extends AbstractChainingPrintRenderer implements
 
     @Override
     public void initialize() throws InitializationException
+    {
+        initializeListenerChain();
+    }
+
+    @Override
+    public void reset(WikiPrinter printer)
+    {
+        // The listeners of the chain hold the state of the rendering so a new chain is created
+        initializeListenerChain();
+        resetPrinter(printer);
+    }
+
+    @Override
+    public void clear()
+    {
+        // The listeners of the chain hold the printers of the finished rendering
+        setListenerChain(new ListenerChain());
+        clearPrinters();
+    }
+
+    private void initializeListenerChain()
     {
         ListenerChain chain = new ListenerChain();
         setListenerChain(chain);
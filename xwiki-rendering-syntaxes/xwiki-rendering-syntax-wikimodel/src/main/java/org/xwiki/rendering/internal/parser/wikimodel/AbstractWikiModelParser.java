@@ -137,14 +137,18 @@ public XWikiGeneratorListener createXWikiGeneratorListener(Listener listener, Id
     public void parse(Reader source, Listener listener, IdGenerator idGenerator) throws ParseException
     {
         IWikiParser parser = createWikiModelParser();
+        WikiModelParseEvent event = new WikiModelParseEvent();
+        Reader eventSource = event.begin(source);
         try {
-            parser.parse(source, createXWikiGeneratorListener(
+            parser.parse(eventSource, createXWikiGeneratorListener(
                 this.wikiModelParserListenerBuilder.buildListener(this.descriptor.getRoleHint(), listener),
                 idGenerator));
         } catch (Exception | StackOverflowError e) {
             // Stack overflow errors are caught in addition to exceptions because they can be thrown by javacc based
             // implementations in case of too deeply nested contents (e.g., too many nested groups).   
             throw new ParseException("Failed to parse input source", e);
+        } finally {
+            event.commit(getSyntax().toIdString());
         }
     }
 }
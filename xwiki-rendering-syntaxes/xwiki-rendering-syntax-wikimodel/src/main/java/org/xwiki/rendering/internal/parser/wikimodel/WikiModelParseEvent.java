@@ -0,0 +1,136 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.parser.wikimodel;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event emitted for each content parsed by a WikiModel based parser.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+@Name("org.xwiki.rendering.WikiModelParse")
+@Label("WikiModel Parse")
+@Description("The parsing of some content by a WikiModel based parser")
+@Category({ "XWiki", "Rendering" })
+@StackTrace(false)
+public class WikiModelParseEvent extends Event
+{
+    @Label("Syntax")
+    private String syntax;
+
+    @Label("Input Size")
+    @Description("The number of characters read from the parsed input")
+    private long inputSize;
+
+    private transient CountingReader countingReader;
+
+    /**
+     * Reader counting the number of characters read from the wrapped reader.
+     *
+     * @version $Id$
+     */
+    private static final class CountingReader extends FilterReader
+    {
+        private long count;
+
+        CountingReader(Reader in)
+        {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            int c = super.read();
+            if (c != -1) {
+                this.count++;
+            }
+
+            return c;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException
+        {
+            int read = super.read(cbuf, off, len);
+            if (read > 0) {
+                this.count += read;
+            }
+
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException
+        {
+            long skipped = super.skip(n);
+            this.count += skipped;
+
+            return skipped;
+        }
+    }
+
+    /**
+     * Begin the event and, only if the event is recorded, wrap the source to count the characters read from it.
+     *
+     * @param source the content to parse
+     * @return the reader to parse
+     */
+    public Reader begin(Reader source)
+    {
+        begin();
+
+        if (isEnabled()) {
+            this.countingReader = new CountingReader(source);
+
+            return this.countingReader;
+        }
+
+        return source;
+    }
+
+    /**
+     * End the event and commit it with the details of the parsing if the event is recorded.
+     *
+     * @param parserSyntax the syntax of the parser
+     */
+    public void commit(String parserSyntax)
+    {
+        end();
+
+        if (shouldCommit()) {
+            this.syntax = parserSyntax;
+            this.inputSize = this.countingReader != null ? this.countingReader.count : -1;
+
+            commit();
+        }
+    }
+}
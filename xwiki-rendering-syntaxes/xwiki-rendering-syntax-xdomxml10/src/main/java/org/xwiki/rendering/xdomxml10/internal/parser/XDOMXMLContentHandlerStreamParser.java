@@ -67,6 +67,13 @@ public void setListener(Listener listener)
         this.listener = listener;
     }
 
+    @Override
+    public void startDocument() throws SAXException
+    {
+        // Make sure the parser can be reused for another document
+        this.documentParser = null;
+    }
+
     @Override
     public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException
     {
@@ -31,6 +31,7 @@
 import org.xwiki.rendering.listener.MetaData;
 import org.xwiki.rendering.listener.chaining.BlockStateChainingListener;
 import org.xwiki.rendering.listener.chaining.BlockStateChainingListener.Event;
+import org.xwiki.rendering.listener.chaining.ChainingListenerReference;
 import org.xwiki.rendering.listener.chaining.EmptyBlockChainingListener;
 import org.xwiki.rendering.listener.chaining.ListenerChain;
 import org.xwiki.rendering.listener.chaining.MetaDataStateChainingListener;
@@ -70,6 +71,15 @@ public class XHTMLChainingRenderer extends AbstractChainingPrintRenderer
 
     private XHTMLWikiPrinter xhtmlWikiPrinter;
 
+    private final ChainingListenerReference<BlockStateChainingListener> blockState =
+        new ChainingListenerReference<>(BlockStateChainingListener.class);
+
+    private final ChainingListenerReference<EmptyBlockChainingListener> emptyBlockState =
+        new ChainingListenerReference<>(EmptyBlockChainingListener.class);
+
+    private final ChainingListenerReference<MetaDataStateChainingListener> metaDataState =
+        new ChainingListenerReference<>(MetaDataStateChainingListener.class);
+
     /**
      * @param linkRenderer the object to render link events into XHTML. This is done so that it's pluggable because
      *     link rendering depends on how the underlying system wants to handle it. For example for XWiki we check if the
@@ -94,17 +104,17 @@ public XHTMLChainingRenderer(XHTMLLinkRenderer linkRenderer, XHTMLImageRenderer
 
     protected BlockStateChainingListener getBlockState()
     {
-        return (BlockStateChainingListener) getListenerChain().getListener(BlockStateChainingListener.class);
+        return this.blockState.get(getListenerChain());
     }
 
     protected EmptyBlockChainingListener getEmptyBlockState()
     {
-        return (EmptyBlockChainingListener) getListenerChain().getListener(EmptyBlockChainingListener.class);
+        return this.emptyBlockState.get(getListenerChain());
     }
 
     protected MetaDataStateChainingListener getMetaDataState()
     {
-        return (MetaDataStateChainingListener) getListenerChain().getListener(MetaDataStateChainingListener.class);
+        return this.metaDataState.get(getListenerChain());
     }
 
     // Printer
@@ -24,6 +24,7 @@
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.apache.commons.lang3.StringUtils;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.rendering.internal.renderer.ParametersPrinter;
 import org.xwiki.rendering.listener.reference.ResourceReference;
@@ -55,7 +56,8 @@ public class XHTMLMarkerResourceReferenceSerializer implements ResourceReference
     @Override
     public String serialize(ResourceReference reference)
     {
-        StringBuilder buffer = new StringBuilder();
+        // Make room for the reference right away since it can be very large (e.g. Data URI images)
+        StringBuilder buffer = new StringBuilder(StringUtils.length(reference.getReference()) + 32);
 
         // Print if the Resource Reference is typed, the Resource Reference Type and the Reference itself
         buffer.append(reference.isTyped());
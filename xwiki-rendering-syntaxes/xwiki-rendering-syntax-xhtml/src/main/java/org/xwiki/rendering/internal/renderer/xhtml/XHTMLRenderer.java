@@ -34,6 +34,8 @@
 import org.xwiki.rendering.listener.chaining.ListenerChain;
 import org.xwiki.rendering.listener.chaining.MetaDataStateChainingListener;
 import org.xwiki.rendering.renderer.AbstractChainingPrintRenderer;
+import org.xwiki.rendering.renderer.ResettablePrintRenderer;
+import org.xwiki.rendering.renderer.printer.WikiPrinter;
 import org.xwiki.xml.html.HTMLElementSanitizer;
 
 /**
@@ -45,7 +47,7 @@
 @Component
 @Named("xhtml/1.0")
 @InstantiationStrategy(ComponentInstantiationStrategy.PER_LOOKUP)
-public class XHTMLRenderer extends AbstractChainingPrintRenderer implements Initializable
+public class XHTMLRenderer extends AbstractChainingPrintRenderer implements Initializable, ResettablePrintRenderer
 {
     /**
      * To render link events into XHTML. This is done so that it's pluggable because link rendering depends on how the
@@ -68,6 +70,27 @@ public class XHTMLRenderer extends AbstractChainingPrintRenderer implements Init
 
     @Override
     public void initialize() throws InitializationException
+    {
+        initializeListenerChain();
+    }
+
+    @Override
+    public void reset(WikiPrinter printer)
+    {
+        // The listeners of the chain hold the state of the rendering so a new chain is created
+        initializeListenerChain();
+        resetPrinter(printer);
+    }
+
+    @Override
+    public void clear()
+    {
+        // The listeners of the chain hold the printers of the finished rendering
+        setListenerChain(new ListenerChain());
+        clearPrinters();
+    }
+
+    private void initializeListenerChain()
     {
         ListenerChain chain = new ListenerChain();
         setListenerChain(chain);
@@ -74,7 +74,7 @@ protected String getImageSrcAttributeValue(ResourceReference reference, Map<Stri
         if (this.wikiModel != null) {
             imageSrcAttributeValue = this.wikiModel.getImageURL(reference, parameters);
         } else {
-            imageSrcAttributeValue = String.format("%s:%s", reference.getType().getScheme(), reference.getReference());
+            imageSrcAttributeValue = reference.getType().getScheme() + ':' + reference.getReference();
         }
         return imageSrcAttributeValue;
     }
@@ -42,6 +42,7 @@ public class DataURIXHTMLImageTypeRenderer extends AbstractXHTMLImageTypeRendere
     @Override
     protected String getImageSrcAttributeValue(ResourceReference reference, Map<String, String> parameters)
     {
-        return String.format("%s:%s", reference.getType().getScheme(), reference.getReference());
+        // Data URIs can be very large (e.g. pasted screenshots) so avoid any intermediate copy of the reference
+        return reference.getType().getScheme() + ':' + reference.getReference();
     }
 }
@@ -103,6 +103,24 @@ public void initialize() throws InitializationException
         chain.addListener(createXWikiSyntaxChainingRenderer(chain));
     }
 
+    /**
+     * Insert the groups needed in table cells and list items according to the passed summary of the blocks which are
+     * going to be rendered, instead of stacking the content of those elements.
+     *
+     * @param summary the summary of the blocks which are going to be rendered
+     * @since 17.9.0RC1
+     */
+    public void setInlineContentSummary(InlineContentSummary summary)
+    {
+        ListenerChain chain = getListenerChain();
+        int lookaheadIndex = chain.indexOf(LookaheadChainingListener.class);
+        // Listeners coming from the registry are placed before the lookahead and could modify the events, in which case
+        // they would not match the summary anymore
+        if (lookaheadIndex == 1) {
+            chain.addListener(new InlineContentGroupChainingListener(chain, summary), lookaheadIndex);
+        }
+    }
+
     @Override
     public void flush() throws IOException
     {
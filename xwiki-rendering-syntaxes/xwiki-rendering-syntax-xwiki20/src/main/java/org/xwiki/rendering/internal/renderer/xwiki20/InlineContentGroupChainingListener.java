@@ -0,0 +1,154 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.renderer.xwiki20;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.xwiki.rendering.listener.QueueListener;
+import org.xwiki.rendering.listener.chaining.AbstractChainingListener;
+import org.xwiki.rendering.listener.chaining.EventType;
+import org.xwiki.rendering.listener.chaining.ListenerChain;
+
+/**
+ * Wrap the content of table cells, table head cells and list items in a {@link org.xwiki.rendering.block.GroupBlock}
+ * according to a precomputed {@link InlineContentSummary}. The events are streamed, unlike with the stacking
+ * listeners (e.g. {@link TableCellStackingInlineContentChainingListener}) which need to stack the whole content of the
+ * element before knowing if a group is needed.
+ * <p>
+ * This listener needs to be placed before the {@link org.xwiki.rendering.listener.chaining.LookaheadChainingListener}
+ * so that the inserted group events are visible when looking ahead.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+public class InlineContentGroupChainingListener extends AbstractChainingListener
+{
+    /**
+     * The parameters of the inserted groups, used to recognize them.
+     */
+    private static final Map<String, String> GROUP_PARAMETERS = Collections.unmodifiableMap(new HashMap<>());
+
+    private final InlineContentSummary summary;
+
+    private int index;
+
+    /**
+     * Indicate for each of the currently open elements if its content was wrapped in a group.
+     */
+    private final BitSet grouped = new BitSet();
+
+    private int depth;
+
+    /**
+     * @param listenerChain the listener chain to save
+     * @param summary the summary of the blocks which are going to be rendered
+     */
+    public InlineContentGroupChainingListener(ListenerChain listenerChain, InlineContentSummary summary)
+    {
+        setListenerChain(listenerChain);
+        this.summary = summary;
+    }
+
+    /**
+     * @param event an event
+     * @return {@code true} if the passed event is the begin of a group inserted by this listener
+     */
+    public static boolean isInsertedGroup(QueueListener.Event event)
+    {
+        return event != null && event.eventType == EventType.BEGIN_GROUP
+            && event.eventParameters[0] == GROUP_PARAMETERS;
+    }
+
+    private void beginElement()
+    {
+        boolean group = this.index < this.summary.size() && this.summary.isGrouped(this.index);
+        this.index++;
+        this.grouped.set(this.depth++, group);
+        if (group) {
+            super.beginGroup(GROUP_PARAMETERS);
+        }
+    }
+
+    private void endElement()
+    {
+        if (this.depth > 0 && this.grouped.get(--this.depth)) {
+            super.endGroup(GROUP_PARAMETERS);
+        }
+    }
+
+    @Override
+    public void beginTableCell(Map<String, String> parameters)
+    {
+        super.beginTableCell(parameters);
+        beginElement();
+    }
+
+    @Override
+    public void endTableCell(Map<String, String> parameters)
+    {
+        endElement();
+        super.endTableCell(parameters);
+    }
+
+    @Override
+    public void beginTableHeadCell(Map<String, String> parameters)
+    {
+        super.beginTableHeadCell(parameters);
+        beginElement();
+    }
+
+    @Override
+    public void endTableHeadCell(Map<String, String> parameters)
+    {
+        endElement();
+        super.endTableHeadCell(parameters);
+    }
+
+    @Override
+    public void beginListItem()
+    {
+        super.beginListItem();
+        beginElement();
+    }
+
+    @Override
+    public void beginListItem(Map<String, String> parameters)
+    {
+        super.beginListItem(parameters);
+        beginElement();
+    }
+
+    @Override
+    public void endListItem()
+    {
+        endElement();
+        super.endListItem();
+    }
+
+    @Override
+    public void endListItem(Map<String, String> parameters)
+    {
+        endElement();
+        super.endListItem(parameters);
+    }
+}
@@ -0,0 +1,390 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.renderer.xwiki20;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.listener.HeaderLevel;
+import org.xwiki.rendering.listener.ListType;
+import org.xwiki.rendering.listener.VoidListener;
+
+/**
+ * Structural summary of the blocks to render, computed once before the rendering: for each table cell, table head
+ * cell and list item (in the order of their begin events) indicate if its content has to be wrapped in a
+ * {@link org.xwiki.rendering.block.GroupBlock}. The rules are the same as the ones of
+ * {@link TableCellStackingInlineContentChainingListener}, {@link TableHeadCellStackingInlineContentChainingListener}
+ * and {@link ListItemStackingInlineContentChainingListener}, which need to stack the whole content of the element to
+ * take the same decision.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+public final class InlineContentSummary
+{
+    /**
+     * The elements which may contain only inline content.
+     *
+     * @version $Id$
+     */
+    private enum Kind
+    {
+        TABLE_CELL(true),
+        TABLE_HEAD_CELL(true),
+        LIST_ITEM(false);
+
+        /**
+         * True if lists and definition lists are standalone elements in that kind of element.
+         */
+        private final boolean listStandalone;
+
+        Kind(boolean listStandalone)
+        {
+            this.listStandalone = listStandalone;
+        }
+    }
+
+    /**
+     * The state of an element being scanned.
+     *
+     * @version $Id$
+     */
+    private static final class Frame
+    {
+        private final Kind kind;
+
+        private final int index;
+
+        private int elementDepth;
+
+        private int standaloneElementDepth;
+
+        private int standaloneTopLevelElements;
+
+        private boolean hasGroupTopLevelBlock;
+
+        Frame(Kind kind, int index)
+        {
+            this.kind = kind;
+            this.index = index;
+        }
+
+        void startStandaloneElement(boolean group, boolean list)
+        {
+            if (list && !this.kind.listStandalone) {
+                return;
+            }
+
+            if (group && this.standaloneElementDepth == 0) {
+                this.hasGroupTopLevelBlock = true;
+            }
+
+            // Only consider standalone elements inside this specific list item, not those inside nested ones
+            if (this.kind != Kind.LIST_ITEM || this.elementDepth == 0) {
+                if (this.standaloneElementDepth == 0) {
+                    this.standaloneTopLevelElements++;
+                }
+                this.standaloneElementDepth++;
+            }
+        }
+
+        void endStandaloneElement(boolean list)
+        {
+            if ((!list || this.kind.listStandalone) && (this.kind != Kind.LIST_ITEM || this.elementDepth == 0)) {
+                this.standaloneElementDepth--;
+            }
+        }
+
+        boolean shouldInsertGroupBlock()
+        {
+            return this.standaloneTopLevelElements > 0
+                && !(this.standaloneTopLevelElements == 1 && this.hasGroupTopLevelBlock);
+        }
+    }
+
+    /**
+     * Compute the summary from the events of the blocks.
+     *
+     * @version $Id$
+     */
+    private static final class ScanningListener extends VoidListener
+    {
+        private final InlineContentSummary summary;
+
+        private final Deque<Frame> frames = new ArrayDeque<>();
+
+        ScanningListener(InlineContentSummary summary)
+        {
+            this.summary = summary;
+        }
+
+        private void startStandaloneElement(boolean group, boolean list)
+        {
+            for (Frame frame : this.frames) {
+                frame.startStandaloneElement(group, list);
+            }
+        }
+
+        private void endStandaloneElement(boolean list)
+        {
+            for (Frame frame : this.frames) {
+                frame.endStandaloneElement(list);
+            }
+        }
+
+        private void beginElement(Kind kind)
+        {
+            for (Frame frame : this.frames) {
+                if (frame.kind == kind) {
+                    frame.elementDepth++;
+                }
+            }
+
+            // The element itself is not part of its content
+            this.frames.push(new Frame(kind, this.summary.size++));
+        }
+
+        private void endElement(Kind kind)
+        {
+            for (Iterator<Frame> it = this.frames.iterator(); it.hasNext();) {
+                Frame frame = it.next();
+                if (frame.kind == kind) {
+                    if (frame.elementDepth == 0) {
+                        this.summary.groups.set(frame.index, frame.shouldInsertGroupBlock());
+                        it.remove();
+                    } else {
+                        frame.elementDepth--;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void beginGroup(Map<String, String> parameters)
+        {
+            startStandaloneElement(true, false);
+        }
+
+        @Override
+        public void endGroup(Map<String, String> parameters)
+        {
+            endStandaloneElement(false);
+        }
+
+        @Override
+        public void beginHeader(HeaderLevel level, String id, Map<String, String> parameters)
+        {
+            startStandaloneElement(false, false);
+        }
+
+        @Override
+        public void endHeader(HeaderLevel level, String id, Map<String, String> parameters)
+        {
+            endStandaloneElement(false);
+        }
+
+        @Override
+        public void beginParagraph(Map<String, String> parameters)
+        {
+            startStandaloneElement(false, false);
+        }
+
+        @Override
+        public void endParagraph(Map<String, String> parameters)
+        {
+            endStandaloneElement(false);
+        }
+
+        @Override
+        public void beginQuotation(Map<String, String> parameters)
+        {
+            startStandaloneElement(false, false);
+        }
+
+        @Override
+        public void endQuotation(Map<String, String> parameters)
+        {
+            endStandaloneElement(false);
+        }
+
+        @Override
+        public void beginTable(Map<String, String> parameters)
+        {
+            startStandaloneElement(false, false);
+        }
+
+        @Override
+        public void endTable(Map<String, String> parameters)
+        {
+            endStandaloneElement(false);
+        }
+
+        @Override
+        public void beginFigure(Map<String, String> parameters)
+        {
+            startStandaloneElement(false, false);
+        }
+
+        @Override
+        public void endFigure(Map<String, String> parameters)
+        {
+            endStandaloneElement(false);
+        }
+
+        @Override
+        public void beginFigureCaption(Map<String, String> parameters)
+        {
+            startStandaloneElement(false, false);
+        }
+
+        @Override
+        public void endFigureCaption(Map<String, String> parameters)
+        {
+            endStandaloneElement(false);
+        }
+
+        @Override
+        public void onVerbatim(String content, boolean inline, Map<String, String> parameters)
+        {
+            if (!inline) {
+                startStandaloneElement(false, false);
+                endStandaloneElement(false);
+            }
+        }
+
+        @Override
+        public void beginList(ListType type, Map<String, String> parameters)
+        {
+            startStandaloneElement(false, true);
+        }
+
+        @Override
+        public void endList(ListType type, Map<String, String> parameters)
+        {
+            endStandaloneElement(true);
+        }
+
+        @Override
+        public void beginDefinitionList(Map<String, String> parameters)
+        {
+            startStandaloneElement(false, true);
+        }
+
+        @Override
+        public void endDefinitionList(Map<String, String> parameters)
+        {
+            endStandaloneElement(true);
+        }
+
+        @Override
+        public void beginTableCell(Map<String, String> parameters)
+        {
+            beginElement(Kind.TABLE_CELL);
+        }
+
+        @Override
+        public void endTableCell(Map<String, String> parameters)
+        {
+            endElement(Kind.TABLE_CELL);
+        }
+
+        @Override
+        public void beginTableHeadCell(Map<String, String> parameters)
+        {
+            beginElement(Kind.TABLE_HEAD_CELL);
+        }
+
+        @Override
+        public void endTableHeadCell(Map<String, String> parameters)
+        {
+            endElement(Kind.TABLE_HEAD_CELL);
+        }
+
+        @Override
+        public void beginListItem()
+        {
+            beginElement(Kind.LIST_ITEM);
+        }
+
+        @Override
+        public void beginListItem(Map<String, String> parameters)
+        {
+            beginElement(Kind.LIST_ITEM);
+        }
+
+        @Override
+        public void endListItem()
+        {
+            endElement(Kind.LIST_ITEM);
+        }
+
+        @Override
+        public void endListItem(Map<String, String> parameters)
+        {
+            endElement(Kind.LIST_ITEM);
+        }
+    }
+
+    private final BitSet groups = new BitSet();
+
+    private int size;
+
+    private InlineContentSummary()
+    {
+    }
+
+    /**
+     * @param blocks the blocks which are going to be rendered
+     * @return the summary of the passed blocks
+     */
+    public static InlineContentSummary summarize(Collection<Block> blocks)
+    {
+        InlineContentSummary summary = new InlineContentSummary();
+
+        ScanningListener listener = new ScanningListener(summary);
+        for (Block block : blocks) {
+            block.traverse(listener);
+        }
+
+        return summary;
+    }
+
+    /**
+     * @return the number of table cells, table head cells and list items in the summarized blocks
+     */
+    public int size()
+    {
+        return this.size;
+    }
+
+    /**
+     * @param index the index of the table cell, table head cell or list item, in the order of their begin events
+     * @return {@code true} if the content of the element has to be wrapped in a group
+     */
+    public boolean isGrouped(int index)
+    {
+        return this.groups.get(index);
+    }
+}
@@ -19,12 +19,16 @@
  */
 package org.xwiki.rendering.internal.renderer.xwiki20;
 
+import java.util.Collection;
+
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.xwiki.component.annotation.Component;
+import org.xwiki.rendering.block.Block;
 import org.xwiki.rendering.internal.renderer.AbstractBlockRenderer;
+import org.xwiki.rendering.renderer.PrintRenderer;
 import org.xwiki.rendering.renderer.PrintRendererFactory;
 
 /**
@@ -49,4 +53,13 @@ protected PrintRendererFactory getPrintRendererFactory()
     {
         return this.xwikiSyntaxRendererFactory;
     }
+
+    @Override
+    protected void prepareRenderer(PrintRenderer renderer, Collection<Block> blocks)
+    {
+        // Avoid stacking the whole content of table cells and list items to know if it needs to be wrapped in a group
+        if (renderer instanceof AbstractXWikiSyntaxRenderer) {
+            ((AbstractXWikiSyntaxRenderer) renderer).setInlineContentSummary(InlineContentSummary.summarize(blocks));
+        }
+    }
 }
@@ -136,6 +136,16 @@ private XWikiSyntaxListenerChain getXWikiSyntaxListenerChain()
         return (XWikiSyntaxListenerChain) getListenerChain();
     }
 
+    /**
+     * @return {@code true} if the groups needed in table cells and list items are inserted by a
+     *         {@link InlineContentGroupChainingListener}, {@code false} if the content of those elements needs to be
+     *         stacked to find it
+     */
+    private boolean isInlineContentSummarized()
+    {
+        return getXWikiSyntaxListenerChain().getInlineContentGroupChainingListener() != null;
+    }
+
     private XWikiSyntaxResourceRenderer getLinkRenderer()
     {
         return this.linkResourceRenderer;
@@ -452,13 +462,15 @@ public void beginListItem()
         }
         print(" ");
 
-        // Stack all events until we either get a standalone one (that will be wrapped in a GroupBlock by the listener)
-        // or until endListItem() is called.
-        // IMPORTANT: We need to put our listener just after the LookaheadChainingListener one since otherwise some of
-        // the already stacked events in LookaheadChainingListener won't reach our new listener!
-        getXWikiSyntaxListenerChain().addListener(
-            new ListItemStackingInlineContentChainingListener(getListenerChain()),
-            getListenerChain().indexOf(LookaheadChainingListener.class) + 1);
+        if (!isInlineContentSummarized()) {
+            // Stack all events until we either get a standalone one (that will be wrapped in a GroupBlock by the
+            // listener) or until endListItem() is called.
+            // IMPORTANT: We need to put our listener just after the LookaheadChainingListener one since otherwise some
+            // of the already stacked events in LookaheadChainingListener won't reach our new listener!
+            getXWikiSyntaxListenerChain().addListener(
+                new ListItemStackingInlineContentChainingListener(getListenerChain()),
+                getListenerChain().indexOf(LookaheadChainingListener.class) + 1);
+        }
     }
 
     @Override
@@ -728,7 +740,12 @@ public void beginTableCell(Map<String, String> parameters)
             // XRENDERING-468 - if we are at the start of a table cell, the first parameters are used by the table cell.
             // For this, we make sure to print empty parameters when the next event is either a format or a group.
             // Other events that accept parameters will be wrapped in a group block without parameters.
-            QueueListener.Event nextEvent = getXWikiSyntaxListenerChain().getLookaheadChainingListener().getNextEvent();
+            LookaheadChainingListener lookaheadListener = getXWikiSyntaxListenerChain().getLookaheadChainingListener();
+            QueueListener.Event nextEvent = lookaheadListener.getNextEvent();
+            if (InlineContentGroupChainingListener.isInsertedGroup(nextEvent)) {
+                // Look at the content of the group, like when the group is inserted after stacking the cell content
+                nextEvent = lookaheadListener.getNextEvent(2);
+            }
             boolean isFormatOrGroup = nextEvent != null
                 && (EventType.BEGIN_FORMAT.equals(nextEvent.eventType)
                 || EventType.BEGIN_GROUP.equals(nextEvent.eventType));
@@ -741,13 +758,15 @@ public void beginTableCell(Map<String, String> parameters)
             }
         }
 
-        // Stack all events until we either get a standalone one (that will be wrapped in a GroupBlock by the listener)
-        // or until endTableCell() is called.
-        // IMPORTANT: We need to put our listener just after the LookaheadChainingListener one since otherwise some of
-        // the already stacked events in LookaheadChainingListener won't reach our new listener!
-        getXWikiSyntaxListenerChain().addListener(
-            new TableCellStackingInlineContentChainingListener(getListenerChain()),
-            getListenerChain().indexOf(LookaheadChainingListener.class) + 1);
+        if (!isInlineContentSummarized()) {
+            // Stack all events until we either get a standalone one (that will be wrapped in a GroupBlock by the
+            // listener) or until endTableCell() is called.
+            // IMPORTANT: We need to put our listener just after the LookaheadChainingListener one since otherwise some
+            // of the already stacked events in LookaheadChainingListener won't reach our new listener!
+            getXWikiSyntaxListenerChain().addListener(
+                new TableCellStackingInlineContentChainingListener(getListenerChain()),
+                getListenerChain().indexOf(LookaheadChainingListener.class) + 1);
+        }
     }
 
     @Override
@@ -756,13 +775,15 @@ public void beginTableHeadCell(Map<String, String> parameters)
         print("|=");
         printParameters(parameters, false);
 
-        // Stack all events until we either get a standalone one (that will be wrapped in a GroupBlock by the listener)
-        // or until endTableHeadCell() is called.
-        // IMPORTANT: We need to put our listener just after the LookaheadChainingListener one since otherwise some of
-        // the already stacked events in LookaheadChainingListener won't reach our new listener!
-        getXWikiSyntaxListenerChain().addListener(
-            new TableHeadCellStackingInlineContentChainingListener(getListenerChain()),
-            getListenerChain().indexOf(LookaheadChainingListener.class) + 1);
+        if (!isInlineContentSummarized()) {
+            // Stack all events until we either get a standalone one (that will be wrapped in a GroupBlock by the
+            // listener) or until endTableHeadCell() is called.
+            // IMPORTANT: We need to put our listener just after the LookaheadChainingListener one since otherwise some
+            // of the already stacked events in LookaheadChainingListener won't reach our new listener!
+            getXWikiSyntaxListenerChain().addListener(
+                new TableHeadCellStackingInlineContentChainingListener(getListenerChain()),
+                getListenerChain().indexOf(LookaheadChainingListener.class) + 1);
+        }
     }
 
     @Override
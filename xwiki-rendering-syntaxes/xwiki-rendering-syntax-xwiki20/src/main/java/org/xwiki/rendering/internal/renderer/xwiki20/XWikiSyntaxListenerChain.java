@@ -20,6 +20,7 @@
 package org.xwiki.rendering.internal.renderer.xwiki20;
 
 import org.xwiki.rendering.listener.chaining.BlockStateChainingListener;
+import org.xwiki.rendering.listener.chaining.ChainingListenerReference;
 import org.xwiki.rendering.listener.chaining.ConsecutiveNewLineStateChainingListener;
 import org.xwiki.rendering.listener.chaining.GroupStateChainingListener;
 import org.xwiki.rendering.listener.chaining.ListenerChain;
@@ -33,12 +34,27 @@
  */
 public class XWikiSyntaxListenerChain extends ListenerChain
 {
+    private final ChainingListenerReference<LookaheadChainingListener> lookahead =
+        new ChainingListenerReference<>(LookaheadChainingListener.class);
+
+    private final ChainingListenerReference<BlockStateChainingListener> blockState =
+        new ChainingListenerReference<>(BlockStateChainingListener.class);
+
+    private final ChainingListenerReference<ConsecutiveNewLineStateChainingListener> consecutiveNewLineState =
+        new ChainingListenerReference<>(ConsecutiveNewLineStateChainingListener.class);
+
+    private final ChainingListenerReference<GroupStateChainingListener> groupState =
+        new ChainingListenerReference<>(GroupStateChainingListener.class);
+
+    private final ChainingListenerReference<InlineContentGroupChainingListener> inlineContentGroup =
+        new ChainingListenerReference<>(InlineContentGroupChainingListener.class);
+
     /**
      * @return the stateful {@link LookaheadChainingListener} for this rendering session.
      */
     public LookaheadChainingListener getLookaheadChainingListener()
     {
-        return (LookaheadChainingListener) getListener(LookaheadChainingListener.class);
+        return this.lookahead.get(this);
     }
 
     /**
@@ -46,7 +62,7 @@ public LookaheadChainingListener getLookaheadChainingListener()
      */
     public BlockStateChainingListener getBlockStateChainingListener()
     {
-        return (BlockStateChainingListener) getListener(BlockStateChainingListener.class);
+        return this.blockState.get(this);
     }
 
     /**
@@ -54,7 +70,7 @@ public BlockStateChainingListener getBlockStateChainingListener()
      */
     public ConsecutiveNewLineStateChainingListener getConsecutiveNewLineStateChainingListener()
     {
-        return (ConsecutiveNewLineStateChainingListener) getListener(ConsecutiveNewLineStateChainingListener.class);
+        return this.consecutiveNewLineState.get(this);
     }
 
     /**
@@ -62,6 +78,16 @@ public ConsecutiveNewLineStateChainingListener getConsecutiveNewLineStateChainin
      */
     public GroupStateChainingListener getGroupStateChainingListener()
     {
-        return (GroupStateChainingListener) getListener(GroupStateChainingListener.class);
+        return this.groupState.get(this);
+    }
+
+    /**
+     * @return the {@link InlineContentGroupChainingListener} for this rendering session, or {@code null} if the
+     *         rendered content was not summarized
+     * @since 17.9.0RC1
+     */
+    public InlineContentGroupChainingListener getInlineContentGroupChainingListener()
+    {
+        return this.inlineContentGroup.get(this);
     }
 }
@@ -25,6 +25,7 @@
 
 import org.junit.jupiter.api.Test;
 import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.rendering.internal.parser.reference.ResourceReferenceParserCache;
 import org.xwiki.rendering.internal.parser.reference.type.AttachmentResourceReferenceTypeParser;
 import org.xwiki.rendering.internal.parser.reference.type.URLResourceReferenceTypeParser;
 import org.xwiki.rendering.listener.reference.ResourceReference;
@@ -53,7 +54,8 @@
 @ComponentList({
     XWiki20ImageReferenceParser.class,
     URLResourceReferenceTypeParser.class,
-    AttachmentResourceReferenceTypeParser.class
+    AttachmentResourceReferenceTypeParser.class,
+    ResourceReferenceParserCache.class
 })
 //@formatter:on
 class XWiki20ImageReferenceParserTest
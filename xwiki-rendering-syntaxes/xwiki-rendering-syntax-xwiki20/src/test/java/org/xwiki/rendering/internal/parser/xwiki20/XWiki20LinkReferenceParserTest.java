@@ -26,6 +26,7 @@
 import org.junit.jupiter.api.Test;
 import org.xwiki.component.manager.ComponentManager;
 import org.xwiki.rendering.internal.parser.reference.DefaultUntypedLinkReferenceParser;
+import org.xwiki.rendering.internal.parser.reference.ResourceReferenceParserCache;
 import org.xwiki.rendering.internal.parser.reference.type.AttachmentResourceReferenceTypeParser;
 import org.xwiki.rendering.internal.parser.reference.type.DocumentResourceReferenceTypeParser;
 import org.xwiki.rendering.internal.parser.reference.type.MailtoResourceReferenceTypeParser;
@@ -65,7 +66,8 @@
     AttachmentResourceReferenceTypeParser.class,
     DefaultUntypedLinkReferenceParser.class,
     DocumentResourceReferenceTypeParser.class,
-    SpaceResourceReferenceTypeParser.class
+    SpaceResourceReferenceTypeParser.class,
+    ResourceReferenceParserCache.class
 })
 //@formatter:on
 class XWiki20LinkReferenceParserTest
@@ -0,0 +1,101 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.renderer.xwiki20;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.BulletedListBlock;
+import org.xwiki.rendering.block.GroupBlock;
+import org.xwiki.rendering.block.ListItemBlock;
+import org.xwiki.rendering.block.ParagraphBlock;
+import org.xwiki.rendering.block.TableBlock;
+import org.xwiki.rendering.block.TableCellBlock;
+import org.xwiki.rendering.block.TableHeadCellBlock;
+import org.xwiki.rendering.block.TableRowBlock;
+import org.xwiki.rendering.block.WordBlock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link InlineContentSummary}.
+ *
+ * @version $Id$
+ */
+class InlineContentSummaryTest
+{
+    private static Block word()
+    {
+        return new WordBlock("word");
+    }
+
+    private static Block paragraph()
+    {
+        return new ParagraphBlock(List.of(word()));
+    }
+
+    @Test
+    void tableCells()
+    {
+        Block table = new TableBlock(List.of(new TableRowBlock(List.of(
+            new TableHeadCellBlock(List.of(paragraph())),
+            new TableCellBlock(List.of(word())),
+            new TableCellBlock(List.of(new GroupBlock(List.of(paragraph())))),
+            new TableCellBlock(List.of(new GroupBlock(List.of(word())), paragraph())),
+            new TableCellBlock(List.of(new BulletedListBlock(List.of(new ListItemBlock(List.of(word()))))))))));
+
+        InlineContentSummary summary = InlineContentSummary.summarize(List.of(table));
+
+        assertEquals(6, summary.size());
+        assertTrue(summary.isGrouped(0));
+        assertFalse(summary.isGrouped(1));
+        assertFalse(summary.isGrouped(2));
+        assertTrue(summary.isGrouped(3));
+        assertTrue(summary.isGrouped(4));
+        // The list item in the last cell
+        assertFalse(summary.isGrouped(5));
+    }
+
+    @Test
+    void nestedElements()
+    {
+        Block nestedTable = new TableBlock(List.of(new TableRowBlock(List.of(
+            new TableCellBlock(List.of(paragraph())),
+            new TableCellBlock(List.of(word()))))));
+        Block list = new BulletedListBlock(List.of(
+            new ListItemBlock(List.of(word(), nestedTable)),
+            new ListItemBlock(List.of(word(), new BulletedListBlock(List.of(
+                new ListItemBlock(List.of(paragraph()))))))));
+
+        InlineContentSummary summary = InlineContentSummary.summarize(List.of(list));
+
+        assertEquals(5, summary.size());
+        // The first list item contains a table
+        assertTrue(summary.isGrouped(0));
+        assertTrue(summary.isGrouped(1));
+        assertFalse(summary.isGrouped(2));
+        // The paragraph of the nested list item is not taken into account for the second list item
+        assertFalse(summary.isGrouped(3));
+        assertTrue(summary.isGrouped(4));
+    }
+}
@@ -167,6 +167,10 @@ private XDOM createXDOM(String content, MacroTransformationContext macroContext,
                 boolean isRestricted = wrappingContext != null && wrappingContext.isRestricted();
                 TransformationContext txContext = new TransformationContext(result, syntax, isRestricted);
                 txContext.setId(macroContext.getId());
+                if (wrappingContext != null) {
+                    // The transformation of the content is part of the same rendering
+                    txContext.setRenderingBudget(wrappingContext.getRenderingBudget());
+                }
                 performTransformation((MutableRenderingContext) this.renderingContext, macroContext.getTransformation(),
                     txContext, result);
             } catch (Exception e) {
@@ -180,6 +184,8 @@ private XDOM createXDOM(String content, MacroTransformationContext macroContext,
     private XDOM parse(String content, Syntax syntax, boolean inline, IdGenerator idGenerator)
         throws MacroExecutionException
     {
+        MacroContentParseEvent event = new MacroContentParseEvent();
+        event.begin();
         try {
             XDOM result;
 
@@ -199,6 +205,8 @@ private XDOM parse(String content, Syntax syntax, boolean inline, IdGenerator id
             return result;
         } catch (Exception e) {
             throw new MacroExecutionException("Failed to parse content [" + content + "]", e);
+        } finally {
+            event.commit(content, syntax, inline);
         }
     }
 
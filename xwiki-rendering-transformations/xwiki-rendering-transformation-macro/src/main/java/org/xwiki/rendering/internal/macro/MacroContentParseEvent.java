@@ -0,0 +1,73 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.macro;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import org.xwiki.rendering.syntax.Syntax;
+
+/**
+ * Java Flight Recorder event emitted for each macro content parsed by the {@link DefaultMacroContentParser}.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+@Name("org.xwiki.rendering.MacroContentParse")
+@Label("Macro Content Parse")
+@Description("The parsing of the wiki content of a macro")
+@Category({ "XWiki", "Rendering" })
+@StackTrace(false)
+public class MacroContentParseEvent extends Event
+{
+    @Label("Syntax")
+    private String syntax;
+
+    @Label("Content Length")
+    @Description("The number of characters in the parsed content")
+    private int contentLength;
+
+    @Label("Inline")
+    private boolean inline;
+
+    /**
+     * End the event and commit it with the details of the parsed content if the event is recorded.
+     *
+     * @param content the parsed content
+     * @param contentSyntax the syntax of the parsed content
+     * @param inlineContent true if the content was converted to inline content
+     */
+    public void commit(String content, Syntax contentSyntax, boolean inlineContent)
+    {
+        end();
+
+        if (shouldCommit()) {
+            this.syntax = contentSyntax.toIdString();
+            this.contentLength = content.length();
+            this.inline = inlineContent;
+
+            commit();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.macro;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.descriptor.ComponentDescriptor;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.rendering.internal.transformation.PreparedXDOMDependency;
+import org.xwiki.rendering.macro.Macro;
+
+/**
+ * Make the documents stored once prepared depend on the registered macros: the digest is computed from the hints and
+ * implementations of the {@link Macro}s available in the context component manager. The digests are remembered for
+ * each component manager and forgotten when a macro is registered or unregistered (see
+ * {@link MacroPreparedXDOMDependencyListener}).
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+@Component
+@Singleton
+@Named(MacroPreparedXDOMDependency.NAME)
+public class MacroPreparedXDOMDependency implements PreparedXDOMDependency
+{
+    /**
+     * The name of the dependency.
+     */
+    public static final String NAME = "macro";
+
+    @Inject
+    @Named("context")
+    private Provider<ComponentManager> componentManagerProvider;
+
+    private final Map<ComponentManager, String> digests = Collections.synchronizedMap(new WeakHashMap<>());
+
+    @Override
+    public String getDigest()
+    {
+        return this.digests.computeIfAbsent(this.componentManagerProvider.get(), this::computeDigest);
+    }
+
+    private String computeDigest(ComponentManager componentManager)
+    {
+        List<ComponentDescriptor<Macro<?>>> descriptors =
+            componentManager.getComponentDescriptorList((Type) Macro.class);
+        String macros = descriptors.stream()
+            .map(descriptor -> descriptor.getRoleHint() + '=' + descriptor.getImplementation().getName()).sorted()
+            .collect(Collectors.joining("\n"));
+
+        try {
+            return HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-256").digest(macros.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Forget the digests, to call when a macro is registered or unregistered.
+     */
+    public void invalidate()
+    {
+        this.digests.clear();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.macro;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.event.ComponentDescriptorAddedEvent;
+import org.xwiki.component.event.ComponentDescriptorRemovedEvent;
+import org.xwiki.observation.EventListener;
+import org.xwiki.observation.event.Event;
+import org.xwiki.rendering.internal.transformation.PreparedXDOMDependency;
+import org.xwiki.rendering.macro.Macro;
+
+/**
+ * Invalidate the {@link MacroPreparedXDOMDependency} when a {@link Macro} is registered or unregistered. A change in
+ * any component manager invalidates the digests of all of them since a component manager also sees the macros of its
+ * parents.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+@Component
+@Singleton
+@Named(MacroPreparedXDOMDependencyListener.NAME)
+public class MacroPreparedXDOMDependencyListener implements EventListener
+{
+    /**
+     * The name of the listener.
+     */
+    public static final String NAME = "macropreparedxdomdependency";
+
+    @Inject
+    @Named(MacroPreparedXDOMDependency.NAME)
+    private PreparedXDOMDependency dependency;
+
+    @Override
+    public String getName()
+    {
+        return NAME;
+    }
+
+    @Override
+    public List<Event> getEvents()
+    {
+        return Arrays.asList(
+            new ComponentDescriptorAddedEvent(Macro.class),
+            new ComponentDescriptorRemovedEvent(Macro.class));
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        if (this.dependency instanceof MacroPreparedXDOMDependency macroDependency) {
+            macroDependency.invalidate();
+        }
+    }
+}
@@ -45,6 +45,12 @@ public class DefaultMacroTransformationConfiguration implements MacroTransformat
 
     private Set<String> hiddenCategories = Set.of();
 
+    private boolean parallelPreparationEnabled;
+
+    private int parallelPreparationThreads = MacroTransformationConfiguration.super.getParallelPreparationThreads();
+
+    private long asyncExecutionTimeout = MacroTransformationConfiguration.super.getAsyncExecutionTimeout();
+
     @Override
     public Properties getCategories()
     {
@@ -57,6 +63,24 @@ public Set<String> getHiddenCategories()
         return this.hiddenCategories;
     }
 
+    @Override
+    public boolean isParallelPreparationEnabled()
+    {
+        return this.parallelPreparationEnabled;
+    }
+
+    @Override
+    public int getParallelPreparationThreads()
+    {
+        return this.parallelPreparationThreads;
+    }
+
+    @Override
+    public long getAsyncExecutionTimeout()
+    {
+        return this.asyncExecutionTimeout;
+    }
+
     /**
      * Set the categories of the macro.
      *
@@ -81,4 +105,37 @@ public void setHiddenCategories(Set<String> hiddenCategories)
     {
         this.hiddenCategories = hiddenCategories;
     }
+
+    /**
+     * Enable or disable the concurrent preparation of macros.
+     *
+     * @param parallelPreparationEnabled {@code true} to prepare the macros concurrently
+     * @since 17.9.0RC1
+     */
+    public void setParallelPreparationEnabled(boolean parallelPreparationEnabled)
+    {
+        this.parallelPreparationEnabled = parallelPreparationEnabled;
+    }
+
+    /**
+     * Set the maximum number of threads used to prepare macros concurrently.
+     *
+     * @param parallelPreparationThreads the number of threads
+     * @since 17.9.0RC1
+     */
+    public void setParallelPreparationThreads(int parallelPreparationThreads)
+    {
+        this.parallelPreparationThreads = parallelPreparationThreads;
+    }
+
+    /**
+     * Set the maximum time a macro executed asynchronously can take, from the start of its execution.
+     *
+     * @param asyncExecutionTimeout the timeout in milliseconds
+     * @since 17.9.0RC1
+     */
+    public void setAsyncExecutionTimeout(long asyncExecutionTimeout)
+    {
+        this.asyncExecutionTimeout = asyncExecutionTimeout;
+    }
 }
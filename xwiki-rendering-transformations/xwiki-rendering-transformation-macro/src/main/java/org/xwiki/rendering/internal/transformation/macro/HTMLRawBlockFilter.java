@@ -20,9 +20,13 @@
 package org.xwiki.rendering.internal.transformation.macro;
 
 import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.regex.Pattern;
+import java.util.TreeMap;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -34,6 +38,8 @@
 import org.xwiki.component.annotation.Component;
 import org.xwiki.rendering.block.RawBlock;
 import org.xwiki.rendering.macro.MacroExecutionException;
+import org.xwiki.rendering.metrics.RenderingMetrics;
+import org.xwiki.rendering.metrics.RenderingStage;
 import org.xwiki.rendering.syntax.Syntax;
 import org.xwiki.rendering.syntax.SyntaxType;
 import org.xwiki.rendering.transformation.MacroTransformationContext;
@@ -43,6 +49,7 @@
 import org.xwiki.xml.html.HTMLCleanerConfiguration;
 import org.xwiki.xml.html.HTMLConstants;
 import org.xwiki.xml.html.HTMLUtils;
+import org.xwiki.xml.html.filter.HTMLFilter;
 
 /**
  * HTML filter for raw blocks.
@@ -56,7 +63,25 @@
 @Named("html")
 public class HTMLRawBlockFilter implements RawBlockFilter
 {
-    private static final Pattern TOP_LEVEL_HTML = Pattern.compile("\\A\\s(<html>).*", Pattern.DOTALL);
+    private static final String TOP_LEVEL_HTML_START = "<html>";
+
+    private static final String TOP_LEVEL_HTML_END = "</html>";
+
+    /**
+     * The whitespace characters matched by {@code \s} in a regular expression.
+     */
+    private static final String WHITESPACES = " \t\n\u000B\f\r";
+
+    /**
+     * The longest content for which the cleaned result is remembered.
+     */
+    private static final int CACHE_MAX_CONTENT_LENGTH = 100000;
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private static final String METRICS_HIT = "hit";
+
+    private static final String METRICS_MISS = "miss";
 
     /**
      * To clean the passed HTML.
@@ -64,6 +89,16 @@ public class HTMLRawBlockFilter implements RawBlockFilter
     @Inject
     private HTMLCleaner htmlCleaner;
 
+    @Inject
+    private RenderingMetrics metrics;
+
+    /**
+     * The same HTML content is often cleaned again and again (e.g. when it comes from templates or sheets), so the
+     * cleaned content is remembered, indexed by the digest of the content and the cleaning configuration.
+     */
+    @Inject
+    private HTMLRawBlockFilterCache cache;
+
     @Override
     public RawBlock filter(RawBlock block, RawBlockFilterParameters parameters) throws MacroExecutionException
     {
@@ -99,10 +134,71 @@ private String cleanHTML(String content, MacroTransformationContext context, boo
         Syntax targetSyntax)
         throws MacroExecutionException
     {
-        String cleanedContent = content;
+        long begin = this.metrics.begin();
 
         HTMLCleanerConfiguration cleanerConfiguration = getCleanerConfiguration(restricted, targetSyntax);
 
+        long cacheVersion = this.cache.getVersion();
+        String cacheKey = getCacheKey(content, cleanerConfiguration, context.isInline());
+        if (cacheKey != null) {
+            String cleanedContent = this.cache.get(cacheKey);
+            if (cleanedContent != null) {
+                this.metrics.end(RenderingStage.HTML_CLEANING, METRICS_HIT, begin);
+
+                return cleanedContent;
+            }
+        }
+
+        String cleanedContent = cleanHTML(content, context, cleanerConfiguration);
+
+        if (cacheKey != null) {
+            this.cache.put(cacheKey, cleanedContent, cacheVersion);
+        }
+
+        this.metrics.end(RenderingStage.HTML_CLEANING, METRICS_MISS, begin);
+
+        return cleanedContent;
+    }
+
+    /**
+     * @param content the content to clean
+     * @param cleanerConfiguration the configuration of the cleaning
+     * @param inline true if the content is cleaned in inline mode
+     * @return the key of the cleaned content in the cache, or {@code null} if it should not be cached
+     */
+    private String getCacheKey(String content, HTMLCleanerConfiguration cleanerConfiguration, boolean inline)
+    {
+        if (content.length() > CACHE_MAX_CONTENT_LENGTH) {
+            return null;
+        }
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // Should never happen since all Java platforms are required to support SHA-256
+            return null;
+        }
+
+        StringBuilder key = new StringBuilder();
+        key.append(inline);
+        // Sort the parameters so that the key doesn't depend on the order of the map
+        key.append(new TreeMap<>(cleanerConfiguration.getParameters()));
+        // The filters are identified by instance and not only by class since their behavior can depend on their
+        // state (e.g. the allowed elements and attributes), which changes when they are registered again
+        for (HTMLFilter filter : cleanerConfiguration.getFilters()) {
+            key.append(filter.getClass().getName()).append('@').append(System.identityHashCode(filter)).append(',');
+        }
+        key.append(Base64.getEncoder().encodeToString(digest.digest(content.getBytes(StandardCharsets.UTF_8))));
+
+        return key.toString();
+    }
+
+    private String cleanHTML(String content, MacroTransformationContext context,
+        HTMLCleanerConfiguration cleanerConfiguration) throws MacroExecutionException
+    {
+        String cleanedContent = content;
+
         // Note that we trim the content since we want to be lenient with the user in case he has entered
         // some spaces/newlines before a XML declaration (prolog). Otherwise the XML parser would fail to parse.
         Document document = this.htmlCleaner.clean(new StringReader(cleanedContent), cleanerConfiguration);
@@ -145,13 +241,27 @@ private String cleanHTML(String content, MacroTransformationContext context, boo
         // Note: we trim the first 7 characters since they correspond to a leading new line (generated by
         // XMLUtils.toString() since the doctype is printed on a line by itself followed by a new line) +
         // the 6 chars from "<html>".
-        if (TOP_LEVEL_HTML.matcher(cleanedContent).matches()) {
-            cleanedContent = cleanedContent.substring(7, cleanedContent.length() - ("</html>".length() + 1));
+        if (isTopLevelHTML(cleanedContent)) {
+            cleanedContent = cleanedContent.substring(TOP_LEVEL_HTML_START.length() + 1,
+                cleanedContent.length() - (TOP_LEVEL_HTML_END.length() + 1));
         }
 
         return cleanedContent;
     }
 
+    /**
+     * Check the start of the serialized document directly, instead of matching the whole (potentially large) content
+     * with a regular expression.
+     *
+     * @param content the serialized document
+     * @return true if the content starts with a whitespace followed by the top level html element
+     */
+    private boolean isTopLevelHTML(String content)
+    {
+        return content.length() >= TOP_LEVEL_HTML_START.length() + TOP_LEVEL_HTML_END.length() + 2
+            && WHITESPACES.indexOf(content.charAt(0)) >= 0 && content.startsWith(TOP_LEVEL_HTML_START, 1);
+    }
+
     /**
      * @param restricted if the allowed HTML shall be restricted
      * @param targetSyntax the target syntax
@@ -0,0 +1,125 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.transformation.macro;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+
+/**
+ * Remember the result of cleaning the content of HTML raw blocks (see {@link HTMLRawBlockFilter}), since the same
+ * content is often cleaned again and again (e.g. when it comes from templates or sheets).
+ * <p>
+ * The cache is bounded by the total number of characters it holds (keys and cleaned contents) rather than by the
+ * number of entries, since the size of the cleaned contents varies a lot. The least recently used entries are
+ * evicted first. Everything is forgotten when the components the cleaning depends on are registered or unregistered
+ * (see {@link HTMLRawBlockFilterCacheListener}); the cache version allows to ignore a cleaned content computed before
+ * such an invalidation.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+@Component(roles = HTMLRawBlockFilterCache.class)
+@Singleton
+public class HTMLRawBlockFilterCache
+{
+    /**
+     * The maximum number of characters (keys and cleaned contents) to remember.
+     */
+    private static final long MAX_WEIGHT = 10000000L;
+
+    private final LinkedHashMap<String, String> cleanedContents = new LinkedHashMap<>(16, 0.75F, true);
+
+    private long weight;
+
+    private long version;
+
+    /**
+     * @return the current version of the cache, to pass to {@link #put(String, String, long)}
+     */
+    public synchronized long getVersion()
+    {
+        return this.version;
+    }
+
+    /**
+     * @param key the key of the cleaned content
+     * @return the cleaned content, or {@code null} if it's not cached
+     */
+    public synchronized String get(String key)
+    {
+        return this.cleanedContents.get(key);
+    }
+
+    /**
+     * @param key the key of the cleaned content
+     * @param cleanedContent the cleaned content
+     * @param version the version of the cache when the cleaning started, the cleaned content is not remembered if the
+     *     cache was invalidated since then
+     */
+    public synchronized void put(String key, String cleanedContent, long version)
+    {
+        long entryWeight = getWeight(key, cleanedContent);
+        if (version != this.version || entryWeight > MAX_WEIGHT) {
+            return;
+        }
+
+        String previous = this.cleanedContents.put(key, cleanedContent);
+        if (previous != null) {
+            this.weight -= getWeight(key, previous);
+        }
+        this.weight += entryWeight;
+
+        // Evict the least recently used entries until the cache fits again
+        Iterator<Map.Entry<String, String>> iterator = this.cleanedContents.entrySet().iterator();
+        while (this.weight > MAX_WEIGHT && iterator.hasNext()) {
+            Map.Entry<String, String> eldest = iterator.next();
+            this.weight -= getWeight(eldest.getKey(), eldest.getValue());
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Forget all the cleaned contents.
+     */
+    public synchronized void invalidate()
+    {
+        this.cleanedContents.clear();
+        this.weight = 0;
+        this.version++;
+    }
+
+    /**
+     * @return the total number of characters held by the cache
+     */
+    synchronized long getWeight()
+    {
+        return this.weight;
+    }
+
+    private static long getWeight(String key, String cleanedContent)
+    {
+        return (long) key.length() + cleanedContent.length();
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.transformation.macro;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.event.ComponentDescriptorAddedEvent;
+import org.xwiki.component.event.ComponentDescriptorRemovedEvent;
+import org.xwiki.observation.EventListener;
+import org.xwiki.observation.event.Event;
+import org.xwiki.xml.html.HTMLCleaner;
+import org.xwiki.xml.html.HTMLElementSanitizer;
+import org.xwiki.xml.html.filter.HTMLFilter;
+
+/**
+ * Invalidate the {@link HTMLRawBlockFilterCache} when a component the HTML cleaning depends on (the cleaner, its
+ * filters or the HTML element sanitizer which holds the allowed elements and attributes) is registered or
+ * unregistered.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+@Component
+@Singleton
+@Named(HTMLRawBlockFilterCacheListener.NAME)
+public class HTMLRawBlockFilterCacheListener implements EventListener
+{
+    /**
+     * The name of the listener.
+     */
+    public static final String NAME = "htmlrawblockfiltercache";
+
+    @Inject
+    private HTMLRawBlockFilterCache cache;
+
+    @Override
+    public String getName()
+    {
+        return NAME;
+    }
+
+    @Override
+    public List<Event> getEvents()
+    {
+        return Arrays.asList(
+            new ComponentDescriptorAddedEvent(HTMLCleaner.class),
+            new ComponentDescriptorRemovedEvent(HTMLCleaner.class),
+            new ComponentDescriptorAddedEvent(HTMLFilter.class),
+            new ComponentDescriptorRemovedEvent(HTMLFilter.class),
+            new ComponentDescriptorAddedEvent(HTMLElementSanitizer.class),
+            new ComponentDescriptorRemovedEvent(HTMLElementSanitizer.class));
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        this.cache.invalidate();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.transformation.macro;
+
+import java.util.List;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.MacroBlock;
+
+/**
+ * Java Flight Recorder event emitted for each macro executed by the {@link MacroTransformation}.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+@Name("org.xwiki.rendering.MacroExecution")
+@Label("Macro Execution")
+@Description("The execution of a rendering macro")
+@Category({ "XWiki", "Rendering" })
+@StackTrace(false)
+public class MacroExecutionEvent extends Event
+{
+    @Label("Macro Id")
+    private String macroId;
+
+    @Label("Inline")
+    private boolean inline;
+
+    @Label("Content Length")
+    @Description("The number of characters in the macro content")
+    private int contentLength;
+
+    @Label("Result Block Count")
+    @Description("The number of top level blocks produced by the macro, -1 if the execution failed")
+    private int resultBlockCount;
+
+    /**
+     * End the event and commit it with the details of the executed macro if the event is recorded.
+     *
+     * @param macroBlock the executed macro block
+     * @param result the blocks produced by the macro or null if the execution failed
+     */
+    public void commit(MacroBlock macroBlock, List<Block> result)
+    {
+        end();
+
+        if (shouldCommit()) {
+            this.macroId = macroBlock.getId();
+            this.inline = macroBlock.isInline();
+            this.contentLength = macroBlock.getContent() != null ? macroBlock.getContent().length() : 0;
+            this.resultBlockCount = result != null ? result.size() : -1;
+
+            commit();
+        }
+    }
+}
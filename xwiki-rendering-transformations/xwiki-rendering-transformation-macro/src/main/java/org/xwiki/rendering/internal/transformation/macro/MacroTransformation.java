@@ -22,9 +22,20 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -35,13 +46,20 @@
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
 import org.xwiki.component.phase.Initializable;
 import org.xwiki.component.phase.InitializationException;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.context.ExecutionContextException;
+import org.xwiki.context.ExecutionContextManager;
 import org.xwiki.properties.BeanManager;
 import org.xwiki.rendering.block.Block;
 import org.xwiki.rendering.block.MacroBlock;
 import org.xwiki.rendering.block.MacroMarkerBlock;
 import org.xwiki.rendering.block.MetaDataBlock;
+import org.xwiki.rendering.block.XDOM;
 import org.xwiki.rendering.block.match.BlockMatcher;
 import org.xwiki.rendering.internal.transformation.MutableRenderingContext;
 import org.xwiki.rendering.listener.MetaData;
@@ -50,13 +68,20 @@
 import org.xwiki.rendering.macro.MacroLookupException;
 import org.xwiki.rendering.macro.MacroManager;
 import org.xwiki.rendering.macro.MacroNotFoundException;
+import org.xwiki.rendering.metrics.RenderingMetrics;
+import org.xwiki.rendering.metrics.RenderingStage;
 import org.xwiki.rendering.syntax.Syntax;
 import org.xwiki.rendering.transformation.AbstractTransformation;
 import org.xwiki.rendering.transformation.MacroTransformationContext;
+import org.xwiki.rendering.transformation.RenderingBudget;
+import org.xwiki.rendering.transformation.RenderingBudgetExceededException;
 import org.xwiki.rendering.transformation.RenderingContext;
 import org.xwiki.rendering.transformation.TransformationContext;
 import org.xwiki.rendering.transformation.TransformationException;
+import org.xwiki.rendering.transformation.TransformedBlockListener;
+import org.xwiki.rendering.transformation.macro.MacroTransformationConfiguration;
 import org.xwiki.rendering.util.ErrorBlockGenerator;
+import org.xwiki.rendering.util.IdGenerator;
 import org.xwiki.text.XWikiToStringBuilder;
 
 /**
@@ -66,6 +91,13 @@
  * <li>provide a hint specifying when they should run (priority)</li>
  * <li>generate other Macros</li>
  * </ul>
+ * When a {@link TransformedBlockListener} is set in the transformation context, the top level blocks of the XDOM are
+ * transformed one after the other, in document order, and passed to the listener as soon as they are transformed. The
+ * macros which have global dependencies are kept for a final pass over the whole XDOM.
+ * <p>
+ * The macros supporting an asynchronous execution are started as soon as they are found and their result is only
+ * waited for when they would have been executed synchronously, so that their execution overlaps with the execution of
+ * the other macros.
  *
  * @version $Id$
  * @since 1.5M2
@@ -73,12 +105,16 @@
 @Component
 @Named("macro")
 @Singleton
-public class MacroTransformation extends AbstractTransformation implements Initializable
+public class MacroTransformation extends AbstractTransformation implements Initializable, Disposable
 {
     private static final String TM_UNKNOWNMACRO = "rendering.macro.error.unknown";
 
     private static final String TM_FAILEDMACRO = "rendering.macro.error.failed";
 
+    private static final String TM_TIMEOUTMACRO = "rendering.macro.error.timeout";
+
+    private static final String TM_BUDGETMACRO = "rendering.macro.error.budget";
+
     private static final String TM_INVALIDMACRO = "rendering.macro.error.invalid";
 
     private static final String TM_STANDALONEMACRO = "rendering.macro.error.standalone";
@@ -156,6 +192,88 @@ public String toString()
         }
     }
 
+    private record MacroPreparation(MacroBlock block, Macro<?> macro)
+    {
+    }
+
+    /**
+     * The execution contexts of the macros prepared concurrently from the same top level block. The caller's execution
+     * context is cloned once for the batch and then once for each worker thread. Each preparation restores the
+     * properties of the worker's context when it ends so that its changes don't leak to the next preparations.
+     */
+    private final class PreparationBatch
+    {
+        private final ExecutionContext context;
+
+        private final Map<Thread, ExecutionContext> workerContexts = new ConcurrentHashMap<>();
+
+        PreparationBatch(ExecutionContext context)
+        {
+            this.context = context;
+        }
+
+        /**
+         * @param preparation the macro to prepare in the current worker thread
+         * @return {@code false} if the execution context of the worker could not be cloned and the macro was not
+         *         prepared
+         */
+        boolean prepare(MacroPreparation preparation)
+        {
+            ExecutionContext workerContext = null;
+            if (this.context != null) {
+                workerContext = getWorkerContext(preparation);
+                if (workerContext == null) {
+                    return false;
+                }
+            }
+
+            // Nested preparations (of macro contents) reuse the contexts of the batch
+            PreparationBatch previousBatch = MacroTransformation.this.preparationBatch.get();
+            MacroTransformation.this.preparationBatch.set(this);
+            try {
+                MacroTransformation.this.prepare(preparation, workerContext);
+            } finally {
+                if (previousBatch != null) {
+                    MacroTransformation.this.preparationBatch.set(previousBatch);
+                } else {
+                    MacroTransformation.this.preparationBatch.remove();
+                }
+            }
+
+            return true;
+        }
+
+        private ExecutionContext getWorkerContext(MacroPreparation preparation)
+        {
+            ExecutionContext workerContext = this.workerContexts.get(Thread.currentThread());
+            if (workerContext == null) {
+                // The context of the batch is shared by the workers
+                synchronized (this) {
+                    try {
+                        workerContext = MacroTransformation.this.executionContextManager.clone(this.context);
+                    } catch (ExecutionContextException e) {
+                        MacroTransformation.this.logger.warn("Failed to clone the execution context, the macro [{}]"
+                            + " will be prepared in the calling thread. Root cause: [{}]", preparation.block().getId(),
+                            ExceptionUtils.getRootCauseMessage(e));
+
+                        return null;
+                    }
+                }
+                this.workerContexts.put(Thread.currentThread(), workerContext);
+            }
+
+            return workerContext;
+        }
+    }
+
+    /**
+     * @param start the value of {@link System#nanoTime()} when the execution was started
+     */
+    private record AsyncExecution(Object parameters, CompletableFuture<List<Block>> result, RenderingBudget budget,
+        long start)
+    {
+    }
+
     private class PriorityMacroBlockMatcher implements BlockMatcher
     {
         private class ChildrenMatcher implements BlockMatcher
@@ -179,6 +297,10 @@ public boolean match(Block block)
 
         private final Syntax syntax;
 
+        private final boolean deferGlobalMacros;
+
+        private boolean globalMacrosDeferred;
+
         private boolean needsScan = true;
 
         private int currentIndex;
@@ -191,12 +313,16 @@ public boolean match(Block block)
 
         private List<MacroLookupExceptionElement> errors;
 
+        // The macros supporting an asynchronous execution found since the last call to getAsyncItems()
+        private final List<MacroItem> asyncItems = new ArrayList<>();
+
         // Cache known macros since getting them again and again from the ComponentManager might be expensive
         private final Map<String, Macro<?>> knownMacros = new HashMap<>();
 
-        PriorityMacroBlockMatcher(Syntax syntax)
+        PriorityMacroBlockMatcher(Syntax syntax, boolean deferGlobalMacros)
         {
             this.syntax = syntax;
+            this.deferGlobalMacros = deferGlobalMacros;
             this.nextBlocks = new ArrayList<>();
         }
 
@@ -227,11 +353,30 @@ public boolean isFullScanNeeded()
             return this.needsScan;
         }
 
+        /**
+         * @return if macros with global dependencies have been found and left for a later transformation
+         */
+        public boolean isGlobalMacrosDeferred()
+        {
+            return this.globalMacrosDeferred;
+        }
+
         public List<MacroLookupExceptionElement> getErrors()
         {
             return this.errors;
         }
 
+        /**
+         * @return the macros supporting an asynchronous execution found since the last call
+         */
+        public List<MacroItem> getAsyncItems()
+        {
+            List<MacroItem> items = new ArrayList<>(this.asyncItems);
+            this.asyncItems.clear();
+
+            return items;
+        }
+
         public BlockMatcher getChildrenMatcher(MacroItem parentMacro)
         {
             return new ChildrenMatcher(parentMacro);
@@ -244,6 +389,7 @@ public void reset()
             this.priorityQueue = null;
             this.nextBlocks.clear();
             this.errors = null;
+            this.asyncItems.clear();
         }
 
         @Override
@@ -275,6 +421,13 @@ private void matchBlock(Block block, int[] prefix)
                         this.knownMacros.put(macroBlock.getId(), macro);
                     }
 
+                    if (this.deferGlobalMacros && macro.hasGlobalDependencies()) {
+                        // Keep the macro block as a placeholder, it will be executed in the final pass
+                        this.globalMacrosDeferred = true;
+
+                        return;
+                    }
+
                     // Combine prefix and the currentIndex
                     int[] macroIndex = new int[prefix.length + 1];
                     System.arraycopy(prefix, 0, macroIndex, 0, prefix.length);
@@ -288,6 +441,10 @@ private void matchBlock(Block block, int[] prefix)
                     } else {
                         this.priorityQueue.add(item);
                     }
+
+                    if (macro.supportsAsyncExecution()) {
+                        this.asyncItems.add(item);
+                    }
                 } catch (MacroLookupException e) {
                     if (this.errors == null) {
                         this.errors = new ArrayList<>();
@@ -335,6 +492,34 @@ private void matchBlock(Block block, int[] prefix)
     @Inject
     private IsolatedExecutionConfiguration isolatedExecutionConfiguration;
 
+    /**
+     * Used to time the execution of each macro.
+     */
+    @Inject
+    private RenderingMetrics metrics;
+
+    @Inject
+    private MacroTransformationConfiguration configuration;
+
+    /**
+     * Used to give the macros prepared concurrently access to a copy of the execution context of the caller.
+     */
+    @Inject
+    private Execution execution;
+
+    @Inject
+    private ExecutionContextManager executionContextManager;
+
+    /**
+     * The threads dedicated to the concurrent preparation of macros, created the first time it's needed.
+     */
+    private volatile ForkJoinPool preparationPool;
+
+    /**
+     * The batch of concurrent preparations the current worker thread is working on.
+     */
+    private final ThreadLocal<PreparationBatch> preparationBatch = new ThreadLocal<>();
+
     /**
      * Used to generate Macro error blocks when a Macro fails to execute.
      */
@@ -346,6 +531,14 @@ public void initialize() throws InitializationException
         this.macroErrorManager = new MacroErrorManager(this.errorBlockGenerator);
     }
 
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        if (this.preparationPool != null) {
+            this.preparationPool.shutdownNow();
+        }
+    }
+
     @Override
     public int getPriority()
     {
@@ -361,24 +554,110 @@ public void transform(Block rootBlock, TransformationContext context) throws Tra
         MacroTransformationContext macroContext = new MacroTransformationContext(context);
         macroContext.setTransformation(this);
 
-        PriorityMacroBlockMatcher priorityMacroBlockMatcher = new PriorityMacroBlockMatcher(context.getSyntax());
+        TransformedBlockListener listener = context.getTransformedBlockListener();
+        if (listener != null && rootBlock == context.getXDOM()) {
+            transformProgressively(rootBlock, macroContext, listener);
+        } else {
+            transform(matcher -> rootBlock.getFirstBlock(matcher, Block.Axes.DESCENDANT), macroContext, false);
+        }
+    }
+
+    private void transformProgressively(Block rootBlock, MacroTransformationContext macroContext,
+        TransformedBlockListener listener)
+    {
+        // The number of top level blocks already passed to the listener
+        int transformedBlocks = 0;
+        // Once a top level block contains a deferred macro, it and all the following blocks might still be modified
+        // by the final pass so they are held until then
+        boolean holding = false;
+
+        for (int i = 0; i < rootBlock.getChildren().size();) {
+            int index = i;
+            int size = rootBlock.getChildren().size();
+
+            // Macros don't modify the blocks located outside of their macro block (unless they have global
+            // dependencies) so the top level block stays at the same index
+            boolean deferred = transform(matcher -> {
+                List<Block> children = rootBlock.getChildren();
+                if (index < children.size()) {
+                    children.get(index).getFirstBlock(matcher, Block.Axes.DESCENDANT_OR_SELF);
+                }
+            }, macroContext, true);
+
+            if (rootBlock.getChildren().size() < size) {
+                // The top level macro removed itself from the XDOM, the next block is now at the same index
+                continue;
+            }
+
+            holding |= deferred;
+            if (!holding) {
+                listener.onTransformedBlock(rootBlock.getChildren().get(i));
+                transformedBlocks = i + 1;
+            }
+
+            ++i;
+        }
+
+        if (holding) {
+            // Execute the deferred macros, now that the rest of the XDOM is transformed
+            transform(matcher -> rootBlock.getFirstBlock(matcher, Block.Axes.DESCENDANT), macroContext, false);
+        }
+
+        List<Block> children = rootBlock.getChildren();
+        for (int i = transformedBlocks; i < children.size(); ++i) {
+            listener.onTransformedBlock(children.get(i));
+        }
+    }
+
+    /**
+     * Execute all the macros found by the passed scan, in the order of their priority.
+     *
+     * @param scan looks for the macro blocks to execute and passes them to the matcher
+     * @param macroContext the macro execution context
+     * @param deferGlobalMacros if the macros with global dependencies should be left for a later transformation
+     * @return {@code true} if macros with global dependencies have been left for a later transformation
+     */
+    private boolean transform(Consumer<BlockMatcher> scan, MacroTransformationContext macroContext,
+        boolean deferGlobalMacros)
+    {
+        PriorityMacroBlockMatcher priorityMacroBlockMatcher =
+            new PriorityMacroBlockMatcher(macroContext.getSyntax(), deferGlobalMacros);
+
+        // The asynchronous executions started and not yet used
+        Map<MacroBlock, AsyncExecution> asyncExecutions = new IdentityHashMap<>();
+        try {
+            transform(scan, macroContext, priorityMacroBlockMatcher, asyncExecutions);
+        } finally {
+            // The macro blocks of the remaining executions have been removed from the XDOM
+            asyncExecutions.values().forEach(asyncExecution -> asyncExecution.result().cancel(true));
+        }
+
+        return priorityMacroBlockMatcher.isGlobalMacrosDeferred();
+    }
+
+    private void transform(Consumer<BlockMatcher> scan, MacroTransformationContext macroContext,
+        PriorityMacroBlockMatcher priorityMacroBlockMatcher, Map<MacroBlock, AsyncExecution> asyncExecutions)
+    {
+        RenderingBudget budget = macroContext.getTransformationContext().getRenderingBudget();
 
         // Counter to prevent infinite recursion if a macro generates the same macro for example.
         for (int recursions = 0; recursions < this.maxRecursions;) {
             // 1) Get highest priority macros.
             if (priorityMacroBlockMatcher.isFullScanNeeded()) {
                 priorityMacroBlockMatcher.reset();
-                rootBlock.getFirstBlock(priorityMacroBlockMatcher, Block.Axes.DESCENDANT);
+                scan.accept(priorityMacroBlockMatcher);
 
                 // 2) Apply macros lookup errors
                 processErrors(priorityMacroBlockMatcher);
+
+                startAsyncExecutions(priorityMacroBlockMatcher, macroContext, asyncExecutions);
             }
 
             MacroItem macroItem = priorityMacroBlockMatcher.getNextBlock();
 
             if (macroItem == null) {
                 // Nothing left to do
-                return;
+                break;
             }
 
             MacroBlock macroBlock = macroItem.block();
@@ -413,19 +692,26 @@ public void transform(Block rootBlock, TransformationContext context) throws Tra
                 macroContext.setCurrentMacroBlock(macroBlock);
                 ((MutableRenderingContext) this.renderingContext).setCurrentBlock(macroBlock);
 
+                AsyncExecution asyncExecution = asyncExecutions.remove(macroBlock);
+
                 // Populate and validate macro parameters.
-                Object macroParameters =
-                    macro.getDescriptor().getParametersBeanClass().getDeclaredConstructor().newInstance();
-                try {
-                    this.beanManager.populate(macroParameters, macroBlock.getParameters());
-                } catch (Throwable e) {
-                    // One macro parameter was invalid.
-                    // The macro will not be executed and we generate an error message instead of the macro
-                    // execution result.
-                    this.macroErrorManager.generateError(macroBlock, TM_INVALIDMACROPARAMETER,
-                        "Invalid macro parameters used for the [{}] macro.", null, macroBlock.getId(), e);
+                Object macroParameters;
+                if (asyncExecution != null) {
+                    macroParameters = asyncExecution.parameters();
+                } else {
+                    macroParameters =
+                        macro.getDescriptor().getParametersBeanClass().getDeclaredConstructor().newInstance();
+                    try {
+                        this.beanManager.populate(macroParameters, macroBlock.getParameters());
+                    } catch (Throwable e) {
+                        // One macro parameter was invalid.
+                        // The macro will not be executed and we generate an error message instead of the macro
+                        // execution result.
+                        this.macroErrorManager.generateError(macroBlock, TM_INVALIDMACROPARAMETER,
+                            "Invalid macro parameters used for the [{}] macro.", null, macroBlock.getId(), e);
 
-                    continue;
+                        continue;
+                    }
                 }
 
                 // Rescan if either the indexes of the macros get too long or the macro's execution isn't isolated.
@@ -438,7 +724,59 @@ public void transform(Block rootBlock, TransformationContext context) throws Tra
                 {
                     priorityMacroBlockMatcher.reset();
                 }
-                newBlocks = ((Macro) macro).execute(macroParameters, macroBlock.getContent(), macroContext);
+                MacroExecutionEvent event = new MacroExecutionEvent();
+                event.begin();
+                long begin = this.metrics.begin();
+                List<Block> result = null;
+                // Asynchronous executions are counted when they are started
+                boolean countExecution = budget != null && asyncExecution == null;
+                // The blocks generated by the macros executed while transforming the content of the macro are
+                // counted through a scope of the budget, since they are usually part of the result of the macro too
+                RenderingBudget macroBudget;
+                if (asyncExecution != null) {
+                    macroBudget = asyncExecution.budget();
+                } else {
+                    macroBudget = budget != null ? budget.createScope() : null;
+                }
+                try {
+                    if (countExecution) {
+                        budget.beginMacroExecution();
+                    }
+                    if (asyncExecution != null) {
+                        result = getAsyncResult(asyncExecution);
+                    } else {
+                        macroContext.getTransformationContext().setRenderingBudget(macroBudget);
+                        result = ((Macro) macro).execute(macroParameters, macroBlock.getContent(), macroContext);
+                    }
+                } finally {
+                    if (asyncExecution == null) {
+                        macroContext.getTransformationContext().setRenderingBudget(budget);
+                    }
+                    if (countExecution) {
+                        budget.endMacroExecution();
+                    }
+                    this.metrics.end(RenderingStage.MACRO, macroBlock.getId(), begin);
+                    event.commit(macroBlock, result);
+                }
+                if (budget != null && result != null) {
+                    budget.addBlocks(result, macroBudget);
+                }
+                newBlocks = result;
+            } catch (RenderingBudgetExceededException e) {
+                // The rendering already used too many resources.
+                if (macroBlock.getParent() != null) {
+                    this.macroErrorManager.generateError(macroBlock, TM_BUDGETMACRO,
+                        "The [{}] macro was not executed because the rendering used too many resources.", null,
+                        macroBlock.getId(), e);
+                }
+
+                continue;
+            } catch (TimeoutException e) {
+                // The asynchronous execution of the macro took too long.
+                this.macroErrorManager.generateError(macroBlock, TM_TIMEOUTMACRO,
+                    "The execution of the [{}] macro took too long.", null, macroBlock.getId(), e);
+
+                continue;
             } catch (Throwable e) {
                 // The Macro failed to execute.
                 // The macro will not be executed and we generate an error message instead of the macro
@@ -473,6 +811,7 @@ public void transform(Block rootBlock, TransformationContext context) throws Tra
                     BlockMatcher childrenMatcher = priorityMacroBlockMatcher.getChildrenMatcher(macroItem);
                     resultBlock.getFirstBlock(childrenMatcher, Block.Axes.DESCENDANT);
                     processErrors(priorityMacroBlockMatcher);
+                    startAsyncExecutions(priorityMacroBlockMatcher, macroContext, asyncExecutions);
                 }
 
                 // 5) Replace the MacroBlock by the Blocks generated by the execution of the Macro
@@ -485,6 +824,105 @@ public void transform(Block rootBlock, TransformationContext context) throws Tra
         }
     }
 
+    private void startAsyncExecutions(PriorityMacroBlockMatcher priorityMacroBlockMatcher,
+        MacroTransformationContext macroContext, Map<MacroBlock, AsyncExecution> asyncExecutions)
+    {
+        RenderingBudget budget = macroContext.getTransformationContext().getRenderingBudget();
+
+        for (MacroItem macroItem : priorityMacroBlockMatcher.getAsyncItems()) {
+            MacroBlock macroBlock = macroItem.block();
+            Macro<?> macro = macroItem.macro();
+
+            // Macros found again by a new scan are already started, and the macros which can't be executed are
+            // reported when they are reached
+            if (asyncExecutions.containsKey(macroBlock) || (macroBlock.isInline() && !macro.supportsInlineMode())) {
+                continue;
+            }
+
+            Object macroParameters;
+            try {
+                macroParameters = macro.getDescriptor().getParametersBeanClass().getDeclaredConstructor().newInstance();
+                this.beanManager.populate(macroParameters, macroBlock.getParameters());
+            } catch (Throwable e) {
+                continue;
+            }
+
+            if (budget != null) {
+                try {
+                    budget.beginMacroExecution();
+                } catch (RenderingBudgetExceededException e) {
+                    // Reported when the macro is reached
+                    budget.endMacroExecution();
+
+                    continue;
+                }
+            }
+
+            MacroTransformationContext asyncContext = createAsyncContext(macroBlock, macroContext);
+            RenderingBudget macroBudget = budget != null ? budget.createScope() : null;
+            asyncContext.getTransformationContext().setRenderingBudget(macroBudget);
+
+            long start = System.nanoTime();
+            CompletableFuture<List<Block>> result;
+            try {
+                result = ((Macro) macro).executeAsync(macroParameters, macroBlock.getContent(), asyncContext)
+                    .toCompletableFuture();
+            } catch (UnsupportedOperationException e) {
+                // The macro is executed synchronously when it's reached
+                continue;
+            } catch (Throwable e) {
+                result = CompletableFuture.failedFuture(e);
+            } finally {
+                if (budget != null) {
+                    budget.endMacroExecution();
+                }
+            }
+
+            asyncExecutions.put(macroBlock, new AsyncExecution(macroParameters, result, macroBudget, start));
+        }
+    }
+
+    private MacroTransformationContext createAsyncContext(MacroBlock macroBlock,
+        MacroTransformationContext macroContext)
+    {
+        // Each execution gets its own context since it runs concurrently with the next macros. The XDOM keeps being
+        // transformed in the meantime so the context only gives access to a detached copy of the macro block.
+        MacroTransformationContext asyncContext = macroContext.clone();
+        MacroBlock asyncMacroBlock = (MacroBlock) macroBlock.clone();
+        XDOM xdom = macroContext.getXDOM();
+        if (xdom != null) {
+            asyncContext.setXDOM(new XDOM(List.of(asyncMacroBlock), new IdGenerator(xdom.getIdGenerator()),
+                new MetaData(xdom.getMetaData().getMetaData())));
+        } else {
+            asyncContext.setXDOM(new XDOM(List.of(asyncMacroBlock)));
+        }
+        asyncContext.setInline(macroBlock.isInline());
+        asyncContext.setCurrentMacroBlock(asyncMacroBlock);
+
+        return asyncContext;
+    }
+
+    private List<Block> getAsyncResult(AsyncExecution asyncExecution) throws Throwable
+    {
+        try {
+            // The timeout includes the time spent executing the macros before this one
+            long timeout = TimeUnit.MILLISECONDS.toNanos(this.configuration.getAsyncExecutionTimeout())
+                - (System.nanoTime() - asyncExecution.start());
+
+            return asyncExecution.result().get(Math.max(timeout, 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            asyncExecution.result().cancel(true);
+
+            throw e;
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw e;
+        }
+    }
+
     private void processErrors(PriorityMacroBlockMatcher priorityMacroBlockMatcher)
     {
         if (priorityMacroBlockMatcher.getErrors() != null) {
@@ -537,7 +975,11 @@ public void prepare(Block block)
         // Prepare the block
         // FIXME: remove the try/catch while fixing http://jira.xwiki.org/browse/XRENDERING-725.
         try {
-            prepare(block, syntax);
+            if (this.configuration.isParallelPreparationEnabled()) {
+                prepareConcurrently(block, syntax);
+            } else {
+                prepare(block, syntax);
+            }
         } catch (StackOverflowError e) {
             this.logger.error("Failed to prepare the block", e);
         }
@@ -545,43 +987,210 @@ public void prepare(Block block)
 
     private void prepare(Block block, Syntax parentSyntax)
     {
-        Syntax currentSyntax = parentSyntax;
+        Syntax currentSyntax = getSyntax(block, parentSyntax);
+
+        // Prepare the block
+        if (block instanceof MacroBlock) {
+            MacroBlock macroBlock = (MacroBlock) block;
+
+            // Prepare the macro block
+            Macro<?> macro = getPreparedMacro(macroBlock, currentSyntax);
+            if (macro != null) {
+                prepare(macroBlock, macro);
+            }
+        }
+
+        // Prepare the children
+        for (Block child : block.getChildren()) {
+            prepare(child, currentSyntax);
+        }
+    }
+
+    private void prepareConcurrently(Block block, Syntax syntax)
+    {
+        // Collect all the macro blocks to prepare first
+        List<MacroPreparation> preparations = new ArrayList<>();
+        collectPreparations(block, syntax, preparations);
+
+        if (preparations.size() < 2) {
+            preparations.forEach(preparation -> prepare(preparation.block(), preparation.macro()));
+
+            return;
+        }
+
+        // The preparation of a macro only modifies its own macro block, so the result does not depend on the order in
+        // which macros are prepared
+        PreparationBatch batch = this.preparationBatch.get();
+        if (batch == null) {
+            batch = createPreparationBatch();
+            if (batch == null) {
+                preparations.forEach(preparation -> prepare(preparation.block(), preparation.macro()));
+
+                return;
+            }
+        }
 
+        ForkJoinPool pool = getPreparationPool();
+        // Nested preparations (of macro contents) fork their tasks in the pool executing the current task
+        boolean inPool = ForkJoinTask.getPool() == pool;
+        List<MacroPreparation> concurrentPreparations = new ArrayList<>(preparations.size());
+        List<ForkJoinTask<Boolean>> tasks = new ArrayList<>(preparations.size());
+        List<MacroPreparation> sequentialPreparations = new ArrayList<>();
+        for (MacroPreparation preparation : preparations) {
+            if (preparation.macro().isPreparationThreadSafe()) {
+                PreparationBatch taskBatch = batch;
+                ForkJoinTask<Boolean> task = ForkJoinTask.adapt(() -> taskBatch.prepare(preparation));
+                concurrentPreparations.add(preparation);
+                tasks.add(inPool ? task.fork() : pool.submit(task));
+            } else {
+                sequentialPreparations.add(preparation);
+            }
+        }
+
+        // Prepare the macros which don't support it in the current thread, one after the other, while the others are
+        // prepared in the pool
+        sequentialPreparations.forEach(preparation -> prepare(preparation.block(), preparation.macro()));
+
+        for (int i = 0; i < tasks.size(); ++i) {
+            if (!tasks.get(i).join()) {
+                MacroPreparation preparation = concurrentPreparations.get(i);
+                prepare(preparation.block(), preparation.macro());
+            }
+        }
+    }
+
+    private PreparationBatch createPreparationBatch()
+    {
+        ExecutionContext executionContext = this.execution.getContext();
+        if (executionContext != null) {
+            try {
+                // The execution context is not thread safe and the current thread keeps using it while the macros are
+                // prepared so the workers get their copy from a snapshot
+                executionContext = this.executionContextManager.clone(executionContext);
+            } catch (ExecutionContextException e) {
+                this.logger.warn("Failed to clone the execution context, the macros will be prepared in the current"
+                    + " thread. Root cause: [{}]", ExceptionUtils.getRootCauseMessage(e));
+
+                return null;
+            }
+        }
+
+        return new PreparationBatch(executionContext);
+    }
+
+    private ForkJoinPool getPreparationPool()
+    {
+        ForkJoinPool pool = this.preparationPool;
+        if (pool == null) {
+            synchronized (this) {
+                pool = this.preparationPool;
+                if (pool == null) {
+                    AtomicInteger threadCount = new AtomicInteger();
+                    pool = new ForkJoinPool(this.configuration.getParallelPreparationThreads(), forkJoinPool -> {
+                        ForkJoinWorkerThread thread =
+                            ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                        thread.setName("XWiki Rendering macro preparation " + threadCount.incrementAndGet());
+
+                        return thread;
+                    }, null, false);
+                    this.preparationPool = pool;
+                }
+            }
+        }
+
+        return pool;
+    }
+
+    private void collectPreparations(Block block, Syntax parentSyntax, List<MacroPreparation> preparations)
+    {
+        Syntax currentSyntax = getSyntax(block, parentSyntax);
+
+        if (block instanceof MacroBlock) {
+            MacroBlock macroBlock = (MacroBlock) block;
+
+            Macro<?> macro = getPreparedMacro(macroBlock, currentSyntax);
+            if (macro != null) {
+                preparations.add(new MacroPreparation(macroBlock, macro));
+            }
+        }
+
+        for (Block child : block.getChildren()) {
+            collectPreparations(child, currentSyntax, preparations);
+        }
+    }
+
+    private Syntax getSyntax(Block block, Syntax parentSyntax)
+    {
         // Check if the syntax changes
         if (block instanceof MetaDataBlock) {
             Syntax blockSyntax = (Syntax) ((MetaDataBlock) block).getMetaData().getMetaData(MetaData.SYNTAX);
             if (blockSyntax != null) {
-                currentSyntax = blockSyntax;
+                return blockSyntax;
             }
         }
 
-        // Prepare the block
-        if (block instanceof MacroBlock) {
-            MacroBlock macroBlock = (MacroBlock) block;
+        return parentSyntax;
+    }
 
-            // Find the macro
-            Macro<?> macro = null;
-            try {
-                macro = this.macroManager.getMacro(new MacroId(macroBlock.getId(), currentSyntax));
-            } catch (Exception e) {
-                this.logger.debug(
-                    "Failed to get the macro with identifier [{}] for syntax [{}] (this macro block won't be prepared): {}",
-                    macroBlock.getId(), currentSyntax, ExceptionUtils.getRootCauseMessage(e));
+    private Macro<?> getPreparedMacro(MacroBlock macroBlock, Syntax syntax)
+    {
+        // Find the macro
+        Macro<?> macro = null;
+        try {
+            macro = this.macroManager.getMacro(new MacroId(macroBlock.getId(), syntax));
+        } catch (Exception e) {
+            this.logger.debug(
+                "Failed to get the macro with identifier [{}] for syntax [{}] (this macro block won't be prepared): {}",
+                macroBlock.getId(), syntax, ExceptionUtils.getRootCauseMessage(e));
+        }
+
+        return macro;
+    }
+
+    private void prepare(MacroPreparation preparation, ExecutionContext executionContext)
+    {
+        if (executionContext == null) {
+            prepare(preparation.block(), preparation.macro());
+
+            return;
+        }
+
+        // The thread can already have a context when it's a nested preparation
+        ExecutionContext currentContext = this.execution.getContext();
+        Map<String, Object> properties = new HashMap<>(executionContext.getProperties());
+        this.execution.setContext(executionContext);
+        try {
+            prepare(preparation.block(), preparation.macro());
+        } finally {
+            restoreProperties(executionContext, properties);
+            if (currentContext != null) {
+                this.execution.setContext(currentContext);
+            } else {
+                this.execution.removeContext();
             }
+        }
+    }
 
-            // Prepare the macro block
-            if (macro != null) {
-                try {
-                    macro.prepare(macroBlock);
-                } catch (Exception e) {
-                    this.logger.error("Failed to prepare the macro block", e);
-                }
+    private void restoreProperties(ExecutionContext executionContext, Map<String, Object> properties)
+    {
+        for (String key : new ArrayList<>(executionContext.getProperties().keySet())) {
+            if (!properties.containsKey(key)) {
+                executionContext.removeProperty(key);
             }
         }
+        properties.forEach((key, value) -> {
+            if (executionContext.getProperty(key) != value) {
+                executionContext.setProperty(key, value);
+            }
+        });
+    }
 
-        // Prepare the children
-        for (Block child : block.getChildren()) {
-            prepare(child, currentSyntax);
+    private void prepare(MacroBlock macroBlock, Macro<?> macro)
+    {
+        try {
+            macro.prepare(macroBlock);
+        } catch (Exception e) {
+            this.logger.error("Failed to prepare the macro block", e);
         }
     }
 }
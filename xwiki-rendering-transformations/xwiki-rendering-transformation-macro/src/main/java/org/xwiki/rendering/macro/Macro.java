@@ -20,6 +20,7 @@
 package org.xwiki.rendering.macro;
 
 import java.util.List;
+import java.util.concurrent.CompletionStage;
 
 import org.xwiki.component.annotation.ComponentRole;
 import org.xwiki.rendering.block.Block;
@@ -73,6 +74,43 @@
     List<Block> execute(P parameters, String content, MacroTransformationContext context)
         throws MacroExecutionException;
 
+    /**
+     * @return {@code true} if the macro should be executed with
+     *         {@link #executeAsync(Object, String, MacroTransformationContext)}, {@code false} to execute it with
+     *         {@link #execute(Object, String, MacroTransformationContext)}
+     * @since 17.9.0RC1
+     */
+    @Unstable
+    default boolean supportsAsyncExecution()
+    {
+        return false;
+    }
+
+    /**
+     * Starts the execution of the macro without waiting for its result, which is useful for macros spending most of
+     * their time waiting for some I/O (like fetching remote content). The execution is started as soon as the macro
+     * block is found, possibly before the execution of macros having a higher priority, and the result is inserted
+     * when the macro would have been executed synchronously. This means that the result should only depend on the
+     * parameters and the content of the macro: the passed context gives access to a detached copy of the macro block,
+     * alone in its XDOM.
+     *
+     * @param parameters the macro parameters in the form of a bean defined by the {@link Macro} implementation
+     * @param content the content of the macro
+     * @param context the context of the macros transformation process, which is not shared with the other macros
+     * @return the result of the macro execution as a list of Block elements, completed exceptionally with a
+     *         {@link MacroExecutionException} when the macro fails
+     * @throws UnsupportedOperationException when the macro doesn't implement it (the default), in which case the macro
+     *             is executed with {@link #execute(Object, String, MacroTransformationContext)} when it's reached
+     * @since 17.9.0RC1
+     * @see #supportsAsyncExecution()
+     */
+    @Unstable
+    default CompletionStage<List<Block>> executeAsync(P parameters, String content,
+        MacroTransformationContext context)
+    {
+        throw new UnsupportedOperationException("The macro doesn't support asynchronous execution");
+    }
+
     /**
      * Prepare a {@link MacroBlock} meant to be cached to be executed several times. The goal is to pre-execute
      * everything that is independent of any context and store it in an annotation of the passed {@link MacroBlock}.
@@ -88,6 +126,33 @@ default void prepare(MacroBlock macroBlock) throws MacroPreparationException
         // Do nothing by default
     }
 
+    /**
+     * @return {@code true} if {@link #prepare(MacroBlock)} can be called concurrently for different macro blocks,
+     *         {@code false} if the macro blocks need to be prepared one at a time in the thread which asked for the
+     *         preparation (the default, macros have to opt in)
+     * @since 17.9.0RC1
+     */
+    @Unstable
+    default boolean isPreparationThreadSafe()
+    {
+        return false;
+    }
+
+    /**
+     * @return {@code true} if the result of the macro depends on the whole document or if the macro modifies blocks
+     *         located outside of the macro block (for example a table of contents), {@code false} if the macro only
+     *         depends on the content which is before it. When the top level blocks of a document are transformed
+     *         progressively (see
+     *         {@link org.xwiki.rendering.transformation.TransformationContext#setTransformedBlockListener}), such
+     *         macros are only executed once the rest of the document is transformed
+     * @since 17.9.0RC1
+     */
+    @Unstable
+    default boolean hasGlobalDependencies()
+    {
+        return false;
+    }
+
     /**
      * @param parameters the parameters with which the macro would be executed
      * @param content the content with which the macro would be executed
@@ -23,6 +23,7 @@
 import java.util.Set;
 
 import org.xwiki.component.annotation.Role;
+import org.xwiki.stability.Unstable;
 
 /**
  * Configuration properties for the Macro Transformation module.
@@ -55,4 +56,39 @@ default Set<String> getHiddenCategories()
     {
         return Set.of();
     }
+
+    /**
+     * @return {@code true} if the macros found in a block should be prepared concurrently (only the ones for which
+     *         {@link org.xwiki.rendering.macro.Macro#isPreparationThreadSafe()} is {@code true}), {@code false} to
+     *         prepare them one after the other
+     * @since 17.9.0RC1
+     */
+    @Unstable
+    default boolean isParallelPreparationEnabled()
+    {
+        return false;
+    }
+
+    /**
+     * @return the maximum number of threads used to prepare macros concurrently (see
+     *         {@link #isParallelPreparationEnabled()})
+     * @since 17.9.0RC1
+     */
+    @Unstable
+    default int getParallelPreparationThreads()
+    {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * @return the maximum number of milliseconds a macro executed asynchronously (see
+     *         {@link org.xwiki.rendering.macro.Macro#supportsAsyncExecution()}) can take, from the start of its
+     *         execution
+     * @since 17.9.0RC1
+     */
+    @Unstable
+    default long getAsyncExecutionTimeout()
+    {
+        return 30000;
+    }
 }
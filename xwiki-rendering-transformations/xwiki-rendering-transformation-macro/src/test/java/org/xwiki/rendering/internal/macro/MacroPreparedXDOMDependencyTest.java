@@ -0,0 +1,93 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.macro;
+
+import java.lang.reflect.Type;
+import java.util.List;
+
+import javax.inject.Named;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.component.descriptor.ComponentDescriptor;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.rendering.macro.Macro;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link MacroPreparedXDOMDependency}.
+ *
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+@ComponentTest
+class MacroPreparedXDOMDependencyTest
+{
+    @InjectMockComponents
+    private MacroPreparedXDOMDependency dependency;
+
+    @MockComponent
+    @Named("context")
+    private ComponentManager contextComponentManager;
+
+    @SuppressWarnings("unchecked")
+    private ComponentDescriptor<Macro<?>> createDescriptor(String hint, Class<?> implementation)
+    {
+        ComponentDescriptor<Macro<?>> descriptor = mock(ComponentDescriptor.class);
+        when(descriptor.getRoleHint()).thenReturn(hint);
+        when(descriptor.getImplementation()).thenReturn((Class) implementation);
+
+        return descriptor;
+    }
+
+    @Test
+    void getDigest()
+    {
+        ComponentDescriptor<Macro<?>> macro = createDescriptor("macro", Macro.class);
+        ComponentDescriptor<Macro<?>> other = createDescriptor("other", Macro.class);
+        when(this.contextComponentManager.<Macro<?>>getComponentDescriptorList((Type) Macro.class))
+            .thenReturn(List.of(macro, other));
+
+        String digest = this.dependency.getDigest();
+        assertEquals(digest, this.dependency.getDigest());
+        verify(this.contextComponentManager).getComponentDescriptorList((Type) Macro.class);
+
+        // The order of the registration doesn't matter
+        when(this.contextComponentManager.<Macro<?>>getComponentDescriptorList((Type) Macro.class))
+            .thenReturn(List.of(other, macro));
+        this.dependency.invalidate();
+        assertEquals(digest, this.dependency.getDigest());
+
+        // A new implementation of a macro changes the digest
+        when(this.contextComponentManager.<Macro<?>>getComponentDescriptorList((Type) Macro.class))
+            .thenReturn(List.of(macro, createDescriptor("other", Object.class)));
+        this.dependency.invalidate();
+        assertNotEquals(digest, this.dependency.getDigest());
+        verify(this.contextComponentManager, times(3)).getComponentDescriptorList((Type) Macro.class);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.transformation.macro;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Unit tests for {@link HTMLRawBlockFilterCache}.
+ *
+ * @version $Id$
+ */
+class HTMLRawBlockFilterCacheTest
+{
+    private final HTMLRawBlockFilterCache cache = new HTMLRawBlockFilterCache();
+
+    @Test
+    void evictLeastRecentlyUsedWhenTooHeavy()
+    {
+        String large = "a".repeat(4000000);
+
+        this.cache.put("first", large, 0);
+        this.cache.put("second", large, 0);
+        // Access the first entry so that the second one is the least recently used
+        assertEquals(large, this.cache.get("first"));
+        this.cache.put("third", large, 0);
+
+        assertEquals(large, this.cache.get("first"));
+        assertNull(this.cache.get("second"));
+        assertEquals(large, this.cache.get("third"));
+        assertEquals(2L * (large.length() + 5), this.cache.getWeight());
+
+        // Replacing an entry doesn't count it twice
+        this.cache.put("third", "small", 0);
+        assertEquals(large.length() + 5 + 10, this.cache.getWeight());
+    }
+
+    @Test
+    void ignoreEntriesHeavierThanTheCache()
+    {
+        this.cache.put("key", "a".repeat(10000000), 0);
+
+        assertNull(this.cache.get("key"));
+        assertEquals(0, this.cache.getWeight());
+    }
+
+    @Test
+    void ignoreEntriesComputedBeforeInvalidation()
+    {
+        long version = this.cache.getVersion();
+        this.cache.put("key", "value", version);
+
+        this.cache.invalidate();
+
+        assertNull(this.cache.get("key"));
+        assertEquals(0, this.cache.getWeight());
+
+        this.cache.put("key", "value", version);
+        assertNull(this.cache.get("key"));
+
+        this.cache.put("key", "value", this.cache.getVersion());
+        assertEquals("value", this.cache.get("key"));
+    }
+}
@@ -24,16 +24,25 @@
 import org.junit.jupiter.params.provider.CsvSource;
 import org.xwiki.rendering.block.RawBlock;
 import org.xwiki.rendering.macro.MacroExecutionException;
+import org.xwiki.rendering.metrics.RenderingMetrics;
+import org.xwiki.rendering.metrics.RenderingStage;
 import org.xwiki.rendering.syntax.Syntax;
 import org.xwiki.rendering.transformation.MacroTransformationContext;
 import org.xwiki.rendering.transformation.macro.RawBlockFilterParameters;
+import org.xwiki.test.annotation.ComponentList;
 import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectComponentManager;
 import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.test.mockito.MockitoComponentManager;
 import org.xwiki.xml.html.DefaultHTMLCleanerComponentList;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 /**
  * Unit test for the {@link HTMLRawBlockFilter}.
@@ -43,6 +52,7 @@
  */
 @ComponentTest
 @DefaultHTMLCleanerComponentList
+@ComponentList(HTMLRawBlockFilterCache.class)
 class HTMLRawBlockFilterTest
 {
     private static final String INPUT = "<a href=\"javascript:alert(1)\">Hello!</a>";
@@ -60,6 +70,12 @@
     @InjectMockComponents
     private HTMLRawBlockFilter htmlRawBlockFilter;
 
+    @MockComponent
+    private RenderingMetrics metrics;
+
+    @InjectComponentManager
+    private MockitoComponentManager componentManager;
+
     @ParameterizedTest
     @CsvSource({
         "false, false, true,  false, " + RESTRICTED_BLOCK_OUTPUT,
@@ -98,4 +114,40 @@ void invalidInlineCleaning()
             () -> this.htmlRawBlockFilter.filter(input, parameters));
         assertTrue(exception.getMessage().contains("inline HTML content"));
     }
+
+    @Test
+    void cleaningIsCached() throws MacroExecutionException
+    {
+        RawBlock input = new RawBlock(INPUT, Syntax.HTML_5_0);
+
+        RawBlockFilterParameters parameters = new RawBlockFilterParameters(new MacroTransformationContext());
+        parameters.setClean(true);
+
+        assertEquals(BLOCK_OUTPUT, this.htmlRawBlockFilter.filter(input, parameters).getRawContent());
+        assertEquals(BLOCK_OUTPUT, this.htmlRawBlockFilter.filter(input, parameters).getRawContent());
+
+        // The configuration of the cleaning is part of the cache key
+        parameters.setRestricted(true);
+        assertEquals(RESTRICTED_BLOCK_OUTPUT, this.htmlRawBlockFilter.filter(input, parameters).getRawContent());
+        assertEquals(RESTRICTED_BLOCK_OUTPUT, this.htmlRawBlockFilter.filter(input, parameters).getRawContent());
+
+        verify(this.metrics, times(2)).end(RenderingStage.HTML_CLEANING, "miss", 0L);
+        verify(this.metrics, times(2)).end(RenderingStage.HTML_CLEANING, "hit", 0L);
+    }
+
+    @Test
+    void cleaningIsNotCachedAfterInvalidation() throws Exception
+    {
+        RawBlock input = new RawBlock(INPUT, Syntax.HTML_5_0);
+
+        RawBlockFilterParameters parameters = new RawBlockFilterParameters(new MacroTransformationContext());
+        parameters.setClean(true);
+
+        assertEquals(BLOCK_OUTPUT, this.htmlRawBlockFilter.filter(input, parameters).getRawContent());
+        this.componentManager.<HTMLRawBlockFilterCache>getInstance(HTMLRawBlockFilterCache.class).invalidate();
+        assertEquals(BLOCK_OUTPUT, this.htmlRawBlockFilter.filter(input, parameters).getRawContent());
+
+        verify(this.metrics, times(2)).end(RenderingStage.HTML_CLEANING, "miss", 0L);
+        verify(this.metrics, never()).end(RenderingStage.HTML_CLEANING, "hit", 0L);
+    }
 }
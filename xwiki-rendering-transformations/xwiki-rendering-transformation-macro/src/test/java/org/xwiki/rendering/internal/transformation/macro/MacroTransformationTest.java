@@ -22,13 +22,20 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Named;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.mutable.MutableInt;
+import org.apache.commons.lang3.mutable.MutableLong;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -37,6 +44,8 @@
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.xwiki.component.manager.ComponentLookupException;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
 import org.xwiki.properties.internal.DefaultBeanDescriptor;
 import org.xwiki.rendering.block.Block;
 import org.xwiki.rendering.block.MacroBlock;
@@ -52,8 +61,10 @@
 import org.xwiki.rendering.renderer.printer.WikiPrinter;
 import org.xwiki.rendering.syntax.Syntax;
 import org.xwiki.rendering.transformation.MacroTransformationContext;
+import org.xwiki.rendering.transformation.RenderingBudget;
 import org.xwiki.rendering.transformation.TransformationContext;
 import org.xwiki.rendering.transformation.TransformationException;
+import org.xwiki.rendering.transformation.macro.MacroTransformationConfiguration;
 import org.xwiki.test.annotation.AllComponents;
 import org.xwiki.test.junit5.mockito.ComponentTest;
 import org.xwiki.test.junit5.mockito.InjectComponentManager;
@@ -62,12 +73,16 @@
 import org.xwiki.test.mockito.MockitoComponentManager;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -460,6 +475,114 @@ public Void answer(InvocationOnMock invocation) throws Throwable
         assertEquals(Map.of("test", "prepared2"), macroBlock2.getAttributes());
     }
 
+    @Test
+    void prepareMacrosConcurrently() throws Exception
+    {
+        DefaultMacroTransformationConfiguration configuration =
+            this.componentManager.getInstance(MacroTransformationConfiguration.class);
+        configuration.setParallelPreparationEnabled(true);
+        configuration.setParallelPreparationThreads(2);
+
+        Execution execution = this.componentManager.getInstance(Execution.class);
+        ExecutionContext callerContext = new ExecutionContext();
+        execution.setContext(callerContext);
+
+        try {
+            // Each safe preparation waits for another one to be running at the same time, so it fails if the
+            // preparations are not concurrent
+            CyclicBarrier barrier = new CyclicBarrier(2);
+            Set<ExecutionContext> contexts =
+                Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+            Set<Thread> threads = ConcurrentHashMap.newKeySet();
+            Macro safeMacro = this.componentManager.registerMockComponent(Macro.class, "safemacro");
+            when(safeMacro.isPreparationThreadSafe()).thenReturn(true);
+            doAnswer(invocation -> {
+                contexts.add(execution.getContext());
+                threads.add(Thread.currentThread());
+                barrier.await(10, TimeUnit.SECONDS);
+                invocation.<MacroBlock>getArgument(0).setAttribute("test", "safe");
+
+                return null;
+            }).when(safeMacro).prepare(any());
+            // Macros are not thread safe by default
+            Macro unsafeMacro = this.componentManager.registerMockComponent(Macro.class, "unsafemacro");
+            doAnswer(invocation -> {
+                invocation.<MacroBlock>getArgument(0).setAttribute("test", Thread.currentThread());
+
+                return null;
+            }).when(unsafeMacro).prepare(any());
+
+            List<MacroBlock> macroBlocks = new ArrayList<>();
+            for (int i = 0; i < 20; ++i) {
+                macroBlocks.add(new MacroBlock(i % 2 == 0 ? "safemacro" : "unsafemacro", Map.of(), false));
+            }
+
+            this.transformation.prepare(new XDOM(new ArrayList<>(macroBlocks)));
+
+            for (int i = 0; i < macroBlocks.size(); ++i) {
+                assertEquals(i % 2 == 0 ? "safe" : Thread.currentThread(), macroBlocks.get(i).getAttribute("test"));
+            }
+
+            // Each worker got its own copy of the caller's execution context, in a dedicated pool
+            assertEquals(threads.size(), contexts.size());
+            assertFalse(contexts.contains(callerContext));
+            assertFalse(contexts.contains(null));
+            assertSame(callerContext, execution.getContext());
+            assertEquals(2, threads.size());
+            for (Thread thread : threads) {
+                assertTrue(thread.getName().startsWith("XWiki Rendering macro preparation"), thread.getName());
+            }
+        } finally {
+            execution.removeContext();
+            configuration.setParallelPreparationEnabled(false);
+        }
+    }
+
+    @Test
+    void prepareMacrosConcurrentlyWithContextChanges() throws Exception
+    {
+        DefaultMacroTransformationConfiguration configuration =
+            this.componentManager.getInstance(MacroTransformationConfiguration.class);
+        configuration.setParallelPreparationEnabled(true);
+        configuration.setParallelPreparationThreads(2);
+
+        Execution execution = this.componentManager.getInstance(Execution.class);
+        ExecutionContext callerContext = new ExecutionContext();
+        callerContext.setProperty("shared", "caller");
+        execution.setContext(callerContext);
+
+        try {
+            Macro macro = this.componentManager.registerMockComponent(Macro.class, "contextmacro");
+            when(macro.isPreparationThreadSafe()).thenReturn(true);
+            doAnswer(invocation -> {
+                ExecutionContext context = execution.getContext();
+                MacroBlock macroBlock = invocation.getArgument(0);
+                macroBlock.setAttribute("test", context.getProperty("shared") + "/" + context.getProperty("added"));
+                context.setProperty("shared", macroBlock.getParameter("id"));
+                context.setProperty("added", macroBlock.getParameter("id"));
+
+                return null;
+            }).when(macro).prepare(any());
+
+            List<MacroBlock> macroBlocks = new ArrayList<>();
+            for (int i = 0; i < 20; ++i) {
+                macroBlocks.add(new MacroBlock("contextmacro", Map.of("id", String.valueOf(i)), false));
+            }
+
+            this.transformation.prepare(new XDOM(new ArrayList<>(macroBlocks)));
+
+            // The changes made by a macro to the execution context are not visible to the other macros
+            for (MacroBlock macroBlock : macroBlocks) {
+                assertEquals("caller/null", macroBlock.getAttribute("test"));
+            }
+            assertEquals("caller", callerContext.getProperty("shared"));
+            assertFalse(callerContext.hasProperty("added"));
+        } finally {
+            execution.removeContext();
+            configuration.setParallelPreparationEnabled(false);
+        }
+    }
+
     @Test
     void prepareNotExistingMacro()
     {
@@ -590,8 +713,303 @@ void testNestedPriorities() throws Exception
         assertEquals(expected, transformAndRenderEvents(dom));
     }
 
-    private void createMockMacro(String macroId, int priority, boolean macroIsolated, Answer<List<Block>> execute)
-        throws Exception
+    @Test
+    void transformProgressively() throws Exception
+    {
+        String counterMacro = "testCounter";
+        String globalMacro = "testGlobal";
+        MutableInt executionCounter = new MutableInt(0);
+
+        createMockMacro(counterMacro, 1000, true,
+            invocation -> List.of(new WordBlock("counter" + executionCounter.getAndIncrement())));
+        Macro<Object> macro = createMockMacro(globalMacro, 10, true,
+            invocation -> List.of(new WordBlock("global" + executionCounter.getAndIncrement())));
+        when(macro.hasGlobalDependencies()).thenReturn(true);
+
+        XDOM dom = new XDOM(List.of(
+            new MacroBlock(counterMacro, Map.of(), false),
+            new MacroBlock(globalMacro, Map.of(), false),
+            new MacroBlock(counterMacro, Map.of(), false)
+        ));
+
+        List<Block> transformedBlocks = new ArrayList<>();
+        List<Integer> executions = new ArrayList<>();
+        TransformationContext context = new TransformationContext(dom, Syntax.XWIKI_2_0);
+        context.setTransformedBlockListener(block -> {
+            transformedBlocks.add(block);
+            executions.add(executionCounter.intValue());
+        });
+
+        this.transformation.transform(dom, context);
+
+        // The first block is passed as soon as it's transformed, the following ones wait for the global macro, which
+        // is executed last
+        assertEquals(dom.getChildren(), transformedBlocks);
+        assertEquals(List.of(1, 3, 3), executions);
+
+        WikiPrinter printer = new DefaultWikiPrinter();
+        BlockRenderer eventBlockRenderer =
+            this.componentManager.getInstance(BlockRenderer.class, Syntax.EVENT_1_0.toIdString());
+        eventBlockRenderer.render(dom, printer);
+        assertEquals("""
+            beginDocument
+            beginMacroMarkerStandalone [testCounter] []
+            onWord [counter0]
+            endMacroMarkerStandalone [testCounter] []
+            beginMacroMarkerStandalone [testGlobal] []
+            onWord [global2]
+            endMacroMarkerStandalone [testGlobal] []
+            beginMacroMarkerStandalone [testCounter] []
+            onWord [counter1]
+            endMacroMarkerStandalone [testCounter] []
+            endDocument""", printer.toString());
+    }
+
+    @Test
+    void transformProgressivelyWithNestedTransformation() throws Exception
+    {
+        String counterMacro = "testCounter";
+        String nestedMacro = "testNested";
+        MutableInt executionCounter = new MutableInt(0);
+
+        createMockMacro(counterMacro, 1000, true,
+            invocation -> List.of(new WordBlock("counter" + executionCounter.getAndIncrement())));
+        // A macro transforming its own content with a copy of the transformation context
+        createMockMacro(nestedMacro, 1000, true, invocation -> {
+            MacroTransformationContext macroContext = invocation.getArgument(2);
+            XDOM content = new XDOM(List.of(new MacroBlock(counterMacro, Map.of(), false),
+                new MacroBlock(counterMacro, Map.of(), false)));
+            TransformationContext contentContext = macroContext.getTransformationContext().clone();
+            contentContext.setXDOM(content);
+            this.transformation.transform(content, contentContext);
+
+            return content.getChildren();
+        });
+
+        XDOM dom = new XDOM(List.of(
+            new MacroBlock(counterMacro, Map.of(), false),
+            new MacroBlock(nestedMacro, Map.of(), false),
+            new MacroBlock(counterMacro, Map.of(), false)
+        ));
+
+        List<Block> transformedBlocks = new ArrayList<>();
+        TransformationContext context = new TransformationContext(dom, Syntax.XWIKI_2_0);
+        context.setTransformedBlockListener(transformedBlocks::add);
+
+        this.transformation.transform(dom, context);
+
+        // Only the top level blocks of the document are passed to the listener, not the ones of the macro content
+        assertEquals(dom.getChildren(), transformedBlocks);
+        assertEquals(3, transformedBlocks.size());
+    }
+
+    @Test
+    void transformAsyncMacro() throws Exception
+    {
+        String counterMacro = "testCounter";
+        String asyncMacro = "testAsync";
+        MutableInt executionCounter = new MutableInt(0);
+
+        createMockMacro(counterMacro, 10, true,
+            invocation -> List.of(new WordBlock("counter" + executionCounter.getAndIncrement())));
+        Macro<Object> macro = createMockMacro(asyncMacro, 1000, true, invocation -> List.of());
+        when(macro.supportsAsyncExecution()).thenReturn(true);
+        List<MacroTransformationContext> asyncContexts = new ArrayList<>();
+        when(macro.executeAsync(any(), any(), any())).thenAnswer(invocation -> {
+            asyncContexts.add(invocation.getArgument(2));
+
+            return CompletableFuture
+                .completedFuture(List.of(new WordBlock("async" + executionCounter.getAndIncrement())));
+        });
+
+        MacroBlock asyncMacroBlock = new MacroBlock(asyncMacro, Map.of(), false);
+        XDOM dom = new XDOM(List.of(
+            asyncMacroBlock,
+            new MacroBlock(counterMacro, Map.of(), false)
+        ));
+
+        // The asynchronous macro is started before the counter macro, but its result is inserted after it
+        String expected = """
+            beginDocument
+            beginMacroMarkerStandalone [testAsync] []
+            onWord [async0]
+            endMacroMarkerStandalone [testAsync] []
+            beginMacroMarkerStandalone [testCounter] []
+            onWord [counter1]
+            endMacroMarkerStandalone [testCounter] []
+            endDocument""";
+
+        assertEquals(expected, transformAndRenderEvents(dom));
+        verify(macro, never()).execute(any(), any(), any());
+
+        // The asynchronous execution only has access to a detached copy of the macro block
+        assertEquals(1, asyncContexts.size());
+        MacroTransformationContext asyncContext = asyncContexts.get(0);
+        assertNotSame(asyncMacroBlock, asyncContext.getCurrentMacroBlock());
+        assertEquals(asyncMacroBlock.getId(), asyncContext.getCurrentMacroBlock().getId());
+        assertNotSame(dom, asyncContext.getXDOM());
+        assertEquals(List.of(asyncContext.getCurrentMacroBlock()), asyncContext.getXDOM().getChildren());
+    }
+
+    @Test
+    void transformAsyncMacroNotImplemented() throws Exception
+    {
+        MutableInt executionCounter = new MutableInt(0);
+
+        createMockMacro("testCounter", 10, true,
+            invocation -> List.of(new WordBlock("counter" + executionCounter.getAndIncrement())));
+        Macro<Object> macro = createMockMacro("testAsync", 1000, true,
+            invocation -> List.of(new WordBlock("sync" + executionCounter.getAndIncrement())));
+        when(macro.supportsAsyncExecution()).thenReturn(true);
+        when(macro.executeAsync(any(), any(), any())).thenThrow(new UnsupportedOperationException());
+
+        XDOM dom = new XDOM(List.of(
+            new MacroBlock("testAsync", Map.of(), false),
+            new MacroBlock("testCounter", Map.of(), false)
+        ));
+
+        // The macro is executed synchronously, in the order of the priorities
+        String expected = """
+            beginDocument
+            beginMacroMarkerStandalone [testAsync] []
+            onWord [sync1]
+            endMacroMarkerStandalone [testAsync] []
+            beginMacroMarkerStandalone [testCounter] []
+            onWord [counter0]
+            endMacroMarkerStandalone [testCounter] []
+            endDocument""";
+
+        assertEquals(expected, transformAndRenderEvents(dom));
+    }
+
+    @Test
+    void transformAsyncMacroWithTimeout() throws Exception
+    {
+        DefaultMacroTransformationConfiguration configuration =
+            this.componentManager.getInstance(MacroTransformationConfiguration.class);
+        long timeout = configuration.getAsyncExecutionTimeout();
+        configuration.setAsyncExecutionTimeout(1);
+
+        try {
+            CompletableFuture<List<Block>> result = new CompletableFuture<>();
+            Macro<Object> macro = createMockMacro("testAsync", 1000, true, invocation -> List.of());
+            when(macro.supportsAsyncExecution()).thenReturn(true);
+            when(macro.executeAsync(any(), any(), any())).thenReturn(result);
+
+            XDOM dom = new XDOM(List.of(new MacroBlock("testAsync", Map.of(), false)));
+
+            assertTrue(transformAndRenderEvents(dom).contains(
+                "onWord [The execution of the [testAsync] macro took too long. Click on this message for details.]"));
+            assertTrue(result.isCancelled());
+        } finally {
+            configuration.setAsyncExecutionTimeout(timeout);
+        }
+    }
+
+    @Test
+    void transformAsyncMacroWithTimeoutFromStart() throws Exception
+    {
+        DefaultMacroTransformationConfiguration configuration =
+            this.componentManager.getInstance(MacroTransformationConfiguration.class);
+        long timeout = configuration.getAsyncExecutionTimeout();
+        configuration.setAsyncExecutionTimeout(500);
+
+        try {
+            // The macro executed before the asynchronous one takes longer than the timeout
+            MutableLong end = new MutableLong();
+            createMockMacro("testSlow", 10, true, invocation -> {
+                Thread.sleep(600);
+                end.setValue(System.nanoTime());
+
+                return List.of();
+            });
+            CompletableFuture<List<Block>> result = new CompletableFuture<>();
+            Macro<Object> macro = createMockMacro("testAsync", 1000, true, invocation -> List.of());
+            when(macro.supportsAsyncExecution()).thenReturn(true);
+            when(macro.executeAsync(any(), any(), any())).thenReturn(result);
+
+            XDOM dom = new XDOM(List.of(
+                new MacroBlock("testAsync", Map.of(), false),
+                new MacroBlock("testSlow", Map.of(), false)
+            ));
+
+            assertTrue(transformAndRenderEvents(dom).contains(
+                "onWord [The execution of the [testAsync] macro took too long. Click on this message for details.]"));
+            assertTrue(result.isCancelled());
+            // The transformation didn't wait again for the whole timeout once the asynchronous macro was reached
+            assertTrue(System.nanoTime() - end.getValue() < TimeUnit.MILLISECONDS.toNanos(500));
+        } finally {
+            configuration.setAsyncExecutionTimeout(timeout);
+        }
+    }
+
+    @Test
+    void transformWithRenderingBudget() throws Exception
+    {
+        MutableInt executionCounter = new MutableInt(0);
+        createMockMacro("testCounter", 1000, true,
+            invocation -> List.of(new WordBlock("counter" + executionCounter.getAndIncrement())));
+
+        XDOM dom = new XDOM(List.of(
+            new MacroBlock("testCounter", Map.of(), false),
+            new MacroBlock("testCounter", Map.of(), false)
+        ));
+
+        RenderingBudget budget = new RenderingBudget();
+        budget.setMaxMacroExecutions(1);
+        TransformationContext context = new TransformationContext(dom, Syntax.XWIKI_2_0);
+        context.setRenderingBudget(budget);
+
+        this.transformation.transform(dom, context);
+
+        WikiPrinter printer = new DefaultWikiPrinter();
+        BlockRenderer eventBlockRenderer =
+            this.componentManager.getInstance(BlockRenderer.class, Syntax.EVENT_1_0.toIdString());
+        eventBlockRenderer.render(dom, printer);
+
+        // The second macro is replaced by an error
+        assertEquals(1, executionCounter.intValue());
+        assertTrue(printer.toString().contains("onWord [counter0]"));
+        assertTrue(printer.toString().contains("onWord [The [testCounter] macro was not executed because the "
+            + "rendering used too many resources. Click on this message for details.]"));
+    }
+
+    @Test
+    void transformWithRenderingBudgetCountsNestedBlocksOnce() throws Exception
+    {
+        String counterMacro = "testCounter";
+        String nestedMacro = "testNested";
+
+        createMockMacro(counterMacro, 1000, true, invocation -> List.of(new WordBlock("counter")));
+        // A macro returning its content transformed with the budget of the rendering
+        createMockMacro(nestedMacro, 1000, true, invocation -> {
+            MacroTransformationContext macroContext = invocation.getArgument(2);
+            XDOM content = new XDOM(List.of(new MacroBlock(counterMacro, Map.of(), false),
+                new MacroBlock(counterMacro, Map.of(), false)));
+            TransformationContext contentContext = new TransformationContext(content, Syntax.XWIKI_2_0);
+            contentContext.setRenderingBudget(macroContext.getTransformationContext().getRenderingBudget());
+            this.transformation.transform(content, contentContext);
+
+            return content.getChildren();
+        });
+
+        XDOM dom = new XDOM(List.of(new MacroBlock(nestedMacro, Map.of(), false)));
+
+        RenderingBudget budget = new RenderingBudget();
+        budget.setMaxBlocks(1000);
+        TransformationContext context = new TransformationContext(dom, Syntax.XWIKI_2_0);
+        context.setRenderingBudget(budget);
+
+        this.transformation.transform(dom, context);
+
+        // The nested macros generated a word each, and the nested macro returned them inside their macro markers: the
+        // words are not counted a second time
+        assertEquals(4, budget.getBlocks());
+        assertSame(budget, context.getRenderingBudget());
+    }
+
+    private Macro<Object> createMockMacro(String macroId, int priority, boolean macroIsolated,
+        Answer<List<Block>> execute) throws Exception
     {
         Macro<Object> macro = this.componentManager.registerMockComponent(Macro.class, macroId);
         when(macro.getPriority()).thenReturn(priority);
@@ -604,6 +1022,8 @@ private void createMockMacro(String macroId, int priority, boolean macroIsolated
             Macro<?> other = invocation.getArgument(0);
             return priority - other.getPriority();
         });
+
+        return macro;
     }
 
     private String transformAndRenderEvents(XDOM dom) throws TransformationException, ComponentLookupException
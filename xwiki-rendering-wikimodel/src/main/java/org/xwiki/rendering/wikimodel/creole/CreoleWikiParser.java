@@ -25,8 +25,11 @@
 import org.xwiki.rendering.wikimodel.IWikiParser;
 import org.xwiki.rendering.wikimodel.WikiParserException;
 import org.xwiki.rendering.wikimodel.impl.WikiScannerContext;
+import org.xwiki.rendering.wikimodel.internal.ThreadLocalPool;
 import org.xwiki.rendering.wikimodel.internal.creole.javacc.CreoleWikiScanner;
+import org.xwiki.rendering.wikimodel.internal.creole.javacc.CreoleWikiScannerTokenManager;
 import org.xwiki.rendering.wikimodel.internal.creole.javacc.ParseException;
+import org.xwiki.rendering.wikimodel.internal.creole.javacc.SimpleCharStream;
 
 /**
  * @version $Id$
@@ -34,6 +37,12 @@
  */
 public class CreoleWikiParser implements IWikiParser
 {
+    /**
+     * The char streams (and their buffers) reused between parsing.
+     */
+    private static final ThreadLocalPool<SimpleCharStream> STREAMS =
+        new ThreadLocalPool<>(() -> new SimpleCharStream(Reader.nullReader()));
+
     /**
      *
      */
@@ -49,12 +58,18 @@ public CreoleWikiParser()
     public void parse(Reader reader, IWemListener listener)
         throws WikiParserException
     {
+        SimpleCharStream stream = STREAMS.acquire();
         try {
-            CreoleWikiScanner scanner = new CreoleWikiScanner(reader);
+            stream.ReInit(reader);
+            CreoleWikiScanner scanner = new CreoleWikiScanner(new CreoleWikiScannerTokenManager(stream));
             WikiScannerContext context = new WikiScannerContext(listener);
             scanner.parse(context);
         } catch (ParseException e) {
             throw new WikiParserException(e);
+        } finally {
+            // Don't keep a reference to the parsed content
+            stream.ReInit(Reader.nullReader());
+            STREAMS.release(stream);
         }
     }
 }
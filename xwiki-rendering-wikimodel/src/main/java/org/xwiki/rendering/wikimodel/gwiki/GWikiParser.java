@@ -25,8 +25,11 @@
 import org.xwiki.rendering.wikimodel.IWikiParser;
 import org.xwiki.rendering.wikimodel.WikiParserException;
 import org.xwiki.rendering.wikimodel.impl.WikiScannerContext;
+import org.xwiki.rendering.wikimodel.internal.ThreadLocalPool;
 import org.xwiki.rendering.wikimodel.internal.gwiki.javacc.GWikiScanner;
+import org.xwiki.rendering.wikimodel.internal.gwiki.javacc.GWikiScannerTokenManager;
 import org.xwiki.rendering.wikimodel.internal.gwiki.javacc.ParseException;
+import org.xwiki.rendering.wikimodel.internal.gwiki.javacc.SimpleCharStream;
 
 /**
  * @version $Id$
@@ -34,6 +37,12 @@
  */
 public class GWikiParser implements IWikiParser
 {
+    /**
+     * The char streams (and their buffers) reused between parsing.
+     */
+    private static final ThreadLocalPool<SimpleCharStream> STREAMS =
+        new ThreadLocalPool<>(() -> new SimpleCharStream(Reader.nullReader()));
+
     /**
      *
      */
@@ -49,12 +58,18 @@ public GWikiParser()
     public void parse(Reader reader, IWemListener listener)
         throws WikiParserException
     {
+        SimpleCharStream stream = STREAMS.acquire();
         try {
-            GWikiScanner scanner = new GWikiScanner(reader);
+            stream.ReInit(reader);
+            GWikiScanner scanner = new GWikiScanner(new GWikiScannerTokenManager(stream));
             WikiScannerContext context = new WikiScannerContext(listener);
             scanner.parse(context);
         } catch (ParseException e) {
             throw new WikiParserException(e);
+        } finally {
+            // Don't keep a reference to the parsed content
+            stream.ReInit(Reader.nullReader());
+            STREAMS.release(stream);
         }
     }
 }
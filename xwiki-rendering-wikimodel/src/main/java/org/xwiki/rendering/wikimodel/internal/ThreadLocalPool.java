@@ -0,0 +1,89 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.wikimodel.internal;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Supplier;
+
+/**
+ * A small pool of reusable objects kept for each thread. Since each thread has its own pool, the objects don't need to
+ * be thread safe and acquiring/releasing them doesn't involve any synchronization. Several objects can be acquired at
+ * the same time by the same thread (for example, in case of nested parsing).
+ *
+ * @param <T> the type of pooled objects
+ * @version $Id$
+ * @since 17.9.0RC1
+ */
+public class ThreadLocalPool<T>
+{
+    /**
+     * The default maximum number of objects kept for each thread.
+     */
+    public static final int DEFAULT_MAX_SIZE = 4;
+
+    private final ThreadLocal<Deque<T>> pools = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private final Supplier<T> factory;
+
+    private final int maxSize;
+
+    /**
+     * @param factory used to create new objects when the pool of the current thread is empty
+     */
+    public ThreadLocalPool(Supplier<T> factory)
+    {
+        this(factory, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param factory used to create new objects when the pool of the current thread is empty
+     * @param maxSize the maximum number of objects kept for each thread
+     */
+    public ThreadLocalPool(Supplier<T> factory, int maxSize)
+    {
+        this.factory = factory;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return an object from the pool of the current thread, or a new one if the pool is empty
+     */
+    public T acquire()
+    {
+        T element = this.pools.get().pollFirst();
+
+        return element != null ? element : this.factory.get();
+    }
+
+    /**
+     * Give back an object to the pool of the current thread. The object should not be used anymore by the caller.
+     *
+     * @param element the object to put back in the pool
+     */
+    public void release(T element)
+    {
+        Deque<T> pool = this.pools.get();
+
+        if (pool.size() < this.maxSize) {
+            pool.push(element);
+        }
+    }
+}
@@ -25,8 +25,11 @@
 import org.xwiki.rendering.wikimodel.IWikiParser;
 import org.xwiki.rendering.wikimodel.WikiParserException;
 import org.xwiki.rendering.wikimodel.impl.WikiScannerContext;
+import org.xwiki.rendering.wikimodel.internal.ThreadLocalPool;
 import org.xwiki.rendering.wikimodel.internal.jspwiki.javacc.JspWikiScanner;
+import org.xwiki.rendering.wikimodel.internal.jspwiki.javacc.JspWikiScannerTokenManager;
 import org.xwiki.rendering.wikimodel.internal.jspwiki.javacc.ParseException;
+import org.xwiki.rendering.wikimodel.internal.jspwiki.javacc.SimpleCharStream;
 
 /**
  * @version $Id$
@@ -34,6 +37,12 @@
  */
 public class JspWikiParser implements IWikiParser
 {
+    /**
+     * The char streams (and their buffers) reused between parsing.
+     */
+    private static final ThreadLocalPool<SimpleCharStream> STREAMS =
+        new ThreadLocalPool<>(() -> new SimpleCharStream(Reader.nullReader()));
+
     /**
      *
      */
@@ -49,12 +58,18 @@ public JspWikiParser()
     public void parse(Reader reader, IWemListener listener)
         throws WikiParserException
     {
+        SimpleCharStream stream = STREAMS.acquire();
         try {
-            JspWikiScanner scanner = new JspWikiScanner(reader);
+            stream.ReInit(reader);
+            JspWikiScanner scanner = new JspWikiScanner(new JspWikiScannerTokenManager(stream));
             WikiScannerContext context = new WikiScannerContext(listener);
             scanner.parse(context);
         } catch (ParseException e) {
             throw new WikiParserException(e);
+        } finally {
+            // Don't keep a reference to the parsed content
+            stream.ReInit(Reader.nullReader());
+            STREAMS.release(stream);
         }
     }
 }
@@ -25,8 +25,11 @@
 import org.xwiki.rendering.wikimodel.IWikiParser;
 import org.xwiki.rendering.wikimodel.WikiParserException;
 import org.xwiki.rendering.wikimodel.impl.WikiScannerContext;
+import org.xwiki.rendering.wikimodel.internal.ThreadLocalPool;
 import org.xwiki.rendering.wikimodel.internal.xwiki.xwiki20.javacc.ParseException;
+import org.xwiki.rendering.wikimodel.internal.xwiki.xwiki20.javacc.SimpleCharStream;
 import org.xwiki.rendering.wikimodel.internal.xwiki.xwiki20.javacc.XWikiScanner;
+import org.xwiki.rendering.wikimodel.internal.xwiki.xwiki20.javacc.XWikiScannerTokenManager;
 
 /**
  * @version $Id$
@@ -34,6 +37,12 @@
  */
 public class XWikiParser implements IWikiParser
 {
+    /**
+     * The char streams (and their buffers) reused between parsing.
+     */
+    private static final ThreadLocalPool<SimpleCharStream> STREAMS =
+        new ThreadLocalPool<>(() -> new SimpleCharStream(Reader.nullReader()));
+
     public XWikiParser()
     {
         super();
@@ -46,12 +55,18 @@ public XWikiParser()
     public void parse(Reader reader, IWemListener listener)
         throws WikiParserException
     {
+        SimpleCharStream stream = STREAMS.acquire();
         try {
-            XWikiScanner scanner = new XWikiScanner(reader);
+            stream.ReInit(reader);
+            XWikiScanner scanner = new XWikiScanner(new XWikiScannerTokenManager(stream));
             WikiScannerContext context = new WikiScannerContext(listener);
             scanner.parse(context);
         } catch (ParseException e) {
             throw new WikiParserException(e);
+        } finally {
+            // Don't keep a reference to the parsed content
+            stream.ReInit(Reader.nullReader());
+            STREAMS.release(stream);
         }
     }
 }
@@ -0,0 +1,84 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.wikimodel.internal;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Validate {@link ThreadLocalPool}.
+ *
+ * @version $Id$
+ */
+class ThreadLocalPoolTest
+{
+    private final AtomicInteger created = new AtomicInteger();
+
+    private final ThreadLocalPool<StringBuilder> pool = new ThreadLocalPool<>(() -> {
+        this.created.incrementAndGet();
+        return new StringBuilder();
+    }, 1);
+
+    @Test
+    void reuseReleasedElement()
+    {
+        StringBuilder element = this.pool.acquire();
+        this.pool.release(element);
+
+        assertSame(element, this.pool.acquire());
+        assertEquals(1, this.created.get());
+    }
+
+    @Test
+    void nestedAcquire()
+    {
+        StringBuilder element1 = this.pool.acquire();
+        StringBuilder element2 = this.pool.acquire();
+
+        assertNotSame(element1, element2);
+
+        this.pool.release(element2);
+        // Exceed the maximum size of the pool
+        this.pool.release(element1);
+
+        assertSame(element2, this.pool.acquire());
+        this.pool.acquire();
+        assertEquals(3, this.created.get());
+    }
+
+    @Test
+    void acquireFromAnotherThread() throws InterruptedException
+    {
+        StringBuilder element = this.pool.acquire();
+        this.pool.release(element);
+
+        StringBuilder[] otherThreadElement = new StringBuilder[1];
+        Thread thread = new Thread(() -> otherThreadElement[0] = this.pool.acquire());
+        thread.start();
+        thread.join();
+
+        assertNotSame(element, otherThreadElement[0]);
+    }
+}
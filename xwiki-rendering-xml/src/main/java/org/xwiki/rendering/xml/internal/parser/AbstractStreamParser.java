@@ -37,6 +37,7 @@
 import org.xwiki.component.phase.Initializable;
 import org.xwiki.component.phase.InitializationException;
 import org.xwiki.rendering.listener.Listener;
+import org.xwiki.rendering.listener.WrappingListener;
 import org.xwiki.rendering.parser.ParseException;
 import org.xwiki.rendering.parser.StreamParser;
 import org.xwiki.rendering.parser.xml.ContentHandlerStreamParser;
@@ -62,6 +63,36 @@ public abstract class AbstractStreamParser implements ContentHandlerStreamParser
      */
     private SAXParserFactory parserFactory;
 
+    /**
+     * The parser kept for each thread so that it can be reused by following parsing on that thread.
+     */
+    private final ThreadLocal<ReusableParser> reusableParsers = new ThreadLocal<>();
+
+    /**
+     * A fully configured XML parsing chain which can be reused to parse several documents, one at a time.
+     *
+     * @version $Id$
+     */
+    private static final class ReusableParser
+    {
+        private final SAXParser saxParser;
+
+        private final LocalEntityResolver entityResolver = new LocalEntityResolver();
+
+        private final WrappingListener listener;
+
+        private final ContentHandlerStreamParser streamParser;
+
+        private boolean used;
+
+        ReusableParser(SAXParser saxParser, WrappingListener listener, ContentHandlerStreamParser streamParser)
+        {
+            this.saxParser = saxParser;
+            this.listener = listener;
+            this.streamParser = streamParser;
+        }
+    }
+
     @Override
     public void initialize() throws InitializationException
     {
@@ -114,15 +145,56 @@ public void parse(Reader source, Listener listener) throws ParseException
     public void parseXML(Reader source, Listener listener) throws ParserConfigurationException, SAXException,
         IOException
     {
-        SAXParser saxParser = this.parserFactory.newSAXParser();
-        XMLReader xmlReader = saxParser.getXMLReader();
+        ReusableParser parser = this.reusableParsers.get();
+
+        boolean cached;
+        if (parser == null || parser.used) {
+            parser = createReusableParser();
+            // Don't replace the parser currently used by a parsing in progress on this thread
+            cached = this.reusableParsers.get() == null;
+            if (cached) {
+                this.reusableParsers.set(parser);
+            }
+        } else {
+            cached = true;
+        }
+
+        parser.used = true;
+        boolean success = false;
+        try {
+            parser.listener.setWrappedListener(listener);
+
+            XMLReader xmlReader = parser.saxParser.getXMLReader();
 
-        // Set an EntityResolver so DTDs can be found.
-        xmlReader.setEntityResolver(new LocalEntityResolver());
+            // Set an EntityResolver so DTDs can be found.
+            xmlReader.setEntityResolver(parser.entityResolver);
+            xmlReader.setContentHandler(parser.streamParser);
 
-        ContentHandlerStreamParser parser = createParser(listener);
-        xmlReader.setContentHandler(parser);
+            xmlReader.parse(new InputSource(source));
+
+            success = true;
+        } finally {
+            // Don't keep a reference to the listener (and what it produced)
+            parser.listener.setWrappedListener(null);
+            parser.used = false;
+
+            if (cached) {
+                if (success) {
+                    parser.saxParser.reset();
+                } else {
+                    // The state of a parser which failed is unknown so it's safer to not reuse it
+                    this.reusableParsers.remove();
+                }
+            }
+        }
+    }
+
+    private ReusableParser createReusableParser() throws ParserConfigurationException, SAXException
+    {
+        // The stream parser is created once with a listener which forward the events to the actual listener of
+        // each parsing
+        WrappingListener listener = new WrappingListener();
 
-        xmlReader.parse(new InputSource(source));
+        return new ReusableParser(this.parserFactory.newSAXParser(), listener, createParser(listener));
     }
 }
@@ -57,7 +57,11 @@ public XHTMLWriter(Writer writer)
     @Override
     protected String escapeAttributeEntities(String text)
     {
-        return super.escapeAttributeEntities(text).replace("&apos;", "&#38;");
+        String escaped = super.escapeAttributeEntities(text);
+
+        // The same instance is returned when there is nothing to escape, avoid scanning it again since attribute values
+        // can be very large (e.g. Data URI images)
+        return escaped == text ? escaped : escaped.replace("&apos;", "&#38;");
     }
 
     /**